@@ -0,0 +1,96 @@
+package org.limix.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.limix.engine.BatchEvaluator;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayBatch;
+import org.limix.engine.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation and reward of a batch of generated matrices, one {@link Ticket} at a time and by the
+ * scalar and the best available {@link BatchEvaluator}, per ticket. The Vector API evaluator is
+ * only available when the benchmarks are built together with the {@code vector} profile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class BatchEvaluatorBenchmark {
+
+  private static final int TICKETS = 4096;
+
+  @Param({"3", "5"})
+  public int gridSize;
+
+  private Ticket ticket;
+  private int[][] matrices;
+  private PlayBatch batch;
+  private BatchEvaluator scalar;
+  private BatchEvaluator best;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CompiledGame game = CompiledGame.compile(
+        BenchmarkConfigs.create(gridSize, 6, 2 * gridSize + 2));
+    ticket = new Ticket(game);
+    batch = new PlayBatch(game, TICKETS);
+    matrices = new int[TICKETS][];
+    SplittableRandom rng = new SplittableRandom(42);
+    for (int i = 0; i < TICKETS; i++) {
+      ticket.generate(rng);
+      batch.set(i, ticket, 0);
+      matrices[i] = new int[game.cellCount()];
+      for (int cell = 0; cell < game.cellCount(); cell++) {
+        matrices[i][cell] = ticket.cell(cell);
+      }
+    }
+    batch.setBet(100);
+    batch.setSize(TICKETS);
+    scalar = BatchEvaluator.scalar(game, null);
+    best = BatchEvaluator.of(game, null);
+    System.out.println("Best batch evaluator: " + best.kind() + ", " + best.blockSize()
+        + " tickets a block");
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TICKETS)
+  public double ticketAtATime() {
+    double total = 0;
+    for (int[] matrix : matrices) {
+      ticket.load(matrix);
+      ticket.evaluate();
+      total += ticket.reward(100);
+    }
+    return total;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TICKETS)
+  public double[] scalarBatch() {
+    scalar.evaluate(batch);
+    return batch.rewards();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TICKETS)
+  public double[] bestBatch() {
+    best.evaluate(batch);
+    return batch.rewards();
+  }
+}
@@ -0,0 +1,111 @@
+package org.limix.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.limix.entities.GameConfig;
+import org.limix.entities.Probabilities;
+import org.limix.entities.Symbols;
+import org.limix.entities.WinCombinations;
+import org.limix.symboltypes.BonusSymbols;
+import org.limix.symboltypes.StandardSymbols;
+
+// synthetic game configurations sized by the benchmark parameters
+public final class BenchmarkConfigs {
+
+  private BenchmarkConfigs() {
+  }
+
+  /**
+   * A square grid with the given number of standard symbols (weighted 1..n), the usual bonus
+   * symbols, same_symbols combinations from 3 up to the cell count, and linear combinations that
+   * each cover one area per row: combination {@code i} shifts row {@code r} by {@code i * r}
+   * columns, so combination 0 is horizontal and the others are slanted lines.
+   */
+  public static GameConfig create(int size, int symbolCount, int linearCombinations) {
+    return create(size, symbolCount, linearCombinations, size);
+  }
+
+  public static GameConfig create(int size, int symbolCount, int linearCombinations,
+      int areasPerCombination) {
+    GameConfig config = new GameConfig();
+    config.setRows(size);
+    config.setColumns(size);
+
+    Map<String, Symbols> symbols = new LinkedHashMap<>();
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (int i = 0; i < symbolCount; i++) {
+      symbols.put("S" + i, new Symbols(symbolCount - i, "standard", 0, null));
+      weights.put("S" + i, i + 1);
+    }
+    symbols.put("10x", new Symbols(10, "bonus", 0, "multiply_reward"));
+    symbols.put("+1000", new Symbols(0, "bonus", 1000, "extra_bonus"));
+    symbols.put("MISS", new Symbols(0, "bonus", 0, "miss"));
+    config.setSymbols(symbols);
+
+    List<StandardSymbols> standardSymbols = new ArrayList<>();
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        standardSymbols.add(new StandardSymbols(r, c, weights));
+      }
+    }
+    config.setProbabilities(new Probabilities(standardSymbols,
+        new BonusSymbols(Map.of("10x", 1, "+1000", 2, "MISS", 3))));
+
+    Map<String, WinCombinations> winCombinations = new LinkedHashMap<>();
+    for (int count = 3; count <= size * size; count++) {
+      winCombinations.put("same_symbol_" + count + "_times",
+          new WinCombinations(1 + (count - 3) * 0.5, "same_symbols", count, "same_symbols", null));
+    }
+    for (int i = 0; i < linearCombinations; i++) {
+      List<List<String>> areas = new ArrayList<>();
+      for (int a = 0; a < areasPerCombination; a++) {
+        int row = a % size;
+        int offset = a / size;
+        List<String> area = new ArrayList<>();
+        for (int c = 0; c < size; c++) {
+          area.add(row + ":" + Math.floorMod(c + i * row + offset, size));
+        }
+        areas.add(area);
+      }
+      winCombinations.put("linear_" + i,
+          new WinCombinations(2, "linear_symbols", 0, "linear_" + i, areas));
+    }
+    config.setWinCombinations(winCombinations);
+    return config;
+  }
+
+  /**
+   * Like {@link #create(int, int, int)} without linear combinations, plus one linear combination
+   * of {@code areaCount} distinct patterns of {@code length} cells. Each pattern starts at a random
+   * cell and steps right, down or diagonally down-right, so patterns from the same start share
+   * their first cells the way hand-drawn pay lines do.
+   */
+  public static GameConfig withPatterns(int size, int symbolCount, int areaCount, int length,
+      long seed) {
+    GameConfig config = create(size, symbolCount, 0);
+    int[][] steps = {{0, 1}, {1, 0}, {1, 1}};
+    SplittableRandom rng = new SplittableRandom(seed);
+    Set<List<String>> areas = new LinkedHashSet<>();
+    while (areas.size() < areaCount) {
+      int row = rng.nextInt(size - length + 1);
+      int column = rng.nextInt(size - length + 1);
+      List<String> area = new ArrayList<>();
+      area.add(row + ":" + column);
+      for (int i = 1; i < length; i++) {
+        int[] step = steps[rng.nextInt(steps.length)];
+        row += step[0];
+        column += step[1];
+        area.add(row + ":" + column);
+      }
+      areas.add(area);
+    }
+    config.getWinCombinations().put("patterns",
+        new WinCombinations(2, "linear_symbols", 0, "patterns", new ArrayList<>(areas)));
+    return config;
+  }
+}
@@ -0,0 +1,85 @@
+package org.limix.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.Ticket;
+import org.limix.journal.Journal;
+import org.limix.random.RandomSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A play with and without appending it to a {@link Journal} synced with the default policy. Run
+ * with {@code -t} to measure concurrent writers; a fresh journal is opened for every iteration so
+ * that the segments do not pile up on disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+  private GameEngine engine;
+  private Path directory;
+  private Journal journal;
+
+  @State(Scope.Thread)
+  public static class Seeds {
+
+    private final SplittableRandom rng = new SplittableRandom();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    engine = new GameEngine(CompiledGame.compile(BenchmarkConfigs.create(3, 6, 8)));
+  }
+
+  @Setup(Level.Iteration)
+  public void openJournal() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark");
+    journal = Journal.open(directory, engine.game(), RandomSource.defaultSource(), 1 << 20,
+        1 << 20, Duration.ofMillis(10));
+  }
+
+  @TearDown(Level.Iteration)
+  public void deleteJournal() throws IOException {
+    journal.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public double play(Seeds seeds) {
+    Ticket ticket = engine.playInPlace(seeds.rng.nextLong());
+    return engine.reward(ticket, 100);
+  }
+
+  @Benchmark
+  public long playAndJournal(Seeds seeds) {
+    Ticket ticket = engine.playInPlace(seeds.rng.nextLong());
+    return journal.append(ticket, 100, engine.reward(ticket, 100));
+  }
+}
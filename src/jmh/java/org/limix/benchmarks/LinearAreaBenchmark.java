@@ -0,0 +1,83 @@
+package org.limix.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the linear_symbols evaluation of a large grid against the number of configured areas.
+ * Subtract {@link #loadMatrix} from {@link #applyWinningLinearSymbols}; the difference grows much
+ * slower than the area count once the patterns start sharing their first cells, from about 10,000
+ * areas on this grid, and about linearly below that.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LinearAreaBenchmark {
+
+  private static final int MATRICES = 256;
+
+  @Param({"100"})
+  public int gridSize;
+
+  @Param({"1000", "10000", "100000", "300000"})
+  public int areaCount;
+
+  @Param({"6"})
+  public int areaLength;
+
+  private Ticket ticket;
+  private int[][] matrices;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CompiledGame game = CompiledGame.compile(
+        BenchmarkConfigs.withPatterns(gridSize, 4, areaCount, areaLength, 42));
+    ticket = new Ticket(game);
+
+    SplittableRandom rng = new SplittableRandom(42);
+    matrices = new int[MATRICES][game.cellCount()];
+    Ticket generator = new Ticket(game);
+    for (int[] matrix : matrices) {
+      generator.generate(rng);
+      for (int cell = 0; cell < matrix.length; cell++) {
+        matrix[cell] = generator.cell(cell);
+      }
+    }
+  }
+
+  private int[] nextMatrix() {
+    next = (next + 1) & (MATRICES - 1);
+    return matrices[next];
+  }
+
+  @Benchmark
+  public Ticket loadMatrix() {
+    ticket.load(nextMatrix());
+    return ticket;
+  }
+
+  @Benchmark
+  public int applyWinningLinearSymbols() {
+    ticket.load(nextMatrix());
+    ticket.evaluateLinearSymbols();
+    return ticket.hitCount();
+  }
+}
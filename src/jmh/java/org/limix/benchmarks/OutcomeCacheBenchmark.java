@@ -0,0 +1,80 @@
+package org.limix.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.OutcomeCache;
+import org.limix.engine.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation and reward of generated matrices with and without an {@link OutcomeCache}. Matrices
+ * are drawn up front and loaded in turn, so both benchmarks include the same loading cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OutcomeCacheBenchmark {
+
+  private static final int MATRICES = 1 << 16;
+
+  @Param({"3", "4"})
+  public int gridSize;
+
+  @Param({"3", "6"})
+  public int symbolCount;
+
+  private Ticket ticket;
+  private OutcomeCache cache;
+  private int[][] matrices;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CompiledGame game = CompiledGame.compile(
+        BenchmarkConfigs.create(gridSize, symbolCount, 2 * gridSize + 2));
+    ticket = new Ticket(game);
+    // never bypassed, to measure the lookups themselves
+    cache = new OutcomeCache(game, 1 << 16, 0);
+    SplittableRandom rng = new SplittableRandom(42);
+    matrices = new int[MATRICES][game.cellCount()];
+    for (int[] matrix : matrices) {
+      ticket.generate(rng);
+      for (int cell = 0; cell < matrix.length; cell++) {
+        matrix[cell] = ticket.cell(cell);
+      }
+    }
+  }
+
+  private int[] nextMatrix() {
+    next = (next + 1) & (MATRICES - 1);
+    return matrices[next];
+  }
+
+  @Benchmark
+  public double plainEvaluation() {
+    ticket.load(nextMatrix());
+    ticket.evaluate();
+    return ticket.reward(100);
+  }
+
+  @Benchmark
+  public double cachedEvaluation() {
+    ticket.load(nextMatrix());
+    return cache.evaluate(ticket, 100);
+  }
+}
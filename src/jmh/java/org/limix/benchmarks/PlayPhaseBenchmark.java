@@ -0,0 +1,145 @@
+package org.limix.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.limix.ScratchGame;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.engine.Ticket;
+import org.limix.metrics.PlayMetrics;
+import org.limix.random.RandomSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of each phase of a play on its own and end to end. The evaluation phases run against a
+ * rotating set of pre-generated matrices; {@link #loadMatrix} is the loading baseline to subtract
+ * from them. {@link #endToEndPlayResultWithMetrics} against {@link #endToEndPlayResult} is the
+ * overhead of enabled play metrics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayPhaseBenchmark {
+
+  private static final int MATRICES = 1024;
+
+  @Param({"3", "5", "8", "16"})
+  public int gridSize;
+
+  @Param({"6", "24"})
+  public int symbolCount;
+
+  @Param({"2", "32"})
+  public int linearCombinations;
+
+  private ScratchGame scratchGame;
+  private ScratchGame evaluatedGame;
+  private GameEngine engine;
+  private GameEngine instrumentedEngine;
+  private Ticket ticket;
+  private int[][] matrices;
+  private int next;
+  private SplittableRandom rng;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CompiledGame game = CompiledGame.compile(
+        BenchmarkConfigs.create(gridSize, symbolCount, linearCombinations));
+    rng = new SplittableRandom(42);
+    scratchGame = new ScratchGame(game, 100);
+    evaluatedGame = new ScratchGame(game, 100);
+    evaluatedGame.generateMatrix();
+    evaluatedGame.applyWinningCombinations();
+    engine = new GameEngine(game);
+    instrumentedEngine = new GameEngine(game, RandomSource.defaultSource(), new PlayMetrics(true));
+    ticket = new Ticket(game);
+
+    matrices = new int[MATRICES][game.cellCount()];
+    Ticket generator = new Ticket(game);
+    for (int[] matrix : matrices) {
+      generator.generate(rng);
+      for (int cell = 0; cell < matrix.length; cell++) {
+        matrix[cell] = generator.cell(cell);
+      }
+    }
+  }
+
+  private int[] nextMatrix() {
+    next = (next + 1) & (MATRICES - 1);
+    return matrices[next];
+  }
+
+  @Benchmark
+  public Ticket loadMatrix() {
+    ticket.load(nextMatrix());
+    return ticket;
+  }
+
+  @Benchmark
+  public ScratchGame generateMatrix() {
+    scratchGame.generateMatrix();
+    return scratchGame;
+  }
+
+  @Benchmark
+  public int applyWinningStandardSymbols() {
+    ticket.load(nextMatrix());
+    ticket.evaluateStandardSymbols();
+    return ticket.hitCount();
+  }
+
+  @Benchmark
+  public int applyWinningLinearSymbols() {
+    ticket.load(nextMatrix());
+    ticket.evaluateLinearSymbols();
+    return ticket.hitCount();
+  }
+
+  @Benchmark
+  public double calculateReward() {
+    return evaluatedGame.calculateReward();
+  }
+
+  @Benchmark
+  public String extractOutput() throws JsonProcessingException {
+    return evaluatedGame.extractOutput();
+  }
+
+  @Benchmark
+  public double endToEndScratchGame() {
+    scratchGame.generateMatrix();
+    scratchGame.applyWinningCombinations();
+    return scratchGame.calculateReward();
+  }
+
+  @Benchmark
+  public double endToEndInPlace() {
+    return engine.playInPlace(rng).reward(100);
+  }
+
+  @Benchmark
+  public PlayResult endToEndPlayResult() {
+    return engine.play(100, rng);
+  }
+
+  @Benchmark
+  public PlayResult endToEndPlayResultWithMetrics() {
+    return instrumentedEngine.play(100, rng);
+  }
+}
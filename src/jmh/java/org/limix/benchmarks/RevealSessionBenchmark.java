@@ -0,0 +1,86 @@
+package org.limix.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.RevealSession;
+import org.limix.engine.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Revealing a ticket one cell at a time, per reveal: incrementally with a {@link RevealSession},
+ * and by evaluating the whole matrix again after every reveal. Both start from the same restored
+ * state, so they include the same copying cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RevealSessionBenchmark {
+
+  @Param({"3", "5", "8"})
+  public int gridSize;
+
+  private CompiledGame game;
+  private Ticket ticket;
+  private int[] matrix;
+  private int[] order;
+  private byte[] state;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, 6, 2 * gridSize + 2));
+    ticket = new Ticket(game);
+    ticket.generate(new SplittableRandom(42));
+    state = RevealSession.of(ticket).state();
+    matrix = new int[game.cellCount()];
+    for (int cell = 0; cell < matrix.length; cell++) {
+      matrix[cell] = ticket.cell(cell);
+    }
+    order = new int[game.cellCount()];
+    SplittableRandom rng = new SplittableRandom(7);
+    for (int i = 0; i < order.length; i++) {
+      int j = rng.nextInt(i + 1);
+      order[i] = order[j];
+      order[j] = i;
+    }
+  }
+
+  // reveals every cell, divide by the cells for the cost of one reveal
+  @Benchmark
+  public int incremental() {
+    RevealSession session = RevealSession.restore(game, state);
+    int locked = 0;
+    for (int cell : order) {
+      session.reveal(cell);
+      locked += session.isWinLocked() ? 1 : 0;
+    }
+    return locked;
+  }
+
+  @Benchmark
+  public int wholeMatrix() {
+    RevealSession session = RevealSession.restore(game, state);
+    int locked = 0;
+    for (int cell : order) {
+      session.reveal(cell);
+      ticket.load(matrix);
+      ticket.evaluate();
+      locked += ticket.hitCount() > 0 ? 1 : 0;
+    }
+    return locked;
+  }
+}
@@ -0,0 +1,76 @@
+package org.limix.benchmarks;
+
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.RewardTable;
+import org.limix.engine.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reward of winning plays as doubles against exact fixed point, and the {@link java.math.BigDecimal}
+ * fallback the fixed-point path takes when its products outgrow a long.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RewardBenchmark {
+
+  private static final int TICKETS = 256;
+
+  @Param({"3", "8"})
+  public int gridSize;
+
+  private Ticket[] tickets;
+  private RewardTable rewards;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    CompiledGame game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, 6, 8));
+    rewards = new RewardTable(game, 2, RoundingMode.HALF_EVEN);
+    SplittableRandom rng = new SplittableRandom(42);
+    tickets = new Ticket[TICKETS];
+    for (int i = 0; i < TICKETS; i++) {
+      tickets[i] = new Ticket(game);
+      do {
+        tickets[i].play(rng);
+      } while (tickets[i].hitCount() == 0);
+    }
+  }
+
+  private Ticket nextTicket() {
+    next = (next + 1) & (TICKETS - 1);
+    return tickets[next];
+  }
+
+  @Benchmark
+  public double doubleReward() {
+    return nextTicket().reward(100);
+  }
+
+  @Benchmark
+  public long fixedPointReward() {
+    return nextTicket().reward(10_000, rewards);
+  }
+
+  @Benchmark
+  public long bigDecimalReward() {
+    return rewards.reward(nextTicket(), 10_000);
+  }
+}
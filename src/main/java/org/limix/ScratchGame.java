@@ -1,47 +1,95 @@
 package org.limix;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Objects;
-import java.util.Random;
+import java.util.SortedSet;
+import java.util.SplittableRandom;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Options;
+import org.limix.analysis.AnalysisReport;
+import org.limix.analysis.ExactAnalyzer;
+import org.limix.config.ConfigSnapshot;
+import org.limix.config.ConfigWatcher;
+import org.limix.config.GameRegistry;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayBatch;
+import org.limix.engine.PlayResult;
+import org.limix.engine.PlayView;
+import org.limix.engine.RewardTable;
+import org.limix.engine.Ticket;
 import org.limix.entities.GameConfig;
-import org.limix.entities.Symbols;
-import org.limix.symboltypes.StandardSymbols;
+import org.limix.journal.Journal;
+import org.limix.journal.JournalVerifier;
+import org.limix.metrics.PlayMetrics;
+import org.limix.output.BinaryTicketWriter;
+import org.limix.output.ColumnarTicketWriter;
+import org.limix.output.NdjsonTicketWriter;
+import org.limix.output.TicketJson;
+import org.limix.output.TicketWriter;
+import org.limix.printrun.PrintRunWriter;
+import org.limix.random.RandomSource;
+import org.limix.server.PlayServer;
+import org.limix.simulation.ShardPlan;
+import org.limix.simulation.SimulationReport;
+import org.limix.simulation.SimulationShard;
+import org.limix.simulation.Simulator;
+import org.limix.simulation.StatsFile;
+import org.limix.simulation.VarianceReducedReport;
+import org.limix.simulation.VarianceReducedSimulator;
+import org.limix.stats.RewardStats;
 
 public class ScratchGame {
 
-  private final GameConfig config;
+  // streaming output keeps jackson-databind out of single-ticket runs
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
   private final double bettingAmount;
-  private final String[][] matrix;
-  private final Random random = new Random();
-  private final Map<String, List<String>> appliedWinCombinations = new HashMap<>();
-  //  private final List<String> appliedBonusSymbols = new ArrayList<>();
-  private String appliedBonusSymbol = "";
+  private final Ticket ticket;
+  private final TicketJson json;
+  private final RandomSource random;
+  // draws the seed of every generated matrix
+  private final RandomGenerator seeds;
 
   public ScratchGame(GameConfig config, double bettingAmount) {
-    this.config = config;
-    this.bettingAmount = bettingAmount;
-    this.matrix = new String[config.getRows()][config.getColumns()];
+    this(CompiledGame.compile(config), bettingAmount);
   }
 
-  // create a position record
-  record Position(int row, int column) {
+  public ScratchGame(CompiledGame game, double bettingAmount) {
+    this(game, bettingAmount, RandomSource.defaultSource(), new SplittableRandom().nextLong());
+  }
 
+  public ScratchGame(CompiledGame game, double bettingAmount, RandomSource random, long seed) {
+    this.bettingAmount = bettingAmount;
+    this.ticket = new Ticket(game);
+    this.json = new TicketJson(game);
+    this.random = random;
+    this.seeds = new SplittableRandom(seed);
   }
 
   public void run() throws JsonProcessingException {
@@ -54,61 +102,7 @@ public class ScratchGame {
   }
 
   public void generateMatrix() {
-    // generate standard symbols
-    Map<Position, Map<String, Integer>> positionSymbolMap = config.getProbabilities()
-        .getStandardSymbols()
-        .stream()
-        .collect(Collectors.toMap(
-            s -> new Position(s.getRow(), s.getColumn()),
-            StandardSymbols::getSymbols
-        ));
-
-    int row = matrix.length;
-    int column = matrix[0].length;
-
-    Position bonusPosition = new Position(random.nextInt(row), random.nextInt(column));
-    IntStream.range(0, row).forEach(r ->
-        IntStream.range(0, column).forEach(c -> {
-          Position pos = new Position(r, c);
-          if (pos.equals(bonusPosition) && config.getProbabilities().getBonusSymbols() != null
-              && !config.getProbabilities().getBonusSymbols().getSymbols().isEmpty()) {
-            String bonusSymbol = selectSymbol(
-                config.getProbabilities().getBonusSymbols().getSymbols());
-            appliedBonusSymbol = bonusSymbol;
-            matrix[r][c] = bonusSymbol;
-          } else {
-            Map<String, Integer> symbolProbabilities = positionSymbolMap.getOrDefault(pos,
-                positionSymbolMap.get(new Position(0, 0)));
-            matrix[r][c] = selectSymbol(symbolProbabilities);
-          }
-        })
-    );
-  }
-
-  private String selectSymbol(Map<String, Integer> symbolProbabilities) {
-    if (symbolProbabilities == null || symbolProbabilities.isEmpty()) {
-      return null;
-    }
-
-    int totalWeight = symbolProbabilities.values().stream()
-        .mapToInt(Integer::intValue)
-        .sum();
-
-    if (totalWeight <= 0) {
-      throw new IllegalArgumentException("Total weight must be positive.");
-    }
-
-    double value = Math.random() * totalWeight;
-    int weight = 0;
-
-    for (Entry<String, Integer> entry : symbolProbabilities.entrySet()) {
-      weight += entry.getValue();
-      if (value <= weight) {
-        return entry.getKey();
-      }
-    }
-
-    return null; // must be never happen
+    ticket.generate(random, seeds.nextLong());
   }
 
   public void applyWinningCombinations() {
@@ -120,142 +114,110 @@ public class ScratchGame {
   }
 
   public void applyWinningStandardSymbols() {
-    // count for standard symbols
-    Map<String, Long> symbolCounts = Arrays.stream(matrix)
-        .flatMap(Arrays::stream)
-        .filter(Objects::nonNull)
-        .filter(symbol -> "standard".equals(config.getSymbols().get(symbol).getType()))
-        .collect(Collectors.groupingBy(
-            Function.identity(),
-            Collectors.counting()
-        ));
-
-    Map<String, Integer> sameSymbols = config.getWinCombinations().entrySet().stream()
-        .filter(Objects::nonNull)
-        .filter(entry -> "same_symbols".equals(entry.getValue().getWhen()))
-        .collect(Collectors.toMap(
-            Entry::getKey,
-            entry -> entry.getValue().getCount()
-        ));
-
-    symbolCounts.forEach((key, value) ->
-        sameSymbols.entrySet().stream()
-            .filter(entry -> value >= entry.getValue())
-            .max(Entry.comparingByValue())
-            .ifPresent(entry ->
-                appliedWinCombinations.computeIfAbsent(
-                    key,
-                    k -> new ArrayList<>()
-                ).add(entry.getKey())
-            ));
+    ticket.evaluateStandardSymbols();
   }
 
   public void applyWinningLinearSymbols() {
-    Map<String, Map<List<Position>, String>> linearSymbols =
-        config.getWinCombinations().entrySet().stream()
-            .filter(Objects::nonNull)
-            .filter(entry -> "linear_symbols".equals(entry.getValue().getWhen()))
-            .collect(Collectors.toMap(
-                Entry::getKey,
-                entry -> entry.getValue().getCoveredAreas().stream()
-                    .map(areas -> areas.stream()
-                        .map(pos -> {
-                          String[] parts = pos.split(":");
-                          int r = Integer.parseInt(parts[0]);
-                          int c = Integer.parseInt(parts[1]);
-                          return new Position(r, c);
-                        })
-                        .collect(Collectors.toList())
-                    )
-                    .filter(positions -> {
-                      Position firstPos = positions.getFirst();
-                      String symbol = matrix[firstPos.row()][firstPos.column()];
-                      return symbol != null &&
-                          "standard".equals(config.getSymbols().get(symbol).getType())
-                          && positions.stream()
-                          .allMatch(pos -> symbol.equals(matrix[pos.row()][pos.column()]));
-                    })
-                    .collect(Collectors.toMap(
-                        positions -> positions,
-                        positions -> {
-                          Position firstPos = positions.getFirst();
-                          return matrix[firstPos.row()][firstPos.column()];
-                        }
-                    ))
-            ));
-
-    linearSymbols.forEach((combinationName, coveredAreas) ->
-        coveredAreas.forEach((pos, symbol) -> appliedWinCombinations
-            .computeIfAbsent(symbol, k -> new ArrayList<>())
-            .add(combinationName))
-    );
+    ticket.evaluateLinearSymbols();
   }
 
   public double calculateReward() {
-    if (appliedWinCombinations.isEmpty()) {
-      return 0;
-    }
-
-    double reward = appliedWinCombinations.entrySet().stream()
-        .mapToDouble(entry -> {
-          String symbol = entry.getKey();
-          double symbolReward =
-              bettingAmount * config.getSymbols().get(symbol).getRewardMultiplier();
-          return entry.getValue().stream()
-              .map(winCombinations -> config.getWinCombinations().get(winCombinations)
-                  .getRewardMultiplier())
-              .reduce(symbolReward,
-                  (current, winCombinationsReward) -> current * winCombinationsReward);
-        }).sum();
-
-    // apply bonus symbols
-//    reward = Arrays.stream(matrix)
-//        .flatMap(Arrays::stream)
-//        .filter(Objects::nonNull)
-//        .filter(symbol -> "bonus".equals(config.getSymbols().get(symbol).getType()))
-//        .peek(appliedBonusSymbols::add)
-//        .map(symbol -> config.getSymbols().get(symbol))
-//        .reduce(
-//            reward,
-//            (currentReward, symbolConfig) -> "multiply_reward".equals(symbolConfig.getImpact())
-//                ? currentReward * symbolConfig.getRewardMultiplier()
-//                : "extra_bonus".equals(symbolConfig.getImpact())
-//                    ? currentReward + symbolConfig.getExtra()
-//                    : currentReward
-//            ,
-//            (a, b) -> a
-//        );
-
-    // apply bonus symbols
-    if (appliedBonusSymbol != null && !appliedBonusSymbol.isEmpty()) {
-      Symbols symbolConfig = config.getSymbols().get(appliedBonusSymbol);
-      if (symbolConfig != null) {
-        switch (symbolConfig.getImpact()) {
-          case "multiply_reward" -> reward *= symbolConfig.getRewardMultiplier();
-          case "extra_bonus" -> reward += symbolConfig.getExtra();
-        }
-      }
-    }
-
-    return reward;
+    return ticket.reward(bettingAmount);
   }
 
   public String extractOutput() throws JsonProcessingException {
-    double reward = calculateReward();
+    return extractOutput(json, ticket, calculateReward());
+  }
 
-    Map<String, Object> resultMap = new LinkedHashMap<>();
-    resultMap.put("matrix", matrix);
-    resultMap.put("applied_winning_combinations", appliedWinCombinations);
-    resultMap.put("applied_bonus_symbol", appliedBonusSymbol);
-    resultMap.put("reward", reward);
+  static String extractOutput(PlayView play, double reward) throws JsonProcessingException {
+    return extractOutput(new TicketJson(play.game()), play, reward);
+  }
 
-    return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(resultMap);
+  private static String extractOutput(TicketJson json, PlayView play, double reward)
+      throws JsonProcessingException {
+    StringWriter out = new StringWriter(256);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.useDefaultPrettyPrinter();
+      json.write(generator, play, reward);
+    } catch (JsonProcessingException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+
+  // reads a configuration snapshot as is, anything else as JSON
+  private static GameConfig loadConfig(String configPath) throws IOException {
+    Path path = Path.of(configPath);
+    return ConfigSnapshot.isSnapshot(path)
+        ? ConfigSnapshot.read(path)
+        : new ObjectMapper().readValue(path.toFile(), GameConfig.class);
   }
 
   public static void main(String[] args) {
     Options options = new Options();
     options.addOption("c", "config", true, "Configuration file path");
     options.addOption("b", "betting-amount", true, "Betting amount");
+    options.addOption("s", "simulate", true, "Number of tickets to simulate for an RTP report");
+    options.addOption(null, "snapshot", true,
+        "Validate the configuration and write its pre-parsed snapshot to the given file");
+    options.addOption(null, "outcome-cache", true,
+        "Memoize the outcomes of small grids while simulating, entries per thread (power of two)");
+    options.addOption(null, "stats-out", true,
+        "Also write the mergeable stats of the simulation to the given file");
+    options.addOption(null, "merge-stats", true,
+        "Print the report of the comma-separated stats files of separate runs, merged in order");
+    options.addOption(null, "variance-reduction", true,
+        "Estimate the RTP with the comma-separated importance, strata and antithetic techniques");
+    options.addOption(null, "shards", true,
+        "Split the simulation into the given number of shards, each played by a local process");
+    options.addOption(null, "shard", true, "Only play the given shard of --shards, from 0");
+    options.addOption(null, "shard-dir", true,
+        "Directory of the shard files and checkpoints (default shards)");
+    options.addOption(null, "checkpoint-seconds", true,
+        "Seconds between the checkpoints of a shard (default 60)");
+    options.addOption(null, "merge-shards", true,
+        "Print the report of the comma-separated files of all the shards of a run");
+    options.addOption("a", "analyze", false, "Print the exact RTP and reward distribution");
+    options.addOption(null, "seed", true, "Master seed of the play, ticket stream or simulation");
+    options.addOption(null, "rng", true,
+        "Random algorithm, e.g. SplittableRandom (default) or L64X128MixRandom");
+    options.addOption(null, "replay", true, "Replay the ticket of the given play seed");
+    options.addOption("t", "threads", true, "Worker threads of the simulation");
+    options.addOption("n", "tickets", true, "Number of tickets to stream to the output");
+    options.addOption("o", "output", true, "Output file of the streamed tickets (default stdout)");
+    options.addOption("f", "format", true,
+        "Format of the streamed tickets: ndjson, binary or columnar");
+    options.addOption(null, "print-run", true,
+        "Pre-generate a print run of --tickets tickets into the given file");
+    options.addOption(null, "serve", true, "Start the HTTP play service on the given port");
+    options.addOption(null, "watch", false,
+        "Reload the configuration file while serving whenever it changes");
+    options.addOption(null, "games", true,
+        "Also serve every <game id>.json of the given directory, picked by the game parameter");
+    options.addOption(null, "max-games", true, "Compiled games the service keeps cached");
+    options.addOption(null, "max-games-mb", true, "Estimated memory of the cached games in MB");
+    options.addOption(null, "metrics", true,
+        "Record play metrics while serving, exposed over JMX and dumped every given seconds");
+    options.addOption(null, "money-digits", true,
+        "Compute rewards in exact fixed point, rounded to the given fraction digits of the bet");
+    options.addOption(null, "rounding", true,
+        "Rounding of fixed-point rewards, a java.math.RoundingMode (default HALF_EVEN)");
+    options.addOption(null, "max-in-flight", true, "Requests the play service admits at once");
+    options.addOption(null, "max-batch", true, "Largest batch the play service accepts");
+    options.addOption(null, "journal", true,
+        "Append every ticket served or streamed to the audit journal of the given directory");
+    options.addOption(null, "journal-sync-ms", true,
+        "Longest time in milliseconds before journaled tickets are synced to disk (default 10)");
+    options.addOption(null, "journal-sync-kb", true,
+        "Journaled KB that trigger a sync before the time is up (default 1024)");
+    options.addOption(null, "journal-segment", true,
+        "Records per journal segment file (default 1048576)");
+    options.addOption(null, "verify-journal", true,
+        "Replay the audit journal of the given directory and report the mismatches");
+    options.addOption(null, "journal-configs", true,
+        "Comma-separated version=config pairs, the configuration of each version of the journal");
 
     CommandLineParser parser = new DefaultParser();
     try {
@@ -264,15 +226,320 @@ public class ScratchGame {
       int bettingAmount = Integer.parseInt(cmd.getOptionValue("betting-amount", "100"));
 
       // load config
-      ObjectMapper objectMapper = new ObjectMapper();
-      GameConfig config = objectMapper.readValue(new File(configPath), GameConfig.class);
+      GameConfig config = loadConfig(configPath);
+      RandomSource random = RandomSource.of(
+          cmd.getOptionValue("rng", RandomSource.DEFAULT_ALGORITHM));
+      long seed = cmd.hasOption("seed")
+          ? Long.parseLong(cmd.getOptionValue("seed"))
+          : new SplittableRandom().nextLong();
+
+      if (cmd.hasOption("snapshot")) {
+        // validate the configuration and pre-parse it for fast starts
+        ConfigSnapshot.write(config, Path.of(cmd.getOptionValue("snapshot")));
+        return;
+      }
 
-      // run the game
-      ScratchGame scratchGame = new ScratchGame(config, bettingAmount);
-      scratchGame.run();
+      if (cmd.hasOption("analyze")) {
+        // compute the payout distribution exactly instead of sampling it
+        AnalysisReport report = new ExactAnalyzer(CompiledGame.compile(config))
+            .analyze(bettingAmount);
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter()
+            .writeValueAsString(report));
+        return;
+      }
+
+      if (cmd.hasOption("merge-shards")) {
+        // the report of shards played elsewhere, e.g. on several machines, checked against the run
+        if (!cmd.hasOption("seed") || !cmd.hasOption("simulate")) {
+          throw new IllegalArgumentException(
+              "--merge-shards needs the --seed and --simulate of the run.");
+        }
+        List<Path> files = new ArrayList<>();
+        for (String file : cmd.getOptionValue("merge-shards").split(",")) {
+          files.add(Path.of(file.trim()));
+        }
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter()
+            .writeValueAsString(SimulationShard.merge(
+                new Simulator(CompiledGame.compile(config), random), bettingAmount, seed,
+                Long.parseLong(cmd.getOptionValue("simulate")), files)));
+        return;
+      }
+
+      if (cmd.hasOption("simulate")) {
+        // play many tickets across all cores and print the RTP report
+        long tickets = Long.parseLong(cmd.getOptionValue("simulate"));
+        int threads = Integer.parseInt(cmd.getOptionValue("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int cacheCapacity = Integer.parseInt(cmd.getOptionValue("outcome-cache", "0"));
+        CompiledGame game = CompiledGame.compile(config);
+        if (cmd.hasOption("variance-reduction")) {
+          // a tighter RTP estimate from fewer plays, with its confidence interval
+          List<String> techniques = List.of(cmd.getOptionValue("variance-reduction").split(","));
+          for (String technique : techniques) {
+            if (!List.of("importance", "strata", "antithetic").contains(technique)) {
+              throw new IllegalArgumentException("Unknown variance reduction: " + technique);
+            }
+          }
+          VarianceReducedReport report = new VarianceReducedSimulator(game, random,
+              techniques.contains("importance"), techniques.contains("strata"),
+              techniques.contains("antithetic")).run(tickets, bettingAmount, seed, threads);
+          System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter()
+              .writeValueAsString(report));
+          return;
+        }
+        Simulator simulator = new Simulator(game, random, cacheCapacity);
+        SimulationReport report;
+        if (cmd.hasOption("shards")) {
+          // split the run into shards, each played and checkpointed by a process of its own
+          if (!cmd.hasOption("seed")) {
+            throw new IllegalArgumentException("--shards needs a --seed that every shard plays.");
+          }
+          int shards = Integer.parseInt(cmd.getOptionValue("shards"));
+          Path directory = Path.of(cmd.getOptionValue("shard-dir", "shards"));
+          Files.createDirectories(directory);
+          ShardPlan plan = ShardPlan.of(tickets, shards);
+          if (cmd.hasOption("shard")) {
+            int shard = Integer.parseInt(cmd.getOptionValue("shard"));
+            new SimulationShard(simulator, plan, shard, bettingAmount, seed,
+                SimulationShard.file(directory, shard, shards)).run(
+                Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("checkpoint-seconds", "60"))),
+                Long.MAX_VALUE);
+            return;
+          }
+          runShards(args, shards);
+          List<Path> files = new ArrayList<>();
+          for (int shard = 0; shard < shards; shard++) {
+            files.add(SimulationShard.file(directory, shard, shards));
+          }
+          report = SimulationShard.merge(simulator, bettingAmount, seed, tickets, files);
+        } else if (cmd.hasOption("stats-out")) {
+          // keep the full stats, to be merged with other runs later
+          long start = System.nanoTime();
+          RewardStats stats = simulator.stats(tickets, bettingAmount, seed, threads,
+              new ArrayList<>());
+          long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+          StatsFile.write(Path.of(cmd.getOptionValue("stats-out")), stats, seed,
+              random.algorithm(), elapsedMillis);
+          report = SimulationReport.of(game, stats, seed, random.algorithm(), elapsedMillis, null);
+        } else {
+          report = simulator.run(tickets, bettingAmount, seed, threads);
+        }
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter()
+            .writeValueAsString(report));
+        return;
+      }
+
+      if (cmd.hasOption("merge-stats")) {
+        // combine the stats files of separate runs into one report
+        List<Path> files = new ArrayList<>();
+        for (String file : cmd.getOptionValue("merge-stats").split(",")) {
+          files.add(Path.of(file.trim()));
+        }
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter()
+            .writeValueAsString(StatsFile.merge(CompiledGame.compile(config), files)));
+        return;
+      }
+
+      if (cmd.hasOption("verify-journal")) {
+        // every configuration version of the journal is replayed with its own configuration
+        int threads = Integer.parseInt(cmd.getOptionValue("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Path directory = Path.of(cmd.getOptionValue("verify-journal"));
+        Map<Long, GameEngine> engines = new HashMap<>();
+        if (cmd.hasOption("journal-configs")) {
+          for (String pair : cmd.getOptionValue("journal-configs").split(",")) {
+            int separator = pair.indexOf('=');
+            long version = Long.parseLong(pair.substring(0, separator).trim());
+            engines.put(version, newEngine(CompiledGame.compile(
+                loadConfig(pair.substring(separator + 1).trim()), version), random, null, cmd));
+          }
+        } else {
+          SortedSet<Long> versions = JournalVerifier.versions(directory);
+          if (versions.size() > 1) {
+            throw new IllegalArgumentException("The journal holds configuration versions "
+                + versions + ", give the configuration of each with --journal-configs.");
+          }
+          for (long version : versions) {
+            engines.put(version,
+                newEngine(CompiledGame.compile(config, version), random, null, cmd));
+          }
+        }
+        System.out.println(new ObjectMapper().writerWithDefaultPrettyPrinter()
+            .writeValueAsString(new JournalVerifier(engines::get).verify(directory, threads)));
+        return;
+      }
+
+      if (cmd.hasOption("serve")) {
+        // serve plays over HTTP until the JVM is asked to stop
+        PlayMetrics metrics = null;
+        if (cmd.hasOption("metrics")) {
+          metrics = new PlayMetrics(true).register();
+          long period = Long.parseLong(cmd.getOptionValue("metrics"));
+          if (period > 0) {
+            metrics.scheduleDump(Duration.ofSeconds(period), System.err::print);
+          }
+        }
+        Supplier<GameEngine> engines;
+        if (cmd.hasOption("watch")) {
+          engines = new ConfigWatcher(Path.of(configPath), random, metrics, rewardTables(cmd),
+              error -> System.err.println("Keeping the current configuration: "
+                  + error.getMessage())).start();
+        } else {
+          GameEngine engine = newEngine(CompiledGame.compile(config), random, metrics, cmd);
+          engines = () -> engine;
+        }
+        GameRegistry games = null;
+        if (cmd.hasOption("games")) {
+          games = new GameRegistry(Path.of(cmd.getOptionValue("games")), random, metrics,
+              rewardTables(cmd),
+              Integer.parseInt(cmd.getOptionValue("max-games", "256")),
+              Long.parseLong(cmd.getOptionValue("max-games-mb", "512")) << 20).register();
+        }
+        Journal journal = cmd.hasOption("journal")
+            ? openJournal(cmd, engines.get().game(), random)
+            : null;
+        PlayServer server = new PlayServer(
+            new InetSocketAddress(Integer.parseInt(cmd.getOptionValue("serve"))),
+            engines, games, journal,
+            Integer.parseInt(cmd.getOptionValue("max-in-flight", "10000")),
+            Integer.parseInt(cmd.getOptionValue("max-batch", "10000"))).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+          try {
+            server.stop(Duration.ofSeconds(10));
+            if (journal != null) {
+              journal.close();
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (IOException e) {
+            System.err.println("Closing the journal failed: " + e.getMessage());
+          }
+        }));
+        System.err.println("Serving plays on port " + server.port());
+        return;
+      }
+
+      if (cmd.hasOption("print-run")) {
+        // pre-generate the whole run into one fixed-width, memory-mappable file
+        if (!cmd.hasOption("tickets")) {
+          throw new IllegalArgumentException("--print-run needs the number of --tickets.");
+        }
+        int threads = Integer.parseInt(cmd.getOptionValue("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        new PrintRunWriter(CompiledGame.compile(config), random).write(
+            Path.of(cmd.getOptionValue("print-run")),
+            Long.parseLong(cmd.getOptionValue("tickets")), bettingAmount, seed, threads);
+        return;
+      }
+
+      if (cmd.hasOption("tickets")) {
+        // stream a batch of tickets as newline-delimited JSON or binary records, the i-th
+        // ticket is played from the i-th seed of the master seed
+        long tickets = Long.parseLong(cmd.getOptionValue("tickets"));
+        GameEngine engine = newEngine(CompiledGame.compile(config), random, null, cmd);
+        if (cmd.hasOption("journal") && "columnar".equals(cmd.getOptionValue("format"))) {
+          throw new IllegalArgumentException("--journal cannot record columnar batches.");
+        }
+        try (TicketWriter writer = openTicketWriter(cmd, engine.game());
+            Journal journal = cmd.hasOption("journal")
+                ? openJournal(cmd, engine.game(), random)
+                : null) {
+          if (writer instanceof ColumnarTicketWriter columnar) {
+            // whole row groups are played straight into reused column buffers
+            PlayBatch batch = new PlayBatch(engine.game(), ColumnarTicketWriter.ROW_GROUP);
+            for (long first = 0; first < tickets; first += batch.capacity()) {
+              int count = (int) Math.min(batch.capacity(), tickets - first);
+              columnar.write(engine.playBatch(batch, count, bettingAmount, seed, first));
+            }
+          } else {
+            for (long i = 0; i < tickets; i++) {
+              Ticket ticket = engine.playInPlace(RandomSource.seedAt(seed, i));
+              double reward = engine.reward(ticket, bettingAmount);
+              if (journal != null) {
+                journal.append(ticket, bettingAmount, reward);
+              }
+              writer.write(ticket, bettingAmount, reward);
+            }
+          }
+        }
+        return;
+      }
+
+      // run the game, or replay a recorded play seed
+      long playSeed = cmd.hasOption("replay")
+          ? Long.parseLong(cmd.getOptionValue("replay"))
+          : RandomSource.seedAt(seed, 0);
+      PlayResult result = newEngine(CompiledGame.compile(config), random, null, cmd)
+          .play(bettingAmount, playSeed);
+      System.out.println(extractOutput(result, result.reward()));
 
     } catch (Exception e) {
       System.err.println("Error parsing command line: " + e.getMessage());
+      // a failed shard or script step must not look like a success
+      System.exit(1);
+    }
+  }
+
+  // plays every shard in a local process, which resumes the shard from its checkpoint if any
+  private static void runShards(String[] args, int shards)
+      throws IOException, InterruptedException {
+    List<Process> processes = new ArrayList<>();
+    for (int shard = 0; shard < shards; shard++) {
+      List<String> command = new ArrayList<>(List.of(
+          ProcessHandle.current().info().command().orElse("java"),
+          "-cp", System.getProperty("java.class.path"), ScratchGame.class.getName()));
+      command.addAll(List.of(args));
+      command.addAll(List.of("--shard", String.valueOf(shard)));
+      processes.add(new ProcessBuilder(command).inheritIO().start());
+    }
+    List<Integer> failed = new ArrayList<>();
+    for (int shard = 0; shard < shards; shard++) {
+      if (processes.get(shard).waitFor() != 0) {
+        failed.add(shard);
+      }
     }
+    if (!failed.isEmpty()) {
+      throw new IOException("Shards " + failed + " failed, run again to resume them.");
+    }
+  }
+
+  // fixed-point rewards when --money-digits is given, double rewards otherwise
+  private static GameEngine newEngine(CompiledGame game, RandomSource random, PlayMetrics metrics,
+      CommandLine cmd) {
+    return new GameEngine(game, random, metrics, rewardTables(cmd).apply(game));
+  }
+
+  // the reward table of a game as --money-digits and --rounding ask, null without them
+  private static Function<CompiledGame, RewardTable> rewardTables(CommandLine cmd) {
+    if (!cmd.hasOption("money-digits")) {
+      return game -> null;
+    }
+    int fractionDigits = Integer.parseInt(cmd.getOptionValue("money-digits"));
+    RoundingMode rounding = RoundingMode.valueOf(cmd.getOptionValue("rounding", "HALF_EVEN"));
+    return game -> new RewardTable(game, fractionDigits, rounding);
+  }
+
+  private static Journal openJournal(CommandLine cmd, CompiledGame game, RandomSource random)
+      throws IOException {
+    return Journal.open(Path.of(cmd.getOptionValue("journal")), game, random,
+        Long.parseLong(cmd.getOptionValue("journal-segment", "1048576")),
+        Long.parseLong(cmd.getOptionValue("journal-sync-kb", "1024")) << 10,
+        Duration.ofMillis(Long.parseLong(cmd.getOptionValue("journal-sync-ms", "10"))),
+        error -> System.err.println("Journal sync failed: " + error.getMessage()));
+  }
+
+  private static TicketWriter openTicketWriter(CommandLine cmd, CompiledGame game)
+      throws IOException {
+    WritableByteChannel channel = cmd.hasOption("output")
+        ? FileChannel.open(Path.of(cmd.getOptionValue("output")), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+        : Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+    return switch (cmd.getOptionValue("format", "ndjson")) {
+      case "ndjson" -> new NdjsonTicketWriter(Channels.newOutputStream(channel));
+      case "binary" -> new BinaryTicketWriter(channel, game);
+      case "columnar" -> new ColumnarTicketWriter(channel, game);
+      default -> throw new IllegalArgumentException(
+          "Unknown format: " + cmd.getOptionValue("format"));
+    };
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package org.limix.analysis;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+public record AnalysisReport(
+    double bet,
+    double rtp,
+    @JsonProperty("hit_frequency") double hitFrequency,
+    @JsonProperty("mean_reward") double meanReward,
+    @JsonProperty("reward_variance") double rewardVariance,
+    @JsonProperty("max_win") double maxWin,
+    @JsonProperty("reward_distribution") Map<Double, Double> rewardDistribution,
+    @JsonProperty("final_states") int finalStates,
+    @JsonProperty("elapsed_millis") long elapsedMillis
+) {
+
+}
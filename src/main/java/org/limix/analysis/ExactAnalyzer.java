@@ -0,0 +1,361 @@
+package org.limix.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.limix.engine.CompiledGame;
+
+/**
+ * Exact payout distribution of a game. Cells are drawn independently, so the analyzer walks the
+ * cells in order and keeps the probability of every distinct partial state: the capped count of
+ * each standard symbol, the symbol every open covered area is still matching and the linear
+ * multipliers already won. States that can no longer be told apart are merged, which keeps small
+ * grids to a few thousand states instead of every possible matrix. Each bonus position is one
+ * branch off the shared prefix and the branches run in parallel.
+ */
+public class ExactAnalyzer {
+
+  static final int DEFAULT_MAX_STATES = 1 << 22;
+
+  // area states besides the standard symbol slot the area is still matching
+  private static final int NOT_STARTED = -2;
+  private static final int DEAD = -1;
+
+  private final CompiledGame game;
+  private final int maxStates;
+  // standard symbols are renumbered into dense slots, other symbols map to EMPTY
+  private final int[] slotOfSymbol;
+  private final int[] symbolOfSlot;
+  // counts above the cap pick the same same_symbols combination
+  private final int countCap;
+  private final int[][] cellAreas;
+  private final int[] areaLastCell;
+  // per cell outcomes as (slot, probability), all non-standard symbols folded into one
+  private final int[][] outcomeSlots;
+  private final double[][] outcomeProbabilities;
+
+  public ExactAnalyzer(CompiledGame game) {
+    this(game, DEFAULT_MAX_STATES);
+  }
+
+  public ExactAnalyzer(CompiledGame game, int maxStates) {
+    this.game = game;
+    this.maxStates = maxStates;
+
+    this.slotOfSymbol = new int[game.symbolCount()];
+    Arrays.fill(slotOfSymbol, CompiledGame.EMPTY);
+    this.symbolOfSlot = new int[game.standardSymbolCount()];
+    for (int slot = 0; slot < symbolOfSlot.length; slot++) {
+      symbolOfSlot[slot] = game.standardSymbol(slot);
+      slotOfSymbol[symbolOfSlot[slot]] = slot;
+    }
+
+    int cap = game.cellCount();
+    while (cap > 1 && game.sameSymbolsCombination(cap - 1)
+        == game.sameSymbolsCombination(game.cellCount())) {
+      cap--;
+    }
+    this.countCap = cap;
+
+    this.areaLastCell = new int[game.areaCount()];
+    List<List<Integer>> areasByCell = new ArrayList<>();
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      areasByCell.add(new ArrayList<>());
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      for (int i = 0; i < game.areaSize(area); i++) {
+        int cell = game.areaCell(area, i);
+        areasByCell.get(cell).add(area);
+        areaLastCell[area] = Math.max(areaLastCell[area], cell);
+      }
+    }
+    this.cellAreas = new int[game.cellCount()][];
+    this.outcomeSlots = new int[game.cellCount()][];
+    this.outcomeProbabilities = new double[game.cellCount()][];
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      cellAreas[cell] = areasByCell.get(cell).stream().mapToInt(Integer::intValue).toArray();
+      compileOutcomes(cell);
+    }
+  }
+
+  private void compileOutcomes(int cell) {
+    double[] bySlot = new double[symbolOfSlot.length];
+    double other = game.cellWeightCount(cell) == 0 ? 1 : 0;
+    for (int i = 0; i < game.cellWeightCount(cell); i++) {
+      double probability = (double) game.cellWeight(cell, i) / game.cellTotalWeight(cell);
+      int slot = slotOfSymbol[game.cellSymbol(cell, i)];
+      if (slot == CompiledGame.EMPTY) {
+        other += probability;
+      } else {
+        bySlot[slot] += probability;
+      }
+    }
+    List<Integer> slots = new ArrayList<>();
+    List<Double> probabilities = new ArrayList<>();
+    for (int slot = 0; slot < bySlot.length; slot++) {
+      if (bySlot[slot] > 0) {
+        slots.add(slot);
+        probabilities.add(bySlot[slot]);
+      }
+    }
+    if (other > 0) {
+      slots.add(CompiledGame.EMPTY);
+      probabilities.add(other);
+    }
+    outcomeSlots[cell] = slots.stream().mapToInt(Integer::intValue).toArray();
+    outcomeProbabilities[cell] = probabilities.stream().mapToDouble(Double::doubleValue).toArray();
+  }
+
+  public AnalysisReport analyze(double bet) {
+    return analyze(bet, Runtime.getRuntime().availableProcessors());
+  }
+
+  public AnalysisReport analyze(double bet, int parallelism) {
+    long start = System.nanoTime();
+    Outcome base;
+    try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+      base = pool.invoke(new RootTask(bet));
+    }
+
+    // apply the bonus symbol drawn on the bonus cell to every winning base reward
+    Map<Double, Double> distribution = new TreeMap<>();
+    if (base.missProbability > 0) {
+      distribution.put(0.0, base.missProbability);
+    }
+    for (Map.Entry<Double, Double> entry : base.rewards.entrySet()) {
+      if (!game.hasBonusSymbols()) {
+        distribution.merge(entry.getKey(), entry.getValue(), Double::sum);
+        continue;
+      }
+      for (int i = 0; i < game.bonusWeightCount(); i++) {
+        double probability = entry.getValue() * game.bonusWeight(i) / game.bonusTotalWeight();
+        distribution.merge(applyBonus(entry.getKey(), game.bonusSymbol(i)), probability,
+            Double::sum);
+      }
+    }
+
+    double mean = 0;
+    double maxWin = 0;
+    for (Map.Entry<Double, Double> entry : distribution.entrySet()) {
+      mean += entry.getKey() * entry.getValue();
+      maxWin = Math.max(maxWin, entry.getKey());
+    }
+    double variance = 0;
+    for (Map.Entry<Double, Double> entry : distribution.entrySet()) {
+      double delta = entry.getKey() - mean;
+      variance += delta * delta * entry.getValue();
+    }
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+    return new AnalysisReport(bet, mean / bet, 1 - base.missProbability, mean, variance, maxWin,
+        distribution, base.finalStates, elapsedMillis);
+  }
+
+  private double applyBonus(double reward, int bonusSymbol) {
+    return switch (game.impact(bonusSymbol)) {
+      case MULTIPLY_REWARD -> reward * game.symbolMultiplier(bonusSymbol);
+      case EXTRA_BONUS -> reward + game.symbolExtra(bonusSymbol);
+      default -> reward;
+    };
+  }
+
+  private Map<PartialPlay, Double> initial() {
+    int slots = symbolOfSlot.length;
+    int[] values = new int[slots + game.areaCount() + slots];
+    Arrays.fill(values, slots, slots + game.areaCount(), NOT_STARTED);
+    double[] products = new double[slots];
+    Arrays.fill(products, 1);
+    Map<PartialPlay, Double> states = new HashMap<>();
+    states.put(new PartialPlay(values, products), 1.0);
+    return states;
+  }
+
+  // the probability of every state once the given cell is drawn, bonusCell draws a bonus symbol
+  private Map<PartialPlay, Double> advance(Map<PartialPlay, Double> states, int cell, boolean bonusCell) {
+    int[] slots = bonusCell ? new int[]{CompiledGame.EMPTY} : outcomeSlots[cell];
+    double[] probabilities = bonusCell ? new double[]{1} : outcomeProbabilities[cell];
+    Map<PartialPlay, Double> next = new HashMap<>(states.size() * 2);
+    for (Map.Entry<PartialPlay, Double> entry : states.entrySet()) {
+      for (int i = 0; i < slots.length; i++) {
+        next.merge(entry.getKey().draw(cell, slots[i]), entry.getValue() * probabilities[i],
+            Double::sum);
+      }
+    }
+    if (next.size() > maxStates) {
+      throw new IllegalStateException(
+          "Exact analysis exceeds " + maxStates + " states, use the simulation instead.");
+    }
+    return next;
+  }
+
+  private Outcome finish(Map<PartialPlay, Double> states, double weight, double bet) {
+    Outcome outcome = new Outcome();
+    for (Map.Entry<PartialPlay, Double> entry : states.entrySet()) {
+      double probability = entry.getValue() * weight;
+      double reward = entry.getKey().reward(bet);
+      if (Double.isNaN(reward)) {
+        outcome.missProbability += probability;
+      } else {
+        outcome.rewards.merge(reward, probability, Double::sum);
+      }
+    }
+    outcome.finalStates = states.size();
+    return outcome;
+  }
+
+  // base rewards before the bonus symbol, no-win plays are kept apart
+  private static final class Outcome {
+
+    private final Map<Double, Double> rewards = new TreeMap<>();
+    private double missProbability;
+    private int finalStates;
+
+    Outcome merge(Outcome other) {
+      other.rewards.forEach((reward, probability) -> rewards.merge(reward, probability,
+          Double::sum));
+      missProbability += other.missProbability;
+      finalStates = Math.max(finalStates, other.finalStates);
+      return this;
+    }
+  }
+
+  private class RootTask extends RecursiveTask<Outcome> {
+
+    private final double bet;
+
+    RootTask(double bet) {
+      this.bet = bet;
+    }
+
+    @Override
+    protected Outcome compute() {
+      Map<PartialPlay, Double> states = initial();
+      if (!game.hasBonusSymbols()) {
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+          states = advance(states, cell, false);
+        }
+        return finish(states, 1, bet);
+      }
+
+      // the bonus cell is uniform over the grid, each position branches off the shared prefix
+      List<BranchTask> branches = new ArrayList<>();
+      for (int cell = 0; cell < game.cellCount(); cell++) {
+        BranchTask branch = new BranchTask(states, cell, bet);
+        branch.fork();
+        branches.add(branch);
+        states = advance(states, cell, false);
+      }
+      Outcome total = new Outcome();
+      for (BranchTask branch : branches) {
+        total.merge(branch.join());
+      }
+      return total;
+    }
+  }
+
+  private class BranchTask extends RecursiveTask<Outcome> {
+
+    private final Map<PartialPlay, Double> prefix;
+    private final int bonusCell;
+    private final double bet;
+
+    BranchTask(Map<PartialPlay, Double> prefix, int bonusCell, double bet) {
+      this.prefix = prefix;
+      this.bonusCell = bonusCell;
+      this.bet = bet;
+    }
+
+    @Override
+    protected Outcome compute() {
+      Map<PartialPlay, Double> states = advance(prefix, bonusCell, true);
+      for (int cell = bonusCell + 1; cell < game.cellCount(); cell++) {
+        states = advance(states, cell, false);
+      }
+      return finish(states, 1.0 / game.cellCount(), bet);
+    }
+  }
+
+  /**
+   * Partial play: symbol counts per slot, then the state of every area, then a won-linear flag per
+   * slot, with the product of linear multipliers won per slot alongside.
+   */
+  private final class PartialPlay {
+
+    private final int[] values;
+    private final double[] products;
+    private final int hash;
+
+    PartialPlay(int[] values, double[] products) {
+      this.values = values;
+      this.products = products;
+      this.hash = 31 * Arrays.hashCode(values) + Arrays.hashCode(products);
+    }
+
+    PartialPlay draw(int cell, int slot) {
+      int[] nextValues = values.clone();
+      double[] nextProducts = products;
+      int slots = symbolOfSlot.length;
+      if (slot != CompiledGame.EMPTY) {
+        nextValues[slot] = Math.min(countCap, nextValues[slot] + 1);
+      }
+      for (int area : cellAreas[cell]) {
+        int index = slots + area;
+        int current = nextValues[index];
+        int state = current == NOT_STARTED || current == slot ? slot : DEAD;
+        if (state == CompiledGame.EMPTY) {
+          state = DEAD;
+        }
+        if (cell == areaLastCell[area]) {
+          if (state != DEAD) {
+            if (nextProducts == products) {
+              nextProducts = products.clone();
+            }
+            nextProducts[state] *= game.combinationMultiplier(game.areaCombination(area));
+            nextValues[slots + game.areaCount() + state] = 1;
+          }
+          // closed areas never change again, so they all collapse into one value
+          state = DEAD;
+        }
+        nextValues[index] = state;
+      }
+      return new PartialPlay(nextValues, nextProducts);
+    }
+
+    // reward of a complete play before the bonus, NaN when nothing won
+    double reward(double bet) {
+      int slots = symbolOfSlot.length;
+      boolean won = false;
+      double reward = 0;
+      for (int slot = 0; slot < slots; slot++) {
+        int combination = values[slot] > 0
+            ? game.sameSymbolsCombination(values[slot]) : CompiledGame.EMPTY;
+        boolean linear = values[slots + game.areaCount() + slot] != 0;
+        if (combination == CompiledGame.EMPTY && !linear) {
+          continue;
+        }
+        won = true;
+        double symbolReward = bet * game.symbolMultiplier(symbolOfSlot[slot]);
+        if (combination != CompiledGame.EMPTY) {
+          symbolReward *= game.combinationMultiplier(combination);
+        }
+        reward += symbolReward * products[slot];
+      }
+      return won ? reward : Double.NaN;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof PartialPlay other && hash == other.hash
+          && Arrays.equals(values, other.values) && Arrays.equals(products, other.products);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
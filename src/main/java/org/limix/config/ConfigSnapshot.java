@@ -0,0 +1,213 @@
+package org.limix.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.limix.engine.CompiledGame;
+import org.limix.entities.GameConfig;
+import org.limix.entities.Probabilities;
+import org.limix.entities.Symbols;
+import org.limix.entities.WinCombinations;
+import org.limix.symboltypes.BonusSymbols;
+import org.limix.symboltypes.StandardSymbols;
+
+/**
+ * Pre-parsed binary form of a {@link GameConfig}. A snapshot is only written for a configuration
+ * that compiles, and is read back with plain stream reads and constructor calls: no JSON parser,
+ * no reflection, so a short-lived process skips loading and warming up the JSON binding. Map
+ * entries keep their configured order, which the symbol and combination ids depend on.
+ */
+public final class ConfigSnapshot {
+
+  static final int MAGIC = 0x53474353; // "SGCS"
+  static final int VERSION = 1;
+
+  private ConfigSnapshot() {
+  }
+
+  // validates the configuration and writes its snapshot
+  public static void write(GameConfig config, Path path) throws IOException {
+    CompiledGame.compile(config);
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(path)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(config.getRows());
+      out.writeInt(config.getColumns());
+
+      out.writeInt(config.getSymbols().size());
+      for (Map.Entry<String, Symbols> entry : config.getSymbols().entrySet()) {
+        Symbols symbol = entry.getValue();
+        out.writeUTF(entry.getKey());
+        out.writeDouble(symbol.getRewardMultiplier());
+        writeString(out, symbol.getType());
+        out.writeDouble(symbol.getExtra());
+        writeString(out, symbol.getImpact());
+      }
+
+      Probabilities probabilities = config.getProbabilities();
+      List<StandardSymbols> standardSymbols =
+          probabilities == null ? null : probabilities.getStandardSymbols();
+      out.writeInt(standardSymbols == null ? -1 : standardSymbols.size());
+      if (standardSymbols != null) {
+        for (StandardSymbols cell : standardSymbols) {
+          out.writeInt(cell.getRow());
+          out.writeInt(cell.getColumn());
+          writeWeights(out, cell.getSymbols());
+        }
+      }
+      BonusSymbols bonusSymbols = probabilities == null ? null : probabilities.getBonusSymbols();
+      out.writeBoolean(bonusSymbols != null);
+      if (bonusSymbols != null) {
+        writeWeights(out, bonusSymbols.getSymbols());
+      }
+
+      Map<String, WinCombinations> winCombinations = config.getWinCombinations();
+      out.writeInt(winCombinations == null ? -1 : winCombinations.size());
+      if (winCombinations != null) {
+        for (Map.Entry<String, WinCombinations> entry : winCombinations.entrySet()) {
+          WinCombinations combination = entry.getValue();
+          out.writeUTF(entry.getKey());
+          out.writeDouble(combination.getRewardMultiplier());
+          writeString(out, combination.getWhen());
+          out.writeInt(combination.getCount());
+          writeString(out, combination.getGroup());
+          List<List<String>> areas = combination.getCoveredAreas();
+          out.writeInt(areas == null ? -1 : areas.size());
+          if (areas != null) {
+            for (List<String> area : areas) {
+              out.writeInt(area.size());
+              for (String position : area) {
+                out.writeUTF(position);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static void writeWeights(DataOutputStream out, Map<String, Integer> weights)
+      throws IOException {
+    out.writeInt(weights == null ? -1 : weights.size());
+    if (weights != null) {
+      for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeInt(entry.getValue());
+      }
+    }
+  }
+
+  // whether the file starts like a snapshot, JSON configurations never do
+  public static boolean isSnapshot(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return isSnapshot(in.readNBytes(Integer.BYTES));
+    }
+  }
+
+  // whether the content of a file starts like a snapshot
+  public static boolean isSnapshot(byte[] content) {
+    return content.length >= Integer.BYTES
+        && ((content[0] & 0xFF) << 24 | (content[1] & 0xFF) << 16 | (content[2] & 0xFF) << 8
+        | content[3] & 0xFF) == MAGIC;
+  }
+
+  public static GameConfig read(Path path) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+      return read(in);
+    }
+  }
+
+  // the configuration of a snapshot already read into memory
+  public static GameConfig read(byte[] content) throws IOException {
+    return read(new ByteArrayInputStream(content));
+  }
+
+  private static GameConfig read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(stream);
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a configuration snapshot.");
+    }
+    if (in.readInt() != VERSION) {
+      throw new IOException("Unsupported configuration snapshot version.");
+    }
+    int rows = in.readInt();
+    int columns = in.readInt();
+
+    int symbolCount = in.readInt();
+    Map<String, Symbols> symbols = new LinkedHashMap<>();
+    for (int i = 0; i < symbolCount; i++) {
+      String name = in.readUTF();
+      double multiplier = in.readDouble();
+      String type = readString(in);
+      double extra = in.readDouble();
+      symbols.put(name, new Symbols(multiplier, type, extra, readString(in)));
+    }
+
+    int cellCount = in.readInt();
+    List<StandardSymbols> standardSymbols = cellCount < 0 ? null : new ArrayList<>(cellCount);
+    for (int i = 0; i < cellCount; i++) {
+      int row = in.readInt();
+      int column = in.readInt();
+      standardSymbols.add(new StandardSymbols(row, column, readWeights(in)));
+    }
+    BonusSymbols bonusSymbols = in.readBoolean() ? new BonusSymbols(readWeights(in)) : null;
+
+    int combinationCount = in.readInt();
+    Map<String, WinCombinations> winCombinations =
+        combinationCount < 0 ? null : new LinkedHashMap<>();
+    for (int i = 0; i < combinationCount; i++) {
+      String name = in.readUTF();
+      double multiplier = in.readDouble();
+      String when = readString(in);
+      int count = in.readInt();
+      String group = readString(in);
+      int areaCount = in.readInt();
+      List<List<String>> areas = areaCount < 0 ? null : new ArrayList<>(areaCount);
+      for (int area = 0; area < areaCount; area++) {
+        int size = in.readInt();
+        List<String> positions = new ArrayList<>(size);
+        for (int position = 0; position < size; position++) {
+          positions.add(in.readUTF());
+        }
+        areas.add(positions);
+      }
+      winCombinations.put(name, new WinCombinations(multiplier, when, count, group, areas));
+    }
+    return new GameConfig(rows, columns, symbols,
+        new Probabilities(standardSymbols, bonusSymbols), winCombinations);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static Map<String, Integer> readWeights(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    if (count < 0) {
+      return null;
+    }
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      weights.put(in.readUTF(), in.readInt());
+    }
+    return weights;
+  }
+}
@@ -0,0 +1,178 @@
+package org.limix.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.RewardTable;
+import org.limix.entities.GameConfig;
+import org.limix.metrics.PlayMetrics;
+import org.limix.random.RandomSource;
+
+/**
+ * Keeps a {@link GameEngine} in sync with a configuration file. Changes are picked up by a
+ * background thread that parses and compiles the new configuration, then publishes the new engine
+ * with a single volatile write. Plays that already hold the old engine finish on it, later calls to
+ * {@link #get()} see the new one; the play path never waits on a reload. A configuration that fails
+ * to load leaves the current engine in place and is reported to the rejection listener. The watch
+ * thread runs from {@link #start()} until {@link #close()}.
+ */
+public class ConfigWatcher implements Supplier<GameEngine>, Closeable {
+
+  // editors often write a file in several steps, events within this delay are coalesced
+  static final Duration SETTLE_DELAY = Duration.ofMillis(100);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final Path path;
+  private final RandomSource random;
+  private final PlayMetrics metrics;
+  private final Function<CompiledGame, RewardTable> rewards;
+  private final Consumer<Exception> rejected;
+  private final WatchService watchService;
+  private volatile Thread thread;
+  private volatile GameEngine engine;
+  private volatile Exception lastError;
+  // file content of the published engine, only touched under the reload lock
+  private byte[] loadedContent;
+
+  public ConfigWatcher(Path path, RandomSource random) throws IOException {
+    this(path, random, null);
+  }
+
+  // every published engine records into the given metrics, which may be null
+  public ConfigWatcher(Path path, RandomSource random, PlayMetrics metrics) throws IOException {
+    this(path, random, metrics, error -> { });
+  }
+
+  // rejected is called on the reloading thread with the reason of every rejected reload
+  public ConfigWatcher(Path path, RandomSource random, PlayMetrics metrics,
+      Consumer<Exception> rejected) throws IOException {
+    this(path, random, metrics, game -> null, rejected);
+  }
+
+  // rewards gives the reward table of every published engine, null to pay in doubles
+  public ConfigWatcher(Path path, RandomSource random, PlayMetrics metrics,
+      Function<CompiledGame, RewardTable> rewards, Consumer<Exception> rejected)
+      throws IOException {
+    this.path = path.toAbsolutePath().normalize();
+    this.random = random;
+    this.metrics = metrics;
+    this.rewards = rewards;
+    this.rejected = rejected;
+    byte[] content = Files.readAllBytes(this.path);
+    this.engine = prepare(content, 1);
+    this.loadedContent = content;
+
+    this.watchService = this.path.getFileSystem().newWatchService();
+    this.path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+  }
+
+  public synchronized ConfigWatcher start() {
+    if (thread != null) {
+      throw new IllegalStateException("The watcher is already started.");
+    }
+    thread = Thread.ofPlatform().daemon().name("config-watcher").start(this::watch);
+    return this;
+  }
+
+  @Override
+  public GameEngine get() {
+    return engine;
+  }
+
+  public long version() {
+    return engine.game().version();
+  }
+
+  // the reason the last reload was rejected, null once a reload succeeds
+  public Exception lastError() {
+    return lastError;
+  }
+
+  // loads the file now, returns whether a new version was published
+  public synchronized boolean reload() {
+    try {
+      byte[] content = Files.readAllBytes(path);
+      if (Arrays.equals(content, loadedContent)) {
+        return false;
+      }
+      GameEngine next = prepare(content, version() + 1);
+      loadedContent = content;
+      engine = next;
+      lastError = null;
+      return true;
+    } catch (IOException | RuntimeException e) {
+      lastError = e;
+      rejected.accept(e);
+      return false;
+    }
+  }
+
+  private GameEngine prepare(byte[] content, long version) throws IOException {
+    // the same configurations as --config reads, JSON or a snapshot
+    GameConfig config = ConfigSnapshot.isSnapshot(content)
+        ? ConfigSnapshot.read(content)
+        : MAPPER.readValue(content, GameConfig.class);
+    CompiledGame game = CompiledGame.compile(config, version);
+    return new GameEngine(game, random, metrics, rewards.apply(game));
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        boolean changed = concernsFile(key);
+        key.reset();
+        if (!changed) {
+          continue;
+        }
+        // let the write settle and swallow the events it raised meanwhile
+        for (key = watchService.poll(SETTLE_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+            key != null;
+            key = watchService.poll(SETTLE_DELAY.toMillis(), TimeUnit.MILLISECONDS)) {
+          key.pollEvents();
+          key.reset();
+        }
+        reload();
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // closed
+    }
+  }
+
+  private boolean concernsFile(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW
+          || path.getFileName().equals(event.context())) {
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+    Thread started = thread;
+    if (started != null) {
+      started.interrupt();
+    }
+  }
+}
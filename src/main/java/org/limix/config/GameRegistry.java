@@ -0,0 +1,272 @@
+package org.limix.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.RewardTable;
+import org.limix.entities.GameConfig;
+import org.limix.metrics.PlayMetrics;
+import org.limix.output.TicketJson;
+import org.limix.random.RandomSource;
+
+/**
+ * Serves many games from one directory of configurations, {@code <game id>.json} each. Games are
+ * compiled on first use and kept in an LRU cache bounded by the number of games and their estimated
+ * memory. Cache entries are keyed by the SHA-256 of the configuration, so game ids with identical
+ * files share one compiled game, and a file is parsed at most once however many threads ask for it
+ * at the same time. A game file is checked for changes at most once per {@link #RECHECK}; a changed
+ * file is compiled again on its next use.
+ */
+public class GameRegistry implements GameRegistryMXBean {
+
+  public static final String OBJECT_NAME = "org.limix:type=GameRegistry";
+  static final Duration RECHECK = Duration.ofSeconds(1);
+
+  // ids are file names without any path, so a request can't leave the directory
+  private static final Pattern GAME_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final Path directory;
+  private final RandomSource random;
+  // may be null
+  private final PlayMetrics metrics;
+  private final Function<CompiledGame, RewardTable> rewards;
+  private final int maxEntries;
+  private final long maxBytes;
+  private final ConcurrentMap<String, GameFile> files = new ConcurrentHashMap<>();
+  // access-ordered, guarded by this
+  private final LinkedHashMap<String, RegisteredGame> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private long cachedBytes;
+  private final ConcurrentMap<String, CompletableFuture<RegisteredGame>> loading =
+      new ConcurrentHashMap<>();
+  private final AtomicLong versions = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  // the content hash a game id resolved to, with the file state it was read in
+  private record GameFile(String hash, FileTime modified, long size, long checkedAt) {
+
+  }
+
+  public GameRegistry(Path directory, RandomSource random, int maxEntries, long maxBytes) {
+    this(directory, random, null, maxEntries, maxBytes);
+  }
+
+  // every game loaded records its plays in the metrics
+  public GameRegistry(Path directory, RandomSource random, PlayMetrics metrics, int maxEntries,
+      long maxBytes) {
+    this(directory, random, metrics, game -> null, maxEntries, maxBytes);
+  }
+
+  // rewards gives the reward table of every game loaded, null to pay in doubles
+  public GameRegistry(Path directory, RandomSource random, PlayMetrics metrics,
+      Function<CompiledGame, RewardTable> rewards, int maxEntries, long maxBytes) {
+    if (maxEntries <= 0 || maxBytes <= 0) {
+      throw new IllegalArgumentException("The cache bounds must be positive.");
+    }
+    this.directory = directory;
+    this.random = random;
+    this.metrics = metrics;
+    this.rewards = rewards;
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+  }
+
+  // the prepared game, loading it when it is not cached; NoSuchFileException for unknown ids
+  public RegisteredGame get(String gameId) throws IOException {
+    if (gameId == null || !GAME_ID.matcher(gameId).matches()) {
+      throw new IllegalArgumentException("Invalid game id: " + gameId);
+    }
+    Path path = directory.resolve(gameId + ".json");
+    long now = System.nanoTime();
+    GameFile file = files.get(gameId);
+    try {
+      if (file != null && now - file.checkedAt() > RECHECK.toNanos()) {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        file = attributes.lastModifiedTime().equals(file.modified())
+            && attributes.size() == file.size()
+            ? new GameFile(file.hash(), file.modified(), file.size(), now)
+            : null;
+        if (file != null) {
+          files.put(gameId, file);
+        }
+      }
+      RegisteredGame game = file == null ? null : cached(file.hash());
+      if (game != null) {
+        hits.increment();
+        return game;
+      }
+
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      byte[] content = Files.readAllBytes(path);
+      String hash = hash(content);
+      files.put(gameId, new GameFile(hash, attributes.lastModifiedTime(), attributes.size(), now));
+      game = cached(hash);
+      if (game != null) {
+        // another id with the same configuration
+        hits.increment();
+        return game;
+      }
+      misses.increment();
+      return load(hash, content);
+    } catch (NoSuchFileException e) {
+      files.remove(gameId);
+      throw e;
+    }
+  }
+
+  private RegisteredGame load(String hash, byte[] content) throws IOException {
+    CompletableFuture<RegisteredGame> created = new CompletableFuture<>();
+    CompletableFuture<RegisteredGame> running = loading.putIfAbsent(hash, created);
+    if (running != null) {
+      return await(running);
+    }
+    try {
+      RegisteredGame game;
+      synchronized (this) {
+        game = cache.get(hash);
+      }
+      if (game == null) {
+        GameConfig config = MAPPER.readValue(content, GameConfig.class);
+        CompiledGame compiled = CompiledGame.compile(config, versions.incrementAndGet());
+        game = new RegisteredGame(hash, new GameEngine(compiled, random, metrics, rewards.apply(compiled)),
+            new TicketJson(compiled), compiled.footprint() + content.length);
+        loads.increment();
+        put(game);
+      }
+      created.complete(game);
+      return game;
+    } catch (IOException | RuntimeException e) {
+      created.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(hash, created);
+    }
+  }
+
+  private static RegisteredGame await(CompletableFuture<RegisteredGame> running)
+      throws IOException {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw e;
+    }
+  }
+
+  private synchronized RegisteredGame cached(String hash) {
+    return cache.get(hash);
+  }
+
+  // keeps the new game even when it alone is above the memory bound
+  private synchronized void put(RegisteredGame game) {
+    RegisteredGame previous = cache.put(game.hash(), game);
+    cachedBytes += game.footprint() - (previous == null ? 0 : previous.footprint());
+    Iterator<RegisteredGame> eldest = cache.values().iterator();
+    while ((cache.size() > maxEntries || cachedBytes > maxBytes) && cache.size() > 1) {
+      RegisteredGame evicted = eldest.next();
+      eldest.remove();
+      cachedBytes -= evicted.footprint();
+      evictions.increment();
+    }
+  }
+
+  private static String hash(byte[] content) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public long getLoads() {
+    return loads.sum();
+  }
+
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public int getKnownGames() {
+    return files.size();
+  }
+
+  @Override
+  public synchronized int getCachedGames() {
+    return cache.size();
+  }
+
+  @Override
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  @Override
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  @Override
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  // registers this instance with the platform MBean server, replacing an earlier registration
+  public GameRegistry register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(this, name);
+      return this;
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+    }
+  }
+}
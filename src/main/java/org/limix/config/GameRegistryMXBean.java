@@ -0,0 +1,23 @@
+package org.limix.config;
+
+// JMX view of the GameRegistry cache
+public interface GameRegistryMXBean {
+
+  long getHits();
+
+  long getMisses();
+
+  long getLoads();
+
+  long getEvictions();
+
+  int getKnownGames();
+
+  int getCachedGames();
+
+  long getCachedBytes();
+
+  long getMaxBytes();
+
+  int getMaxEntries();
+}
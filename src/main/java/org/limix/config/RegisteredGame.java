@@ -0,0 +1,12 @@
+package org.limix.config;
+
+import org.limix.engine.GameEngine;
+import org.limix.output.TicketJson;
+
+/**
+ * A game prepared by the {@link GameRegistry}: its engine and JSON writer, shared by every game id
+ * whose configuration has the same content hash.
+ */
+public record RegisteredGame(String hash, GameEngine engine, TicketJson json, long footprint) {
+
+}
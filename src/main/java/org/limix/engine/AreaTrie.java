@@ -0,0 +1,122 @@
+package org.limix.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the linear_symbols covered areas by their cells. Every area is inserted as its sorted
+ * cells into a trie, so areas sharing their first cells share nodes: the children of the root are
+ * the anchor cells, whose symbol every cell below them has to repeat. Nodes are numbered in
+ * preorder, children sorted by cell, so the subtree of node {@code n} is the contiguous nodes
+ * {@code n} until {@code subtreeEnd(n)}. A play sweeps the nodes forward once: it enters a node
+ * holding the symbol of its anchor and jumps over the subtree of any other, so one mismatching
+ * cell drops every area through it below that prefix without reading them, and the sweep never
+ * goes back in memory.
+ */
+final class AreaTrie {
+
+  static final int ROOT = 0;
+
+  private final int[] cells;
+  private final int[] subtreeEnds;
+  // areas ending at a node, terminalStart[node] until terminalStart[node + 1]
+  private final int[] terminalStart;
+  private final int[] terminalAreas;
+
+  AreaTrie(int[][] areaCells) {
+    // insert every area into a trie of child maps
+    List<Map<Integer, Integer>> children = new ArrayList<>();
+    List<Integer> nodeCells = new ArrayList<>();
+    children.add(new HashMap<>());
+    nodeCells.add(CompiledGame.EMPTY);
+    int[] endNodes = new int[areaCells.length];
+    for (int area = 0; area < areaCells.length; area++) {
+      int node = ROOT;
+      for (int cell : Arrays.stream(areaCells[area]).sorted().distinct().toArray()) {
+        Integer child = children.get(node).get(cell);
+        if (child == null) {
+          child = nodeCells.size();
+          children.get(node).put(cell, child);
+          children.add(new HashMap<>());
+          nodeCells.add(cell);
+        }
+        node = child;
+      }
+      endNodes[area] = node;
+    }
+
+    // renumber in preorder without recursion, areas can be as long as the grid
+    int nodeCount = nodeCells.size();
+    int[] renumbered = new int[nodeCount];
+    int[] order = new int[nodeCount];
+    this.cells = new int[nodeCount];
+    this.subtreeEnds = new int[nodeCount];
+    int[] stack = new int[nodeCount];
+    int top = 0;
+    stack[top++] = ROOT;
+    int assigned = 0;
+    while (top > 0) {
+      int node = stack[--top];
+      renumbered[node] = assigned;
+      order[assigned] = node;
+      cells[assigned] = nodeCells.get(node);
+      assigned++;
+      List<Integer> sorted = new ArrayList<>(children.get(node).values());
+      // pushed last cell first, so the children pop in cell order
+      sorted.sort(Comparator.comparingInt((Integer child) -> nodeCells.get(child)).reversed());
+      for (int child : sorted) {
+        stack[top++] = child;
+      }
+    }
+    // a subtree ends where the subtree of its last child ends
+    for (int i = nodeCount - 1; i >= 0; i--) {
+      int end = i + 1;
+      for (int child : children.get(order[i]).values()) {
+        end = Math.max(end, subtreeEnds[renumbered[child]]);
+      }
+      subtreeEnds[i] = end;
+    }
+
+    this.terminalStart = new int[nodeCount + 1];
+    for (int node : endNodes) {
+      terminalStart[renumbered[node] + 1]++;
+    }
+    for (int node = 0; node < nodeCount; node++) {
+      terminalStart[node + 1] += terminalStart[node];
+    }
+    this.terminalAreas = new int[areaCells.length];
+    int[] filled = Arrays.copyOf(terminalStart, nodeCount);
+    for (int area = 0; area < areaCells.length; area++) {
+      terminalAreas[filled[renumbered[endNodes[area]]]++] = area;
+    }
+  }
+
+  int nodeCount() {
+    return cells.length;
+  }
+
+  int cell(int node) {
+    return cells[node];
+  }
+
+  // the node after the last node of the subtree
+  int subtreeEnd(int node) {
+    return subtreeEnds[node];
+  }
+
+  int terminalStart(int node) {
+    return terminalStart[node];
+  }
+
+  int terminalEnd(int node) {
+    return terminalStart[node + 1];
+  }
+
+  int terminalArea(int index) {
+    return terminalAreas[index];
+  }
+}
@@ -0,0 +1,207 @@
+package org.limix.engine;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+/**
+ * Evaluates the matrices of a whole {@link PlayBatch} at once: fills in the combinations won and
+ * the reward of every ticket from its cells and bonus symbol, exactly as {@link Ticket#evaluate()}
+ * and the engine's reward would one ticket at a time. Tickets go in blocks of at most 64: the
+ * implementation counts the standard symbols and matches the covered areas of a block column by
+ * column, this class turns the counts and matches into the wins and reward of each ticket.
+ * {@link #of} picks the Vector API implementation when the {@code vector} profile built it and the
+ * {@code jdk.incubator.vector} module is present, and the scalar one otherwise. An evaluator keeps
+ * scratch state and must stay confined to one thread.
+ */
+public abstract class BatchEvaluator {
+
+  static final String VECTOR_CLASS = "org.limix.engine.VectorBatchEvaluator";
+  static final int MAX_BLOCK = Long.SIZE;
+
+  final CompiledGame game;
+  // null for double rewards
+  private final RewardTable rewards;
+  private final int blockSize;
+  private final int maxHits;
+  // per block: the count of each standard symbol of every ticket, standard symbol-major
+  private final int[] counts;
+  // per block: a bit per ticket for each standard symbol whose count wins a same_symbols
+  // combination, and for each area whose cells all hold the same standard symbol
+  private final long[] sameWins;
+  private final long[] matches;
+  // per block: the wins of every ticket, maxHits apiece
+  private final int[] hits;
+  private final int[] hitCounts;
+  private final Ticket scratch;
+
+  BatchEvaluator(CompiledGame game, RewardTable rewards, int blockSize) {
+    if (rewards != null && rewards.game() != game) {
+      throw new IllegalArgumentException("Reward table belongs to a different game.");
+    }
+    this.game = game;
+    this.rewards = rewards;
+    this.blockSize = blockSize;
+    this.maxHits = game.maxHits();
+    this.counts = new int[game.standardSymbolCount() * blockSize];
+    this.sameWins = new long[game.standardSymbolCount()];
+    this.matches = new long[game.areaCount()];
+    this.hits = new int[maxHits * blockSize];
+    this.hitCounts = new int[blockSize];
+    this.scratch = new Ticket(game);
+  }
+
+  // the fastest evaluator available for the game
+  public static BatchEvaluator of(CompiledGame game, RewardTable rewards) {
+    BatchEvaluator vector = vector(game, rewards);
+    return vector != null ? vector : scalar(game, rewards);
+  }
+
+  public static BatchEvaluator scalar(CompiledGame game, RewardTable rewards) {
+    return new ScalarBatchEvaluator(game, rewards);
+  }
+
+  // the Vector API evaluator, null when it was not built, its module is missing or the game does
+  // not fit its lanes
+  public static BatchEvaluator vector(CompiledGame game, RewardTable rewards) {
+    try {
+      return (BatchEvaluator) Class.forName(VECTOR_CLASS)
+          .getDeclaredConstructor(CompiledGame.class, RewardTable.class)
+          .newInstance(game, rewards);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof IllegalArgumentException) {
+        return null;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  public CompiledGame game() {
+    return game;
+  }
+
+  // "vector" or "scalar"
+  public abstract String kind();
+
+  // the tickets of a block, up to 64
+  public int blockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Sets the combinations and rewards of the batch's tickets at the batch's bet, from their cells
+   * and bonus symbols.
+   */
+  public void evaluate(PlayBatch batch) {
+    if (batch.game() != game) {
+      throw new IllegalArgumentException("Batch belongs to a different game than this evaluator.");
+    }
+    for (int from = 0; from < batch.size(); from += blockSize) {
+      int lanes = Math.min(blockSize, batch.size() - from);
+      countAndMatch(batch, from, lanes, counts, sameWins, matches);
+      collectHits(batch, from, lanes);
+      for (int lane = 0; lane < lanes; lane++) {
+        outcome(batch, from + lane, lane);
+      }
+    }
+  }
+
+  /**
+   * Counts the standard symbols of the tickets {@code from} to {@code from + lanes} into
+   * {@code counts[i * blockSize() + lane]} for the i-th standard symbol, setting bit {@code lane}
+   * of {@code sameWins[i]} when the count wins a same_symbols combination, and sets bit
+   * {@code lane} of {@code matches[area]} for the areas won. Only the counts of lanes set in
+   * {@code sameWins} are read back.
+   */
+  abstract void countAndMatch(PlayBatch batch, int from, int lanes, int[] counts,
+      long[] sameWins, long[] matches);
+
+  // the scalar count and match of a block, for tails shorter than the vector lanes
+  final void countAndMatchScalar(PlayBatch batch, int from, int lanes, int[] counts,
+      long[] sameWins, long[] matches) {
+    int capacity = batch.capacity();
+    byte[] bytes = batch.cellBytes();
+    short[] shorts = batch.cellShorts();
+    Arrays.fill(counts, 0);
+    for (int i = 0; i < game.standardSymbolCount(); i++) {
+      int symbol = game.standardSymbol(i);
+      int base = i * blockSize;
+      for (int cell = 0; cell < game.cellCount(); cell++) {
+        int column = cell * capacity + from;
+        for (int lane = 0; lane < lanes; lane++) {
+          int value = bytes != null ? bytes[column + lane] : shorts[column + lane];
+          counts[base + lane] += value == symbol ? 1 : 0;
+        }
+      }
+      long wins = 0;
+      for (int lane = 0; lane < lanes; lane++) {
+        if (game.sameSymbolsCombination(counts[base + lane]) != CompiledGame.EMPTY) {
+          wins |= 1L << lane;
+        }
+      }
+      sameWins[i] = wins;
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      long matched = 0;
+      for (int lane = 0; lane < lanes; lane++) {
+        int ticket = from + lane;
+        int symbol = batch.cell(ticket, game.areaCell(area, 0));
+        boolean same = symbol != CompiledGame.EMPTY && game.isStandard(symbol);
+        for (int i = 1; same && i < game.areaSize(area); i++) {
+          same = batch.cell(ticket, game.areaCell(area, i)) == symbol;
+        }
+        if (same) {
+          matched |= 1L << lane;
+        }
+      }
+      matches[area] = matched;
+    }
+  }
+
+  // the wins of every ticket of the block in the order Ticket finds them: same symbols by
+  // standard symbol, then areas by id; only the set bits are visited as wins are rare
+  private void collectHits(PlayBatch batch, int from, int lanes) {
+    Arrays.fill(hitCounts, 0, lanes, 0);
+    for (int i = 0; i < game.standardSymbolCount(); i++) {
+      int symbol = game.standardSymbol(i) << 16;
+      for (long wins = sameWins[i]; wins != 0; wins &= wins - 1) {
+        int lane = Long.numberOfTrailingZeros(wins);
+        hits[lane * maxHits + hitCounts[lane]++] = symbol
+            | game.sameSymbolsCombination(counts[i * blockSize + lane]);
+      }
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      int first = game.areaCell(area, 0);
+      int combination = game.areaCombination(area);
+      for (long wins = matches[area]; wins != 0; wins &= wins - 1) {
+        int lane = Long.numberOfTrailingZeros(wins);
+        hits[lane * maxHits + hitCounts[lane]++] = batch.cell(from + lane, first) << 16
+            | combination;
+      }
+    }
+  }
+
+  private void outcome(PlayBatch batch, int ticket, int lane) {
+    long[] combinations = batch.combinations();
+    int base = ticket * batch.combinationWords();
+    for (int word = 0; word < batch.combinationWords(); word++) {
+      combinations[base + word] = 0;
+    }
+    int hitCount = hitCounts[lane];
+    if (hitCount == 0) {
+      batch.rewards()[ticket] = 0;
+      return;
+    }
+    int offset = lane * maxHits;
+    for (int i = offset; i < offset + hitCount; i++) {
+      int combination = hits[i] & 0xFFFF;
+      combinations[base + (combination >>> 6)] |= 1L << combination;
+    }
+    scratch.loadOutcome(batch.bonusSymbol(ticket), hits, offset, hitCount);
+    double bet = batch.bet();
+    batch.rewards()[ticket] = rewards == null
+        ? scratch.reward(bet)
+        : rewards.amount(scratch.reward(rewards.minorUnits(bet), rewards));
+  }
+}
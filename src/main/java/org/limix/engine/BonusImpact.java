@@ -0,0 +1,18 @@
+package org.limix.engine;
+
+public enum BonusImpact {
+  NONE,
+  MULTIPLY_REWARD,
+  EXTRA_BONUS;
+
+  public static BonusImpact of(String impact) {
+    if (impact == null) {
+      return NONE;
+    }
+    return switch (impact) {
+      case "multiply_reward" -> MULTIPLY_REWARD;
+      case "extra_bonus" -> EXTRA_BONUS;
+      default -> NONE;
+    };
+  }
+}
@@ -0,0 +1,549 @@
+package org.limix.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.IntStream;
+import org.limix.entities.GameConfig;
+import org.limix.entities.Symbols;
+import org.limix.entities.WinCombinations;
+import org.limix.sampling.SymbolSampler;
+import org.limix.symboltypes.StandardSymbols;
+
+/**
+ * Immutable, thread-shareable form of a {@link GameConfig}. Symbols and win combinations are
+ * addressed by int ids (in configuration order), cells by {@code row * columns + column}.
+ */
+public final class CompiledGame {
+
+  public static final int EMPTY = -1;
+  // symbol and combination ids are packed into 16 bits each in play results
+  public static final int MAX_IDS = 0x7FFF;
+
+  private final int rows;
+  private final int columns;
+
+  private final String[] symbolNames;
+  private final Map<String, Integer> symbolIds;
+  private final boolean[] standard;
+  private final boolean[] bonus;
+  private final double[] symbolMultipliers;
+  private final double[] symbolExtras;
+  private final BonusImpact[] impacts;
+
+  // per-cell weight tables, cells configured with equal weight maps share the same table
+  private final WeightTable[] cellTables;
+  private final WeightTable bonusTable;
+
+  private final String[] combinationNames;
+  private final double[] combinationMultipliers;
+  // same_symbols combination applied for a given count of one symbol, EMPTY if none
+  private final int[] sameSymbolsByCount;
+  // linear_symbols covered areas as cell indices, with the combination each belongs to
+  private final int[][] areaCells;
+  private final int[] areaCombinations;
+  private final AreaTrie areaTrie;
+  // the areas covering each cell, those of cell c from cellAreaStarts[c] to cellAreaStarts[c + 1]
+  private final int[] cellAreaStarts;
+  private final int[] cellAreas;
+  // longs of a cell bitboard
+  private final int maskWords;
+  private final int[] standardSymbols;
+  // per-symbol index into standardSymbols, EMPTY for the other symbols
+  private final int[] standardIndices;
+  private final int maxHits;
+  private final long version;
+  private final long footprint;
+  private final String fingerprint;
+
+  private CompiledGame(GameConfig config, long version) {
+    this.version = version;
+    if (config.getRows() <= 0 || config.getColumns() <= 0) {
+      throw new IllegalArgumentException("Rows and columns must be positive.");
+    }
+    if (config.getSymbols() == null || config.getSymbols().isEmpty()) {
+      throw new IllegalArgumentException("At least one symbol must be configured.");
+    }
+    if (config.getSymbols().size() > MAX_IDS
+        || (config.getWinCombinations() != null
+        && config.getWinCombinations().size() > MAX_IDS)) {
+      throw new IllegalArgumentException(
+          "At most " + MAX_IDS + " symbols and win combinations are supported.");
+    }
+    this.rows = config.getRows();
+    this.columns = config.getColumns();
+
+    // symbols
+    int symbolCount = config.getSymbols().size();
+    this.symbolNames = new String[symbolCount];
+    this.symbolIds = new HashMap<>();
+    this.standard = new boolean[symbolCount];
+    this.bonus = new boolean[symbolCount];
+    this.symbolMultipliers = new double[symbolCount];
+    this.symbolExtras = new double[symbolCount];
+    this.impacts = new BonusImpact[symbolCount];
+    int id = 0;
+    for (Entry<String, Symbols> entry : config.getSymbols().entrySet()) {
+      Symbols symbol = entry.getValue();
+      symbolNames[id] = entry.getKey();
+      symbolIds.put(entry.getKey(), id);
+      standard[id] = "standard".equals(symbol.getType());
+      bonus[id] = "bonus".equals(symbol.getType());
+      symbolMultipliers[id] = symbol.getRewardMultiplier();
+      symbolExtras[id] = symbol.getExtra();
+      impacts[id] = BonusImpact.of(symbol.getImpact());
+      id++;
+    }
+
+    // per-cell standard symbol weights
+    int cellCount = rows * columns;
+    this.cellTables = new WeightTable[cellCount];
+    Map<Integer, Map<String, Integer>> configured = new HashMap<>();
+    if (config.getProbabilities() != null
+        && config.getProbabilities().getStandardSymbols() != null) {
+      for (StandardSymbols standardSymbols : config.getProbabilities().getStandardSymbols()) {
+        int cell = cellIndex(standardSymbols.getRow(), standardSymbols.getColumn());
+        if (configured.put(cell, standardSymbols.getSymbols()) != null) {
+          throw new IllegalArgumentException("Duplicate standard symbol probabilities for "
+              + standardSymbols.getRow() + ":" + standardSymbols.getColumn());
+        }
+      }
+    }
+    Map<Map<String, Integer>, WeightTable> tables = new HashMap<>();
+    Map<String, Integer> fallback = configured.get(0);
+    for (int cell = 0; cell < cellCount; cell++) {
+      cellTables[cell] = weightTable(configured.getOrDefault(cell, fallback), tables);
+    }
+
+    // bonus symbol weights
+    Map<String, Integer> bonusProbabilities =
+        config.getProbabilities() == null || config.getProbabilities().getBonusSymbols() == null
+            ? null
+            : config.getProbabilities().getBonusSymbols().getSymbols();
+    this.bonusTable = weightTable(bonusProbabilities, tables);
+
+    // win combinations
+    Map<String, WinCombinations> winCombinations =
+        config.getWinCombinations() == null ? Map.of() : config.getWinCombinations();
+    this.combinationNames = new String[winCombinations.size()];
+    this.combinationMultipliers = new double[winCombinations.size()];
+    this.sameSymbolsByCount = new int[cellCount + 1];
+    Arrays.fill(sameSymbolsByCount, EMPTY);
+    List<int[]> areas = new ArrayList<>();
+    List<Integer> areaOwners = new ArrayList<>();
+    int combination = 0;
+    for (Entry<String, WinCombinations> entry : winCombinations.entrySet()) {
+      WinCombinations winCombination = entry.getValue();
+      combinationNames[combination] = entry.getKey();
+      combinationMultipliers[combination] = winCombination.getRewardMultiplier();
+      if ("same_symbols".equals(winCombination.getWhen())) {
+        // the combination with the highest count not above the symbol count wins,
+        // the first one configured on ties
+        for (int count = Math.max(winCombination.getCount(), 1); count <= cellCount; count++) {
+          int current = sameSymbolsByCount[count];
+          if (current == EMPTY
+              || sameSymbolsCount(winCombinations, current) < winCombination.getCount()) {
+            sameSymbolsByCount[count] = combination;
+          }
+        }
+      } else if ("linear_symbols".equals(winCombination.getWhen())
+          && winCombination.getCoveredAreas() != null) {
+        for (List<String> coveredArea : winCombination.getCoveredAreas()) {
+          areas.add(parseArea(entry.getKey(), coveredArea));
+          areaOwners.add(combination);
+        }
+      }
+      combination++;
+    }
+    this.areaCells = areas.toArray(new int[0][]);
+    this.areaCombinations = areaOwners.stream().mapToInt(Integer::intValue).toArray();
+
+    this.areaTrie = new AreaTrie(areaCells);
+    this.cellAreaStarts = new int[cellCount + 1];
+    for (int[] area : areaCells) {
+      for (int cell : area) {
+        cellAreaStarts[cell + 1]++;
+      }
+    }
+    for (int cell = 0; cell < cellCount; cell++) {
+      cellAreaStarts[cell + 1] += cellAreaStarts[cell];
+    }
+    this.cellAreas = new int[cellAreaStarts[cellCount]];
+    int[] filled = Arrays.copyOf(cellAreaStarts, cellCount);
+    for (int area = 0; area < areaCells.length; area++) {
+      for (int cell : areaCells[area]) {
+        cellAreas[filled[cell]++] = area;
+      }
+    }
+    this.maskWords = (cellCount + Long.SIZE - 1) / Long.SIZE;
+
+    this.standardSymbols = IntStream.range(0, symbolCount)
+        .filter(symbol -> standard[symbol])
+        .toArray();
+    this.standardIndices = new int[symbolCount];
+    Arrays.fill(standardIndices, EMPTY);
+    for (int i = 0; i < standardSymbols.length; i++) {
+      standardIndices[standardSymbols[i]] = i;
+    }
+    this.maxHits = standardSymbols.length + areaCells.length;
+    this.footprint = estimateFootprint(tables.values());
+    this.fingerprint = computeFingerprint();
+  }
+
+  // SHA-256 of everything that decides a play and its reward, the version left out
+  private String computeFingerprint() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(rows);
+      out.writeInt(columns);
+      out.writeInt(symbolNames.length);
+      for (int symbol = 0; symbol < symbolNames.length; symbol++) {
+        writeName(out, symbolNames[symbol]);
+        out.writeBoolean(standard[symbol]);
+        out.writeBoolean(bonus[symbol]);
+        out.writeDouble(symbolMultipliers[symbol]);
+        out.writeDouble(symbolExtras[symbol]);
+        out.writeInt(impacts[symbol].ordinal());
+      }
+      for (WeightTable table : cellTables) {
+        writeTable(out, table);
+      }
+      writeTable(out, bonusTable);
+      out.writeInt(combinationNames.length);
+      for (int combination = 0; combination < combinationNames.length; combination++) {
+        writeName(out, combinationNames[combination]);
+        out.writeDouble(combinationMultipliers[combination]);
+      }
+      for (int combination : sameSymbolsByCount) {
+        out.writeInt(combination);
+      }
+      out.writeInt(areaCells.length);
+      for (int area = 0; area < areaCells.length; area++) {
+        out.writeInt(areaCombinations[area]);
+        out.writeInt(areaCells[area].length);
+        for (int cell : areaCells[area]) {
+          out.writeInt(cell);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    try {
+      return HexFormat.of().formatHex(
+          MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray()));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // names are not bounded by writeUTF's 64 KB
+  private static void writeName(DataOutputStream out, String name) throws IOException {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeTable(DataOutputStream out, WeightTable table) throws IOException {
+    out.writeInt(table.symbols.length);
+    for (int i = 0; i < table.symbols.length; i++) {
+      out.writeInt(table.symbols[i]);
+      out.writeInt(table.weights[i]);
+    }
+  }
+
+  // rough retained size of the tables, counting 16 byte headers and 4 byte references
+  private long estimateFootprint(Iterable<WeightTable> tables) {
+    long bytes = 256;
+    for (String name : symbolNames) {
+      // name, id map entry and the per-symbol arrays
+      bytes += 40 + name.length() + 48 + 4 + 1 + 1 + 8 + 8 + 4;
+    }
+    for (String name : combinationNames) {
+      bytes += 40 + name.length() + 4 + 8;
+    }
+    bytes += 16 + 4L * cellTables.length + 16 + 4L * sameSymbolsByCount.length;
+    for (WeightTable table : tables) {
+      // symbols, weights and the sampler's alias tables
+      bytes += 64 + 24L * table.symbols.length;
+    }
+    for (int[] area : areaCells) {
+      bytes += 16 + 4L * area.length + 4 + 4;
+    }
+    bytes += 12L * areaTrie.nodeCount() + 4L * areaCells.length + 4L * standardSymbols.length;
+    bytes += 32 + 4L * cellAreaStarts.length + 4L * cellAreas.length;
+    return bytes;
+  }
+
+  public static CompiledGame compile(GameConfig config) {
+    return compile(config, 0);
+  }
+
+  // the version tells reloaded configurations apart, it is not interpreted otherwise
+  public static CompiledGame compile(GameConfig config, long version) {
+    return new CompiledGame(config, version);
+  }
+
+  private int sameSymbolsCount(Map<String, WinCombinations> winCombinations, int combination) {
+    return winCombinations.get(combinationNames[combination]).getCount();
+  }
+
+  private int[] parseArea(String combinationName, List<String> coveredArea) {
+    if (coveredArea == null || coveredArea.isEmpty()) {
+      throw new IllegalArgumentException("Empty covered area in " + combinationName);
+    }
+    int[] cells = new int[coveredArea.size()];
+    for (int i = 0; i < cells.length; i++) {
+      String[] parts = coveredArea.get(i).split(":");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException(
+            "Invalid covered area position " + coveredArea.get(i) + " in " + combinationName);
+      }
+      cells[i] = cellIndex(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    }
+    return cells;
+  }
+
+  private WeightTable weightTable(Map<String, Integer> weights,
+      Map<Map<String, Integer>, WeightTable> tables) {
+    if (weights == null || weights.isEmpty()) {
+      return WeightTable.EMPTY_TABLE;
+    }
+    WeightTable table = tables.get(weights);
+    if (table != null) {
+      return table;
+    }
+    // keep the configured order of the weight map
+    Map<String, Integer> ordered = new LinkedHashMap<>(weights);
+    int[] symbols = new int[ordered.size()];
+    int[] values = new int[ordered.size()];
+    int i = 0;
+    long total = 0;
+    for (Entry<String, Integer> entry : ordered.entrySet()) {
+      Integer symbol = symbolIds.get(entry.getKey());
+      if (symbol == null) {
+        throw new IllegalArgumentException("Unknown symbol: " + entry.getKey());
+      }
+      if (entry.getValue() == null || entry.getValue() < 0) {
+        throw new IllegalArgumentException("Invalid weight for symbol " + entry.getKey());
+      }
+      symbols[i] = symbol;
+      values[i] = entry.getValue();
+      total += values[i];
+      i++;
+    }
+    // no symbol could ever be drawn
+    if (total == 0) {
+      throw new IllegalArgumentException("The weights of " + ordered.keySet() + " are all zero.");
+    }
+    table = new WeightTable(symbols, values, (int) SymbolSampler.totalWeight(values),
+        SymbolSampler.of(symbols, values));
+    tables.put(weights, table);
+    return table;
+  }
+
+  public int cellIndex(int row, int column) {
+    if (row < 0 || row >= rows || column < 0 || column >= columns) {
+      throw new IllegalArgumentException("Position out of bounds: " + row + ":" + column);
+    }
+    return row * columns + column;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  // estimated bytes held by the compiled tables, for caches bounded by memory
+  public long footprint() {
+    return footprint;
+  }
+
+  /**
+   * Hex SHA-256 of the compiled content: grid, symbols, weights, combinations and areas, but not
+   * the version. Results of games with different weights or multipliers have different
+   * fingerprints even when all the names match.
+   */
+  public String fingerprint() {
+    return fingerprint;
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int columns() {
+    return columns;
+  }
+
+  public int cellCount() {
+    return rows * columns;
+  }
+
+  public int symbolCount() {
+    return symbolNames.length;
+  }
+
+  public String symbolName(int symbol) {
+    return symbol == EMPTY ? null : symbolNames[symbol];
+  }
+
+  public int symbolId(String name) {
+    Integer symbol = symbolIds.get(name);
+    return symbol == null ? EMPTY : symbol;
+  }
+
+  public boolean isStandard(int symbol) {
+    return symbol != EMPTY && standard[symbol];
+  }
+
+  public boolean isBonus(int symbol) {
+    return symbol != EMPTY && bonus[symbol];
+  }
+
+  public double symbolMultiplier(int symbol) {
+    return symbolMultipliers[symbol];
+  }
+
+  public double symbolExtra(int symbol) {
+    return symbolExtras[symbol];
+  }
+
+  public BonusImpact impact(int symbol) {
+    return impacts[symbol];
+  }
+
+  public int cellWeightCount(int cell) {
+    return cellTables[cell].symbols.length;
+  }
+
+  public int cellSymbol(int cell, int index) {
+    return cellTables[cell].symbols[index];
+  }
+
+  public int cellWeight(int cell, int index) {
+    return cellTables[cell].weights[index];
+  }
+
+  public int cellTotalWeight(int cell) {
+    return cellTables[cell].total;
+  }
+
+  // returns EMPTY for cells without any configured weights
+  public SymbolSampler cellSampler(int cell) {
+    return cellTables[cell].sampler;
+  }
+
+  public boolean hasBonusSymbols() {
+    return bonusTable.symbols.length > 0;
+  }
+
+  public int bonusWeightCount() {
+    return bonusTable.symbols.length;
+  }
+
+  public int bonusSymbol(int index) {
+    return bonusTable.symbols[index];
+  }
+
+  public int bonusWeight(int index) {
+    return bonusTable.weights[index];
+  }
+
+  public int bonusTotalWeight() {
+    return bonusTable.total;
+  }
+
+  public SymbolSampler bonusSampler() {
+    return bonusTable.sampler;
+  }
+
+  public int combinationCount() {
+    return combinationNames.length;
+  }
+
+  public String combinationName(int combination) {
+    return combinationNames[combination];
+  }
+
+  public double combinationMultiplier(int combination) {
+    return combinationMultipliers[combination];
+  }
+
+  public int sameSymbolsCombination(int count) {
+    return sameSymbolsByCount[Math.min(count, sameSymbolsByCount.length - 1)];
+  }
+
+  public int areaCount() {
+    return areaCells.length;
+  }
+
+  public int areaCombination(int area) {
+    return areaCombinations[area];
+  }
+
+  public int areaSize(int area) {
+    return areaCells[area].length;
+  }
+
+  public int areaCell(int area, int index) {
+    return areaCells[area][index];
+  }
+
+  // the areas covering a cell are cellArea(i) for i from cellAreasStart(cell) to
+  // cellAreasEnd(cell), in ascending order; an area covering a cell twice is listed twice
+  public int cellAreasStart(int cell) {
+    return cellAreaStarts[cell];
+  }
+
+  public int cellAreasEnd(int cell) {
+    return cellAreaStarts[cell + 1];
+  }
+
+  public int cellArea(int index) {
+    return cellAreas[index];
+  }
+
+  // longs per cell bitboard, bit (cell & 63) of word (cell >>> 6) stands for the cell
+  public int maskWords() {
+    return maskWords;
+  }
+
+  AreaTrie areaTrie() {
+    return areaTrie;
+  }
+
+  public int standardSymbolCount() {
+    return standardSymbols.length;
+  }
+
+  public int standardSymbol(int index) {
+    return standardSymbols[index];
+  }
+
+  // the index of a standard symbol among the standard symbols, EMPTY for other symbols
+  public int standardIndex(int symbol) {
+    return standardIndices[symbol];
+  }
+
+  // upper bound of win entries a single play can produce
+  public int maxHits() {
+    return maxHits;
+  }
+
+  private record WeightTable(int[] symbols, int[] weights, int total, SymbolSampler sampler) {
+
+    static final WeightTable EMPTY_TABLE =
+        new WeightTable(new int[0], new int[0], 0, SymbolSampler.constant(EMPTY));
+  }
+}
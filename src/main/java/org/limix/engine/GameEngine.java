@@ -0,0 +1,230 @@
+package org.limix.engine;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
+import org.limix.entities.GameConfig;
+import org.limix.metrics.PlayMetrics;
+import org.limix.metrics.PlayPhase;
+import org.limix.random.RandomSource;
+
+/**
+ * Thread-safe entry point for playing a compiled game. The engine itself is stateless; every
+ * platform thread plays in its own reusable {@link Ticket}, virtual threads borrow one from a small
+ * pool since they usually live for a single request. Each play draws its matrix from a generator
+ * of the engine's {@link RandomSource} seeded for that play alone, and records the seed. With
+ * {@link PlayMetrics} attached and enabled, the phases of every play are timed and its wins counted.
+ * With a {@link RewardTable} attached, rewards are computed in exact fixed point and rounded to the
+ * table's minor units instead of multiplied as doubles. Batches are evaluated a block of tickets
+ * at a time by the {@link BatchEvaluator} of the Vector API when it is available.
+ */
+public class GameEngine {
+
+  private final CompiledGame game;
+  private final RandomSource random;
+  private final ThreadLocal<Ticket> tickets;
+  private final AtomicReferenceArray<Ticket> pool;
+  // the vector batch evaluator of each platform thread, null where it is not available
+  private final ThreadLocal<BatchEvaluator> evaluators;
+  // null when the engine is not instrumented
+  private final PlayMetrics.Counters counters;
+  // null for double rewards
+  private final RewardTable rewards;
+
+  public GameEngine(GameConfig config) {
+    this(CompiledGame.compile(config));
+  }
+
+  public GameEngine(CompiledGame game) {
+    this(game, RandomSource.defaultSource());
+  }
+
+  public GameEngine(CompiledGame game, RandomSource random) {
+    this(game, random, null);
+  }
+
+  public GameEngine(CompiledGame game, RandomSource random, PlayMetrics metrics) {
+    this(game, random, metrics, null);
+  }
+
+  public GameEngine(CompiledGame game, RandomSource random, PlayMetrics metrics,
+      RewardTable rewards) {
+    if (rewards != null && rewards.game() != game) {
+      throw new IllegalArgumentException("Reward table belongs to a different game.");
+    }
+    this.game = game;
+    this.rewards = rewards;
+    this.random = random;
+    this.counters = metrics == null ? null : metrics.counters(game);
+    this.tickets = ThreadLocal.withInitial(() -> new Ticket(game));
+    this.evaluators = ThreadLocal.withInitial(() -> BatchEvaluator.vector(game, rewards));
+    int poolSize = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+    this.pool = new AtomicReferenceArray<>(poolSize);
+  }
+
+  public CompiledGame game() {
+    return game;
+  }
+
+  public RandomSource random() {
+    return random;
+  }
+
+  // the attached metrics, or null
+  public PlayMetrics metrics() {
+    return counters == null ? null : counters.metrics();
+  }
+
+  // the fixed-point reward table, or null
+  public RewardTable rewards() {
+    return rewards;
+  }
+
+  // plays with a seed drawn from rng
+  public PlayResult play(double bet, RandomGenerator rng) {
+    return play(bet, rng.nextLong());
+  }
+
+  // plays, or replays, the ticket of the given seed
+  public PlayResult play(double bet, long seed) {
+    if (!Thread.currentThread().isVirtual()) {
+      return result(playInPlace(seed), bet);
+    }
+    Ticket ticket = borrow();
+    try {
+      play(ticket, seed);
+      return result(ticket, bet);
+    } finally {
+      release(ticket);
+    }
+  }
+
+  // starts revealing the ticket of the given seed, which plays the same as play(bet, seed)
+  public RevealSession reveal(long seed) {
+    Ticket ticket = Thread.currentThread().isVirtual() ? borrow() : tickets.get();
+    try {
+      ticket.generate(random, seed);
+      return RevealSession.of(ticket);
+    } finally {
+      if (Thread.currentThread().isVirtual()) {
+        release(ticket);
+      }
+    }
+  }
+
+  // plays into the calling thread's ticket, which stays valid until its next play
+  public Ticket playInPlace(RandomGenerator rng) {
+    return playInPlace(rng.nextLong());
+  }
+
+  public Ticket playInPlace(long seed) {
+    Ticket ticket = tickets.get();
+    play(ticket, seed);
+    return ticket;
+  }
+
+  // plays a batch of count tickets with seeds from a fresh master seed, empty for a count of 0
+  public PlayBatch playBatch(int count, double bet) {
+    return playBatch(new PlayBatch(game, Math.max(count, 1)), count, bet,
+        ThreadLocalRandom.current().nextLong(), 0);
+  }
+
+  // refills the batch, its i-th ticket is played from RandomSource.seedAt(seed, first + i)
+  public PlayBatch playBatch(PlayBatch batch, int count, double bet, long seed, long first) {
+    if (batch.game() != game) {
+      throw new IllegalArgumentException("Batch belongs to a different game than this engine.");
+    }
+    if (count < 0 || count > batch.capacity()) {
+      throw new IllegalArgumentException("count must be between 0 and " + batch.capacity());
+    }
+    // timed plays and virtual threads keep to one ticket at a time
+    BatchEvaluator evaluator = Thread.currentThread().isVirtual()
+        || counters != null && counters.metrics().isEnabled() ? null : evaluators.get();
+    Ticket ticket = Thread.currentThread().isVirtual() ? borrow() : tickets.get();
+    try {
+      for (int i = 0; i < count; i++) {
+        if (evaluator != null) {
+          ticket.generate(random, RandomSource.seedAt(seed, first + i));
+          batch.set(i, ticket, 0);
+        } else {
+          play(ticket, RandomSource.seedAt(seed, first + i));
+          batch.set(i, ticket, reward(ticket, bet));
+        }
+      }
+    } finally {
+      if (Thread.currentThread().isVirtual()) {
+        release(ticket);
+      }
+    }
+    batch.setBet(bet);
+    batch.setSize(count);
+    if (evaluator != null) {
+      evaluator.evaluate(batch);
+    }
+    return batch;
+  }
+
+  private void play(Ticket ticket, long seed) {
+    if (counters == null || !counters.metrics().isEnabled()) {
+      ticket.play(random, seed);
+      return;
+    }
+    PlayMetrics metrics = counters.metrics();
+    long start = System.nanoTime();
+    ticket.generate(random, seed);
+    long generated = System.nanoTime();
+    ticket.evaluateStandardSymbols();
+    long standard = System.nanoTime();
+    ticket.evaluateLinearSymbols();
+    long linear = System.nanoTime();
+    metrics.record(PlayPhase.GENERATE_MATRIX, generated - start);
+    metrics.record(PlayPhase.STANDARD_SYMBOLS, standard - generated);
+    metrics.record(PlayPhase.LINEAR_SYMBOLS, linear - standard);
+    counters.recordHits(ticket);
+  }
+
+  private PlayResult result(Ticket ticket, double bet) {
+    return PlayResult.of(ticket, bet, reward(ticket, bet));
+  }
+
+  // the reward of a ticket this engine played, through the reward table when one is attached
+  public double reward(Ticket ticket, double bet) {
+    if (counters == null || !counters.metrics().isEnabled()) {
+      return calculateReward(ticket, bet);
+    }
+    PlayMetrics metrics = counters.metrics();
+    long start = System.nanoTime();
+    double reward = calculateReward(ticket, bet);
+    metrics.record(PlayPhase.CALCULATE_REWARD, System.nanoTime() - start);
+    metrics.recordReward(bet, reward);
+    return reward;
+  }
+
+  private double calculateReward(Ticket ticket, double bet) {
+    return rewards == null
+        ? ticket.reward(bet)
+        : rewards.amount(ticket.reward(rewards.minorUnits(bet), rewards));
+  }
+
+  private Ticket borrow() {
+    int mask = pool.length() - 1;
+    int start = (int) Thread.currentThread().threadId();
+    for (int i = 0; i <= mask; i++) {
+      Ticket ticket = pool.getAndSet((start + i) & mask, null);
+      if (ticket != null) {
+        return ticket;
+      }
+    }
+    return new Ticket(game);
+  }
+
+  private void release(Ticket ticket) {
+    int mask = pool.length() - 1;
+    int start = (int) Thread.currentThread().threadId();
+    for (int i = 0; i <= mask; i++) {
+      if (pool.compareAndSet((start + i) & mask, null, ticket)) {
+        return;
+      }
+    }
+  }
+}
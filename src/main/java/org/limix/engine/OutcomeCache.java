@@ -0,0 +1,197 @@
+package org.limix.engine;
+
+import java.util.Arrays;
+
+/**
+ * Memoized evaluation of small grids. The wins of a matrix only depend on which standard symbol
+ * every cell holds, so a matrix is keyed by a long packing one code per cell, 0 for any symbol that
+ * is not standard. Entries keep the wins and the base reward, the summed symbol rewards before the
+ * bonus symbol, which is applied on top for every play since it is not part of the key. Rewards
+ * are bit for bit those of {@link Ticket#evaluate()} and {@link Ticket#reward(double)}.
+ *
+ * <p>The table is open addressed with linear probing over at most {@value #PROBES} slots, a full
+ * probe window evicts one of its slots round robin, so the size stays bounded. The hit rate is
+ * sampled every {@value #WINDOW} lookups; below the minimum hit rate the cache is bypassed for the
+ * next {@value #BYPASS_WINDOWS} windows of plays and then sampled again. A cache, like a ticket,
+ * must stay confined to one thread.
+ */
+public final class OutcomeCache {
+
+  static final int PROBES = 8;
+  static final int WINDOW = 1 << 16;
+  static final int BYPASS_WINDOWS = 16;
+  // most wins an entry can hold, so entries stay small
+  static final int MAX_HITS = 64;
+
+  private final CompiledGame game;
+  private final int bitsPerCell;
+  // per-symbol cell code, 1 + the rank of a standard symbol and 0 otherwise
+  private final long[] codes;
+  private final double minHitRate;
+  private final int shift;
+  private final int mask;
+  private final int maxHits;
+
+  private final long[] keys;
+  // wins of each slot, -1 for empty slots
+  private final int[] hitCounts;
+  private final int[] hits;
+  private final double[] baseRewards;
+  // the bet each base reward was computed for
+  private final double[] baseBets;
+  private int victim;
+
+  private int windowLookups;
+  private int windowHits;
+  private long bypassUntil;
+  private long plays;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  private long bypassCount;
+
+  // statistics of one cache or, summed, of several
+  public record Stats(long hits, long misses, long evictions, long bypassed) {
+
+    public Stats plus(Stats other) {
+      return new Stats(hits + other.hits, misses + other.misses,
+          evictions + other.evictions, bypassed + other.bypassed);
+    }
+
+    public double hitRate() {
+      return hits + misses == 0 ? 0 : hits / (double) (hits + misses);
+    }
+  }
+
+  public OutcomeCache(CompiledGame game, int capacity, double minHitRate) {
+    if (!supports(game)) {
+      throw new IllegalArgumentException("The grid of this game is too large to be memoized.");
+    }
+    if (capacity < PROBES || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(
+          "capacity must be a power of two of at least " + PROBES);
+    }
+    if ((long) capacity * Math.max(1, game.maxHits()) > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("capacity is too large for the wins of this game");
+    }
+    this.game = game;
+    this.bitsPerCell = bitsPerCell(game);
+    this.codes = new long[game.symbolCount()];
+    for (int i = 0; i < game.standardSymbolCount(); i++) {
+      codes[game.standardSymbol(i)] = i + 1;
+    }
+    this.minHitRate = minHitRate;
+    this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    this.mask = capacity - 1;
+    this.maxHits = Math.max(1, game.maxHits());
+    this.keys = new long[capacity];
+    this.hitCounts = new int[capacity];
+    Arrays.fill(hitCounts, -1);
+    this.hits = new int[capacity * maxHits];
+    this.baseRewards = new double[capacity];
+    this.baseBets = new double[capacity];
+  }
+
+  private static int bitsPerCell(CompiledGame game) {
+    return Integer.SIZE - Integer.numberOfLeadingZeros(game.standardSymbolCount());
+  }
+
+  // whether the cells of the game pack into a long and its plays win few enough combinations
+  public static boolean supports(CompiledGame game) {
+    return (long) bitsPerCell(game) * game.cellCount() <= Long.SIZE
+        && game.maxHits() <= MAX_HITS;
+  }
+
+  public CompiledGame game() {
+    return game;
+  }
+
+  // evaluates the ticket's generated or loaded matrix and returns its reward,
+  // as ticket.evaluate() followed by ticket.reward(bet) would
+  public double evaluate(Ticket ticket, double bet) {
+    if (ticket.game() != game) {
+      throw new IllegalArgumentException("Ticket belongs to a different game than this cache.");
+    }
+    if (plays++ < bypassUntil) {
+      bypassCount++;
+      ticket.evaluate();
+      return ticket.reward(bet);
+    }
+
+    long key = 0;
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      int symbol = ticket.cell(cell);
+      key = key << bitsPerCell | (symbol == CompiledGame.EMPTY ? 0 : codes[symbol]);
+    }
+    int home = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    int slot = -1;
+    for (int probe = 0; probe < PROBES; probe++) {
+      int candidate = (home + probe) & mask;
+      if (hitCounts[candidate] < 0) {
+        slot = candidate;
+        break;
+      }
+      if (keys[candidate] == key) {
+        sample(true);
+        return cached(ticket, candidate, bet);
+      }
+    }
+    sample(false);
+    if (slot < 0) {
+      slot = (home + (victim++ & (PROBES - 1))) & mask;
+      evictionCount++;
+    }
+
+    ticket.evaluate();
+    keys[slot] = key;
+    int count = ticket.hitCount();
+    hitCounts[slot] = count;
+    for (int i = 0, offset = slot * maxHits; i < count; i++) {
+      hits[offset + i] = ticket.hitSymbol(i) << 16 | ticket.hitCombination(i);
+    }
+    if (count == 0) {
+      return 0;
+    }
+    baseBets[slot] = bet;
+    baseRewards[slot] = ticket.baseReward(bet);
+    return ticket.applyBonus(baseRewards[slot]);
+  }
+
+  private double cached(Ticket ticket, int slot, double bet) {
+    int count = hitCounts[slot];
+    ticket.loadHits(hits, slot * maxHits, count);
+    if (count == 0) {
+      return 0;
+    }
+    if (baseBets[slot] != bet) {
+      baseBets[slot] = bet;
+      baseRewards[slot] = ticket.baseReward(bet);
+    }
+    return ticket.applyBonus(baseRewards[slot]);
+  }
+
+  private void sample(boolean hit) {
+    if (hit) {
+      hitCount++;
+      windowHits++;
+    } else {
+      missCount++;
+    }
+    if (++windowLookups == WINDOW) {
+      if (windowHits < minHitRate * WINDOW) {
+        bypassUntil = plays + (long) BYPASS_WINDOWS * WINDOW;
+      }
+      windowLookups = 0;
+      windowHits = 0;
+    }
+  }
+
+  // whether plays currently skip the cache for a too low hit rate
+  public boolean isBypassing() {
+    return plays < bypassUntil;
+  }
+
+  public Stats stats() {
+    return new Stats(hitCount, missCount, evictionCount, bypassCount);
+  }
+}
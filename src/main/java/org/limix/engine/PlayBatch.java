@@ -0,0 +1,165 @@
+package org.limix.engine;
+
+/**
+ * Struct-of-arrays buffers of many plays of one game, for bulk consumers. Cell symbols are stored
+ * cell-major, {@code cell * capacity + ticket}, so each cell of every ticket forms one column; they
+ * take a byte each, or a short when the game has more than 127 symbols. Every ticket has a bitset
+ * of the combinations it won, its bonus symbol, reward and play seed. Empty cells and a missing
+ * bonus are stored as -1. The arrays are the live buffers, reused by every batch played into them.
+ */
+public final class PlayBatch {
+
+  private final CompiledGame game;
+  private final int capacity;
+  private final int combinationWords;
+  private final byte[] cellBytes;
+  private final short[] cellShorts;
+  private final long[] combinations;
+  private final short[] bonusSymbols;
+  private final double[] rewards;
+  private final long[] seeds;
+  private double bet;
+  private int size;
+
+  public PlayBatch(CompiledGame game, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Batch capacity must be positive.");
+    }
+    this.game = game;
+    this.capacity = capacity;
+    this.combinationWords = Math.max(1, (game.combinationCount() + 63) >>> 6);
+    boolean wide = isWide(game);
+    this.cellBytes = wide ? null : new byte[game.cellCount() * capacity];
+    this.cellShorts = wide ? new short[game.cellCount() * capacity] : null;
+    this.combinations = new long[combinationWords * capacity];
+    this.bonusSymbols = new short[capacity];
+    this.rewards = new double[capacity];
+    this.seeds = new long[capacity];
+  }
+
+  public static boolean isWide(CompiledGame game) {
+    return game.symbolCount() > Byte.MAX_VALUE;
+  }
+
+  public CompiledGame game() {
+    return game;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // the number of tickets held, for buffers filled from outside the engine
+  public void setSize(int size) {
+    if (size < 0 || size > capacity) {
+      throw new IllegalArgumentException("Batch size must be between 0 and " + capacity);
+    }
+    this.size = size;
+  }
+
+  public double bet() {
+    return bet;
+  }
+
+  public void setBet(double bet) {
+    this.bet = bet;
+  }
+
+  public boolean isWide() {
+    return cellShorts != null;
+  }
+
+  public int combinationWords() {
+    return combinationWords;
+  }
+
+  // cell columns of a game with at most 127 symbols, null otherwise
+  public byte[] cellBytes() {
+    return cellBytes;
+  }
+
+  // cell columns of a game with more than 127 symbols, null otherwise
+  public short[] cellShorts() {
+    return cellShorts;
+  }
+
+  // combination bitsets, ticket-major, combinationWords() longs per ticket
+  public long[] combinations() {
+    return combinations;
+  }
+
+  public short[] bonusSymbols() {
+    return bonusSymbols;
+  }
+
+  public double[] rewards() {
+    return rewards;
+  }
+
+  public long[] seeds() {
+    return seeds;
+  }
+
+  public int cell(int ticket, int cell) {
+    int index = cell * capacity + ticket;
+    return cellShorts != null ? cellShorts[index] : cellBytes[index];
+  }
+
+  public boolean hasCombination(int ticket, int combination) {
+    return (combinations[ticket * combinationWords + (combination >>> 6)]
+        & 1L << combination) != 0;
+  }
+
+  public boolean isWin(int ticket) {
+    for (int word = 0; word < combinationWords; word++) {
+      if (combinations[ticket * combinationWords + word] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int bonusSymbol(int ticket) {
+    return bonusSymbols[ticket];
+  }
+
+  public double reward(int ticket) {
+    return rewards[ticket];
+  }
+
+  public long seed(int ticket) {
+    return seeds[ticket];
+  }
+
+  // copies a played ticket into the given slot
+  public void set(int index, PlayView play, double reward) {
+    if (play.game() != game) {
+      throw new IllegalArgumentException("Play belongs to a different game than this batch.");
+    }
+    int cellCount = game.cellCount();
+    if (cellShorts != null) {
+      for (int cell = 0, at = index; cell < cellCount; cell++, at += capacity) {
+        cellShorts[at] = (short) play.cell(cell);
+      }
+    } else {
+      for (int cell = 0, at = index; cell < cellCount; cell++, at += capacity) {
+        cellBytes[at] = (byte) play.cell(cell);
+      }
+    }
+    int base = index * combinationWords;
+    for (int word = 0; word < combinationWords; word++) {
+      combinations[base + word] = 0;
+    }
+    for (int i = 0; i < play.hitCount(); i++) {
+      int combination = play.hitCombination(i);
+      combinations[base + (combination >>> 6)] |= 1L << combination;
+    }
+    bonusSymbols[index] = (short) play.bonusSymbol();
+    rewards[index] = reward;
+    seeds[index] = play.hasSeed() ? play.seed() : 0;
+  }
+}
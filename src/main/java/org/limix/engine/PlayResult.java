@@ -0,0 +1,102 @@
+package org.limix.engine;
+
+import java.util.Arrays;
+
+/**
+ * Immutable outcome of one play. Wins are packed as {@code symbol << 16 | combination}; the array
+ * accessors return copies, use the indexed accessors to read without allocating. The seed only
+ * records where the play came from, results with the same outcome are equal whatever their seed.
+ */
+public record PlayResult(
+    CompiledGame game,
+    int[] cells,
+    int[] hits,
+    int bonusSymbol,
+    double bet,
+    double reward,
+    boolean hasSeed,
+    long seed
+) implements PlayView {
+
+  public static PlayResult of(Ticket ticket, double bet) {
+    return of(ticket, bet, ticket.reward(bet));
+  }
+
+  static PlayResult of(Ticket ticket, double bet, double reward) {
+    int[] cells = new int[ticket.game().cellCount()];
+    for (int cell = 0; cell < cells.length; cell++) {
+      cells[cell] = ticket.cell(cell);
+    }
+    int[] hits = new int[ticket.hitCount()];
+    for (int i = 0; i < hits.length; i++) {
+      hits[i] = ticket.hitSymbol(i) << 16 | ticket.hitCombination(i);
+    }
+    return new PlayResult(ticket.game(), cells, hits, ticket.bonusSymbol(), bet, reward,
+        ticket.hasSeed(), ticket.seed());
+  }
+
+  @Override
+  public int[] cells() {
+    return cells.clone();
+  }
+
+  @Override
+  public int[] hits() {
+    return hits.clone();
+  }
+
+  @Override
+  public int cell(int index) {
+    return cells[index];
+  }
+
+  @Override
+  public int hitCount() {
+    return hits.length;
+  }
+
+  @Override
+  public int hitSymbol(int index) {
+    return hits[index] >>> 16;
+  }
+
+  @Override
+  public int hitCombination(int index) {
+    return hits[index] & 0xFFFF;
+  }
+
+  // version of the configuration the play was made with
+  public long configVersion() {
+    return game.version();
+  }
+
+  public boolean isWin() {
+    return hits.length > 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof PlayResult other
+        && game == other.game
+        && bonusSymbol == other.bonusSymbol
+        && Double.compare(bet, other.bet) == 0
+        && Double.compare(reward, other.reward) == 0
+        && Arrays.equals(cells, other.cells)
+        && Arrays.equals(hits, other.hits);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Arrays.hashCode(cells);
+    result = 31 * result + Arrays.hashCode(hits);
+    result = 31 * result + bonusSymbol;
+    return 31 * result + Double.hashCode(reward);
+  }
+
+  @Override
+  public String toString() {
+    return "PlayResult[cells=" + Arrays.toString(cells) + ", hits=" + Arrays.toString(hits)
+        + ", bonusSymbol=" + bonusSymbol + ", bet=" + bet + ", reward=" + reward
+        + (hasSeed ? ", seed=" + seed : "") + "]";
+  }
+}
@@ -0,0 +1,54 @@
+package org.limix.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// read access to the outcome of one play, shared by the mutable Ticket and the immutable PlayResult
+public interface PlayView {
+
+  CompiledGame game();
+
+  int cell(int index);
+
+  int bonusSymbol();
+
+  int hitCount();
+
+  int hitSymbol(int index);
+
+  int hitCombination(int index);
+
+  // whether the play was generated from a seed of its game's random source
+  default boolean hasSeed() {
+    return false;
+  }
+
+  default long seed() {
+    return 0;
+  }
+
+  default String[][] symbolMatrix() {
+    CompiledGame game = game();
+    String[][] matrix = new String[game.rows()][game.columns()];
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      matrix[cell / game.columns()][cell % game.columns()] = game.symbolName(cell(cell));
+    }
+    return matrix;
+  }
+
+  default Map<String, List<String>> appliedWinningCombinations() {
+    CompiledGame game = game();
+    Map<String, List<String>> applied = new LinkedHashMap<>();
+    for (int i = 0; i < hitCount(); i++) {
+      applied.computeIfAbsent(game.symbolName(hitSymbol(i)), k -> new ArrayList<>())
+          .add(game.combinationName(hitCombination(i)));
+    }
+    return applied;
+  }
+
+  default String appliedBonusSymbol() {
+    return bonusSymbol() == CompiledGame.EMPTY ? "" : game().symbolName(bonusSymbol());
+  }
+}
@@ -0,0 +1,318 @@
+package org.limix.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * A ticket revealed one cell at a time, which knows after every reveal which wins are locked in by
+ * the cells revealed so far. It keeps a running count of every standard symbol against the
+ * same_symbols thresholds and, for every covered area, the cells left to reveal and the symbol of
+ * its revealed cells; an area is dead once a revealed cell is not standard or differs from that
+ * symbol. A reveal only updates the areas covering the cell. Once every cell is revealed the
+ * locked wins are those of {@link Ticket#evaluate()}, in the same order.
+ *
+ * <p>The whole state is one byte array, so a session costs little more than the matrix and its
+ * counters: a header with the seed, the version of the game, the number of locked wins and the
+ * bonus cell, then the cells, the symbol counts, the cells left and symbol of every area, in units
+ * of one byte, or of two bytes for games with more than 127 symbols, cells or cells in an area,
+ * and last a bitset of the revealed cells. {@link #state()} and
+ * {@link #restore(CompiledGame, byte[])} move it in and out, e.g. to keep idle sessions
+ * serialized. A session, like a ticket, must stay confined to one thread at a time.
+ */
+public final class RevealSession {
+
+  static final int SEED_OFFSET = 0;
+  static final int VERSION_OFFSET = 8;
+  static final int LOCKED_OFFSET = 16;
+  static final int BONUS_CELL_OFFSET = 20;
+  static final int FLAGS_OFFSET = 24;
+  static final int HEADER_SIZE = 25;
+  static final int SEEDED = 1;
+  static final int WIDE = 2;
+  // cells left of an area that can no longer be won
+  public static final int DEAD = -1;
+
+  private static final VarHandle LONG =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle INT =
+      MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle SHORT =
+      MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+  private final CompiledGame game;
+  private final byte[] state;
+  // copied from the flags, it fits in the object's padding
+  private final boolean wide;
+
+  private RevealSession(CompiledGame game, byte[] state, boolean wide) {
+    this.game = game;
+    this.state = state;
+    this.wide = wide;
+  }
+
+  // a session over the matrix of a ticket, with no cell revealed yet
+  public static RevealSession of(Ticket ticket) {
+    CompiledGame game = ticket.game();
+    boolean wide = isWide(game);
+    RevealSession session = new RevealSession(game, new byte[size(game, wide)], wide);
+    byte[] state = session.state;
+    LONG.set(state, SEED_OFFSET, ticket.hasSeed() ? ticket.seed() : 0L);
+    LONG.set(state, VERSION_OFFSET, game.version());
+    INT.set(state, BONUS_CELL_OFFSET, ticket.bonusCell());
+    state[FLAGS_OFFSET] = (byte) ((ticket.hasSeed() ? SEEDED : 0) | (wide ? WIDE : 0));
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      session.setUnit(session.cellsOffset() + cell, ticket.cell(cell));
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      session.setUnit(session.remainingOffset() + area, game.areaSize(area));
+      session.setUnit(session.areaSymbolsOffset() + area, CompiledGame.EMPTY);
+    }
+    return session;
+  }
+
+  /**
+   * A session from a state of the same game and version. The state is checked unit by unit, so a
+   * corrupt or foreign state is refused here rather than failing a later reveal.
+   */
+  public static RevealSession restore(CompiledGame game, byte[] state) {
+    boolean wide = isWide(game);
+    if (state.length != size(game, wide)
+        || (long) LONG.get(state, VERSION_OFFSET) != game.version()
+        || state[FLAGS_OFFSET] != (state[FLAGS_OFFSET] & SEEDED | (wide ? WIDE : 0))) {
+      throw new IllegalArgumentException("State does not belong to a session of this game.");
+    }
+    RevealSession session = new RevealSession(game, state.clone(), wide);
+    if (!session.isConsistent()) {
+      throw new IllegalArgumentException("Corrupt session state.");
+    }
+    return session;
+  }
+
+  // every unit in range and the locked count matching the counters
+  private boolean isConsistent() {
+    int cellCount = game.cellCount();
+    for (int cell = 0; cell < cellCount; cell++) {
+      int symbol = unit(cellsOffset() + cell);
+      if (symbol < 0 || symbol >= game.symbolCount()) {
+        return false;
+      }
+    }
+    int bonusCell = (int) INT.get(state, BONUS_CELL_OFFSET);
+    if (bonusCell != CompiledGame.EMPTY && (bonusCell < 0 || bonusCell >= cellCount)) {
+      return false;
+    }
+    int locked = 0;
+    for (int i = 0; i < game.standardSymbolCount(); i++) {
+      int count = unit(countsOffset() + i);
+      if (count < 0 || count > cellCount) {
+        return false;
+      }
+      locked += game.sameSymbolsCombination(count) != CompiledGame.EMPTY ? 1 : 0;
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      int remaining = unit(remainingOffset() + area);
+      int symbol = unit(areaSymbolsOffset() + area);
+      if (remaining < DEAD || remaining > game.areaSize(area)
+          || symbol != CompiledGame.EMPTY
+              && (symbol < 0 || symbol >= game.symbolCount() || !game.isStandard(symbol))
+          || remaining == 0 && symbol == CompiledGame.EMPTY) {
+        return false;
+      }
+      locked += remaining == 0 ? 1 : 0;
+    }
+    // no bits past the last cell
+    int last = state[state.length - 1] & 0xFF;
+    return locked == lockedCount() && (cellCount % 8 == 0 || last >>> (cellCount % 8) == 0);
+  }
+
+  private static boolean isWide(CompiledGame game) {
+    int largest = Math.max(game.symbolCount(), game.cellCount());
+    for (int area = 0; area < game.areaCount(); area++) {
+      largest = Math.max(largest, game.areaSize(area));
+    }
+    return largest > Byte.MAX_VALUE;
+  }
+
+  private static int size(CompiledGame game, boolean wide) {
+    int units = game.cellCount() + game.standardSymbolCount() + 2 * game.areaCount();
+    return HEADER_SIZE + units * (wide ? 2 : 1) + (game.cellCount() + 7) / 8;
+  }
+
+  // a copy of the state, to restore the session from
+  public byte[] state() {
+    return state.clone();
+  }
+
+  public CompiledGame game() {
+    return game;
+  }
+
+  public boolean hasSeed() {
+    return (state[FLAGS_OFFSET] & SEEDED) != 0;
+  }
+
+  // the seed of the ticket, to replay its outcome once revealed
+  public long seed() {
+    return (long) LONG.get(state, SEED_OFFSET);
+  }
+
+  /**
+   * Reveals a cell and returns its symbol. Revealing a cell again returns its symbol and changes
+   * nothing.
+   */
+  public int reveal(int cell) {
+    if (cell < 0 || cell >= game.cellCount()) {
+      throw new IllegalArgumentException("Cell out of bounds: " + cell);
+    }
+    int symbol = unit(cellsOffset() + cell);
+    int revealed = revealedOffset() + (cell >>> 3);
+    if ((state[revealed] & 1 << (cell & 7)) != 0) {
+      return symbol;
+    }
+    state[revealed] |= (byte) (1 << (cell & 7));
+
+    int locked = 0;
+    int index = symbol == CompiledGame.EMPTY ? CompiledGame.EMPTY : game.standardIndex(symbol);
+    if (index != CompiledGame.EMPTY) {
+      int count = unit(countsOffset() + index);
+      setUnit(countsOffset() + index, count + 1);
+      // the thresholds only ever go up with the count, so a win is locked once
+      if (game.sameSymbolsCombination(count) == CompiledGame.EMPTY
+          && game.sameSymbolsCombination(count + 1) != CompiledGame.EMPTY) {
+        locked++;
+      }
+    }
+    for (int i = game.cellAreasStart(cell); i < game.cellAreasEnd(cell); i++) {
+      int area = game.cellArea(i);
+      int remaining = unit(remainingOffset() + area);
+      if (remaining == DEAD) {
+        continue;
+      }
+      int areaSymbol = unit(areaSymbolsOffset() + area);
+      if (index == CompiledGame.EMPTY
+          || areaSymbol != CompiledGame.EMPTY && areaSymbol != symbol) {
+        setUnit(remainingOffset() + area, DEAD);
+        continue;
+      }
+      setUnit(areaSymbolsOffset() + area, symbol);
+      setUnit(remainingOffset() + area, remaining - 1);
+      if (remaining == 1) {
+        locked++;
+      }
+    }
+    if (locked > 0) {
+      INT.set(state, LOCKED_OFFSET, lockedCount() + locked);
+    }
+    return symbol;
+  }
+
+  public boolean isRevealed(int cell) {
+    return (state[revealedOffset() + (cell >>> 3)] & 1 << (cell & 7)) != 0;
+  }
+
+  public int revealedCount() {
+    int count = 0;
+    for (int i = revealedOffset(); i < state.length; i++) {
+      count += Integer.bitCount(state[i] & 0xFF);
+    }
+    return count;
+  }
+
+  public boolean isComplete() {
+    return revealedCount() == game.cellCount();
+  }
+
+  // the symbol of a revealed cell, EMPTY while the cell is hidden
+  public int symbol(int cell) {
+    return isRevealed(cell) ? unit(cellsOffset() + cell) : CompiledGame.EMPTY;
+  }
+
+  // the bonus symbol once its cell is revealed, EMPTY before and for tickets without one
+  public int bonusSymbol() {
+    int cell = (int) INT.get(state, BONUS_CELL_OFFSET);
+    return cell == CompiledGame.EMPTY ? CompiledGame.EMPTY : symbol(cell);
+  }
+
+  // whether the revealed cells already win something, whatever the hidden cells hold
+  public boolean isWinLocked() {
+    return lockedCount() > 0;
+  }
+
+  public int lockedCount() {
+    return (int) INT.get(state, LOCKED_OFFSET);
+  }
+
+  // revealed cells of a standard symbol
+  public int revealedCount(int symbol) {
+    int index = game.standardIndex(symbol);
+    if (index == CompiledGame.EMPTY) {
+      throw new IllegalArgumentException("Not a standard symbol: " + symbol);
+    }
+    return unit(countsOffset() + index);
+  }
+
+  // cells of an area left to reveal, 0 once it is won and DEAD once it cannot be won
+  public int areaRemaining(int area) {
+    return unit(remainingOffset() + area);
+  }
+
+  /**
+   * The wins locked in so far, packed as {@code symbol << 16 | combination}: the best same_symbols
+   * combination of every standard symbol in standard symbol order, then the areas won by id. A
+   * symbol's same_symbols combination can still improve with the cells left.
+   */
+  public int[] lockedHits() {
+    // a locked win stays locked, so there are exactly lockedCount() of them
+    int[] hits = new int[lockedCount()];
+    int n = 0;
+    for (int i = 0; i < game.standardSymbolCount(); i++) {
+      int combination = game.sameSymbolsCombination(unit(countsOffset() + i));
+      if (combination != CompiledGame.EMPTY) {
+        hits[n++] = game.standardSymbol(i) << 16 | combination;
+      }
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      if (unit(remainingOffset() + area) == 0) {
+        hits[n++] = unit(areaSymbolsOffset() + area) << 16 | game.areaCombination(area);
+      }
+    }
+    return hits;
+  }
+
+  // unit indices of the sections
+  private int cellsOffset() {
+    return 0;
+  }
+
+  private int countsOffset() {
+    return game.cellCount();
+  }
+
+  private int remainingOffset() {
+    return game.cellCount() + game.standardSymbolCount();
+  }
+
+  private int areaSymbolsOffset() {
+    return remainingOffset() + game.areaCount();
+  }
+
+  // byte offset of the revealed cells
+  private int revealedOffset() {
+    return HEADER_SIZE + (areaSymbolsOffset() + game.areaCount()) * (wide ? 2 : 1);
+  }
+
+  private int unit(int index) {
+    return wide
+        ? (short) SHORT.get(state, HEADER_SIZE + 2 * index)
+        : state[HEADER_SIZE + index];
+  }
+
+  private void setUnit(int index, int value) {
+    if (wide) {
+      SHORT.set(state, HEADER_SIZE + 2 * index, (short) value);
+    } else {
+      state[HEADER_SIZE + index] = (byte) value;
+    }
+  }
+}
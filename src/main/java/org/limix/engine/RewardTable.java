@@ -0,0 +1,225 @@
+package org.limix.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact fixed-point payout of a {@link CompiledGame}. Bets and rewards are longs in minor units of
+ * the currency, {@code 10^-fractionDigits} of a unit: with 2 fraction digits a bet of 1.50 is 150.
+ * Every symbol and combination {@code reward_multiplier}, and every bonus effect, is precomputed as
+ * an exact decimal, an unscaled long and its count of fraction digits, so a play multiplies and
+ * adds longs without any rounding and is rounded once, to whole minor units, with the configured
+ * {@link RoundingMode}. Plays whose exact products outgrow a long fall back to {@link BigDecimal}
+ * with the same result.
+ *
+ * <p>Multipliers are taken at the shortest decimal that reads back as the configured double, so
+ * {@code 1.2} is exactly 12/10. The double reward of the same play differs from the rounded exact
+ * one by the double rounding error of the products at most.
+ */
+public final class RewardTable {
+
+  // powers of ten that fit a long
+  private static final long[] POW10 = new long[19];
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+  }
+
+  private final CompiledGame game;
+  private final int fractionDigits;
+  private final RoundingMode rounding;
+
+  // multipliers as unscaled values with their fraction digits
+  private final long[] symbolUnscaled;
+  private final int[] symbolScales;
+  private final long[] combinationUnscaled;
+  private final int[] combinationScales;
+  // extra_bonus amounts in minor units
+  private final long[] extraUnscaled;
+  private final int[] extraScales;
+
+  public RewardTable(CompiledGame game, int fractionDigits, RoundingMode rounding) {
+    if (fractionDigits < 0 || fractionDigits >= POW10.length) {
+      throw new IllegalArgumentException(
+          "fractionDigits must be between 0 and " + (POW10.length - 1));
+    }
+    this.game = game;
+    this.fractionDigits = fractionDigits;
+    this.rounding = rounding;
+
+    int symbols = game.symbolCount();
+    this.symbolUnscaled = new long[symbols];
+    this.symbolScales = new int[symbols];
+    this.extraUnscaled = new long[symbols];
+    this.extraScales = new int[symbols];
+    for (int symbol = 0; symbol < symbols; symbol++) {
+      BigDecimal multiplier = decimal(game.symbolMultiplier(symbol));
+      symbolUnscaled[symbol] = multiplier.unscaledValue().longValueExact();
+      symbolScales[symbol] = multiplier.scale();
+      BigDecimal extra = decimal(game.symbolExtra(symbol)).movePointRight(fractionDigits);
+      extraUnscaled[symbol] = extra.unscaledValue().longValueExact();
+      extraScales[symbol] = extra.scale();
+    }
+    int combinations = game.combinationCount();
+    this.combinationUnscaled = new long[combinations];
+    this.combinationScales = new int[combinations];
+    for (int combination = 0; combination < combinations; combination++) {
+      BigDecimal multiplier = decimal(game.combinationMultiplier(combination));
+      combinationUnscaled[combination] = multiplier.unscaledValue().longValueExact();
+      combinationScales[combination] = multiplier.scale();
+    }
+  }
+
+  // shortest decimal of the double without a negative scale, 50 is 50 and not 5E+1
+  private static BigDecimal decimal(double value) {
+    if (!Double.isFinite(value)) {
+      throw new IllegalArgumentException("Multipliers must be finite: " + value);
+    }
+    BigDecimal decimal = BigDecimal.valueOf(value).stripTrailingZeros();
+    return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+  }
+
+  public CompiledGame game() {
+    return game;
+  }
+
+  public int fractionDigits() {
+    return fractionDigits;
+  }
+
+  public RoundingMode rounding() {
+    return rounding;
+  }
+
+  // the bet in minor units, which must not have more fraction digits than the currency
+  public long minorUnits(double amount) {
+    double scaled = amount * POW10[fractionDigits];
+    long units = Math.round(scaled);
+    if (Math.abs(scaled - units) > 1e-9 * Math.max(1, Math.abs(scaled))
+        || Math.abs(scaled) >= 0x1p53) {
+      throw new IllegalArgumentException(
+          "Amount " + amount + " is not a whole number of minor units.");
+    }
+    return units;
+  }
+
+  public double amount(long minorUnits) {
+    return minorUnits / (double) POW10[fractionDigits];
+  }
+
+  long symbolUnscaled(int symbol) {
+    return symbolUnscaled[symbol];
+  }
+
+  int symbolScale(int symbol) {
+    return symbolScales[symbol];
+  }
+
+  long combinationUnscaled(int combination) {
+    return combinationUnscaled[combination];
+  }
+
+  int combinationScale(int combination) {
+    return combinationScales[combination];
+  }
+
+  long extraUnscaled(int symbol) {
+    return extraUnscaled[symbol];
+  }
+
+  int extraScale(int symbol) {
+    return extraScales[symbol];
+  }
+
+  // value * 10^digits, ArithmeticException when it overflows
+  static long scaleUp(long value, int digits) {
+    if (digits == 0 || value == 0) {
+      return value;
+    }
+    if (digits >= POW10.length) {
+      throw new ArithmeticException("long overflow");
+    }
+    return Math.multiplyExact(value, POW10[digits]);
+  }
+
+  // unscaled * 10^-scale rounded to a whole number with the configured rounding
+  long round(long unscaled, int scale) {
+    if (scale == 0) {
+      return unscaled;
+    }
+    if (scale >= POW10.length) {
+      return round(BigDecimal.valueOf(unscaled, scale));
+    }
+    long divisor = POW10[scale];
+    long quotient = unscaled / divisor;
+    long remainder = unscaled % divisor;
+    if (remainder == 0) {
+      return quotient;
+    }
+    int sign = unscaled < 0 ? -1 : 1;
+    // compares the dropped fraction with one half
+    int half = Long.compare(Math.abs(remainder), divisor - Math.abs(remainder));
+    boolean away = switch (rounding) {
+      case UP -> true;
+      case DOWN -> false;
+      case CEILING -> sign > 0;
+      case FLOOR -> sign < 0;
+      case HALF_UP -> half >= 0;
+      case HALF_DOWN -> half > 0;
+      case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+      case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+    };
+    return away ? quotient + sign : quotient;
+  }
+
+  long round(BigDecimal exact) {
+    return exact.setScale(0, rounding).longValueExact();
+  }
+
+  // the unrounded reward in minor units, the same sum of products without any limit on its size
+  public BigDecimal exactReward(PlayView play, long bet) {
+    if (play.game() != game) {
+      throw new IllegalArgumentException("Play belongs to a different game than this table.");
+    }
+    if (play.hitCount() == 0) {
+      return BigDecimal.ZERO;
+    }
+    BigDecimal[] symbolRewards = new BigDecimal[game.symbolCount()];
+    for (int i = 0; i < play.hitCount(); i++) {
+      int symbol = play.hitSymbol(i);
+      if (symbolRewards[symbol] == null) {
+        symbolRewards[symbol] = BigDecimal.valueOf(bet)
+            .multiply(BigDecimal.valueOf(symbolUnscaled[symbol], symbolScales[symbol]));
+      }
+      int combination = play.hitCombination(i);
+      symbolRewards[symbol] = symbolRewards[symbol].multiply(
+          BigDecimal.valueOf(combinationUnscaled[combination], combinationScales[combination]));
+    }
+    BigDecimal reward = BigDecimal.ZERO;
+    for (BigDecimal symbolReward : symbolRewards) {
+      if (symbolReward != null) {
+        reward = reward.add(symbolReward);
+      }
+    }
+    int bonusSymbol = play.bonusSymbol();
+    if (bonusSymbol != CompiledGame.EMPTY) {
+      switch (game.impact(bonusSymbol)) {
+        case MULTIPLY_REWARD -> reward = reward.multiply(
+            BigDecimal.valueOf(symbolUnscaled[bonusSymbol], symbolScales[bonusSymbol]));
+        case EXTRA_BONUS -> reward = reward.add(
+            BigDecimal.valueOf(extraUnscaled[bonusSymbol], extraScales[bonusSymbol]));
+        default -> {
+        }
+      }
+    }
+    return reward;
+  }
+
+  // the reward in minor units of any play, Ticket.reward(long, RewardTable) is the fast path
+  public long reward(PlayView play, long bet) {
+    return round(exactReward(play, bet));
+  }
+}
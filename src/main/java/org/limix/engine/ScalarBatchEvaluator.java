@@ -0,0 +1,20 @@
+package org.limix.engine;
+
+// the batch evaluator of plain loops, for any game and any JVM
+final class ScalarBatchEvaluator extends BatchEvaluator {
+
+  ScalarBatchEvaluator(CompiledGame game, RewardTable rewards) {
+    super(game, rewards, MAX_BLOCK);
+  }
+
+  @Override
+  public String kind() {
+    return "scalar";
+  }
+
+  @Override
+  void countAndMatch(PlayBatch batch, int from, int lanes, int[] counts, long[] sameWins,
+      long[] matches) {
+    countAndMatchScalar(batch, from, lanes, counts, sameWins, matches);
+  }
+}
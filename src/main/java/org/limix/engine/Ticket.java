@@ -0,0 +1,360 @@
+package org.limix.engine;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+import org.limix.random.RandomSource;
+
+/**
+ * Mutable scratch state of one play against a {@link CompiledGame}. A ticket is reused for any
+ * number of plays but must stay confined to one thread.
+ */
+public final class Ticket implements PlayView {
+
+  private final CompiledGame game;
+  private final int[] cells;
+  // one occupancy bitboard of maskWords longs per symbol, kept in sync with cells
+  private final long[] symbolMasks;
+  private final int maskWords;
+  // applied win combinations as parallel (symbol id, combination id) entries
+  private final int[] hitSymbols;
+  private final int[] hitCombinations;
+  private int hitCount;
+  // the same_symbols wins lead the entries, the linear_symbols wins follow them
+  private int standardHits;
+  // linear_symbols walk scratch: pending area trie nodes and the areas matched so far
+  private final int[] matchedAreas;
+  private int bonusCell = CompiledGame.EMPTY;
+  private int bonusSymbol = CompiledGame.EMPTY;
+  // seed of the current matrix when it was generated from one
+  private boolean seeded;
+  private long seed;
+  // the generator of the last seeded play, reseeded for the next one
+  private RandomGenerator seededRng;
+
+  // per-symbol reward scratch, valid for symbols stamped with the current reward pass
+  private final double[] symbolRewards;
+  private final int[] rewardStamps;
+  private final int[] rewardedSymbols;
+  private int rewardStamp;
+  // fixed-point scratch, per-symbol unscaled rewards and their fraction digits
+  private final long[] symbolUnscaled;
+  private final int[] symbolScales;
+
+  public Ticket(CompiledGame game) {
+    this.game = game;
+    this.cells = new int[game.cellCount()];
+    this.maskWords = game.maskWords();
+    this.symbolMasks = new long[game.symbolCount() * maskWords];
+    this.hitSymbols = new int[game.maxHits()];
+    this.hitCombinations = new int[game.maxHits()];
+    this.matchedAreas = new int[game.areaCount()];
+    this.symbolRewards = new double[game.symbolCount()];
+    this.rewardStamps = new int[game.symbolCount()];
+    this.rewardedSymbols = new int[game.symbolCount()];
+    this.symbolUnscaled = new long[game.symbolCount()];
+    this.symbolScales = new int[game.symbolCount()];
+  }
+
+  @Override
+  public CompiledGame game() {
+    return game;
+  }
+
+  // fills the matrix from the seed's own generator, so the play can be replayed from the seed
+  public void generate(RandomSource random, long seed) {
+    seededRng = random.reseed(seededRng, seed);
+    generate(seededRng);
+    this.seeded = true;
+    this.seed = seed;
+  }
+
+  // fills the matrix and clears previous wins
+  public void generate(RandomGenerator rng) {
+    hitCount = 0;
+    standardHits = 0;
+    seeded = false;
+    bonusSymbol = CompiledGame.EMPTY;
+    bonusCell = game.cellIndex(rng.nextInt(game.rows()), rng.nextInt(game.columns()));
+
+    Arrays.fill(symbolMasks, 0L);
+    for (int cell = 0; cell < cells.length; cell++) {
+      if (cell == bonusCell && game.hasBonusSymbols()) {
+        bonusSymbol = game.bonusSampler().sample(rng);
+        setCell(cell, bonusSymbol);
+      } else {
+        setCell(cell, game.cellSampler(cell).sample(rng));
+      }
+    }
+    if (bonusSymbol == CompiledGame.EMPTY) {
+      bonusCell = CompiledGame.EMPTY;
+    }
+  }
+
+  // loads a given matrix, the bonus is the first cell holding a bonus symbol
+  public void load(int[] matrix) {
+    if (matrix.length != cells.length) {
+      throw new IllegalArgumentException("Expected " + cells.length + " cells.");
+    }
+    hitCount = 0;
+    standardHits = 0;
+    seeded = false;
+    bonusCell = CompiledGame.EMPTY;
+    bonusSymbol = CompiledGame.EMPTY;
+    Arrays.fill(symbolMasks, 0L);
+    for (int cell = 0; cell < cells.length; cell++) {
+      setCell(cell, matrix[cell]);
+      if (bonusCell == CompiledGame.EMPTY && game.isBonus(matrix[cell])) {
+        bonusCell = cell;
+        bonusSymbol = matrix[cell];
+      }
+    }
+  }
+
+  private void setCell(int cell, int symbol) {
+    cells[cell] = symbol;
+    if (symbol != CompiledGame.EMPTY) {
+      symbolMasks[symbol * maskWords + (cell >>> 6)] |= 1L << cell;
+    }
+  }
+
+  public void play(RandomGenerator rng) {
+    generate(rng);
+    evaluate();
+  }
+
+  public void play(RandomSource random, long seed) {
+    generate(random, seed);
+    evaluate();
+  }
+
+  public void evaluate() {
+    evaluateStandardSymbols();
+    evaluateLinearSymbols();
+  }
+
+  // replaces the wins with the same_symbols wins of the current matrix
+  public void evaluateStandardSymbols() {
+    hitCount = 0;
+    for (int i = 0; i < game.standardSymbolCount(); i++) {
+      int symbol = game.standardSymbol(i);
+      int count = 0;
+      for (int word = symbol * maskWords, end = word + maskWords; word < end; word++) {
+        count += Long.bitCount(symbolMasks[word]);
+      }
+      if (count > 0) {
+        int combination = game.sameSymbolsCombination(count);
+        if (combination != CompiledGame.EMPTY) {
+          addHit(symbol, combination);
+        }
+      }
+    }
+    standardHits = hitCount;
+  }
+
+  // appends the linear_symbols wins of the current matrix, in area order, to its same_symbols
+  // wins; those of an earlier call are replaced
+  public void evaluateLinearSymbols() {
+    hitCount = standardHits;
+    AreaTrie trie = game.areaTrie();
+    int matched = 0;
+    int nodes = trie.nodeCount();
+    int anchor = AreaTrie.ROOT + 1;
+    while (anchor < nodes) {
+      int end = trie.subtreeEnd(anchor);
+      int symbol = cells[trie.cell(anchor)];
+      if (game.isStandard(symbol)) {
+        // one forward sweep of the anchor's subtree, jumping over the mismatching subtrees
+        int node = anchor;
+        while (node < end) {
+          if (node != anchor && cells[trie.cell(node)] != symbol) {
+            node = trie.subtreeEnd(node);
+            continue;
+          }
+          for (int i = trie.terminalStart(node); i < trie.terminalEnd(node); i++) {
+            matchedAreas[matched++] = trie.terminalArea(i);
+          }
+          node++;
+        }
+      }
+      anchor = end;
+    }
+    if (matched > 1) {
+      Arrays.sort(matchedAreas, 0, matched);
+    }
+    for (int i = 0; i < matched; i++) {
+      int area = matchedAreas[i];
+      addHit(cells[game.areaCell(area, 0)], game.areaCombination(area));
+    }
+  }
+
+  // replaces the wins with count entries packed as symbol << 16 | combination, e.g. memoized ones
+  void loadHits(int[] packed, int offset, int count) {
+    hitCount = 0;
+    standardHits = 0;
+    for (int i = 0; i < count; i++) {
+      int hit = packed[offset + i];
+      addHit(hit >>> 16, hit & 0xFFFF);
+    }
+  }
+
+  // the wins and bonus symbol of a matrix evaluated elsewhere, enough for its reward; the cells
+  // are left as they were
+  void loadOutcome(int bonusSymbol, int[] packed, int offset, int count) {
+    seeded = false;
+    bonusCell = CompiledGame.EMPTY;
+    this.bonusSymbol = bonusSymbol;
+    loadHits(packed, offset, count);
+  }
+
+  private void addHit(int symbol, int combination) {
+    hitSymbols[hitCount] = symbol;
+    hitCombinations[hitCount] = combination;
+    hitCount++;
+  }
+
+  public double reward(double bet) {
+    if (hitCount == 0) {
+      return 0;
+    }
+    return applyBonus(baseReward(bet));
+  }
+
+  // the summed rewards of the winning symbols before the bonus symbol, for plays with wins
+  public double baseReward(double bet) {
+    // multiply each winning symbol's reward by all of its combinations
+    int stamp = ++rewardStamp;
+    int rewarded = 0;
+    for (int i = 0; i < hitCount; i++) {
+      int symbol = hitSymbols[i];
+      if (rewardStamps[symbol] != stamp) {
+        rewardStamps[symbol] = stamp;
+        symbolRewards[symbol] = bet * game.symbolMultiplier(symbol);
+        rewardedSymbols[rewarded++] = symbol;
+      }
+      symbolRewards[symbol] *= game.combinationMultiplier(hitCombinations[i]);
+    }
+    double reward = 0;
+    for (int i = 0; i < rewarded; i++) {
+      reward += symbolRewards[rewardedSymbols[i]];
+    }
+    return reward;
+  }
+
+  // applies the bonus symbol of the matrix to a base reward
+  double applyBonus(double reward) {
+    if (bonusSymbol != CompiledGame.EMPTY) {
+      switch (game.impact(bonusSymbol)) {
+        case MULTIPLY_REWARD -> reward *= game.symbolMultiplier(bonusSymbol);
+        case EXTRA_BONUS -> reward += game.symbolExtra(bonusSymbol);
+        default -> {
+        }
+      }
+    }
+    return reward;
+  }
+
+  // the reward in minor units of a bet in minor units, exact until it is rounded once
+  public long reward(long bet, RewardTable rewards) {
+    if (rewards.game() != game) {
+      throw new IllegalArgumentException("Reward table belongs to a different game.");
+    }
+    if (hitCount == 0) {
+      return 0;
+    }
+    long reward;
+    int scale;
+    try {
+      int stamp = ++rewardStamp;
+      int rewarded = 0;
+      for (int i = 0; i < hitCount; i++) {
+        int symbol = hitSymbols[i];
+        if (rewardStamps[symbol] != stamp) {
+          rewardStamps[symbol] = stamp;
+          symbolUnscaled[symbol] = Math.multiplyExact(bet, rewards.symbolUnscaled(symbol));
+          symbolScales[symbol] = rewards.symbolScale(symbol);
+          rewardedSymbols[rewarded++] = symbol;
+        }
+        int combination = hitCombinations[i];
+        symbolUnscaled[symbol] = Math.multiplyExact(symbolUnscaled[symbol],
+            rewards.combinationUnscaled(combination));
+        symbolScales[symbol] += rewards.combinationScale(combination);
+      }
+      reward = 0;
+      scale = 0;
+      for (int i = 0; i < rewarded; i++) {
+        int symbol = rewardedSymbols[i];
+        reward = addExact(reward, scale, symbolUnscaled[symbol], symbolScales[symbol]);
+        scale = Math.max(scale, symbolScales[symbol]);
+      }
+
+      if (bonusSymbol != CompiledGame.EMPTY) {
+        switch (game.impact(bonusSymbol)) {
+          case MULTIPLY_REWARD -> {
+            reward = Math.multiplyExact(reward, rewards.symbolUnscaled(bonusSymbol));
+            scale += rewards.symbolScale(bonusSymbol);
+          }
+          case EXTRA_BONUS -> {
+            int extraScale = rewards.extraScale(bonusSymbol);
+            reward = addExact(reward, scale, rewards.extraUnscaled(bonusSymbol), extraScale);
+            scale = Math.max(scale, extraScale);
+          }
+          default -> {
+          }
+        }
+      }
+    } catch (ArithmeticException e) {
+      // the exact products outgrew a long
+      return rewards.reward(this, bet);
+    }
+    return rewards.round(reward, scale);
+  }
+
+  // sum of two decimals, at the larger of their scales
+  private static long addExact(long a, int aScale, long b, int bScale) {
+    return Math.addExact(RewardTable.scaleUp(a, Math.max(aScale, bScale) - aScale),
+        RewardTable.scaleUp(b, Math.max(aScale, bScale) - bScale));
+  }
+
+  @Override
+  public int cell(int index) {
+    return cells[index];
+  }
+
+  public int symbolAt(int row, int column) {
+    return cells[row * game.columns() + column];
+  }
+
+  public int bonusCell() {
+    return bonusCell;
+  }
+
+  @Override
+  public int bonusSymbol() {
+    return bonusSymbol;
+  }
+
+  @Override
+  public boolean hasSeed() {
+    return seeded;
+  }
+
+  @Override
+  public long seed() {
+    return seed;
+  }
+
+  @Override
+  public int hitCount() {
+    return hitCount;
+  }
+
+  @Override
+  public int hitSymbol(int index) {
+    return hitSymbols[index];
+  }
+
+  @Override
+  public int hitCombination(int index) {
+    return hitCombinations[index];
+  }
+}
@@ -0,0 +1,574 @@
+package org.limix.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayView;
+import org.limix.random.RandomSource;
+
+/**
+ * Append-only audit journal of plays: one fixed-size {@link JournalLayout} record per play, in
+ * memory-mapped segment files of a directory that roll over every {@code segmentRecords} records.
+ * Appending claims the next record number with a single atomic increment, writes the record in
+ * place and publishes it by writing its commit word last, so writers never lock or wait for each
+ * other. A background thread group-commits: once {@code syncBytes} were appended or
+ * {@code syncInterval} has passed it forces the finished records to disk with one call and
+ * advances {@link #durableIndex()}. A play is only lost if the machine fails before its group was
+ * synced; a process crash loses nothing that was appended. An append that fails after claiming
+ * its number leaves a {@link JournalLayout#ABANDONED} commit word, or no record at all when its
+ * segment could not be created, so the records after it still become durable. Failed syncs of the
+ * background thread go to the sync failure listener. Reopening a journal continues after its last
+ * record in a new segment. {@link JournalVerifier} replays the journal.
+ *
+ * <p>Every record carries the configuration version of its play, so reloaded configurations share
+ * the journal. A play whose game has other names or another grid than the segments being written,
+ * e.g. after a reload, seals them and continues in a new segment written for its game: the numbers
+ * claimed so far stay in the sealed segments, cut after their last record once it is durable.
+ */
+public final class Journal implements Closeable {
+
+  static final int MAGIC = 0x53474A4C; // "SGJL"
+  static final int VERSION = 1;
+  static final int PAGE_SIZE = 4096;
+  static final String PREFIX = "journal-";
+  static final String SUFFIX = ".bin";
+  private static final VarHandle COMMIT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  // added to the next number of a sealed session, numbers claimed after that are retried
+  private static final long SEALED = 1L << 62;
+
+  private final Path directory;
+  private final RandomSource random;
+  private final long segmentRecords;
+  private final long syncBytes;
+  private final long syncNanos;
+  // the session writers append to, replaced when a play of another game seals it
+  private volatile Session session;
+  // sessions with records not on disk yet, oldest first, only touched under the sync lock
+  private final Deque<Session> sessions = new ArrayDeque<>();
+  private final Consumer<Exception> syncFailed;
+  private volatile long durable;
+  private volatile boolean closed;
+  private final ReentrantLock syncLock = new ReentrantLock();
+  private final Condition synced = syncLock.newCondition();
+  private final Thread flusher;
+
+  private record Segment(long first, FileChannel channel, MappedByteBuffer records) {
+
+    boolean contains(long index, long capacity) {
+      return index >= first && index - first < capacity;
+    }
+  }
+
+  /**
+   * The segments of one game, from the first record of the journal or of the session it
+   * followed; its segments start every segmentRecords from there.
+   */
+  private final class Session {
+
+    final CompiledGame game;
+    final JournalLayout layout;
+    final int recordSize;
+    final long first;
+    final long syncRecords;
+    final AtomicLong next;
+    final Map<Long, Segment> segments = new ConcurrentHashMap<>();
+    final AtomicReference<Segment> current = new AtomicReference<>();
+    // claimed numbers whose segment could not be created, skipped by the next flush
+    final Set<Long> abandoned = ConcurrentHashMap.newKeySet();
+    // another game whose plays fit the records, e.g. a reload that kept the names
+    volatile CompiledGame fitting;
+    // the number after the last record once sealed
+    volatile long end = Long.MAX_VALUE;
+
+    Session(CompiledGame game, long first) {
+      this.game = game;
+      this.layout = JournalLayout.of(game.cellCount(), game.symbolCount(),
+          game.combinationCount());
+      this.recordSize = layout.recordSize();
+      if (segmentRecords <= 0 || segmentRecords > Integer.MAX_VALUE / recordSize) {
+        throw new IllegalArgumentException(
+            "Segments must hold between 1 and " + Integer.MAX_VALUE / recordSize + " records.");
+      }
+      this.first = first;
+      this.syncRecords = Math.max(1, syncBytes / recordSize);
+      this.next = new AtomicLong(first);
+    }
+
+    // whether the plays of a game are recorded as this session's header describes them
+    boolean fits(CompiledGame played) {
+      if (played == game || played == fitting) {
+        return true;
+      }
+      boolean fits = played.rows() == game.rows() && played.columns() == game.columns()
+          && names(played).equals(names(game));
+      if (fits) {
+        fitting = played;
+      }
+      return fits;
+    }
+
+    long segmentOf(long index) {
+      return (index - first) / segmentRecords;
+    }
+
+    // the segment of a record, created when it is not open yet
+    Segment segment(long index) {
+      return segments.computeIfAbsent(segmentOf(index), number -> {
+        try {
+          return create(this, first + number * segmentRecords);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    }
+
+    // the numbers claimed so far, up to the end once sealed
+    long claimed() {
+      return Math.min(next.get(), end);
+    }
+
+    // closes the segments and deletes those opened ahead of the writers but never written to
+    void closeSegments() throws IOException {
+      long claimed = claimed();
+      for (Segment segment : segments.values()) {
+        segment.channel.close();
+        if (segment.first >= claimed) {
+          Files.delete(segmentFile(directory, segment.first));
+        }
+      }
+      segments.clear();
+    }
+  }
+
+  private static List<String> names(CompiledGame game) {
+    List<String> names = new ArrayList<>();
+    for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+      names.add(game.symbolName(symbol));
+    }
+    // a symbol and a combination can have the same name
+    names.add(null);
+    for (int combination = 0; combination < game.combinationCount(); combination++) {
+      names.add(game.combinationName(combination));
+    }
+    return names;
+  }
+
+  private Journal(Path directory, CompiledGame game, RandomSource random, long segmentRecords,
+      long syncBytes, Duration syncInterval, Consumer<Exception> syncFailed) throws IOException {
+    this.directory = directory;
+    this.random = random;
+    this.segmentRecords = segmentRecords;
+    this.syncBytes = syncBytes;
+    this.syncNanos = syncInterval.toNanos();
+    this.syncFailed = syncFailed;
+    // checks the segment size before anything is written
+    new Session(game, 0);
+    Files.createDirectories(directory);
+    long first = recover(directory);
+    this.durable = first;
+    this.session = start(game, first);
+    this.flusher = Thread.ofPlatform().daemon().name("journal-flusher").unstarted(this::flushLoop);
+  }
+
+  // a session from the given number on, with its first segment open
+  private Session start(CompiledGame game, long first) {
+    Session started = new Session(game, first);
+    started.current.set(started.segment(first));
+    sessions.addLast(started);
+    return started;
+  }
+
+  public static Journal open(Path directory, CompiledGame game, RandomSource random,
+      long segmentRecords, long syncBytes, Duration syncInterval) throws IOException {
+    return open(directory, game, random, segmentRecords, syncBytes, syncInterval, error -> { });
+  }
+
+  // syncFailed is called on the background thread with every sync that failed
+  public static Journal open(Path directory, CompiledGame game, RandomSource random,
+      long segmentRecords, long syncBytes, Duration syncInterval,
+      Consumer<Exception> syncFailed) throws IOException {
+    Journal journal = new Journal(directory, game, random, segmentRecords, syncBytes,
+        syncInterval, syncFailed);
+    journal.flusher.start();
+    return journal;
+  }
+
+  // the segment files of a journal directory, oldest first
+  static List<Path> segmentFiles(Path directory) throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(file -> {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+      }).sorted().toList();
+    }
+  }
+
+  static Path segmentFile(Path directory, long first) {
+    return directory.resolve(String.format("%s%020d%s", PREFIX, first, SUFFIX));
+  }
+
+  // the record size of the segments being written
+  public long recordSize() {
+    return session.recordSize;
+  }
+
+  // the number of the next record to be appended
+  public long nextIndex() {
+    return session.claimed();
+  }
+
+  // records before this number are on disk
+  public long durableIndex() {
+    return durable;
+  }
+
+  /**
+   * Appends the record of a play, returning its number. The play must come from a seed so that it
+   * can be replayed. A play of a game with other names or another grid than the segments being
+   * written continues the journal in a new segment.
+   */
+  public long append(PlayView play, double bet, double reward) {
+    if (closed) {
+      throw new IllegalStateException("Journal is closed.");
+    }
+    if (!play.hasSeed()) {
+      throw new IllegalArgumentException("Only plays from a seed can be journaled.");
+    }
+    CompiledGame played = play.game();
+    while (true) {
+      Session appended = session;
+      if (!appended.fits(played)) {
+        roll(played);
+        continue;
+      }
+      long index = appended.next.getAndIncrement();
+      if (index >= SEALED) {
+        // the session was sealed meanwhile, its successor is about to be published
+        Thread.onSpinWait();
+        continue;
+      }
+      write(appended, index, play, bet, reward);
+      return index;
+    }
+  }
+
+  private void write(Session appended, long index, PlayView play, double bet, double reward) {
+    Segment segment = appended.current.get();
+    if (!segment.contains(index, segmentRecords)) {
+      try {
+        segment = appended.segment(index);
+      } catch (RuntimeException e) {
+        appended.abandoned.add(index);
+        throw e;
+      }
+      // the current segment only moves forward, writers that race past it look theirs up
+      appended.current.accumulateAndGet(segment,
+          (last, candidate) -> candidate.first > last.first ? candidate : last);
+    }
+    // the mapped records are zero until written, the commit word goes last
+    int recordSize = appended.recordSize;
+    int base = (int) (index - segment.first) * recordSize;
+    try {
+      ByteBuffer record = segment.records.slice(base, recordSize);
+      int commit = appended.layout.encode(record, play, play.seed(), play.game().version(), bet,
+          reward);
+      COMMIT.setRelease(segment.records, base, commit);
+    } catch (RuntimeException e) {
+      COMMIT.setRelease(segment.records, base, JournalLayout.ABANDONED);
+      throw e;
+    } finally {
+      if ((index + 1 - appended.first) % appended.syncRecords == 0) {
+        LockSupport.unpark(flusher);
+      }
+    }
+  }
+
+  // seals the current session and starts one for the game, unless another writer already did
+  private void roll(CompiledGame game) {
+    syncLock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("Journal is closed.");
+      }
+      Session sealed = session;
+      if (sealed.fits(game)) {
+        return;
+      }
+      long end = sealed.next.getAndAdd(SEALED);
+      sealed.end = end;
+      try {
+        // segments opened ahead hold no record, the next session may need their file
+        for (var segments = sealed.segments.values().iterator(); segments.hasNext(); ) {
+          Segment segment = segments.next();
+          if (segment.first >= end) {
+            segments.remove();
+            segment.channel.close();
+            Files.delete(segmentFile(directory, segment.first));
+          }
+        }
+        session = start(game, end);
+      } catch (IOException | RuntimeException e) {
+        // keep writing the sealed session, the writers that were turned away retry in it
+        sealed.end = Long.MAX_VALUE;
+        sealed.next.set(end);
+        throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+      }
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  // forces every record published so far to disk
+  public void sync() throws IOException {
+    syncLock.lock();
+    try {
+      flush();
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  // waits until the record of the given number is on disk, false on timeout
+  public boolean awaitDurable(long index, Duration timeout) throws InterruptedException {
+    long nanos = timeout.toNanos();
+    syncLock.lock();
+    try {
+      while (durable <= index) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = synced.awaitNanos(nanos);
+      }
+      return true;
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    LockSupport.unpark(flusher);
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    syncLock.lock();
+    try {
+      flush();
+      for (Session open : sessions) {
+        open.closeSegments();
+      }
+      sessions.clear();
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  private void flushLoop() {
+    while (!closed) {
+      LockSupport.parkNanos(syncNanos);
+      try {
+        sync();
+      } catch (IOException | UncheckedIOException e) {
+        syncFailed.accept(e);
+      }
+    }
+  }
+
+  // with the sync lock held: forces the published records following the durable ones, session by
+  // session
+  private void flush() throws IOException {
+    while (true) {
+      Session flushed = sessions.getFirst();
+      long to = flush(flushed, durable);
+      if (to > durable) {
+        durable = to;
+        synced.signalAll();
+      }
+      if (to < flushed.end || sessions.size() == 1) {
+        break;
+      }
+      // every record of a sealed session is on disk, its last segment ends after them
+      finish(flushed);
+      sessions.removeFirst();
+    }
+    // open the following segment ahead of the writers once the current one is half full, the
+    // first writer of a number in it makes it current
+    Session writing = session;
+    Segment last = writing.current.get();
+    if (!closed && writing.claimed() - last.first >= segmentRecords / 2) {
+      writing.segment(last.first + segmentRecords);
+    }
+  }
+
+  // forces the published records of a session from the given number, returns the number after
+  private long flush(Session flushed, long from) throws IOException {
+    long to = from;
+    long claimed = flushed.claimed();
+    Segment segment = null;
+    while (to < claimed) {
+      if (flushed.abandoned.remove(to)) {
+        to++;
+        continue;
+      }
+      if (segment == null || !segment.contains(to, segmentRecords)) {
+        segment = flushed.segments.get(flushed.segmentOf(to));
+        if (segment == null) {
+          break;
+        }
+      }
+      int base = (int) (to - segment.first) * flushed.recordSize;
+      if ((int) COMMIT.getAcquire(segment.records, base) == 0) {
+        break;
+      }
+      to++;
+    }
+    for (long first = from; first < to; ) {
+      Segment forced = flushed.segments.get(flushed.segmentOf(first));
+      long segmentEnd = flushed.first + (flushed.segmentOf(first) + 1) * segmentRecords;
+      long end = Math.min(to, segmentEnd);
+      if (forced == null) {
+        // every number claimed in it was abandoned
+        first = end;
+        continue;
+      }
+      forced.records.force((int) (first - forced.first) * flushed.recordSize,
+          (int) (end - first) * flushed.recordSize);
+      if (end == segmentEnd && forced != flushed.current.get()) {
+        // every record of an older segment is on disk, its mapping is not needed any more
+        flushed.segments.remove(flushed.segmentOf(forced.first));
+        forced.channel.close();
+      }
+      first = end;
+    }
+    return to;
+  }
+
+  // cuts the last segment of a sealed session after its last record, as recovery would
+  private void finish(Session sealed) throws IOException {
+    Segment last = sealed.current.get();
+    for (Segment segment : sealed.segments.values()) {
+      segment.channel.close();
+    }
+    sealed.segments.clear();
+    if (sealed.end > last.first && sealed.end - last.first < segmentRecords) {
+      Path file = segmentFile(directory, last.first);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        channel.truncate(channel.size()
+            - (last.first + segmentRecords - sealed.end) * sealed.recordSize);
+      }
+    }
+  }
+
+  // a new segment file, sized for all its records so that they can be mapped at once
+  private Segment create(Session owner, long first) throws IOException {
+    Path file = segmentFile(directory, first);
+    FileChannel channel = FileChannel.open(file,
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = header(owner, first);
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      long dataOffset = header.capacity();
+      long size = segmentRecords * owner.recordSize;
+      MappedByteBuffer records = channel.map(MapMode.READ_WRITE, dataOffset, size);
+      return new Segment(first, channel, records);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      // so that the next writer of the segment can create it again
+      Files.deleteIfExists(file);
+      throw e;
+    }
+  }
+
+  // header padded to a whole page, so that the records can be mapped from a page boundary
+  private ByteBuffer header(Session owner, long first) throws IOException {
+    CompiledGame game = owner.game;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(VERSION);
+    out.writeInt(owner.recordSize);
+    out.writeLong(first);
+    out.writeLong(segmentRecords);
+    out.writeInt(game.rows());
+    out.writeInt(game.columns());
+    out.writeInt(owner.layout.bitsPerSymbol());
+    out.writeUTF(random.algorithm());
+    out.writeInt(game.symbolCount());
+    for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+      out.writeUTF(game.symbolName(symbol));
+    }
+    out.writeInt(game.combinationCount());
+    for (int combination = 0; combination < game.combinationCount(); combination++) {
+      out.writeUTF(game.combinationName(combination));
+    }
+    out.flush();
+
+    int length = 2 * Integer.BYTES + bytes.size();
+    int dataOffset = (length + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    ByteBuffer header = ByteBuffer.allocate(dataOffset);
+    header.putInt(MAGIC);
+    header.putInt(dataOffset);
+    header.put(bytes.toByteArray());
+    return header.clear();
+  }
+
+  // the number following the last record of the directory, its last segment cut after that record
+  private static long recover(Path directory) throws IOException {
+    List<Path> files = segmentFiles(directory);
+    if (files.isEmpty()) {
+      return 0;
+    }
+    Path last = files.get(files.size() - 1);
+    long first;
+    long records;
+    long end;
+    try (JournalSegment segment = JournalSegment.open(last)) {
+      first = segment.first();
+      records = segment.lastCommitted() + 1;
+      end = segment.offset(records);
+    }
+    if (records == 0) {
+      Files.delete(last);
+    } else {
+      try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+        channel.truncate(end);
+      }
+    }
+    return first + records;
+  }
+}
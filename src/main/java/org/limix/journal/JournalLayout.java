@@ -0,0 +1,92 @@
+package org.limix.journal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+import org.limix.engine.PlayView;
+
+/**
+ * Fixed-size record layout of a journal segment. A record starts with its commit word, written
+ * last: the top bit set over 31 bits of the CRC-32C of the rest of the record, so a record that is
+ * still zero was never finished and a torn one fails its checksum. A writer that failed after
+ * claiming the record leaves {@link #ABANDONED} instead. Then come the hit count, play
+ * seed, config version, bet and reward, the symbol ids of the cells and of the bonus shifted by
+ * one so that EMPTY packs as zero at {@code bitsPerSymbol} bits each, and a bitset of the
+ * combinations won. Records are padded to whole longs.
+ */
+record JournalLayout(int cellCount, int bitsPerSymbol, int combinationCount) {
+
+  // the commit word of a record given up by its writer, never a checksum as its top bit is clear
+  static final int ABANDONED = 1;
+  static final int HIT_COUNT_OFFSET = 4;
+  static final int SEED_OFFSET = 8;
+  static final int VERSION_OFFSET = 16;
+  static final int BET_OFFSET = 24;
+  static final int REWARD_OFFSET = 32;
+  static final int SYMBOLS_OFFSET = 40;
+
+  static JournalLayout of(int cellCount, int symbolCount, int combinationCount) {
+    int bits = 32 - Integer.numberOfLeadingZeros(symbolCount);
+    return new JournalLayout(cellCount, Math.max(1, bits), combinationCount);
+  }
+
+  int combinationOffset() {
+    return SYMBOLS_OFFSET + (((cellCount + 1) * bitsPerSymbol + 7) >>> 3);
+  }
+
+  int recordSize() {
+    return (combinationOffset() + ((combinationCount + 7) >>> 3) + 7) & ~7;
+  }
+
+  // writes the record of a play into a zeroed buffer of one record, returns its commit word
+  int encode(ByteBuffer record, PlayView play, long seed, long configVersion, double bet,
+      double reward) {
+    record.putInt(HIT_COUNT_OFFSET, play.hitCount());
+    record.putLong(SEED_OFFSET, seed);
+    record.putLong(VERSION_OFFSET, configVersion);
+    record.putDouble(BET_OFFSET, bet);
+    record.putDouble(REWARD_OFFSET, reward);
+    for (int cell = 0; cell < cellCount; cell++) {
+      putSymbol(record, cell, play.cell(cell));
+    }
+    putSymbol(record, cellCount, play.bonusSymbol());
+    int combinations = combinationOffset();
+    for (int i = 0; i < play.hitCount(); i++) {
+      int combination = play.hitCombination(i);
+      int pos = combinations + (combination >>> 3);
+      record.put(pos, (byte) (record.get(pos) | 1 << (combination & 7)));
+    }
+    return commitWord(record, 0);
+  }
+
+  // the commit word a record starting at base must hold to be valid
+  int commitWord(ByteBuffer buffer, int base) {
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.slice(base + HIT_COUNT_OFFSET, recordSize() - HIT_COUNT_OFFSET));
+    return (int) crc.getValue() | Integer.MIN_VALUE;
+  }
+
+  private void putSymbol(ByteBuffer record, int slot, int symbol) {
+    int bit = slot * bitsPerSymbol;
+    int value = (symbol + 1) << (bit & 7);
+    for (int pos = SYMBOLS_OFFSET + (bit >>> 3); value != 0; pos++, value >>>= 8) {
+      record.put(pos, (byte) (record.get(pos) | value));
+    }
+  }
+
+  int symbol(ByteBuffer buffer, int base, int slot) {
+    int bit = slot * bitsPerSymbol;
+    int shift = bit & 7;
+    int bytes = (shift + bitsPerSymbol + 7) >>> 3;
+    int pos = base + SYMBOLS_OFFSET + (bit >>> 3);
+    int value = 0;
+    for (int i = 0; i < bytes; i++) {
+      value |= (buffer.get(pos + i) & 0xFF) << (i << 3);
+    }
+    return ((value >>> shift) & ((1 << bitsPerSymbol) - 1)) - 1;
+  }
+
+  boolean hasCombination(ByteBuffer buffer, int base, int combination) {
+    return (buffer.get(base + combinationOffset() + (combination >>> 3))
+        & 1 << (combination & 7)) != 0;
+  }
+}
@@ -0,0 +1,27 @@
+package org.limix.journal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record JournalReport(
+    int segments,
+    // record slots up to the last published record of each segment
+    long records,
+    long verified,
+    // replayed to another outcome or reward than recorded
+    long mismatches,
+    // published but failing their checksum
+    long corrupt,
+    // claimed but never published, by a writer that crashed or failed
+    long torn,
+    // played with a configuration version the verifier does not know
+    @JsonProperty("unknown_versions") long unknownVersions,
+    // the lowest numbers of mismatched or corrupt records
+    @JsonProperty("first_flagged") List<Long> firstFlagged,
+    @JsonProperty("elapsed_millis") long elapsedMillis
+) {
+
+  public boolean isClean() {
+    return mismatches == 0 && corrupt == 0 && torn == 0 && unknownVersions == 0;
+  }
+}
@@ -0,0 +1,150 @@
+package org.limix.journal;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// read-only view of one segment file of a journal, its records mapped in place
+final class JournalSegment implements Closeable {
+
+  private final Path file;
+  private final FileChannel channel;
+  private final long dataOffset;
+  private final long first;
+  private final long capacity;
+  private final String randomAlgorithm;
+  private final List<String> symbolNames;
+  private final List<String> combinationNames;
+  private final JournalLayout layout;
+  private final int recordSize;
+  private final int records;
+  private final MappedByteBuffer buffer;
+
+  private JournalSegment(Path file, FileChannel channel) throws IOException {
+    this.file = file;
+    this.channel = channel;
+    DataInputStream in = new DataInputStream(Channels.newInputStream(channel.position(0)));
+    if (in.readInt() != Journal.MAGIC) {
+      throw new IOException(file + " is not a journal segment.");
+    }
+    this.dataOffset = in.readInt();
+    if (in.readInt() != Journal.VERSION) {
+      throw new IOException("Unsupported journal version in " + file);
+    }
+    this.recordSize = in.readInt();
+    this.first = in.readLong();
+    this.capacity = in.readLong();
+    int rows = in.readInt();
+    int columns = in.readInt();
+    int bitsPerSymbol = in.readInt();
+    this.randomAlgorithm = in.readUTF();
+    this.symbolNames = readNames(in);
+    this.combinationNames = readNames(in);
+
+    this.layout = new JournalLayout(rows * columns, bitsPerSymbol, combinationNames.size());
+    if (layout.recordSize() != recordSize) {
+      throw new IOException("Inconsistent record size in " + file);
+    }
+    // a segment cut short after a crash holds fewer records than it was sized for
+    this.records = (int) Math.min(capacity,
+        Math.max(0, channel.size() - dataOffset) / recordSize);
+    this.buffer = channel.map(MapMode.READ_ONLY, dataOffset, (long) records * recordSize);
+  }
+
+  static JournalSegment open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new JournalSegment(file, channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static List<String> readNames(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    List<String> names = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      names.add(in.readUTF());
+    }
+    return List.copyOf(names);
+  }
+
+  Path file() {
+    return file;
+  }
+
+  // the number of the first record of the segment
+  long first() {
+    return first;
+  }
+
+  int records() {
+    return records;
+  }
+
+  String randomAlgorithm() {
+    return randomAlgorithm;
+  }
+
+  List<String> symbolNames() {
+    return symbolNames;
+  }
+
+  List<String> combinationNames() {
+    return combinationNames;
+  }
+
+  JournalLayout layout() {
+    return layout;
+  }
+
+  MappedByteBuffer buffer() {
+    return buffer;
+  }
+
+  // position in the file of the record with the given offset in the segment
+  long offset(long record) {
+    return dataOffset + record * recordSize;
+  }
+
+  // offset in the buffer of a record of the segment
+  int base(int record) {
+    return record * recordSize;
+  }
+
+  boolean isCommitted(int record) {
+    return buffer.getInt(base(record)) != 0;
+  }
+
+  boolean isAbandoned(int record) {
+    return buffer.getInt(base(record)) == JournalLayout.ABANDONED;
+  }
+
+  boolean isIntact(int record) {
+    int base = base(record);
+    return buffer.getInt(base) == layout.commitWord(buffer, base);
+  }
+
+  // the offset of the last published record of the segment, -1 when there is none
+  int lastCommitted() {
+    int record = records - 1;
+    while (record >= 0 && !isCommitted(record)) {
+      record--;
+    }
+    return record;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,185 @@
+package org.limix.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.Ticket;
+
+/**
+ * Replays every record of a {@link Journal} through the game rules and flags the ones that do
+ * not come out the same. Each record is played again from its seed with the engine of its
+ * configuration version, encoded as the journal would and compared byte for byte, so a wrong
+ * matrix, bonus, combination or reward is caught as well as a record that was altered or torn on
+ * disk. Records are replayed in parallel, in blocks of a segment.
+ */
+public final class JournalVerifier {
+
+  static final int BLOCK_RECORDS = 1 << 12;
+  static final int FLAGGED_KEPT = 10;
+
+  // the engine of a configuration version, null when unknown
+  private final LongFunction<GameEngine> engines;
+
+  public JournalVerifier(LongFunction<GameEngine> engines) {
+    this.engines = engines;
+  }
+
+  public JournalReport verify(Path directory) throws IOException {
+    return verify(directory, Runtime.getRuntime().availableProcessors());
+  }
+
+  public JournalReport verify(Path directory, int parallelism) throws IOException {
+    long start = System.nanoTime();
+    List<Path> files = Journal.segmentFiles(directory);
+    Tally total = new Tally();
+    try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+      for (Path file : files) {
+        try (JournalSegment segment = JournalSegment.open(file)) {
+          total.merge(pool.invoke(new ReplayTask(segment, new ConcurrentHashMap<>(), 0,
+              segment.lastCommitted() + 1)));
+        }
+      }
+    }
+    return new JournalReport(files.size(), total.records, total.verified, total.mismatches,
+        total.corrupt, total.torn, total.unknownVersions, List.copyOf(total.flagged),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  // the configuration versions of the intact records of a journal, ascending
+  public static SortedSet<Long> versions(Path directory) throws IOException {
+    SortedSet<Long> versions = new TreeSet<>();
+    for (Path file : Journal.segmentFiles(directory)) {
+      try (JournalSegment segment = JournalSegment.open(file)) {
+        for (int record = 0; record <= segment.lastCommitted(); record++) {
+          if (segment.isCommitted(record) && segment.isIntact(record)) {
+            versions.add(segment.buffer().getLong(
+                segment.base(record) + JournalLayout.VERSION_OFFSET));
+          }
+        }
+      }
+    }
+    return versions;
+  }
+
+  // whether an engine plays the game the records of the segment were written for
+  private static boolean fits(GameEngine engine, JournalSegment segment) {
+    CompiledGame game = engine.game();
+    return engine.random().algorithm().equals(segment.randomAlgorithm())
+        && game.cellCount() == segment.layout().cellCount()
+        && IntStream.range(0, game.symbolCount()).mapToObj(game::symbolName).toList()
+        .equals(segment.symbolNames())
+        && IntStream.range(0, game.combinationCount()).mapToObj(game::combinationName).toList()
+        .equals(segment.combinationNames());
+  }
+
+  private static final class Tally {
+
+    long records;
+    long verified;
+    long mismatches;
+    long corrupt;
+    long torn;
+    long unknownVersions;
+    // ascending, at most FLAGGED_KEPT
+    List<Long> flagged = new ArrayList<>();
+
+    void flag(long index) {
+      if (flagged.size() < FLAGGED_KEPT) {
+        flagged.add(index);
+      }
+    }
+
+    Tally merge(Tally other) {
+      records += other.records;
+      verified += other.verified;
+      mismatches += other.mismatches;
+      corrupt += other.corrupt;
+      torn += other.torn;
+      unknownVersions += other.unknownVersions;
+      // other always follows this one
+      for (long index : other.flagged) {
+        flag(index);
+      }
+      return this;
+    }
+  }
+
+  private class ReplayTask extends RecursiveTask<Tally> {
+
+    private final JournalSegment segment;
+    private final Map<GameEngine, Boolean> fitting;
+    private final int from;
+    private final int to;
+
+    ReplayTask(JournalSegment segment, Map<GameEngine, Boolean> fitting, int from, int to) {
+      this.segment = segment;
+      this.fitting = fitting;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Tally compute() {
+      if (to - from > BLOCK_RECORDS) {
+        int middle = (from + to) >>> 1;
+        ReplayTask left = new ReplayTask(segment, fitting, from, middle);
+        left.fork();
+        Tally right = new ReplayTask(segment, fitting, middle, to).compute();
+        return left.join().merge(right);
+      }
+
+      JournalLayout layout = segment.layout();
+      ByteBuffer recorded = segment.buffer();
+      ByteBuffer replayed = ByteBuffer.allocate(layout.recordSize());
+      Tally tally = new Tally();
+      for (int record = from; record < to; record++) {
+        tally.records++;
+        long index = segment.first() + record;
+        if (!segment.isCommitted(record) || segment.isAbandoned(record)) {
+          tally.torn++;
+          continue;
+        }
+        if (!segment.isIntact(record)) {
+          tally.corrupt++;
+          tally.flag(index);
+          continue;
+        }
+        int base = segment.base(record);
+        long version = recorded.getLong(base + JournalLayout.VERSION_OFFSET);
+        GameEngine engine = engines.apply(version);
+        if (engine == null || !fitting.computeIfAbsent(engine, e -> fits(e, segment))) {
+          tally.unknownVersions++;
+          continue;
+        }
+        long seed = recorded.getLong(base + JournalLayout.SEED_OFFSET);
+        double bet = recorded.getDouble(base + JournalLayout.BET_OFFSET);
+        Ticket ticket = engine.playInPlace(seed);
+        Arrays.fill(replayed.array(), (byte) 0);
+        layout.encode(replayed, ticket, seed, version, bet, engine.reward(ticket, bet));
+        // the commit words match when the rest of the records does, the checksum was verified
+        int length = layout.recordSize() - JournalLayout.HIT_COUNT_OFFSET;
+        if (replayed.slice(JournalLayout.HIT_COUNT_OFFSET, length)
+            .equals(recorded.slice(base + JournalLayout.HIT_COUNT_OFFSET, length))) {
+          tally.verified++;
+        } else {
+          tally.mismatches++;
+          tally.flag(index);
+        }
+      }
+      return tally;
+    }
+  }
+}
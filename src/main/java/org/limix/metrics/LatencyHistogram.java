@@ -0,0 +1,133 @@
+package org.limix.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Log-linear latency histogram in the style of HdrHistogram: every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so a recorded value is known within about 6%. Counts
+ * are striped by thread id, every stripe in its own array, and only summed up when a snapshot is
+ * taken; threads that don't share a stripe never touch the same cache lines.
+ */
+public final class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 4;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // values are clamped to 2^40 ns, about 18 minutes
+  static final int MAX_EXPONENT = 40;
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray[] stripes;
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  public LatencyHistogram() {
+    int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+    this.stripes = new AtomicLongArray[stripes];
+    for (int i = 0; i < stripes; i++) {
+      // one extra bucket for the running sum
+      this.stripes[i] = new AtomicLongArray(BUCKETS + 1);
+    }
+  }
+
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    AtomicLongArray stripe = stripes[(int) Thread.currentThread().threadId()
+        & (stripes.length - 1)];
+    stripe.getAndIncrement(bucket(value));
+    stripe.getAndAdd(BUCKETS, value);
+    max.accumulate(value);
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+    long clamped = Math.min(value, (1L << (MAX_EXPONENT + 1)) - 1);
+    int sub = (int) (clamped >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  // the highest value that falls into the bucket
+  static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    int shift = exponent - SUB_BUCKET_BITS;
+    return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+  }
+
+  public void reset() {
+    for (AtomicLongArray stripe : stripes) {
+      for (int i = 0; i <= BUCKETS; i++) {
+        stripe.set(i, 0);
+      }
+    }
+    max.reset();
+  }
+
+  public Snapshot snapshot() {
+    long[] counts = new long[BUCKETS];
+    long sum = 0;
+    for (AtomicLongArray stripe : stripes) {
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] += stripe.get(i);
+      }
+      sum += stripe.get(BUCKETS);
+    }
+    return new Snapshot(counts, sum, max.get());
+  }
+
+  /**
+   * Merged counts at one point in time. Recording goes on while the stripes are read, so a
+   * snapshot may miss the plays recorded meanwhile.
+   */
+  public static final class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    Snapshot(long[] counts, long sum, long max) {
+      this.counts = counts;
+      long count = 0;
+      for (long bucketCount : counts) {
+        count += bucketCount;
+      }
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    public double mean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long max() {
+      return max;
+    }
+
+    // the value below which the given fraction of the recorded values fall
+    public long percentile(double fraction) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(fraction * count));
+      long seen = 0;
+      for (int bucket = 0; bucket < counts.length; bucket++) {
+        seen += counts[bucket];
+        if (seen >= rank) {
+          return Math.min(highestValue(bucket), max);
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package org.limix.metrics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.limix.engine.BonusImpact;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayView;
+
+/**
+ * Production instrumentation of plays: a latency histogram per play phase and counters per win
+ * combination, bonus symbol, bonus impact and reward bucket. Recording is switched on and off at
+ * runtime, a disabled instance costs the engine one volatile read per play. Counters are keyed by
+ * name, so engines of reloaded configurations keep adding to the same counters.
+ */
+public class PlayMetrics implements PlayMetricsMXBean {
+
+  public static final String OBJECT_NAME = "org.limix:type=PlayMetrics";
+
+  // upper bounds of the reward buckets as multiples of the bet, after the bucket of no reward
+  static final double[] REWARD_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 1000};
+  private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+  private static final String[] PERCENTILE_LABELS = {"p50", "p90", "p99", "p99.9"};
+
+  private volatile boolean enabled;
+  private final LatencyHistogram[] phases;
+  private final LongAdder plays = new LongAdder();
+  private final LongAdder wins = new LongAdder();
+  private final ConcurrentMap<String, LongAdder> combinationHits = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, LongAdder> bonusSymbolHits = new ConcurrentHashMap<>();
+  private final LongAdder[] impactHits;
+  private final LongAdder[] rewardBuckets;
+
+  public PlayMetrics(boolean enabled) {
+    this.enabled = enabled;
+    this.phases = new LatencyHistogram[PlayPhase.values().length];
+    for (int i = 0; i < phases.length; i++) {
+      phases[i] = new LatencyHistogram();
+    }
+    this.impactHits = adders(BonusImpact.values().length);
+    this.rewardBuckets = adders(REWARD_BOUNDS.length + 2);
+  }
+
+  private static LongAdder[] adders(int count) {
+    LongAdder[] adders = new LongAdder[count];
+    for (int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void record(PlayPhase phase, long nanos) {
+    phases[phase.ordinal()].record(nanos);
+  }
+
+  public void recordReward(double bet, double reward) {
+    rewardBuckets[rewardBucket(bet, reward)].increment();
+  }
+
+  static int rewardBucket(double bet, double reward) {
+    if (reward <= 0) {
+      return 0;
+    }
+    double multiple = reward / bet;
+    for (int i = 0; i < REWARD_BOUNDS.length; i++) {
+      if (multiple < REWARD_BOUNDS[i]) {
+        return i + 1;
+      }
+    }
+    return REWARD_BOUNDS.length + 1;
+  }
+
+  private static String rewardBucketLabel(int bucket) {
+    if (bucket == 0) {
+      return "0";
+    }
+    return bucket <= REWARD_BOUNDS.length
+        ? "<" + (long) REWARD_BOUNDS[bucket - 1] + "x"
+        : ">=" + (long) REWARD_BOUNDS[REWARD_BOUNDS.length - 1] + "x";
+  }
+
+  // counters of one game, resolved to its symbol and combination ids once
+  public Counters counters(CompiledGame game) {
+    return new Counters(game);
+  }
+
+  public LatencyHistogram.Snapshot phase(PlayPhase phase) {
+    return phases[phase.ordinal()].snapshot();
+  }
+
+  @Override
+  public long getPlays() {
+    return plays.sum();
+  }
+
+  @Override
+  public long getWins() {
+    return wins.sum();
+  }
+
+  @Override
+  public Map<String, Long> getPhaseLatencies() {
+    Map<String, Long> latencies = new LinkedHashMap<>();
+    for (PlayPhase phase : PlayPhase.values()) {
+      LatencyHistogram.Snapshot snapshot = phase(phase);
+      latencies.put(phase.label() + ".count", snapshot.count());
+      latencies.put(phase.label() + ".mean", Math.round(snapshot.mean()));
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        latencies.put(phase.label() + "." + PERCENTILE_LABELS[i],
+            snapshot.percentile(PERCENTILES[i]));
+      }
+      latencies.put(phase.label() + ".max", snapshot.max());
+    }
+    return latencies;
+  }
+
+  @Override
+  public Map<String, Long> getCombinationHits() {
+    return sums(combinationHits);
+  }
+
+  @Override
+  public Map<String, Long> getBonusSymbolHits() {
+    return sums(bonusSymbolHits);
+  }
+
+  @Override
+  public Map<String, Long> getBonusImpactHits() {
+    Map<String, Long> hits = new LinkedHashMap<>();
+    for (BonusImpact impact : BonusImpact.values()) {
+      hits.put(impact.name().toLowerCase(), impactHits[impact.ordinal()].sum());
+    }
+    return hits;
+  }
+
+  @Override
+  public Map<String, Long> getRewardBuckets() {
+    Map<String, Long> buckets = new LinkedHashMap<>();
+    for (int i = 0; i < rewardBuckets.length; i++) {
+      buckets.put(rewardBucketLabel(i), rewardBuckets[i].sum());
+    }
+    return buckets;
+  }
+
+  private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+    Map<String, Long> sums = new TreeMap<>();
+    adders.forEach((name, adder) -> sums.put(name, adder.sum()));
+    return sums;
+  }
+
+  @Override
+  public String dump() {
+    StringBuilder out = new StringBuilder();
+    out.append(String.format("plays=%d wins=%d enabled=%s%n", getPlays(), getWins(), enabled));
+    out.append(String.format("%-32s %10s %8s %8s %8s %8s %8s %10s%n",
+        "phase (ns)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+    for (PlayPhase phase : PlayPhase.values()) {
+      LatencyHistogram.Snapshot snapshot = phase(phase);
+      out.append(String.format("%-32s %10d %8.0f %8d %8d %8d %8d %10d%n", phase.label(),
+          snapshot.count(), snapshot.mean(), snapshot.percentile(0.5),
+          snapshot.percentile(0.9), snapshot.percentile(0.99), snapshot.percentile(0.999),
+          snapshot.max()));
+    }
+    out.append("combinations ").append(getCombinationHits()).append(System.lineSeparator());
+    out.append("bonus symbols ").append(getBonusSymbolHits()).append(System.lineSeparator());
+    out.append("bonus impacts ").append(getBonusImpactHits()).append(System.lineSeparator());
+    out.append("rewards ").append(getRewardBuckets()).append(System.lineSeparator());
+    return out.toString();
+  }
+
+  @Override
+  public void reset() {
+    for (LatencyHistogram phase : phases) {
+      phase.reset();
+    }
+    plays.reset();
+    wins.reset();
+    combinationHits.values().forEach(LongAdder::reset);
+    bonusSymbolHits.values().forEach(LongAdder::reset);
+    for (LongAdder adder : impactHits) {
+      adder.reset();
+    }
+    for (LongAdder adder : rewardBuckets) {
+      adder.reset();
+    }
+  }
+
+  // registers this instance with the platform MBean server, replacing an earlier registration
+  public PlayMetrics register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(this, name);
+      return this;
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+    }
+  }
+
+  // hands the text dump to the sink every period until the returned handle is closed
+  public Closeable scheduleDump(Duration period, Consumer<String> sink) {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().daemon().name("play-metrics-dump").factory());
+    executor.scheduleAtFixedRate(() -> sink.accept(dump()), period.toMillis(), period.toMillis(),
+        TimeUnit.MILLISECONDS);
+    return executor::shutdownNow;
+  }
+
+  public final class Counters {
+
+    private final CompiledGame game;
+    private final LongAdder[] combinations;
+    private final LongAdder[] bonusSymbols;
+
+    private Counters(CompiledGame game) {
+      this.game = game;
+      this.combinations = new LongAdder[game.combinationCount()];
+      for (int combination = 0; combination < combinations.length; combination++) {
+        combinations[combination] = combinationHits.computeIfAbsent(
+            game.combinationName(combination), name -> new LongAdder());
+      }
+      this.bonusSymbols = new LongAdder[game.symbolCount()];
+      for (int symbol = 0; symbol < bonusSymbols.length; symbol++) {
+        if (game.isBonus(symbol)) {
+          bonusSymbols[symbol] = bonusSymbolHits.computeIfAbsent(game.symbolName(symbol),
+              name -> new LongAdder());
+        }
+      }
+    }
+
+    public PlayMetrics metrics() {
+      return PlayMetrics.this;
+    }
+
+    // counts the play, each of its wins and its bonus symbol
+    public void recordHits(PlayView play) {
+      plays.increment();
+      int hits = play.hitCount();
+      if (hits > 0) {
+        wins.increment();
+      }
+      for (int i = 0; i < hits; i++) {
+        combinations[play.hitCombination(i)].increment();
+      }
+      int bonusSymbol = play.bonusSymbol();
+      if (bonusSymbol != CompiledGame.EMPTY && bonusSymbols[bonusSymbol] != null) {
+        bonusSymbols[bonusSymbol].increment();
+        impactHits[game.impact(bonusSymbol).ordinal()].increment();
+      }
+    }
+  }
+}
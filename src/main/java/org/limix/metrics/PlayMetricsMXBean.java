@@ -0,0 +1,29 @@
+package org.limix.metrics;
+
+import java.util.Map;
+
+// JMX view of PlayMetrics, latencies are in nanoseconds
+public interface PlayMetricsMXBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  long getPlays();
+
+  long getWins();
+
+  Map<String, Long> getPhaseLatencies();
+
+  Map<String, Long> getCombinationHits();
+
+  Map<String, Long> getBonusSymbolHits();
+
+  Map<String, Long> getBonusImpactHits();
+
+  Map<String, Long> getRewardBuckets();
+
+  String dump();
+
+  void reset();
+}
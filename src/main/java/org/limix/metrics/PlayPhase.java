@@ -0,0 +1,19 @@
+package org.limix.metrics;
+
+public enum PlayPhase {
+  GENERATE_MATRIX("generate_matrix"),
+  STANDARD_SYMBOLS("apply_winning_standard_symbols"),
+  LINEAR_SYMBOLS("apply_winning_linear_symbols"),
+  CALCULATE_REWARD("calculate_reward"),
+  EXTRACT_OUTPUT("extract_output");
+
+  private final String label;
+
+  PlayPhase(String label) {
+    this.label = label;
+  }
+
+  public String label() {
+    return label;
+  }
+}
@@ -0,0 +1,126 @@
+package org.limix.output;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// reads back the stream written by BinaryTicketWriter, one record at a time
+public class BinaryTicketReader implements AutoCloseable {
+
+  private final DataInputStream in;
+  private final int rows;
+  private final int columns;
+  private final boolean wideCells;
+  private final List<String> symbolNames;
+  private final List<String> combinationNames;
+  private final int maxHits;
+
+  public BinaryTicketReader(InputStream in) throws IOException {
+    this.in = new DataInputStream(in);
+    if (this.in.readInt() != BinaryTicketWriter.MAGIC) {
+      throw new IOException("Not a binary ticket stream.");
+    }
+    this.rows = this.in.readInt();
+    this.columns = this.in.readInt();
+    this.wideCells = this.in.readByte() == 2;
+    this.symbolNames = readNames();
+    this.combinationNames = readNames();
+    this.maxHits = this.in.readInt();
+  }
+
+  private List<String> readNames() throws IOException {
+    int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Corrupt name count.");
+    }
+    // grown as the names are read, a corrupt count fails at the end of the stream instead
+    List<String> names = new ArrayList<>(Math.min(count, 1024));
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[in.readUnsignedShort()];
+      in.readFully(bytes);
+      names.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return names;
+  }
+
+  public record Record(int[] cells, int bonusSymbol, int[] hitSymbols, int[] hitCombinations,
+                       double reward, long seed) {
+
+  }
+
+  // returns null at the end of the stream
+  public Record next() throws IOException {
+    int[] cells = new int[rows * columns];
+    try {
+      cells[0] = readSymbol();
+    } catch (EOFException e) {
+      return null;
+    }
+    for (int cell = 1; cell < cells.length; cell++) {
+      cells[cell] = readSymbol();
+    }
+    int bonusSymbol = readSymbol();
+    int hits = readHitCount();
+    int[] hitSymbols = new int[hits];
+    int[] hitCombinations = new int[hits];
+    for (int i = 0; i < hits; i++) {
+      hitSymbols[i] = in.readShort();
+      hitCombinations[i] = in.readShort();
+    }
+    double reward = in.readDouble();
+    return new Record(cells, bonusSymbol, hitSymbols, hitCombinations, reward, in.readLong());
+  }
+
+  // the varint win count, checked against the bound of the header before anything is allocated
+  private int readHitCount() throws IOException {
+    long hits = 0;
+    for (int shift = 0; ; shift += 7) {
+      if (shift >= BinaryTicketWriter.MAX_VARINT * 7) {
+        throw new IOException("Corrupt win count.");
+      }
+      int part = in.readUnsignedByte();
+      hits |= (long) (part & 0x7F) << shift;
+      if ((part & 0x80) == 0) {
+        break;
+      }
+    }
+    if (hits > maxHits) {
+      throw new IOException("Record of " + hits + " wins, the game has at most " + maxHits + ".");
+    }
+    return (int) hits;
+  }
+
+  private int readSymbol() throws IOException {
+    return wideCells ? in.readShort() : in.readByte();
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int columns() {
+    return columns;
+  }
+
+  public List<String> symbolNames() {
+    return symbolNames;
+  }
+
+  public List<String> combinationNames() {
+    return combinationNames;
+  }
+
+  // the most wins a record of the stream can hold
+  public int maxHits() {
+    return maxHits;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
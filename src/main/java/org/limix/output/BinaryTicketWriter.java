@@ -0,0 +1,147 @@
+package org.limix.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayView;
+
+/**
+ * Compact binary ticket stream. The header names the game's symbols and combinations once and
+ * bounds the wins of a record, then every record holds the cell symbol ids (one byte each, or two
+ * when the game has more than 127 symbols), the bonus symbol id, the number of wins as an unsigned
+ * varint, each win as a (symbol, combination) pair of shorts, the reward as a double and the
+ * play's seed as a long (0 for plays not generated from a seed). Empty cells and a missing bonus
+ * are stored as -1. Names are at most an unsigned short of bytes long, so games with longer names
+ * are rejected.
+ */
+public class BinaryTicketWriter implements TicketWriter {
+
+  public static final int MAGIC = 0x53475433; // "SGT3"
+  // largest name length in bytes
+  static final int MAX_UNSIGNED_SHORT = 0xFFFF;
+  // bytes of the longest varint of an int
+  static final int MAX_VARINT = 5;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final CompiledGame game;
+  private final boolean wideCells;
+
+  public BinaryTicketWriter(WritableByteChannel channel, CompiledGame game) throws IOException {
+    this.channel = channel;
+    this.game = game;
+    this.wideCells = game.symbolCount() > Byte.MAX_VALUE;
+    long maxRecord = recordBound(game.maxHits());
+    if (maxRecord > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("The game can win " + game.maxHits()
+          + " combinations in one play, more than a binary record can hold.");
+    }
+    // room for the longest name
+    this.buffer = ByteBuffer.allocateDirect(Math.max(1 << 17, (int) maxRecord * 2));
+    writeHeader();
+  }
+
+  // the largest record of a play with the given number of wins
+  private long recordBound(int hits) {
+    return game.cellCount() * 2L + 2 + MAX_VARINT + hits * 4L + Double.BYTES + Long.BYTES;
+  }
+
+  private void writeHeader() throws IOException {
+    ensureCapacity(4 * Integer.BYTES + 1);
+    buffer.putInt(MAGIC);
+    buffer.putInt(game.rows());
+    buffer.putInt(game.columns());
+    buffer.put((byte) (wideCells ? 2 : 1));
+    buffer.putInt(game.symbolCount());
+    for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+      putString(game.symbolName(symbol));
+    }
+    ensureCapacity(Integer.BYTES);
+    buffer.putInt(game.combinationCount());
+    for (int combination = 0; combination < game.combinationCount(); combination++) {
+      putString(game.combinationName(combination));
+    }
+    ensureCapacity(Integer.BYTES);
+    buffer.putInt(game.maxHits());
+  }
+
+  private void putString(String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_UNSIGNED_SHORT) {
+      throw new IllegalArgumentException("Name longer than " + MAX_UNSIGNED_SHORT + " bytes: "
+          + value.substring(0, 32) + "...");
+    }
+    ensureCapacity(Short.BYTES + bytes.length);
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  @Override
+  public void write(PlayView play, double reward) throws IOException {
+    if (play.game() != game) {
+      throw new IllegalStateException("Play belongs to a different game than this stream.");
+    }
+    int hits = play.hitCount();
+    if (hits > game.maxHits()) {
+      throw new IllegalStateException("Play has " + hits + " wins, the game at most "
+          + game.maxHits() + ".");
+    }
+    ensureCapacity((int) recordBound(hits));
+
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      putSymbol(play.cell(cell));
+    }
+    putSymbol(play.bonusSymbol());
+    // seven bits per byte, low bits first, the high bit set on every byte but the last
+    int remaining = hits;
+    while ((remaining & ~0x7F) != 0) {
+      buffer.put((byte) (remaining & 0x7F | 0x80));
+      remaining >>>= 7;
+    }
+    buffer.put((byte) remaining);
+    for (int i = 0; i < hits; i++) {
+      buffer.putShort((short) play.hitSymbol(i));
+      buffer.putShort((short) play.hitCombination(i));
+    }
+    buffer.putDouble(reward);
+    buffer.putLong(play.hasSeed() ? play.seed() : 0);
+  }
+
+  private void putSymbol(int symbol) {
+    if (wideCells) {
+      buffer.putShort((short) symbol);
+    } else {
+      buffer.put((byte) symbol);
+    }
+  }
+
+  private void ensureCapacity(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      drain();
+    }
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    drain();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      drain();
+    } finally {
+      channel.close();
+    }
+  }
+}
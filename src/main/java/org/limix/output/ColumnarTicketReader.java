@@ -0,0 +1,131 @@
+package org.limix.output;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.limix.engine.PlayBatch;
+
+// reads back the file written by ColumnarTicketWriter into play batches of the same game
+public class ColumnarTicketReader implements AutoCloseable {
+
+  private final DataInputStream in;
+  private final int rows;
+  private final int columns;
+  private final boolean wideCells;
+  private final List<String> symbolNames;
+  private final List<String> combinationNames;
+  private final int combinationWords;
+  private ByteBuffer group = ByteBuffer.allocate(0);
+  private int groupSize;
+  private double groupBet;
+  private int consumed;
+
+  public ColumnarTicketReader(InputStream in) throws IOException {
+    this.in = new DataInputStream(in);
+    if (this.in.readInt() != ColumnarTicketWriter.MAGIC) {
+      throw new IOException("Not a columnar ticket file.");
+    }
+    this.rows = this.in.readInt();
+    this.columns = this.in.readInt();
+    this.wideCells = this.in.readByte() == 2;
+    this.symbolNames = readNames();
+    this.combinationNames = readNames();
+    this.combinationWords = Math.max(1, (combinationNames.size() + 63) >>> 6);
+  }
+
+  private List<String> readNames() throws IOException {
+    int count = in.readInt();
+    List<String> names = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[in.readUnsignedShort()];
+      in.readFully(bytes);
+      names.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return names;
+  }
+
+  // refills the batch with the next tickets, returns false at the end of the file
+  public boolean next(PlayBatch batch) throws IOException {
+    if (batch.game().cellCount() != rows * columns || batch.isWide() != wideCells
+        || batch.combinationWords() != combinationWords) {
+      throw new IllegalArgumentException("Batch does not match the layout of this file.");
+    }
+    if (consumed == groupSize && !readGroup()) {
+      batch.setSize(0);
+      return false;
+    }
+    int count = Math.min(groupSize - consumed, batch.capacity());
+    int cellWidth = wideCells ? Short.BYTES : Byte.BYTES;
+    int offset = 0;
+
+    group.position(offset).asLongBuffer().get(consumed, batch.seeds(), 0, count);
+    offset += groupSize * Long.BYTES;
+    for (int cell = 0; cell < rows * columns; cell++) {
+      int target = cell * batch.capacity();
+      if (wideCells) {
+        group.position(offset).asShortBuffer().get(consumed, batch.cellShorts(), target, count);
+      } else {
+        group.get(offset + consumed, batch.cellBytes(), target, count);
+      }
+      offset += groupSize * cellWidth;
+    }
+    group.position(offset).asShortBuffer().get(consumed, batch.bonusSymbols(), 0, count);
+    offset += groupSize * Short.BYTES;
+    group.position(offset).asLongBuffer().get(consumed * combinationWords,
+        batch.combinations(), 0, count * combinationWords);
+    offset += groupSize * combinationWords * Long.BYTES;
+    group.position(offset).asDoubleBuffer().get(consumed, batch.rewards(), 0, count);
+
+    consumed += count;
+    batch.setBet(groupBet);
+    batch.setSize(count);
+    return true;
+  }
+
+  private boolean readGroup() throws IOException {
+    int size;
+    try {
+      size = in.readInt();
+    } catch (EOFException e) {
+      return false;
+    }
+    groupBet = in.readDouble();
+    int cellWidth = wideCells ? Short.BYTES : Byte.BYTES;
+    int bytes = size * (Long.BYTES + rows * columns * cellWidth + Short.BYTES
+        + combinationWords * Long.BYTES + Double.BYTES);
+    if (group.capacity() < bytes) {
+      group = ByteBuffer.allocate(bytes);
+    }
+    group.clear();
+    in.readFully(group.array(), 0, bytes);
+    groupSize = size;
+    consumed = 0;
+    return true;
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int columns() {
+    return columns;
+  }
+
+  public List<String> symbolNames() {
+    return symbolNames;
+  }
+
+  public List<String> combinationNames() {
+    return combinationNames;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
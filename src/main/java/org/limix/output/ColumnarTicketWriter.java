@@ -0,0 +1,180 @@
+package org.limix.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayBatch;
+import org.limix.engine.PlayResult;
+import org.limix.engine.PlayView;
+
+/**
+ * Columnar ticket file. After a header naming the game's symbols and combinations, tickets come in
+ * row groups: the number of tickets and their bet, then one column after the other holding the
+ * value of every ticket of the group. The columns are the seeds, one column per cell of the symbol
+ * ids (bytes, or shorts when the game has more than 127 symbols), the bonus symbol ids as shorts,
+ * the combination bitsets as longs and the rewards as doubles. Batches are written as one row group
+ * each; single plays are gathered into groups of {@value #ROW_GROUP} tickets of the same bet, a play
+ * at another bet starts a new group.
+ */
+public class ColumnarTicketWriter implements TicketWriter {
+
+  public static final int MAGIC = 0x53474331; // "SGC1"
+  public static final int ROW_GROUP = 8192;
+  // largest name length in bytes
+  static final int MAX_NAME_BYTES = 0xFFFF;
+
+  private final WritableByteChannel channel;
+  private final CompiledGame game;
+  private PlayBatch pending;
+  private ByteBuffer buffer;
+
+  public ColumnarTicketWriter(WritableByteChannel channel, CompiledGame game) throws IOException {
+    this.channel = channel;
+    this.game = game;
+    this.buffer = ByteBuffer.allocate(1 << 16);
+    writeHeader();
+  }
+
+  private void writeHeader() throws IOException {
+    ensureCapacity(3 * Integer.BYTES + 1);
+    buffer.putInt(MAGIC);
+    buffer.putInt(game.rows());
+    buffer.putInt(game.columns());
+    buffer.put((byte) (PlayBatch.isWide(game) ? 2 : 1));
+    putNames(game.symbolCount(), true);
+    putNames(game.combinationCount(), false);
+    drain();
+  }
+
+  private void putNames(int count, boolean symbols) {
+    ensureCapacity(Integer.BYTES);
+    buffer.putInt(count);
+    for (int i = 0; i < count; i++) {
+      String name = symbols ? game.symbolName(i) : game.combinationName(i);
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      if (bytes.length > MAX_NAME_BYTES) {
+        throw new IllegalArgumentException("Name longer than " + MAX_NAME_BYTES + " bytes: "
+            + name.substring(0, 32) + "...");
+      }
+      ensureCapacity(Short.BYTES + bytes.length);
+      buffer.putShort((short) bytes.length);
+      buffer.put(bytes);
+    }
+  }
+
+  // a PlayResult carries its bet, other plays have to be written with theirs
+  @Override
+  public void write(PlayView play, double reward) throws IOException {
+    if (!(play instanceof PlayResult result)) {
+      throw new IllegalArgumentException("Columnar rows record the bet, write the play with it.");
+    }
+    write(result, result.bet(), reward);
+  }
+
+  @Override
+  public void write(PlayView play, double bet, double reward) throws IOException {
+    if (pending == null) {
+      pending = new PlayBatch(game, ROW_GROUP);
+    }
+    if (pending.size() > 0 && Double.compare(pending.bet(), bet) != 0) {
+      writePending();
+    }
+    pending.setBet(bet);
+    pending.set(pending.size(), play, reward);
+    pending.setSize(pending.size() + 1);
+    if (pending.size() == ROW_GROUP) {
+      writePending();
+    }
+  }
+
+  // writes the batch as one row group, after the single plays written before it
+  public void write(PlayBatch batch) throws IOException {
+    if (batch.game() != game) {
+      throw new IllegalStateException("Batch belongs to a different game than this file.");
+    }
+    writePending();
+    if (batch.size() > 0) {
+      writeGroup(batch);
+    }
+  }
+
+  private void writePending() throws IOException {
+    if (pending != null && pending.size() > 0) {
+      writeGroup(pending);
+      pending.setSize(0);
+    }
+  }
+
+  private void writeGroup(PlayBatch batch) throws IOException {
+    int size = batch.size();
+    int cellWidth = batch.isWide() ? Short.BYTES : Byte.BYTES;
+    long bytes = Integer.BYTES + Double.BYTES + (long) size * (Long.BYTES
+        + game.cellCount() * cellWidth + Short.BYTES
+        + batch.combinationWords() * Long.BYTES + Double.BYTES);
+    if (bytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Batch is too large for one row group.");
+    }
+    if (buffer.capacity() < bytes) {
+      buffer = ByteBuffer.allocate((int) bytes);
+    }
+    buffer.clear();
+    buffer.putInt(size);
+    buffer.putDouble(batch.bet());
+
+    buffer.asLongBuffer().put(batch.seeds(), 0, size);
+    skip(size * Long.BYTES);
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      int offset = cell * batch.capacity();
+      if (batch.isWide()) {
+        buffer.asShortBuffer().put(batch.cellShorts(), offset, size);
+        skip(size * Short.BYTES);
+      } else {
+        buffer.put(batch.cellBytes(), offset, size);
+      }
+    }
+    buffer.asShortBuffer().put(batch.bonusSymbols(), 0, size);
+    skip(size * Short.BYTES);
+    buffer.asLongBuffer().put(batch.combinations(), 0, size * batch.combinationWords());
+    skip(size * batch.combinationWords() * Long.BYTES);
+    buffer.asDoubleBuffer().put(batch.rewards(), 0, size);
+    skip(size * Double.BYTES);
+    drain();
+  }
+
+  // view buffers don't move the position of the buffer they were written through
+  private void skip(int bytes) {
+    buffer.position(buffer.position() + bytes);
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (buffer.remaining() < bytes) {
+      ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+          buffer.position() + bytes));
+      buffer = larger.put(buffer.flip());
+    }
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void flush() throws IOException {
+    writePending();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      writePending();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package org.limix.output;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.limix.engine.PlayView;
+
+/**
+ * Writes one compact JSON object per line with the same fields as
+ * {@code ScratchGame.extractOutput()}, through a single shared {@link JsonGenerator}. Closing the
+ * writer closes the stream.
+ */
+public class NdjsonTicketWriter implements TicketWriter {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final JsonGenerator generator;
+  private long written;
+  private TicketJson json;
+
+  public NdjsonTicketWriter(OutputStream out) throws IOException {
+    this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+    // one object per line instead of the default single space between root values
+    this.generator.setRootValueSeparator(new SerializedString("\n"));
+  }
+
+  public NdjsonTicketWriter(OutputStream out, TicketJson json) throws IOException {
+    this(out);
+    this.json = json;
+  }
+
+  @Override
+  public void write(PlayView play, double reward) throws IOException {
+    if (json == null || json.game() != play.game()) {
+      json = new TicketJson(play.game());
+    }
+    json.write(generator, play, reward);
+    written++;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    generator.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (written > 0) {
+      generator.writeRaw('\n');
+    }
+    generator.close();
+  }
+}
@@ -0,0 +1,102 @@
+package org.limix.output;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayView;
+
+/**
+ * Writes a play as the JSON object produced by {@code ScratchGame.extractOutput()}. Symbol and
+ * combination names are encoded once per game; instances are immutable and shareable.
+ */
+public final class TicketJson {
+
+  private static final SerializedString MATRIX = new SerializedString("matrix");
+  private static final SerializedString WINNING_COMBINATIONS =
+      new SerializedString("applied_winning_combinations");
+  private static final SerializedString BONUS_SYMBOL = new SerializedString("applied_bonus_symbol");
+  private static final SerializedString REWARD = new SerializedString("reward");
+  private static final SerializedString SEED = new SerializedString("seed");
+  private static final SerializedString EMPTY_STRING = new SerializedString("");
+
+  private final CompiledGame game;
+  private final SerializedString[] symbolNames;
+  private final SerializedString[] combinationNames;
+
+  public TicketJson(CompiledGame game) {
+    this.game = game;
+    this.symbolNames = new SerializedString[game.symbolCount()];
+    for (int symbol = 0; symbol < symbolNames.length; symbol++) {
+      symbolNames[symbol] = new SerializedString(game.symbolName(symbol));
+    }
+    this.combinationNames = new SerializedString[game.combinationCount()];
+    for (int combination = 0; combination < combinationNames.length; combination++) {
+      combinationNames[combination] = new SerializedString(game.combinationName(combination));
+    }
+  }
+
+  public CompiledGame game() {
+    return game;
+  }
+
+  public void write(JsonGenerator generator, PlayView play, double reward) throws IOException {
+    generator.writeStartObject();
+    generator.writeFieldName(MATRIX);
+    generator.writeStartArray();
+    for (int row = 0; row < game.rows(); row++) {
+      generator.writeStartArray();
+      for (int column = 0; column < game.columns(); column++) {
+        int symbol = play.cell(row * game.columns() + column);
+        if (symbol == CompiledGame.EMPTY) {
+          generator.writeNull();
+        } else {
+          generator.writeString(symbolNames[symbol]);
+        }
+      }
+      generator.writeEndArray();
+    }
+    generator.writeEndArray();
+
+    // wins grouped by symbol in order of the symbol's first win
+    generator.writeFieldName(WINNING_COMBINATIONS);
+    generator.writeStartObject();
+    int hits = play.hitCount();
+    for (int i = 0; i < hits; i++) {
+      int symbol = play.hitSymbol(i);
+      if (seenBefore(play, symbol, i)) {
+        continue;
+      }
+      generator.writeFieldName(symbolNames[symbol]);
+      generator.writeStartArray();
+      for (int j = i; j < hits; j++) {
+        if (play.hitSymbol(j) == symbol) {
+          generator.writeString(combinationNames[play.hitCombination(j)]);
+        }
+      }
+      generator.writeEndArray();
+    }
+    generator.writeEndObject();
+
+    generator.writeFieldName(BONUS_SYMBOL);
+    int bonusSymbol = play.bonusSymbol();
+    generator.writeString(bonusSymbol == CompiledGame.EMPTY ? EMPTY_STRING
+        : symbolNames[bonusSymbol]);
+    generator.writeFieldName(REWARD);
+    generator.writeNumber(reward);
+    if (play.hasSeed()) {
+      generator.writeFieldName(SEED);
+      generator.writeNumber(play.seed());
+    }
+    generator.writeEndObject();
+  }
+
+  private static boolean seenBefore(PlayView play, int symbol, int index) {
+    for (int i = 0; i < index; i++) {
+      if (play.hitSymbol(i) == symbol) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,17 @@
+package org.limix.output;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import org.limix.engine.PlayView;
+
+// streams many plays to one sink without building intermediate maps or strings per ticket
+public interface TicketWriter extends Closeable, Flushable {
+
+  void write(PlayView play, double reward) throws IOException;
+
+  // the play at its bet, for the formats that record bets
+  default void write(PlayView play, double bet, double reward) throws IOException {
+    write(play, reward);
+  }
+}
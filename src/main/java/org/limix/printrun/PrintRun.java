@@ -0,0 +1,173 @@
+package org.limix.printrun;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.limix.random.RandomSource;
+
+/**
+ * Read-only view of a print run file written by {@link PrintRunWriter}. The records are mapped
+ * into memory in windows of whole records, so a ticket is read in place by its number without
+ * copying it. Instances are thread-safe; {@link #deal()} hands out every ticket number exactly once
+ * across threads.
+ */
+public final class PrintRun implements Closeable {
+
+  // mapped buffers are int-indexed, each window holds as many whole records as fit
+  static final long MAX_WINDOW_BYTES = Integer.MAX_VALUE;
+
+  private final FileChannel channel;
+  private final int rows;
+  private final int columns;
+  private final long ticketCount;
+  private final double bet;
+  private final long seed;
+  private final String randomAlgorithm;
+  private final List<String> symbolNames;
+  private final List<String> combinationNames;
+  private final PrintRunLayout layout;
+  private final int recordSize;
+  private final long windowTickets;
+  private final MappedByteBuffer[] windows;
+  private final AtomicLong dealt = new AtomicLong();
+
+  private PrintRun(FileChannel channel) throws IOException {
+    this.channel = channel;
+    DataInputStream in = new DataInputStream(Channels.newInputStream(channel.position(0)));
+    if (in.readInt() != PrintRunWriter.MAGIC) {
+      throw new IOException("Not a print run file.");
+    }
+    long dataOffset = in.readInt();
+    if (in.readInt() != PrintRunWriter.VERSION) {
+      throw new IOException("Unsupported print run version.");
+    }
+    this.rows = in.readInt();
+    this.columns = in.readInt();
+    int bitsPerSymbol = in.readInt();
+    this.ticketCount = in.readLong();
+    this.bet = in.readDouble();
+    this.seed = in.readLong();
+    this.randomAlgorithm = in.readUTF();
+    this.symbolNames = readNames(in);
+    this.combinationNames = readNames(in);
+
+    this.layout = new PrintRunLayout(rows * columns, bitsPerSymbol, combinationNames.size());
+    this.recordSize = layout.recordSize();
+    if (channel.size() < dataOffset + ticketCount * recordSize) {
+      throw new IOException("Print run file is truncated.");
+    }
+    this.windowTickets = MAX_WINDOW_BYTES / recordSize;
+    int windowCount = (int) ((ticketCount + windowTickets - 1) / windowTickets);
+    this.windows = new MappedByteBuffer[windowCount];
+    for (int window = 0; window < windowCount; window++) {
+      long first = window * windowTickets;
+      long tickets = Math.min(windowTickets, ticketCount - first);
+      windows[window] = channel.map(MapMode.READ_ONLY, dataOffset + first * recordSize,
+          tickets * recordSize);
+    }
+  }
+
+  public static PrintRun open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return new PrintRun(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static List<String> readNames(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    List<String> names = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      names.add(in.readUTF());
+    }
+    return List.copyOf(names);
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int columns() {
+    return columns;
+  }
+
+  public long ticketCount() {
+    return ticketCount;
+  }
+
+  public double bet() {
+    return bet;
+  }
+
+  public long seed() {
+    return seed;
+  }
+
+  public String randomAlgorithm() {
+    return randomAlgorithm;
+  }
+
+  public List<String> symbolNames() {
+    return symbolNames;
+  }
+
+  public List<String> combinationNames() {
+    return combinationNames;
+  }
+
+  public int recordSize() {
+    return recordSize;
+  }
+
+  // a reusable view positioned on the given ticket
+  public PrintRunTicket ticket(long number) {
+    return new PrintRunTicket(this).moveTo(number);
+  }
+
+  // the next ticket number nobody was dealt yet, or -1 once the run is sold out
+  public long deal() {
+    long number = dealt.getAndIncrement();
+    return number < ticketCount ? number : -1;
+  }
+
+  public long dealtCount() {
+    return Math.min(dealt.get(), ticketCount);
+  }
+
+  PrintRunLayout layout() {
+    return layout;
+  }
+
+  ByteBuffer window(long number) {
+    if (number < 0 || number >= ticketCount) {
+      throw new IndexOutOfBoundsException("Ticket " + number + " is outside the print run.");
+    }
+    return windows[(int) (number / windowTickets)];
+  }
+
+  int offset(long number) {
+    return (int) (number % windowTickets) * recordSize;
+  }
+
+  long seedOf(long number) {
+    return RandomSource.seedAt(seed, number);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,58 @@
+package org.limix.printrun;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width record layout of a print run. Symbol ids (cells, then the bonus symbol) are stored
+ * shifted by one so that EMPTY packs as zero, at {@code bitsPerSymbol} bits each, least significant
+ * bit first. A bitset of the combinations the ticket won follows, then the reward as a double.
+ */
+record PrintRunLayout(int cellCount, int bitsPerSymbol, int combinationCount) {
+
+  static PrintRunLayout of(int cellCount, int symbolCount, int combinationCount) {
+    int bits = 32 - Integer.numberOfLeadingZeros(symbolCount);
+    return new PrintRunLayout(cellCount, Math.max(1, bits), combinationCount);
+  }
+
+  int symbolBytes() {
+    return ((cellCount + 1) * bitsPerSymbol + 7) >>> 3;
+  }
+
+  int combinationOffset() {
+    return symbolBytes();
+  }
+
+  int combinationBytes() {
+    return (combinationCount + 7) >>> 3;
+  }
+
+  int rewardOffset() {
+    return symbolBytes() + combinationBytes();
+  }
+
+  int recordSize() {
+    return rewardOffset() + Double.BYTES;
+  }
+
+  // writes symbol id at slot (cellCount for the bonus) of the record starting at base, the
+  // symbol bytes of the record must be zero beforehand
+  void putSymbol(ByteBuffer buffer, int base, int slot, int symbol) {
+    int bit = slot * bitsPerSymbol;
+    int value = (symbol + 1) << (bit & 7);
+    for (int pos = base + (bit >>> 3); value != 0; pos++, value >>>= 8) {
+      buffer.put(pos, (byte) (buffer.get(pos) | value));
+    }
+  }
+
+  int getSymbol(ByteBuffer buffer, int base, int slot) {
+    int bit = slot * bitsPerSymbol;
+    int shift = bit & 7;
+    int bytes = (shift + bitsPerSymbol + 7) >>> 3;
+    int pos = base + (bit >>> 3);
+    int value = 0;
+    for (int i = 0; i < bytes; i++) {
+      value |= (buffer.get(pos + i) & 0xFF) << (i << 3);
+    }
+    return ((value >>> shift) & ((1 << bitsPerSymbol) - 1)) - 1;
+  }
+}
@@ -0,0 +1,63 @@
+package org.limix.printrun;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over one record of a {@link PrintRun}. It reads straight from the mapped file and can
+ * be moved to any other ticket, so dealing a whole run allocates nothing. Confined to one thread.
+ */
+public final class PrintRunTicket {
+
+  private final PrintRun run;
+  private final PrintRunLayout layout;
+  private ByteBuffer window;
+  private int base;
+  private long number = -1;
+
+  PrintRunTicket(PrintRun run) {
+    this.run = run;
+    this.layout = run.layout();
+  }
+
+  public PrintRunTicket moveTo(long number) {
+    this.window = run.window(number);
+    this.base = run.offset(number);
+    this.number = number;
+    return this;
+  }
+
+  public long number() {
+    return number;
+  }
+
+  // the play seed the ticket was generated from, replayable with the run's random algorithm
+  public long seed() {
+    return run.seedOf(number);
+  }
+
+  public int cell(int index) {
+    return layout.getSymbol(window, base, index);
+  }
+
+  public int bonusSymbol() {
+    return layout.getSymbol(window, base, layout.cellCount());
+  }
+
+  public boolean hasCombination(int combination) {
+    int bits = window.get(base + layout.combinationOffset() + (combination >>> 3));
+    return (bits & 1 << (combination & 7)) != 0;
+  }
+
+  public boolean isWin() {
+    for (int i = 0; i < layout.combinationBytes(); i++) {
+      if (window.get(base + layout.combinationOffset() + i) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public double reward() {
+    return window.getDouble(base + layout.rewardOffset());
+  }
+}
@@ -0,0 +1,214 @@
+package org.limix.printrun;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.limix.engine.BatchEvaluator;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayBatch;
+import org.limix.engine.Ticket;
+import org.limix.random.RandomSource;
+
+/**
+ * Generates a print run: every ticket of the run, pre-played into one fixed-width record of a
+ * single file. Ticket {@code i} is played from {@code RandomSource.seedAt(seed, i)}, so blocks of
+ * tickets are generated in parallel and written at their own offsets, the file does not depend on
+ * the parallelism and any ticket can be replayed from its number. Where the Vector API
+ * {@link BatchEvaluator} is available, a block is generated first and then evaluated in bulk.
+ */
+public class PrintRunWriter {
+
+  static final int MAGIC = 0x53475052; // "SGPR"
+  static final int VERSION = 1;
+  static final int PAGE_SIZE = 4096;
+  // tickets generated by one task are buffered up to about this many bytes
+  static final int BLOCK_BYTES = 1 << 20;
+  // tickets evaluated by one batch of the vector evaluator
+  static final int BATCH_TICKETS = 1024;
+
+  private final CompiledGame game;
+  private final RandomSource random;
+  private final PrintRunLayout layout;
+  private final long blockTickets;
+  // the ticket, vector evaluator and batch of each worker thread, set up once per thread
+  private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+  public PrintRunWriter(CompiledGame game) {
+    this(game, RandomSource.defaultSource());
+  }
+
+  public PrintRunWriter(CompiledGame game, RandomSource random) {
+    this.game = game;
+    this.random = random;
+    this.layout = PrintRunLayout.of(game.cellCount(), game.symbolCount(),
+        game.combinationCount());
+    this.blockTickets = Math.max(1, BLOCK_BYTES / layout.recordSize());
+  }
+
+  public void write(Path path, long tickets, double bet, long seed) throws IOException {
+    write(path, tickets, bet, seed, Runtime.getRuntime().availableProcessors());
+  }
+
+  public void write(Path path, long tickets, double bet, long seed, int parallelism)
+      throws IOException {
+    if (tickets <= 0) {
+      throw new IllegalArgumentException("Number of tickets must be positive.");
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = header(tickets, bet, seed);
+      long dataOffset = header.remaining();
+      writeFully(channel, header, 0);
+
+      try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+        pool.invoke(new BlockTask(channel, dataOffset, 0, tickets, bet, seed));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  // header padded to a whole page, so that the records can be mapped from a page boundary
+  private ByteBuffer header(long tickets, double bet, long seed) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(VERSION);
+    out.writeInt(game.rows());
+    out.writeInt(game.columns());
+    out.writeInt(layout.bitsPerSymbol());
+    out.writeLong(tickets);
+    out.writeDouble(bet);
+    out.writeLong(seed);
+    out.writeUTF(random.algorithm());
+    out.writeInt(game.symbolCount());
+    for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+      out.writeUTF(game.symbolName(symbol));
+    }
+    out.writeInt(game.combinationCount());
+    for (int combination = 0; combination < game.combinationCount(); combination++) {
+      out.writeUTF(game.combinationName(combination));
+    }
+    out.flush();
+
+    int length = 2 * Integer.BYTES + bytes.size();
+    int dataOffset = (length + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    ByteBuffer header = ByteBuffer.allocate(dataOffset);
+    header.putInt(MAGIC);
+    header.putInt(dataOffset);
+    header.put(bytes.toByteArray());
+    return header.clear();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  private class Worker {
+
+    final Ticket ticket = new Ticket(game);
+    // null where the Vector API is not available
+    final BatchEvaluator evaluator = BatchEvaluator.vector(game, null);
+    final PlayBatch batch = evaluator == null ? null : new PlayBatch(game, BATCH_TICKETS);
+  }
+
+  private class BlockTask extends RecursiveAction {
+
+    private final FileChannel channel;
+    private final long dataOffset;
+    private final long from;
+    private final long to;
+    private final double bet;
+    private final long seed;
+
+    BlockTask(FileChannel channel, long dataOffset, long from, long to, double bet, long seed) {
+      this.channel = channel;
+      this.dataOffset = dataOffset;
+      this.from = from;
+      this.to = to;
+      this.bet = bet;
+      this.seed = seed;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > blockTickets) {
+        long middle = from + (to - from) / 2;
+        invokeAll(new BlockTask(channel, dataOffset, from, middle, bet, seed),
+            new BlockTask(channel, dataOffset, middle, to, bet, seed));
+        return;
+      }
+
+      int recordSize = layout.recordSize();
+      ByteBuffer block = ByteBuffer.allocate((int) (to - from) * recordSize);
+      Worker worker = workers.get();
+      Ticket ticket = worker.ticket;
+      if (worker.evaluator != null) {
+        // generate a chunk, then evaluate it a vector of tickets at a time; small chunks keep the
+        // columns of the batch in cache
+        PlayBatch batch = worker.batch;
+        for (long start = from; start < to; start += batch.capacity()) {
+          int count = (int) Math.min(batch.capacity(), to - start);
+          for (int i = 0; i < count; i++) {
+            ticket.generate(random, RandomSource.seedAt(seed, start + i));
+            batch.set(i, ticket, 0);
+          }
+          batch.setBet(bet);
+          batch.setSize(count);
+          worker.evaluator.evaluate(batch);
+          for (int i = 0; i < count; i++) {
+            put(block, (int) (start - from + i) * recordSize, batch, i);
+          }
+        }
+      } else {
+        for (long number = from; number < to; number++) {
+          ticket.play(random, RandomSource.seedAt(seed, number));
+          put(block, (int) (number - from) * recordSize, ticket);
+        }
+      }
+      try {
+        writeFully(channel, block, dataOffset + from * recordSize);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private void put(ByteBuffer block, int base, Ticket ticket) {
+      for (int cell = 0; cell < game.cellCount(); cell++) {
+        layout.putSymbol(block, base, cell, ticket.cell(cell));
+      }
+      layout.putSymbol(block, base, game.cellCount(), ticket.bonusSymbol());
+      int combinations = base + layout.combinationOffset();
+      for (int i = 0; i < ticket.hitCount(); i++) {
+        int combination = ticket.hitCombination(i);
+        int pos = combinations + (combination >>> 3);
+        block.put(pos, (byte) (block.get(pos) | 1 << (combination & 7)));
+      }
+      block.putDouble(base + layout.rewardOffset(), ticket.reward(bet));
+    }
+
+    private void put(ByteBuffer block, int base, PlayBatch batch, int index) {
+      for (int cell = 0; cell < game.cellCount(); cell++) {
+        layout.putSymbol(block, base, cell, batch.cell(index, cell));
+      }
+      layout.putSymbol(block, base, game.cellCount(), batch.bonusSymbol(index));
+      int combinations = base + layout.combinationOffset();
+      for (int combination = 0; combination < game.combinationCount(); combination++) {
+        if (batch.hasCombination(index, combination)) {
+          int pos = combinations + (combination >>> 3);
+          block.put(pos, (byte) (block.get(pos) | 1 << (combination & 7)));
+        }
+      }
+      block.putDouble(base + layout.rewardOffset(), batch.reward(index));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.limix.random;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Named, seedable random algorithm. Every play or block of plays gets its own generator created
+ * from a 64-bit seed, so no generator state is shared between threads and any play can be
+ * replayed from the algorithm name and its seed. Sub-seeds for plays and blocks are derived from a
+ * master seed with {@link #seedAt(long, long)}, independently of how the work is scheduled.
+ */
+public final class RandomSource {
+
+  public static final String DEFAULT_ALGORITHM = "SplittableRandom";
+
+  private static final RandomSource DEFAULT = new RandomSource(DEFAULT_ALGORITHM, null);
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final String algorithm;
+  // null for SplittableRandom, which is constructed directly
+  private final RandomGeneratorFactory<RandomGenerator> factory;
+
+  private RandomSource(String algorithm, RandomGeneratorFactory<RandomGenerator> factory) {
+    this.algorithm = algorithm;
+    this.factory = factory;
+  }
+
+  public static RandomSource defaultSource() {
+    return DEFAULT;
+  }
+
+  // any seedable JDK algorithm, e.g. SplittableRandom, L64X128MixRandom or Xoshiro256PlusPlus
+  public static RandomSource of(String algorithm) {
+    if (DEFAULT_ALGORITHM.equals(algorithm)) {
+      return DEFAULT;
+    }
+    RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory.of(algorithm);
+    if (factory.isStochastic()) {
+      throw new IllegalArgumentException(
+          "Random algorithm " + algorithm + " cannot be seeded reproducibly.");
+    }
+    return new RandomSource(algorithm, factory);
+  }
+
+  public String algorithm() {
+    return algorithm;
+  }
+
+  public RandomGenerator create(long seed) {
+    return factory == null ? new SplittableRandom(seed) : factory.create(seed);
+  }
+
+  /**
+   * A generator drawing what {@code create(seed)} draws. For the default algorithm the generator
+   * returned by the previous call is passed back in, null the first time, and set to the new seed
+   * instead of allocating one per play; the JDK factory algorithms cannot be reseeded and create a
+   * new generator every time.
+   */
+  public RandomGenerator reseed(RandomGenerator previous, long seed) {
+    if (factory != null) {
+      return factory.create(seed);
+    }
+    return previous instanceof SplitMixRandom splitMix
+        ? splitMix.reseed(seed)
+        : new SplitMixRandom(seed);
+  }
+
+  // the generator of the index-th play or block under the master seed
+  public RandomGenerator create(long masterSeed, long index) {
+    return create(seedAt(masterSeed, index));
+  }
+
+  // SplitMix64 finaliser over the index-th step of the master seed's Weyl sequence
+  public static long seedAt(long masterSeed, long index) {
+    long z = masterSeed + (index + 1) * GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public String toString() {
+    return algorithm;
+  }
+}
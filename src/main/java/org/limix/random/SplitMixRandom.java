@@ -0,0 +1,41 @@
+package org.limix.random;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The algorithm of {@link java.util.SplittableRandom} with a seed that can be set again, so one
+ * instance serves every seeded play of a ticket. It draws exactly what
+ * {@code new SplittableRandom(seed)} draws: both mix the same Weyl sequence for {@code nextInt()}
+ * and {@code nextLong()}, and both take the bounded and floating-point draws from the
+ * {@link RandomGenerator} defaults built on those two.
+ */
+final class SplitMixRandom implements RandomGenerator {
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private long seed;
+
+  SplitMixRandom(long seed) {
+    this.seed = seed;
+  }
+
+  SplitMixRandom reseed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  @Override
+  public int nextInt() {
+    long z = seed += GOLDEN_GAMMA;
+    z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+    return (int) (((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+  }
+
+  @Override
+  public long nextLong() {
+    long z = seed += GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
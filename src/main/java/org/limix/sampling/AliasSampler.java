@@ -0,0 +1,76 @@
+package org.limix.sampling;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Walker/Vose alias table on integer weights. Every column holds {@code total} units split
+ * between its own value and one alias, so a draw is one column pick plus one threshold compare
+ * and the sampled frequencies are exact.
+ */
+public final class AliasSampler implements SymbolSampler {
+
+  private final int[] values;
+  private final int[] aliases;
+  // units of each column kept by its own value, out of total
+  private final int[] thresholds;
+  private final int total;
+
+  public AliasSampler(int[] values, int[] weights) {
+    this.total = (int) SymbolSampler.totalWeight(weights);
+    int n = weights.length;
+    this.values = values.clone();
+    this.aliases = new int[n];
+    this.thresholds = new int[n];
+
+    // every weight scaled by n, so each column holds exactly total units
+    long[] scaled = new long[n];
+    int[] small = new int[n];
+    int[] large = new int[n];
+    int smallCount = 0;
+    int largeCount = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = (long) weights[i] * n;
+      if (scaled[i] < total) {
+        small[smallCount++] = i;
+      } else {
+        large[largeCount++] = i;
+      }
+    }
+
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+      thresholds[less] = (int) scaled[less];
+      aliases[less] = values[more];
+      scaled[more] -= total - scaled[less];
+      if (scaled[more] < total) {
+        small[smallCount++] = more;
+      } else {
+        large[largeCount++] = more;
+      }
+    }
+    // what remains is full (exactly total units)
+    while (largeCount > 0) {
+      int more = large[--largeCount];
+      thresholds[more] = total;
+      aliases[more] = values[more];
+    }
+    while (smallCount > 0) {
+      int less = small[--smallCount];
+      thresholds[less] = total;
+      aliases[less] = values[less];
+    }
+  }
+
+  @Override
+  public int sample(RandomGenerator rng) {
+    int column = rng.nextInt(values.length);
+    return rng.nextInt(total) < thresholds[column] ? values[column] : aliases[column];
+  }
+
+  @Override
+  public String toString() {
+    return "AliasSampler" + Arrays.toString(values);
+  }
+}
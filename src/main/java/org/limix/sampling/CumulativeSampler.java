@@ -0,0 +1,44 @@
+package org.limix.sampling;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+// binary search over cumulative weights, cheapest for tiny tables
+public final class CumulativeSampler implements SymbolSampler {
+
+  private final int[] values;
+  private final int[] cumulative;
+  private final int total;
+
+  public CumulativeSampler(int[] values, int[] weights) {
+    this.total = (int) SymbolSampler.totalWeight(weights);
+    this.values = values.clone();
+    this.cumulative = new int[weights.length];
+    int sum = 0;
+    for (int i = 0; i < weights.length; i++) {
+      sum += weights[i];
+      cumulative[i] = sum;
+    }
+  }
+
+  @Override
+  public int sample(RandomGenerator rng) {
+    int r = rng.nextInt(total);
+    int low = 0;
+    int high = cumulative.length - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (cumulative[mid] > r) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return values[low];
+  }
+
+  @Override
+  public String toString() {
+    return "CumulativeSampler" + Arrays.toString(values);
+  }
+}
@@ -0,0 +1,48 @@
+package org.limix.sampling;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws one value from a fixed weighted table. Implementations are immutable and can be shared
+ * between threads, all randomness comes from the caller-supplied generator.
+ */
+public interface SymbolSampler {
+
+  // tables up to this size are searched in cumulative weights, larger ones use an alias table
+  int CUMULATIVE_THRESHOLD = 8;
+
+  int sample(RandomGenerator rng);
+
+  static SymbolSampler of(int[] values, int[] weights) {
+    if (values.length != weights.length) {
+      throw new IllegalArgumentException("Values and weights must have the same length.");
+    }
+    if (values.length == 0) {
+      throw new IllegalArgumentException("At least one weight is required.");
+    }
+    return values.length <= CUMULATIVE_THRESHOLD
+        ? new CumulativeSampler(values, weights)
+        : new AliasSampler(values, weights);
+  }
+
+  static SymbolSampler constant(int value) {
+    return rng -> value;
+  }
+
+  static long totalWeight(int[] weights) {
+    long total = 0;
+    for (int weight : weights) {
+      if (weight < 0) {
+        throw new IllegalArgumentException("Weights must not be negative.");
+      }
+      total += weight;
+    }
+    if (total <= 0) {
+      throw new IllegalArgumentException("Total weight must be positive.");
+    }
+    if (total > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Total weight must fit in an int.");
+    }
+    return total;
+  }
+}
@@ -0,0 +1,307 @@
+package org.limix.server;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.limix.config.GameRegistry;
+import org.limix.config.RegisteredGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.journal.Journal;
+import org.limix.metrics.PlayMetrics;
+import org.limix.metrics.PlayPhase;
+import org.limix.output.NdjsonTicketWriter;
+import org.limix.output.TicketJson;
+
+/**
+ * Embedded HTTP play service on the JDK's {@link HttpServer} with one virtual thread per request.
+ * <ul>
+ *   <li>{@code GET|POST /play?bet=100} returns one ticket as the JSON object of
+ *   {@code ScratchGame.extractOutput()}</li>
+ *   <li>{@code GET|POST /batch?bet=100&count=50} streams {@code count} tickets as NDJSON</li>
+ * </ul>
+ * Every ticket response carries the version of the configuration it was played with in the
+ * {@code X-Config-Version} header. With a {@link GameRegistry}, a {@code game=<id>} parameter plays
+ * that game instead of the default one; unknown games are answered with 404. With a
+ * {@link Journal}, every ticket played is appended to it before it is answered. At most
+ * {@code maxInFlight} requests are admitted at a time, the rest are answered with 503 straight
+ * away instead of queuing without bound.
+ */
+public class PlayServer implements AutoCloseable {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final ThreadLocal<Boolean> ADMITTED = new ThreadLocal<>();
+  private static final String CONFIG_VERSION = "X-Config-Version";
+
+  private final HttpServer server;
+  // either may be null, but not both
+  private final Supplier<GameEngine> engines;
+  private final GameRegistry games;
+  private final ExecutorService executor;
+  private final Semaphore permits;
+  private final int maxBatch;
+  private final Journal journal;
+  private volatile TicketJson json;
+
+  public PlayServer(InetSocketAddress address, Supplier<GameEngine> engines, int maxInFlight,
+      int maxBatch) throws IOException {
+    this(address, engines, null, maxInFlight, maxBatch);
+  }
+
+  public PlayServer(InetSocketAddress address, Supplier<GameEngine> engines, GameRegistry games,
+      int maxInFlight, int maxBatch) throws IOException {
+    this(address, engines, games, null, maxInFlight, maxBatch);
+  }
+
+  // the journal records the plays of the default game, it cannot be used with a registry
+  public PlayServer(InetSocketAddress address, Supplier<GameEngine> engines, GameRegistry games,
+      Journal journal, int maxInFlight, int maxBatch) throws IOException {
+    if (engines == null && games == null) {
+      throw new IllegalArgumentException("A default game or a game registry is required.");
+    }
+    if (journal != null && games != null) {
+      throw new IllegalArgumentException("A journal cannot record the games of a registry.");
+    }
+    this.engines = engines;
+    this.games = games;
+    this.journal = journal;
+    this.permits = new Semaphore(maxInFlight);
+    this.maxBatch = maxBatch;
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    this.server = HttpServer.create(address, maxInFlight);
+    server.setExecutor(this::dispatch);
+    server.createContext("/play", this::handlePlay);
+    server.createContext("/batch", this::handleBatch);
+  }
+
+  public PlayServer start() {
+    server.start();
+    return this;
+  }
+
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  // stops accepting, lets in-flight requests finish within the grace period
+  public void stop(Duration grace) throws InterruptedException {
+    server.stop((int) Math.max(grace.toSeconds(), 0));
+    executor.shutdown();
+    if (!executor.awaitTermination(grace.toMillis(), TimeUnit.MILLISECONDS)) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    stop(Duration.ofSeconds(5));
+  }
+
+  private void dispatch(Runnable exchange) {
+    executor.execute(() -> {
+      boolean admitted = permits.tryAcquire();
+      ADMITTED.set(admitted);
+      try {
+        exchange.run();
+      } finally {
+        ADMITTED.remove();
+        if (admitted) {
+          permits.release();
+        }
+      }
+    });
+  }
+
+  private void handlePlay(HttpExchange exchange) throws IOException {
+    try {
+      Map<String, String> parameters = accept(exchange);
+      if (parameters == null) {
+        return;
+      }
+      double bet = bet(parameters);
+      Target target = target(parameters);
+      GameEngine engine = target.engine();
+      PlayResult result = engine.play(bet, ThreadLocalRandom.current());
+      if (journal != null) {
+        journal.append(result, bet, result.reward());
+      }
+      exchange.getResponseHeaders().set(CONFIG_VERSION, String.valueOf(result.configVersion()));
+
+      PlayMetrics metrics = engine.metrics();
+      boolean timed = metrics != null && metrics.isEnabled();
+      long start = timed ? System.nanoTime() : 0;
+      ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+      try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+        target.json().write(generator, result, result.reward());
+      }
+      if (timed) {
+        metrics.record(PlayPhase.EXTRACT_OUTPUT, System.nanoTime() - start);
+      }
+      respond(exchange, 200, "application/json", body.toByteArray());
+    } catch (NoSuchFileException e) {
+      respondError(exchange, 404, "Unknown game");
+    } catch (IllegalArgumentException e) {
+      respondError(exchange, 400, e.getMessage());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleBatch(HttpExchange exchange) throws IOException {
+    boolean streaming = false;
+    try {
+      Map<String, String> parameters = accept(exchange);
+      if (parameters == null) {
+        return;
+      }
+      double bet = bet(parameters);
+      int count = Integer.parseInt(parameters.getOrDefault("count", "1"));
+      if (count <= 0 || count > maxBatch) {
+        throw new IllegalArgumentException("count must be between 1 and " + maxBatch);
+      }
+      Target target = target(parameters);
+      GameEngine engine = target.engine();
+      ThreadLocalRandom rng = ThreadLocalRandom.current();
+      // the first ticket is played before the status is sent, so that a bet the engine refuses
+      // is still answered with an error
+      PlayResult result = engine.play(bet, rng);
+      if (journal != null) {
+        journal.append(result, bet, result.reward());
+      }
+
+      exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+      exchange.getResponseHeaders().set(CONFIG_VERSION, String.valueOf(engine.game().version()));
+      exchange.sendResponseHeaders(200, 0);
+      streaming = true;
+      try (NdjsonTicketWriter writer =
+          new NdjsonTicketWriter(exchange.getResponseBody(), target.json())) {
+        writer.write(result, bet, result.reward());
+        for (int i = 1; i < count; i++) {
+          result = engine.play(bet, rng);
+          if (journal != null) {
+            journal.append(result, bet, result.reward());
+          }
+          writer.write(result, bet, result.reward());
+        }
+      }
+    } catch (NoSuchFileException e) {
+      respondError(exchange, 404, "Unknown game");
+    } catch (IllegalArgumentException e) {
+      // once the status is sent the stream can only be cut short, the exchange is closed below
+      if (!streaming) {
+        respondError(exchange, 400, e.getMessage());
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  // returns the query parameters, or null when the request was already answered
+  private Map<String, String> accept(HttpExchange exchange) throws IOException {
+    if (!Boolean.TRUE.equals(ADMITTED.get())) {
+      respondError(exchange, 503, "Too many requests in flight");
+      return null;
+    }
+    String method = exchange.getRequestMethod();
+    if (!"GET".equals(method) && !"POST".equals(method)) {
+      exchange.getResponseHeaders().set("Allow", "GET, POST");
+      respondError(exchange, 405, "Method not allowed");
+      return null;
+    }
+    return parameters(exchange.getRequestURI().getRawQuery());
+  }
+
+  private static Map<String, String> parameters(String query) {
+    Map<String, String> parameters = new HashMap<>();
+    if (query == null || query.isEmpty()) {
+      return parameters;
+    }
+    for (String pair : query.split("&")) {
+      int separator = pair.indexOf('=');
+      if (separator > 0) {
+        parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+            URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return parameters;
+  }
+
+  private static double bet(Map<String, String> parameters) {
+    String value = parameters.get("bet");
+    if (value == null) {
+      throw new IllegalArgumentException("Missing bet parameter");
+    }
+    double bet = Double.parseDouble(value);
+    if (!(bet > 0) || Double.isInfinite(bet)) {
+      throw new IllegalArgumentException("bet must be a positive number");
+    }
+    return bet;
+  }
+
+  private record Target(GameEngine engine, TicketJson json) {
+
+  }
+
+  // the game the request asks for, the default game without a game parameter
+  private Target target(Map<String, String> parameters) throws IOException {
+    String gameId = parameters.get("game");
+    if (gameId != null) {
+      if (games == null) {
+        throw new IllegalArgumentException("This service does not host several games");
+      }
+      RegisteredGame game = games.get(gameId);
+      return new Target(game.engine(), game.json());
+    }
+    if (engines == null) {
+      throw new IllegalArgumentException("Missing game parameter");
+    }
+    GameEngine engine = engines.get();
+    return new Target(engine, json(engine));
+  }
+
+  private TicketJson json(GameEngine engine) {
+    TicketJson current = json;
+    if (current == null || current.game() != engine.game()) {
+      current = new TicketJson(engine.game());
+      json = current;
+    }
+    return current;
+  }
+
+  private static void respondError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+      generator.writeStartObject();
+      generator.writeStringField("error", message);
+      generator.writeEndObject();
+    }
+    respond(exchange, status, "application/json", body.toByteArray());
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
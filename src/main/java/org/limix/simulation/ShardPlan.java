@@ -0,0 +1,94 @@
+package org.limix.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.limix.stats.RewardStats;
+
+/**
+ * Split of a simulation into shards, each a subtree of the {@link Simulator}'s chunk tree: the
+ * largest range is halved, earliest first, until there are enough. Shards are contiguous ticket
+ * ranges that only depend on the ticket and shard counts, and their stats merged by
+ * {@link #reduce} in the order of the tree are the stats of a single-process run.
+ */
+public final class ShardPlan {
+
+  private final long tickets;
+  // shard i covers the tickets [starts[i], starts[i + 1])
+  private final long[] starts;
+
+  private ShardPlan(long tickets, long[] starts) {
+    this.tickets = tickets;
+    this.starts = starts;
+  }
+
+  public static ShardPlan of(long tickets, int shards) {
+    if (tickets <= 0) {
+      throw new IllegalArgumentException("Number of tickets must be positive.");
+    }
+    if (shards <= 0) {
+      throw new IllegalArgumentException("Number of shards must be positive.");
+    }
+    List<long[]> ranges = new ArrayList<>(List.of(new long[] {0, tickets}));
+    while (ranges.size() < shards) {
+      int largest = 0;
+      for (int i = 1; i < ranges.size(); i++) {
+        if (size(ranges.get(i)) > size(ranges.get(largest))) {
+          largest = i;
+        }
+      }
+      long[] range = ranges.get(largest);
+      if (Simulator.isChunk(range[0], range[1])) {
+        throw new IllegalArgumentException(
+            tickets + " tickets can't be split into " + shards + " shards.");
+      }
+      long middle = Simulator.middle(range[0], range[1]);
+      ranges.set(largest, new long[] {range[0], middle});
+      ranges.add(largest + 1, new long[] {middle, range[1]});
+    }
+    long[] starts = new long[shards + 1];
+    for (int i = 0; i < shards; i++) {
+      starts[i] = ranges.get(i)[0];
+    }
+    starts[shards] = tickets;
+    return new ShardPlan(tickets, starts);
+  }
+
+  private static long size(long[] range) {
+    return range[1] - range[0];
+  }
+
+  public long tickets() {
+    return tickets;
+  }
+
+  public int shards() {
+    return starts.length - 1;
+  }
+
+  public long from(int shard) {
+    return starts[shard];
+  }
+
+  public long to(int shard) {
+    return starts[shard + 1];
+  }
+
+  // merges the stats of every shard, in shard order, as the simulator merges its chunks
+  public RewardStats reduce(RewardStats[] shardStats) {
+    if (shardStats.length != shards()) {
+      throw new IllegalArgumentException(
+          "Expected the stats of " + shards() + " shards, got " + shardStats.length + ".");
+    }
+    return reduce(shardStats, 0, tickets);
+  }
+
+  private RewardStats reduce(RewardStats[] shardStats, long from, long to) {
+    int shard = Arrays.binarySearch(starts, from);
+    if (shard >= 0 && starts[shard + 1] == to) {
+      return shardStats[shard];
+    }
+    long middle = Simulator.middle(from, to);
+    return reduce(shardStats, from, middle).merge(reduce(shardStats, middle, to));
+  }
+}
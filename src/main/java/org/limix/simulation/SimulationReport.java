@@ -0,0 +1,113 @@
+package org.limix.simulation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.OutcomeCache;
+import org.limix.stats.DoubleHistogram;
+import org.limix.stats.RewardStats;
+import org.limix.stats.RunLengths;
+
+public record SimulationReport(
+    long tickets,
+    long seed,
+    @JsonProperty("random_algorithm") String randomAlgorithm,
+    double bet,
+    @JsonProperty("total_bet") double totalBet,
+    @JsonProperty("total_reward") double totalReward,
+    double rtp,
+    @JsonProperty("hit_frequency") double hitFrequency,
+    @JsonProperty("mean_reward") double meanReward,
+    @JsonProperty("reward_variance") double rewardVariance,
+    @JsonProperty("max_win") double maxWin,
+    @JsonProperty("combination_trigger_rates") Map<String, Double> combinationTriggerRates,
+    @JsonProperty("bonus_symbol_trigger_rates") Map<String, Double> bonusSymbolTriggerRates,
+    @JsonProperty("elapsed_millis") long elapsedMillis,
+    // summed over the workers, null without outcome caches
+    @JsonProperty("outcome_cache") @JsonInclude(JsonInclude.Include.NON_NULL)
+    OutcomeCache.Stats outcomeCache,
+    // quantiles of the reward distribution, within 1%
+    @JsonProperty("reward_quantiles") Map<String, Double> rewardQuantiles,
+    @JsonProperty("reward_to_bet_quantiles") Map<String, Double> rewardToBetQuantiles,
+    @JsonProperty("longest_win_streak") long longestWinStreak,
+    @JsonProperty("longest_loss_streak") long longestLossStreak,
+    @JsonProperty("mean_win_streak") double meanWinStreak,
+    @JsonProperty("mean_loss_streak") double meanLossStreak,
+    // per combination, the rates of the other combinations won on the same ticket, if any
+    @JsonProperty("combination_co_occurrence_rates") @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    Map<String, Map<String, Double>> combinationCoOccurrenceRates
+) {
+
+  static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+  static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p99.9", "p99.99"};
+
+  // the report of merged stats, of one run or of several
+  public static SimulationReport of(CompiledGame game, RewardStats stats, long seed,
+      String randomAlgorithm, long elapsedMillis, OutcomeCache.Stats cacheStats) {
+    if (!stats.isOf(game)) {
+      throw new IllegalArgumentException("The stats are not those of this game.");
+    }
+    double tickets = stats.tickets();
+    Map<String, Double> combinationRates = new LinkedHashMap<>();
+    for (int combination = 0; combination < game.combinationCount(); combination++) {
+      combinationRates.put(game.combinationName(combination),
+          stats.combinationTickets(combination) / tickets);
+    }
+    Map<String, Double> bonusRates = new LinkedHashMap<>();
+    for (int i = 0; i < game.bonusWeightCount(); i++) {
+      int symbol = game.bonusSymbol(i);
+      bonusRates.put(game.symbolName(symbol), stats.bonusTickets(symbol) / tickets);
+    }
+    Map<String, Map<String, Double>> coOccurrenceRates = new LinkedHashMap<>();
+    if (stats.hasCoOccurrences()) {
+      for (int a = 0; a < stats.combinationCount(); a++) {
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (int b = 0; b < stats.combinationCount(); b++) {
+          long both = a == b ? 0 : stats.coOccurrences(a, b);
+          if (both > 0) {
+            rates.put(stats.combinationName(b), both / tickets);
+          }
+        }
+        if (!rates.isEmpty()) {
+          coOccurrenceRates.put(stats.combinationName(a), rates);
+        }
+      }
+    }
+    RunLengths runs = stats.runs();
+    long winRuns = runs.runs(true);
+    long lossRuns = runs.runs(false);
+    return new SimulationReport(
+        stats.tickets(),
+        seed,
+        randomAlgorithm,
+        stats.totalBet() / tickets,
+        stats.totalBet(),
+        stats.totalReward(),
+        stats.totalReward() / stats.totalBet(),
+        stats.wins() / tickets,
+        stats.mean(),
+        stats.variance(),
+        stats.maxWin(),
+        combinationRates,
+        bonusRates,
+        elapsedMillis,
+        cacheStats,
+        quantiles(stats.rewards()),
+        quantiles(stats.rewardToBet()),
+        runs.longest(true),
+        runs.longest(false),
+        winRuns == 0 ? 0 : stats.wins() / (double) winRuns,
+        lossRuns == 0 ? 0 : (stats.tickets() - stats.wins()) / (double) lossRuns,
+        coOccurrenceRates);
+  }
+
+  private static Map<String, Double> quantiles(DoubleHistogram histogram) {
+    Map<String, Double> quantiles = new LinkedHashMap<>();
+    for (int i = 0; i < QUANTILES.length; i++) {
+      quantiles.put(QUANTILE_NAMES[i], histogram.quantile(QUANTILES[i]));
+    }
+    return quantiles;
+  }
+}
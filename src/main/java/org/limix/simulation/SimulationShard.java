@@ -0,0 +1,251 @@
+package org.limix.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.limix.stats.RewardStats;
+
+/**
+ * One shard of a {@link ShardPlan}, played on one thread into a file of its own. While it runs,
+ * the stats of the finished subtrees not merged yet are checkpointed to the file, replaced
+ * atomically, so a shard that was stopped or crashed resumes from its last checkpoint instead of
+ * starting over. A finished shard file holds the stats of the whole shard; {@link #merge} combines
+ * the files of all shards into the report of the run, the same as a single-process run with the
+ * same seed.
+ */
+public final class SimulationShard {
+
+  static final int MAGIC = 0x53475348; // "SGSH"
+  static final int VERSION = 2;
+
+  private final Simulator simulator;
+  private final ShardPlan plan;
+  private final int shard;
+  private final double bet;
+  private final long seed;
+  private final Path file;
+
+  // finished subtrees waiting for their right sibling, innermost first
+  private final Deque<Subtree> pending = new ArrayDeque<>();
+  // subtrees of the last checkpoint by their first ticket, taken while resuming
+  private final Map<Long, Subtree> restored = new HashMap<>();
+  private long previousMillis;
+  private long start;
+  private long lastCheckpoint;
+  private long checkpointNanos;
+  private long chunksLeft;
+
+  private record Subtree(long from, long to, RewardStats stats) {
+  }
+
+  public SimulationShard(Simulator simulator, ShardPlan plan, int shard, double bet, long seed,
+      Path file) {
+    if (shard < 0 || shard >= plan.shards()) {
+      throw new IllegalArgumentException(
+          "Shard " + shard + " is not one of the " + plan.shards() + " shards.");
+    }
+    this.simulator = simulator;
+    this.plan = plan;
+    this.shard = shard;
+    this.bet = bet;
+    this.seed = seed;
+    this.file = file;
+  }
+
+  // the name of the file of a shard in a directory of shard files
+  public static Path file(Path directory, int shard, int shards) {
+    return directory.resolve("shard-" + shard + "-of-" + shards + ".bin");
+  }
+
+  /**
+   * Plays the shard, or what is left of it, checkpointing whenever the interval has passed. Stops
+   * early after the given number of chunks, with a checkpoint to continue from.
+   *
+   * @return true once the whole shard is in the file
+   */
+  public boolean run(Duration checkpointEvery, long maxChunks) throws IOException {
+    restored.clear();
+    pending.clear();
+    previousMillis = 0;
+    if (Files.exists(file)) {
+      Header header = readInto(file, restored);
+      header.check(this);
+      previousMillis = header.elapsedMillis;
+      Subtree whole = restored.get(plan.from(shard));
+      if (whole != null && whole.to == plan.to(shard)) {
+        return true;
+      }
+    }
+    start = System.nanoTime();
+    lastCheckpoint = start;
+    checkpointNanos = checkpointEvery.toNanos();
+    chunksLeft = maxChunks;
+    RewardStats stats = play(plan.from(shard), plan.to(shard));
+    if (stats == null) {
+      return false;
+    }
+    pending.push(new Subtree(plan.from(shard), plan.to(shard), stats));
+    write();
+    return true;
+  }
+
+  // the stats of the subtree, null when stopped before its end
+  private RewardStats play(long from, long to) throws IOException {
+    Subtree done = restored.get(from);
+    if (done != null && done.to == to) {
+      restored.remove(from);
+      return done.stats;
+    }
+    if (Simulator.isChunk(from, to)) {
+      if (chunksLeft-- <= 0) {
+        write();
+        return null;
+      }
+      return simulator.playChunk(from, to, bet, seed);
+    }
+    long middle = Simulator.middle(from, to);
+    RewardStats left = play(from, middle);
+    if (left == null) {
+      return null;
+    }
+    pending.push(new Subtree(from, middle, left));
+    if (System.nanoTime() - lastCheckpoint >= checkpointNanos) {
+      write();
+    }
+    RewardStats right = play(middle, to);
+    pending.pop();
+    return right == null ? null : left.merge(right);
+  }
+
+  private void write() throws IOException {
+    long now = System.nanoTime();
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(simulator.random().algorithm());
+      out.writeUTF(simulator.game().fingerprint());
+      out.writeLong(seed);
+      out.writeDouble(bet);
+      out.writeLong(plan.tickets());
+      out.writeInt(plan.shards());
+      out.writeInt(shard);
+      out.writeLong(previousMillis + (now - start) / 1_000_000);
+      out.writeInt(pending.size());
+      for (var subtrees = pending.descendingIterator(); subtrees.hasNext(); ) {
+        Subtree subtree = subtrees.next();
+        out.writeLong(subtree.from);
+        out.writeLong(subtree.to);
+        subtree.stats.writeTo(out);
+      }
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    lastCheckpoint = now;
+  }
+
+  private record Header(String algorithm, String fingerprint, long seed, double bet, long tickets, int shards,
+      int shard, long elapsedMillis) {
+
+    void check(SimulationShard expected) throws IOException {
+      if (!algorithm.equals(expected.simulator.random().algorithm())
+          || !fingerprint.equals(expected.simulator.game().fingerprint())
+          || seed != expected.seed
+          || bet != expected.bet
+          || tickets != expected.plan.tickets()
+          || shards != expected.plan.shards()
+          || shard != expected.shard) {
+        throw new IOException("Checkpoint " + expected.file + " belongs to another run.");
+      }
+    }
+  }
+
+  private static Header readInto(Path file, Map<Long, Subtree> subtrees) throws IOException {
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException(file + " is not a simulation shard.");
+      }
+      if (in.readInt() != VERSION) {
+        throw new IOException("Unsupported simulation shard version in " + file);
+      }
+      Header header = new Header(in.readUTF(), in.readUTF(), in.readLong(), in.readDouble(),
+          in.readLong(), in.readInt(), in.readInt(), in.readLong());
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        long from = in.readLong();
+        long to = in.readLong();
+        subtrees.put(from, new Subtree(from, to, RewardStats.readFrom(in)));
+      }
+      return header;
+    }
+  }
+
+  /**
+   * The report of a run from the files of all its shards, in any order. Every file must have been
+   * played by the simulator's game and algorithm with the given bet, seed and tickets. The elapsed
+   * time is the longest of the shards, as they run side by side.
+   */
+  public static SimulationReport merge(Simulator simulator, double bet, long seed, long tickets,
+      List<Path> files) throws IOException {
+    Header first = null;
+    RewardStats[] shardStats = null;
+    ShardPlan plan = null;
+    long elapsedMillis = 0;
+    for (Path file : files) {
+      Map<Long, Subtree> subtrees = new HashMap<>();
+      Header header = readInto(file, subtrees);
+      if (!header.fingerprint.equals(simulator.game().fingerprint())) {
+        throw new IOException(file + " was played with another configuration.");
+      }
+      if (!header.algorithm.equals(simulator.random().algorithm()) || header.seed != seed
+          || header.bet != bet || header.tickets != tickets) {
+        throw new IOException(file + " was played with " + header.algorithm + ", seed "
+            + header.seed + ", bet " + header.bet + " and " + header.tickets + " tickets, not "
+            + simulator.random().algorithm() + ", seed " + seed + ", bet " + bet + " and "
+            + tickets + " tickets.");
+      }
+      if (first == null) {
+        first = header;
+        plan = ShardPlan.of(header.tickets, header.shards);
+        shardStats = new RewardStats[header.shards];
+      } else if (header.shards != first.shards) {
+        throw new IOException(file + " belongs to another run than " + files.get(0));
+      }
+      if (header.shard < 0 || header.shard >= header.shards) {
+        throw new IOException("Invalid shard " + header.shard + " in " + file);
+      }
+      Subtree whole = subtrees.get(plan.from(header.shard));
+      if (subtrees.size() != 1 || whole == null || whole.to != plan.to(header.shard)) {
+        throw new IOException("Shard " + header.shard + " in " + file + " is not finished.");
+      }
+      if (shardStats[header.shard] != null) {
+        throw new IOException("Shard " + header.shard + " is given twice.");
+      }
+      shardStats[header.shard] = whole.stats;
+      elapsedMillis = Math.max(elapsedMillis, header.elapsedMillis);
+    }
+    if (first == null) {
+      throw new IOException("No shard files to merge.");
+    }
+    for (int i = 0; i < shardStats.length; i++) {
+      if (shardStats[i] == null) {
+        throw new IOException("Shard " + i + " of " + shardStats.length + " is missing.");
+      }
+    }
+    return SimulationReport.of(simulator.game(), plan.reduce(shardStats), seed,
+        simulator.random().algorithm(), elapsedMillis, null);
+  }
+}
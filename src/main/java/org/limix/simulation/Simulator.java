@@ -0,0 +1,157 @@
+package org.limix.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.OutcomeCache;
+import org.limix.engine.Ticket;
+import org.limix.random.RandomSource;
+import org.limix.stats.RewardStats;
+
+/**
+ * Monte Carlo RTP simulation. Tickets are split into chunks played by fork-join workers, each
+ * chunk with its own {@link RewardStats} and its own generator seeded from the master seed and the
+ * index of its first ticket. Chunk stats are merged in ticket order. The chunks only depend on the
+ * ticket count, so a seed gives the same report for any parallelism. With an outcome cache, every
+ * worker thread memoizes the evaluation of the matrices it plays in its own {@link OutcomeCache};
+ * the report is the same with or without it. Subtrees of the chunks can also be played by separate
+ * processes as {@link SimulationShard}s.
+ */
+public class Simulator {
+
+  static final long CHUNK_SIZE = 1 << 14;
+  // hit rate below which a worker's cache costs more than it saves
+  static final double MIN_CACHE_HIT_RATE = 0.3;
+
+  private final CompiledGame game;
+  private final RandomSource random;
+  // entries of each worker's outcome cache, 0 without caches
+  private final int cacheCapacity;
+
+  public Simulator(CompiledGame game) {
+    this(game, RandomSource.defaultSource());
+  }
+
+  public Simulator(CompiledGame game, RandomSource random) {
+    this(game, random, 0);
+  }
+
+  // memoizes outcomes in per-thread caches of the given capacity when the game supports it
+  public Simulator(CompiledGame game, RandomSource random, int cacheCapacity) {
+    this.game = game;
+    this.random = random;
+    this.cacheCapacity = OutcomeCache.supports(game) ? cacheCapacity : 0;
+  }
+
+  public SimulationReport run(long tickets, double bet, long seed) {
+    return run(tickets, bet, seed, Runtime.getRuntime().availableProcessors());
+  }
+
+  public SimulationReport run(long tickets, double bet, long seed, int parallelism) {
+    long start = System.nanoTime();
+    List<OutcomeCache> caches = new ArrayList<>();
+    RewardStats total = stats(tickets, bet, seed, parallelism, caches);
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+    OutcomeCache.Stats cacheStats = null;
+    for (OutcomeCache cache : caches) {
+      cacheStats = cacheStats == null ? cache.stats() : cacheStats.plus(cache.stats());
+    }
+    return SimulationReport.of(game, total, seed, random.algorithm(), elapsedMillis, cacheStats);
+  }
+
+  // the merged stats of the run, adding the outcome caches the workers used to usedCaches
+  public RewardStats stats(long tickets, double bet, long seed, int parallelism,
+      List<OutcomeCache> usedCaches) {
+    if (tickets <= 0) {
+      throw new IllegalArgumentException("Number of tickets must be positive.");
+    }
+    RewardStats total;
+    Queue<OutcomeCache> created = new ConcurrentLinkedQueue<>();
+    ThreadLocal<OutcomeCache> caches = cacheCapacity == 0 ? null : ThreadLocal.withInitial(() -> {
+      OutcomeCache cache = new OutcomeCache(game, cacheCapacity, MIN_CACHE_HIT_RATE);
+      created.add(cache);
+      return cache;
+    });
+    try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+      total = pool.invoke(new ChunkTask(0, tickets, bet, seed, caches));
+    }
+    usedCaches.addAll(created);
+    return total;
+  }
+
+  // chunks are the leaves of a binary tree of ticket ranges, halved until small enough
+  static boolean isChunk(long from, long to) {
+    return to - from <= CHUNK_SIZE;
+  }
+
+  static long middle(long from, long to) {
+    return from + (to - from) / 2;
+  }
+
+  // the stats of one chunk, played without an outcome cache
+  RewardStats playChunk(long from, long to, double bet, long seed) {
+    RandomGenerator rng = random.create(seed, from);
+    Ticket ticket = new Ticket(game);
+    RewardStats accumulator = new RewardStats(game);
+    for (long i = from; i < to; i++) {
+      ticket.play(rng);
+      accumulator.add(ticket, ticket.reward(bet), bet);
+    }
+    return accumulator;
+  }
+
+  CompiledGame game() {
+    return game;
+  }
+
+  RandomSource random() {
+    return random;
+  }
+
+  private class ChunkTask extends RecursiveTask<RewardStats> {
+
+    private final long from;
+    private final long to;
+    private final double bet;
+    private final long seed;
+    private final ThreadLocal<OutcomeCache> caches;
+
+    ChunkTask(long from, long to, double bet, long seed, ThreadLocal<OutcomeCache> caches) {
+      this.from = from;
+      this.to = to;
+      this.bet = bet;
+      this.seed = seed;
+      this.caches = caches;
+    }
+
+    @Override
+    protected RewardStats compute() {
+      if (isChunk(from, to)) {
+        if (caches == null) {
+          return playChunk(from, to, bet, seed);
+        }
+        RandomGenerator rng = random.create(seed, from);
+        Ticket ticket = new Ticket(game);
+        RewardStats accumulator = new RewardStats(game);
+        OutcomeCache cache = caches.get();
+        for (long i = from; i < to; i++) {
+          ticket.generate(rng);
+          accumulator.add(ticket, cache.evaluate(ticket, bet), bet);
+        }
+        return accumulator;
+      }
+
+      long middle = middle(from, to);
+      ChunkTask left = new ChunkTask(from, middle, bet, seed, caches);
+      ChunkTask right = new ChunkTask(middle, to, bet, seed, caches);
+      left.fork();
+      RewardStats rightResult = right.compute();
+      return left.join().merge(rightResult);
+    }
+  }
+}
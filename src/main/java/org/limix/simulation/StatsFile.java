@@ -0,0 +1,91 @@
+package org.limix.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.limix.engine.CompiledGame;
+import org.limix.stats.RewardStats;
+
+/**
+ * The stats of one simulation run with the fingerprint of its game and the seed and random
+ * algorithm it was played with, written by {@code --stats-out}. {@link #merge} combines the files
+ * of separate runs of the same game and algorithm, which must have different seeds, into one
+ * report.
+ */
+public final class StatsFile {
+
+  static final int MAGIC = 0x53475346; // "SGSF"
+  static final int VERSION = 2;
+
+  private StatsFile() {
+  }
+
+  public static void write(Path file, RewardStats stats, long seed, String algorithm,
+      long elapsedMillis) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(stats.fingerprint());
+      out.writeLong(seed);
+      out.writeUTF(algorithm);
+      out.writeLong(elapsedMillis);
+      stats.writeTo(out);
+    }
+  }
+
+  /**
+   * The report of the runs as if they were one, merged in the given order. It carries the seed of
+   * the first run and the summed time of all runs.
+   */
+  public static SimulationReport merge(CompiledGame game, List<Path> files) throws IOException {
+    RewardStats merged = null;
+    String algorithm = null;
+    long firstSeed = 0;
+    long elapsedMillis = 0;
+    Set<Long> seeds = new HashSet<>();
+    for (Path file : files) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+          Files.newInputStream(file)))) {
+        if (in.readInt() != MAGIC) {
+          throw new IOException("Not a stats file: " + file);
+        }
+        if (in.readInt() != VERSION) {
+          throw new IOException("Unsupported stats file version: " + file);
+        }
+        if (!in.readUTF().equals(game.fingerprint())) {
+          throw new IOException(file + " was played with another configuration.");
+        }
+        long seed = in.readLong();
+        String runAlgorithm = in.readUTF();
+        elapsedMillis += in.readLong();
+        RewardStats stats = RewardStats.readFrom(in);
+        if (!stats.isOf(game)) {
+          throw new IOException(file + " was played with another configuration.");
+        }
+        if (algorithm == null) {
+          algorithm = runAlgorithm;
+          firstSeed = seed;
+        } else if (!algorithm.equals(runAlgorithm)) {
+          throw new IOException(file + " was played with " + runAlgorithm + ", not " + algorithm);
+        }
+        // the same seed plays the same tickets again
+        if (!seeds.add(seed)) {
+          throw new IOException(file + " repeats the run of seed " + seed);
+        }
+        merged = merged == null ? stats : merged.merge(stats);
+      }
+    }
+    if (merged == null) {
+      throw new IOException("No stats files to merge.");
+    }
+    return SimulationReport.of(game, merged, firstSeed, algorithm, elapsedMillis, null);
+  }
+}
@@ -0,0 +1,28 @@
+package org.limix.simulation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record VarianceReducedReport(
+    // pilot and estimate plays
+    long plays,
+    @JsonProperty("pilot_plays") long pilotPlays,
+    long seed,
+    @JsonProperty("random_algorithm") String randomAlgorithm,
+    double bet,
+    List<String> techniques,
+    int strata,
+    double rtp,
+    @JsonProperty("standard_error") double standardError,
+    @JsonProperty("confidence_level") double confidenceLevel,
+    @JsonProperty("rtp_low") double rtpLow,
+    @JsonProperty("rtp_high") double rtpHigh,
+    // Kish effective sample size of the likelihood ratios of the estimate plays
+    @JsonProperty("effective_sample_size") double effectiveSampleSize,
+    // plain plays that would give the same standard error
+    @JsonProperty("plain_equivalent_plays") double plainEquivalentPlays,
+    @JsonProperty("variance_reduction") double varianceReduction,
+    @JsonProperty("elapsed_millis") long elapsedMillis
+) {
+
+}
@@ -0,0 +1,536 @@
+package org.limix.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.Ticket;
+import org.limix.random.RandomSource;
+
+/**
+ * Monte Carlo RTP estimate with variance reduction, for games whose RTP hangs on rare big wins.
+ * Three techniques can be combined:
+ * <ul>
+ *   <li>importance sampling: every cell draws its standard symbols from its own reweighted
+ *   distribution, fitted by a few cross-entropy rounds of a pilot run to the cells of winning
+ *   plays, mixed with the configured weights so no symbol disappears. The first round draws
+ *   every symbol alike, so wins too rare to show up under the configured weights are fitted
+ *   too. Every play is weighted by its likelihood ratio, the product over its cells of
+ *   configured over reweighted probability.</li>
+ *   <li>stratification on the bonus: every bonus position is a stratum sampled apart, with plays
+ *   going to the strata in proportion to the spread of their rewards in the pilot run (Neyman
+ *   allocation). The bonus symbol is not sampled at all: as it only scales or adds to the reward
+ *   of the other cells, every play counts with the reward expected over all bonus symbols, which
+ *   is the limit of one stratum per bonus symbol.</li>
+ *   <li>antithetic draws: plays come in pairs, the second drawing every cell from the mirrored
+ *   uniform of the first, with symbols ordered by multiplier so one high draw meets one low
+ *   draw.</li>
+ * </ul>
+ * Only the plays after the pilot run count towards the estimate, which is unbiased. Plays are
+ * split into chunks of their own generators, so a seed gives the same report for any
+ * parallelism.
+ */
+public class VarianceReducedSimulator {
+
+  static final double PILOT_FRACTION = 0.1;
+  static final int CROSS_ENTROPY_ROUNDS = 3;
+  // share of the configured weights kept in every reweighted cell, bounding its likelihood ratio
+  static final double DEFENSIVE_MIX = 0.2;
+  static final int MIN_STRATUM_UNITS = 2;
+  static final int CHUNK_UNITS = 1 << 12;
+  static final double CONFIDENCE_LEVEL = 0.95;
+  static final double Z_95 = 1.959963984540054;
+
+  private final CompiledGame game;
+  private final RandomSource random;
+  private final boolean importanceSampling;
+  private final boolean stratified;
+  private final boolean antithetic;
+
+  // per cell, its standard symbols by ascending multiplier and their configured probabilities
+  private final int[][] cellSymbols;
+  private final double[][] cellProbabilities;
+  // bonus position of every stratum, with its probability
+  private final int[] stratumCells;
+  private final double[] stratumProbabilities;
+  // means over the bonus symbols of the multiplier f and the extra e of the reward, and of f^2,
+  // f * e and e^2 for the variance of plain plays, when stratified
+  private final double bonusFactor;
+  private final double bonusExtra;
+  private final double bonusFactorSquare;
+  private final double bonusCross;
+  private final double bonusExtraSquare;
+
+  public VarianceReducedSimulator(CompiledGame game, RandomSource random,
+      boolean importanceSampling, boolean stratified, boolean antithetic) {
+    this.game = game;
+    this.random = random;
+    this.importanceSampling = importanceSampling;
+    this.stratified = stratified && game.hasBonusSymbols();
+    this.antithetic = antithetic;
+
+    int cells = game.cellCount();
+    this.cellSymbols = new int[cells][];
+    this.cellProbabilities = new double[cells][];
+    for (int cell = 0; cell < cells; cell++) {
+      Integer[] order = new Integer[game.cellWeightCount(cell)];
+      Arrays.setAll(order, i -> i);
+      int current = cell;
+      Arrays.sort(order, (a, b) -> Double.compare(
+          game.symbolMultiplier(game.cellSymbol(current, a)),
+          game.symbolMultiplier(game.cellSymbol(current, b))));
+      cellSymbols[cell] = new int[order.length];
+      cellProbabilities[cell] = new double[order.length];
+      for (int i = 0; i < order.length; i++) {
+        cellSymbols[cell][i] = game.cellSymbol(cell, order[i]);
+        cellProbabilities[cell][i] =
+            game.cellWeight(cell, order[i]) / (double) game.cellTotalWeight(cell);
+      }
+    }
+
+    if (this.stratified) {
+      this.stratumCells = new int[cells];
+      this.stratumProbabilities = new double[cells];
+      for (int cell = 0; cell < cells; cell++) {
+        stratumCells[cell] = cell;
+        stratumProbabilities[cell] = 1.0 / cells;
+      }
+      double[] means = new double[5];
+      for (int i = 0; i < game.bonusWeightCount(); i++) {
+        int symbol = game.bonusSymbol(i);
+        double probability = game.bonusWeight(i) / (double) game.bonusTotalWeight();
+        double factor = switch (game.impact(symbol)) {
+          case MULTIPLY_REWARD -> game.symbolMultiplier(symbol);
+          default -> 1;
+        };
+        double extra = switch (game.impact(symbol)) {
+          case EXTRA_BONUS -> game.symbolExtra(symbol);
+          default -> 0;
+        };
+        means[0] += probability * factor;
+        means[1] += probability * extra;
+        means[2] += probability * factor * factor;
+        means[3] += probability * factor * extra;
+        means[4] += probability * extra * extra;
+      }
+      this.bonusFactor = means[0];
+      this.bonusExtra = means[1];
+      this.bonusFactorSquare = means[2];
+      this.bonusCross = means[3];
+      this.bonusExtraSquare = means[4];
+    } else {
+      // one stratum drawing its bonus position and symbol as a plain play does
+      this.stratumCells = new int[] {CompiledGame.EMPTY};
+      this.stratumProbabilities = new double[] {1};
+      this.bonusFactor = 1;
+      this.bonusExtra = 0;
+      this.bonusFactorSquare = 1;
+      this.bonusCross = 0;
+      this.bonusExtraSquare = 0;
+    }
+  }
+
+  public VarianceReducedReport run(long plays, double bet, long seed, int parallelism) {
+    int unitPlays = antithetic ? 2 : 1;
+    long minPlays = 4L * MIN_STRATUM_UNITS * unitPlays * stratumProbabilities.length;
+    if (plays < minPlays) {
+      throw new IllegalArgumentException("At least " + minPlays + " plays are needed for "
+          + stratumProbabilities.length + " strata.");
+    }
+    long start = System.nanoTime();
+    Sampling sampling = new Sampling(cellProbabilities);
+
+    // pilot: fit the reweighted cells, then measure the spread of every stratum
+    long pilotPlays = importanceSampling || stratified ? (long) (plays * PILOT_FRACTION) : 0;
+    long index = 0;
+    long pilotPlayed = 0;
+    // the spread of the strata is measured in one more round
+    int rounds = (importanceSampling ? CROSS_ENTROPY_ROUNDS : 0) + (stratified ? 1 : 0);
+    long roundUnits = rounds == 0 ? 0 : pilotPlays / rounds / unitPlays;
+    if (importanceSampling) {
+      // the first round draws every symbol alike, so rare symbols of big wins are seen at all
+      sampling = new Sampling(cellProbabilities, Sampling.flat(cellProbabilities));
+      for (int round = 0; round < CROSS_ENTROPY_ROUNDS; round++) {
+        double[][] fit = new double[cellSymbols.length][];
+        for (int cell = 0; cell < fit.length; cell++) {
+          fit[cell] = new double[cellSymbols[cell].length];
+        }
+        Worker worker = new Worker(sampling, bet, random.create(seed, index++));
+        worker.fit = fit;
+        worker.playMixed(roundUnits);
+        sampling = sampling.refit(fit);
+        pilotPlayed += worker.plays;
+      }
+    }
+    long[] units = new long[stratumProbabilities.length];
+    long mainUnits = (plays - pilotPlays) / unitPlays;
+    if (stratified) {
+      Worker worker = new Worker(sampling, bet, random.create(seed, index++));
+      long pilotUnits = Math.max(MIN_STRATUM_UNITS, roundUnits / units.length);
+      double[] spread = new double[units.length];
+      for (int stratum = 0; stratum < units.length; stratum++) {
+        worker.play(stratum, pilotUnits);
+        spread[stratum] = stratumProbabilities[stratum]
+            * Math.sqrt(worker.moments[stratum].variance());
+      }
+      allocate(spread, mainUnits, units);
+      pilotPlayed += worker.plays;
+    } else {
+      units[0] = mainUnits;
+    }
+
+    // the estimate, in chunks of their own generators
+    List<long[]> chunks = new ArrayList<>();
+    for (int stratum = 0; stratum < units.length; stratum++) {
+      for (long done = 0; done < units[stratum]; done += CHUNK_UNITS) {
+        chunks.add(new long[] {stratum, Math.min(CHUNK_UNITS, units[stratum] - done)});
+      }
+    }
+    Worker total;
+    try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+      total = pool.invoke(new ChunkTask(chunks, 0, chunks.size(), sampling, bet, seed, index));
+    }
+    return report(total, pilotPlayed, bet, seed, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  // Neyman allocation with a floor per stratum, proportional when no stratum spreads
+  private void allocate(double[] spread, long budget, long[] units) {
+    double totalSpread = 0;
+    for (double value : spread) {
+      totalSpread += value;
+    }
+    long floor = (long) MIN_STRATUM_UNITS * units.length;
+    long shared = budget - floor;
+    for (int stratum = 0; stratum < units.length; stratum++) {
+      double share = totalSpread > 0
+          ? spread[stratum] / totalSpread
+          : stratumProbabilities[stratum];
+      units[stratum] = MIN_STRATUM_UNITS + (long) (shared * share);
+    }
+  }
+
+  private VarianceReducedReport report(Worker total, long pilotPlays, double bet, long seed,
+      long elapsedMillis) {
+    double rtp = 0;
+    double variance = 0;
+    double secondMoment = 0;
+    for (int stratum = 0; stratum < stratumProbabilities.length; stratum++) {
+      Moments moments = total.moments[stratum];
+      double probability = stratumProbabilities[stratum];
+      rtp += probability * moments.mean;
+      variance += probability * probability * moments.variance() / moments.count;
+      secondMoment += probability * moments.secondMoment();
+    }
+    double standardError = Math.sqrt(variance);
+    // the variance of one plain play, estimated from the weighted plays
+    double plainVariance = Math.max(0, secondMoment - rtp * rtp);
+    double plainEquivalent = variance > 0 ? plainVariance / variance : Double.POSITIVE_INFINITY;
+    List<String> techniques = new ArrayList<>();
+    if (importanceSampling) {
+      techniques.add("importance_sampling");
+    }
+    if (stratified) {
+      techniques.add("stratification");
+    }
+    if (antithetic) {
+      techniques.add("antithetic");
+    }
+    long plays = pilotPlays + total.plays;
+    return new VarianceReducedReport(
+        plays,
+        pilotPlays,
+        seed,
+        random.algorithm(),
+        bet,
+        techniques,
+        stratumProbabilities.length,
+        rtp,
+        standardError,
+        CONFIDENCE_LEVEL,
+        rtp - Z_95 * standardError,
+        rtp + Z_95 * standardError,
+        total.weightSum * total.weightSum / total.squaredWeightSum,
+        plainEquivalent,
+        plainEquivalent / plays,
+        elapsedMillis);
+  }
+
+  /** Per cell sampling distributions, cumulative by ascending multiplier, and their ratios. */
+  private static final class Sampling {
+
+    private final double[][] configured;
+    private final double[][] probabilities;
+    private final double[][] cumulative;
+    // configured over sampling probability
+    private final double[][] ratios;
+
+    Sampling(double[][] probabilities) {
+      this(probabilities, probabilities);
+    }
+
+    Sampling(double[][] configured, double[][] probabilities) {
+      this.configured = configured;
+      this.probabilities = probabilities;
+      this.cumulative = new double[probabilities.length][];
+      this.ratios = new double[probabilities.length][];
+      for (int cell = 0; cell < probabilities.length; cell++) {
+        int size = probabilities[cell].length;
+        cumulative[cell] = new double[size];
+        ratios[cell] = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+          sum += probabilities[cell][i];
+          cumulative[cell][i] = sum;
+          // symbols that are never drawn have no ratio
+          ratios[cell][i] = probabilities[cell][i] > 0
+              ? configured[cell][i] / probabilities[cell][i]
+              : 0;
+        }
+      }
+    }
+
+    // every symbol of a cell alike
+    static double[][] flat(double[][] probabilities) {
+      double[][] flat = new double[probabilities.length][];
+      for (int cell = 0; cell < probabilities.length; cell++) {
+        int drawn = 0;
+        for (double probability : probabilities[cell]) {
+          drawn += probability > 0 ? 1 : 0;
+        }
+        flat[cell] = new double[probabilities[cell].length];
+        for (int i = 0; i < flat[cell].length; i++) {
+          flat[cell][i] = probabilities[cell][i] > 0 ? 1.0 / drawn : 0;
+        }
+      }
+      return flat;
+    }
+
+    int sample(int cell, double uniform) {
+      double[] bounds = cumulative[cell];
+      double target = uniform * bounds[bounds.length - 1];
+      for (int i = 0; i < bounds.length - 1; i++) {
+        if (target < bounds[i]) {
+          return i;
+        }
+      }
+      return bounds.length - 1;
+    }
+
+    // the cross-entropy update towards the reward-weighted symbol frequencies of winning plays
+    Sampling refit(double[][] fit) {
+      double[][] next = new double[fit.length][];
+      for (int cell = 0; cell < fit.length; cell++) {
+        double total = 0;
+        for (double value : fit[cell]) {
+          total += value;
+        }
+        next[cell] = new double[fit[cell].length];
+        for (int i = 0; i < fit[cell].length; i++) {
+          next[cell][i] = total > 0
+              ? (1 - DEFENSIVE_MIX) * fit[cell][i] / total + DEFENSIVE_MIX * configured[cell][i]
+              : probabilities[cell][i];
+        }
+      }
+      return new Sampling(configured, next);
+    }
+  }
+
+  /** Welford moments of the weighted RTP of the units of one stratum. */
+  static final class Moments {
+
+    private long count;
+    private double mean;
+    private double m2;
+    // sum of the likelihood-weighted squared RTP of the units
+    private double squares;
+
+    void add(double value, double square) {
+      count++;
+      double delta = value - mean;
+      mean += delta / count;
+      m2 += delta * (value - mean);
+      squares += square;
+    }
+
+    void merge(Moments next) {
+      if (next.count == 0) {
+        return;
+      }
+      long total = count + next.count;
+      double delta = next.mean - mean;
+      mean += delta * next.count / total;
+      m2 += next.m2 + delta * delta * ((double) count * next.count / total);
+      squares += next.squares;
+      count = total;
+    }
+
+    double variance() {
+      return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    double secondMoment() {
+      return count > 0 ? squares / count : 0;
+    }
+  }
+
+  /** Plays units of one generator into per-stratum moments. */
+  private final class Worker {
+
+    private final Sampling sampling;
+    private final double bet;
+    private final RandomGenerator rng;
+    private final Ticket ticket = new Ticket(game);
+    private final int[] matrix = new int[game.cellCount()];
+    private final double[] uniforms = new double[game.cellCount()];
+    private final int[] drawn = new int[game.cellCount()];
+    final Moments[] moments = new Moments[stratumProbabilities.length];
+    long plays;
+    double weightSum;
+    double squaredWeightSum;
+    // reward-weighted symbol counts per cell for the cross-entropy fit, null outside the pilot
+    double[][] fit;
+    // weighted square of the RTP of a plain play like the last one
+    private double square;
+
+    Worker(Sampling sampling, double bet, RandomGenerator rng) {
+      this.sampling = sampling;
+      this.bet = bet;
+      this.rng = rng;
+      for (int i = 0; i < moments.length; i++) {
+        moments[i] = new Moments();
+      }
+    }
+
+    // units of bonus positions and symbols drawn as in a plain play
+    void playMixed(long count) {
+      for (long i = 0; i < count; i++) {
+        int cell = game.hasBonusSymbols() ? rng.nextInt(game.cellCount()) : CompiledGame.EMPTY;
+        int bonus = game.hasBonusSymbols() ? game.bonusSampler().sample(rng) : CompiledGame.EMPTY;
+        unit(0, cell, bonus);
+      }
+    }
+
+    void play(int stratum, long count) {
+      if (!stratified) {
+        playMixed(count);
+        return;
+      }
+      for (long i = 0; i < count; i++) {
+        // any bonus symbol holds the cell, the reward is the expected one over all of them
+        unit(stratum, stratumCells[stratum], game.bonusSymbol(0));
+      }
+    }
+
+    private void unit(int stratum, int bonusCell, int bonusSymbol) {
+      for (int cell = 0; cell < uniforms.length; cell++) {
+        uniforms[cell] = rng.nextDouble();
+      }
+      double value = play(bonusCell, bonusSymbol, false);
+      double squares = square;
+      if (antithetic) {
+        value = (value + play(bonusCell, bonusSymbol, true)) / 2;
+        squares = (squares + square) / 2;
+      }
+      moments[stratum].add(value, squares);
+    }
+
+    // the likelihood-weighted RTP of one play
+    private double play(int bonusCell, int bonusSymbol, boolean mirrored) {
+      double weight = 1;
+      for (int cell = 0; cell < matrix.length; cell++) {
+        if (cell == bonusCell) {
+          matrix[cell] = bonusSymbol;
+        } else if (cellSymbols[cell].length == 0) {
+          matrix[cell] = CompiledGame.EMPTY;
+        } else {
+          int drawnIndex = sampling.sample(cell,
+              mirrored ? Math.nextDown(1.0) - uniforms[cell] : uniforms[cell]);
+          drawn[cell] = drawnIndex;
+          matrix[cell] = cellSymbols[cell][drawnIndex];
+          weight *= sampling.ratios[cell][drawnIndex];
+        }
+      }
+      ticket.load(matrix);
+      ticket.evaluate();
+      double rtp;
+      double rtpSquare;
+      if (ticket.hitCount() == 0) {
+        rtp = 0;
+        rtpSquare = 0;
+      } else if (stratified) {
+        double base = ticket.baseReward(bet);
+        rtp = (base * bonusFactor + bonusExtra) / bet;
+        rtpSquare = (base * base * bonusFactorSquare + 2 * base * bonusCross + bonusExtraSquare)
+            / (bet * bet);
+      } else {
+        rtp = ticket.reward(bet) / bet;
+        rtpSquare = rtp * rtp;
+      }
+      plays++;
+      weightSum += weight;
+      squaredWeightSum += weight * weight;
+      square = rtpSquare * weight;
+      if (fit != null && rtp > 0) {
+        for (int cell = 0; cell < matrix.length; cell++) {
+          if (cell != bonusCell && cellSymbols[cell].length > 0) {
+            fit[cell][drawn[cell]] += rtp * weight;
+          }
+        }
+      }
+      return rtp * weight;
+    }
+
+    Worker merge(Worker next) {
+      for (int i = 0; i < moments.length; i++) {
+        moments[i].merge(next.moments[i]);
+      }
+      plays += next.plays;
+      weightSum += next.weightSum;
+      squaredWeightSum += next.squaredWeightSum;
+      return this;
+    }
+  }
+
+  private class ChunkTask extends RecursiveTask<Worker> {
+
+    private final List<long[]> chunks;
+    private final int from;
+    private final int to;
+    private final Sampling sampling;
+    private final double bet;
+    private final long seed;
+    private final long firstIndex;
+
+    ChunkTask(List<long[]> chunks, int from, int to, Sampling sampling, double bet, long seed,
+        long firstIndex) {
+      this.chunks = chunks;
+      this.from = from;
+      this.to = to;
+      this.sampling = sampling;
+      this.bet = bet;
+      this.seed = seed;
+      this.firstIndex = firstIndex;
+    }
+
+    @Override
+    protected Worker compute() {
+      if (to - from <= 1) {
+        Worker worker = new Worker(sampling, bet, random.create(seed, firstIndex + from));
+        if (from < to) {
+          long[] chunk = chunks.get(from);
+          worker.play((int) chunk[0], chunk[1]);
+        }
+        return worker;
+      }
+      int middle = from + (to - from) / 2;
+      ChunkTask left = new ChunkTask(chunks, from, middle, sampling, bet, seed, firstIndex);
+      ChunkTask right = new ChunkTask(chunks, middle, to, sampling, bet, seed, firstIndex);
+      left.fork();
+      Worker rightResult = right.compute();
+      return left.join().merge(rightResult);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package org.limix.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-memory histogram of non-negative doubles, for reward distributions of any number of
+ * plays. Zero, the most common reward, has a bucket of its own; every other power of two from
+ * 2^{@value #MIN_EXPONENT} to 2^{@value #MAX_EXPONENT} is split into {@value #SUB_BUCKETS} linear
+ * sub-buckets taken straight from the mantissa bits, so quantiles are known within 1%. Values
+ * outside the range land in the first or last bucket. A histogram belongs to one thread; the
+ * histograms of several threads or runs are combined with {@link #merge}.
+ */
+public final class DoubleHistogram {
+
+  static final int SUB_BUCKET_BITS = 7;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int MIN_EXPONENT = -24;
+  static final int MAX_EXPONENT = 63;
+  static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKETS];
+  private long zeros;
+  private long count;
+  private double max;
+
+  // negative values and NaN are counted as zero
+  public void record(double value) {
+    count++;
+    if (!(value > 0)) {
+      zeros++;
+      return;
+    }
+    counts[bucket(value)]++;
+    if (value > max) {
+      max = value;
+    }
+  }
+
+  static int bucket(double value) {
+    long bits = Double.doubleToRawLongBits(value);
+    int exponent = (int) (bits >>> 52) - 1023;
+    if (exponent < MIN_EXPONENT) {
+      return 0;
+    }
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int sub = (int) (bits >>> (52 - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+  }
+
+  // the middle of the values that fall into the bucket
+  static double middleValue(int bucket) {
+    int exponent = bucket / SUB_BUCKETS + MIN_EXPONENT;
+    int sub = bucket % SUB_BUCKETS;
+    return Math.scalb(1 + (sub + 0.5) / SUB_BUCKETS, exponent);
+  }
+
+  public DoubleHistogram merge(DoubleHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    zeros += other.zeros;
+    count += other.count;
+    max = Math.max(max, other.max);
+    return this;
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public long zeros() {
+    return zeros;
+  }
+
+  public double max() {
+    return max;
+  }
+
+  // the value below which the given fraction of the recorded values fall, within the bucket size
+  public double quantile(double fraction) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * count));
+    long seen = zeros;
+    if (seen >= rank) {
+      return 0;
+    }
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts[bucket];
+      if (seen >= rank) {
+        return Math.min(middleValue(bucket), max);
+      }
+    }
+    return max;
+  }
+
+  // the fraction of the recorded values above the given value, within the bucket size
+  public double fractionAbove(double value) {
+    if (count == 0) {
+      return 0;
+    }
+    if (!(value >= 0)) {
+      return 1;
+    }
+    long above = 0;
+    for (int bucket = value == 0 ? 0 : bucket(value) + 1; bucket < BUCKETS; bucket++) {
+      above += counts[bucket];
+    }
+    return above / (double) count;
+  }
+
+  // only the non-empty buckets are written
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeLong(count);
+    out.writeLong(zeros);
+    out.writeDouble(max);
+    int used = 0;
+    for (long bucketCount : counts) {
+      used += bucketCount == 0 ? 0 : 1;
+    }
+    out.writeInt(used);
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      if (counts[bucket] != 0) {
+        out.writeShort(bucket);
+        out.writeLong(counts[bucket]);
+      }
+    }
+  }
+
+  public static DoubleHistogram readFrom(DataInput in) throws IOException {
+    DoubleHistogram histogram = new DoubleHistogram();
+    histogram.count = in.readLong();
+    histogram.zeros = in.readLong();
+    histogram.max = in.readDouble();
+    int used = in.readInt();
+    for (int i = 0; i < used; i++) {
+      int bucket = in.readUnsignedShort();
+      if (bucket >= BUCKETS) {
+        throw new IOException("Invalid histogram bucket " + bucket);
+      }
+      histogram.counts[bucket] = in.readLong();
+    }
+    return histogram;
+  }
+}
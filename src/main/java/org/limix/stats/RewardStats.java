@@ -0,0 +1,331 @@
+package org.limix.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.PlayView;
+
+/**
+ * Streaming statistics of the plays of one game, in memory that doesn't grow with the number of
+ * plays: Welford mean and variance of the reward, the max win, histograms of the reward and of the
+ * reward to bet ratio, tickets per win combination and bonus symbol, tickets per pair of
+ * combinations won together, and win and loss run lengths. Every thread records into its own
+ * instance without any locking; instances are merged on demand, in play order so the runs that
+ * cross the borders are joined, and written to a stream so runs on separate machines can be
+ * combined later.
+ *
+ * <p>Co-occurrence is tracked for games of up to {@value #MAX_CO_OCCURRENCE_COMBINATIONS}
+ * combinations only.
+ */
+public final class RewardStats {
+
+  static final int MAGIC = 0x53475253; // "SGRS"
+  static final int VERSION = 2;
+  public static final int MAX_CO_OCCURRENCE_COMBINATIONS = 256;
+
+  // CompiledGame.fingerprint() of the game played
+  private final String fingerprint;
+  private final String[] combinationNames;
+  private final String[] symbolNames;
+
+  private long tickets;
+  private long wins;
+  private double totalBet;
+  private double totalReward;
+  // Welford running mean and sum of squared deviations of the reward
+  private double mean;
+  private double m2;
+  private double maxWin;
+  private final DoubleHistogram rewards = new DoubleHistogram();
+  private final DoubleHistogram rewardToBet = new DoubleHistogram();
+  private final long[] combinationTickets;
+  private final long[] bonusTickets;
+  // tickets winning both combinations, upper triangle a <= b, null for too many combinations
+  private final long[] coOccurrences;
+  private final RunLengths runs = new RunLengths();
+
+  // combinations won by the current ticket, each once
+  private final int[] combinationStamps;
+  private final int[] wonCombinations;
+  private int stamp;
+
+  public RewardStats(CompiledGame game) {
+    this(game.fingerprint(), combinationNames(game), symbolNames(game));
+  }
+
+  private RewardStats(String fingerprint, String[] combinationNames, String[] symbolNames) {
+    this.fingerprint = fingerprint;
+    this.combinationNames = combinationNames;
+    this.symbolNames = symbolNames;
+    int combinations = combinationNames.length;
+    this.combinationTickets = new long[combinations];
+    this.bonusTickets = new long[symbolNames.length];
+    this.coOccurrences = combinations <= MAX_CO_OCCURRENCE_COMBINATIONS
+        ? new long[combinations * (combinations + 1) / 2]
+        : null;
+    this.combinationStamps = new int[combinations];
+    this.wonCombinations = new int[combinations];
+  }
+
+  private static String[] combinationNames(CompiledGame game) {
+    String[] names = new String[game.combinationCount()];
+    Arrays.setAll(names, game::combinationName);
+    return names;
+  }
+
+  private static String[] symbolNames(CompiledGame game) {
+    String[] names = new String[game.symbolCount()];
+    Arrays.setAll(names, game::symbolName);
+    return names;
+  }
+
+  public void add(PlayView play, double reward, double bet) {
+    tickets++;
+    totalBet += bet;
+    totalReward += reward;
+    double delta = reward - mean;
+    mean += delta / tickets;
+    m2 += delta * (reward - mean);
+    if (reward > maxWin) {
+      maxWin = reward;
+    }
+    rewards.record(reward);
+    rewardToBet.record(bet > 0 ? reward / bet : 0);
+
+    boolean win = play.hitCount() > 0;
+    runs.record(win);
+    if (win) {
+      wins++;
+      int won = 0;
+      stamp++;
+      for (int i = 0; i < play.hitCount(); i++) {
+        int combination = play.hitCombination(i);
+        if (combinationStamps[combination] != stamp) {
+          combinationStamps[combination] = stamp;
+          combinationTickets[combination]++;
+          wonCombinations[won++] = combination;
+        }
+      }
+      if (coOccurrences != null && won > 1) {
+        for (int i = 0; i < won; i++) {
+          for (int j = i + 1; j < won; j++) {
+            int a = wonCombinations[i];
+            int b = wonCombinations[j];
+            coOccurrences[pair(Math.min(a, b), Math.max(a, b))]++;
+          }
+        }
+      }
+    }
+    if (play.bonusSymbol() != CompiledGame.EMPTY) {
+      bonusTickets[play.bonusSymbol()]++;
+    }
+  }
+
+  // index of the pair a <= b in the upper triangle
+  private int pair(int a, int b) {
+    return a * combinationNames.length - a * (a - 1) / 2 + (b - a);
+  }
+
+  // adds the stats of the plays that followed the plays of this instance
+  public RewardStats merge(RewardStats next) {
+    if (!fingerprint.equals(next.fingerprint)
+        || !Arrays.equals(combinationNames, next.combinationNames)
+        || !Arrays.equals(symbolNames, next.symbolNames)) {
+      throw new IllegalArgumentException("Stats of different games can't be merged.");
+    }
+    if (next.tickets > 0) {
+      long count = tickets + next.tickets;
+      double delta = next.mean - mean;
+      mean += delta * next.tickets / count;
+      m2 += next.m2 + delta * delta * ((double) tickets * next.tickets / count);
+      tickets = count;
+    }
+    wins += next.wins;
+    totalBet += next.totalBet;
+    totalReward += next.totalReward;
+    maxWin = Math.max(maxWin, next.maxWin);
+    rewards.merge(next.rewards);
+    rewardToBet.merge(next.rewardToBet);
+    for (int i = 0; i < combinationTickets.length; i++) {
+      combinationTickets[i] += next.combinationTickets[i];
+    }
+    for (int i = 0; i < bonusTickets.length; i++) {
+      bonusTickets[i] += next.bonusTickets[i];
+    }
+    if (coOccurrences != null) {
+      for (int i = 0; i < coOccurrences.length; i++) {
+        coOccurrences[i] += next.coOccurrences[i];
+      }
+    }
+    runs.merge(next.runs);
+    return this;
+  }
+
+  // whether these are stats of the plays of the game, by its fingerprint and names
+  public boolean isOf(CompiledGame game) {
+    return fingerprint.equals(game.fingerprint())
+        && Arrays.equals(combinationNames, combinationNames(game))
+        && Arrays.equals(symbolNames, symbolNames(game));
+  }
+
+  public String fingerprint() {
+    return fingerprint;
+  }
+
+  public int combinationCount() {
+    return combinationNames.length;
+  }
+
+  public String combinationName(int combination) {
+    return combinationNames[combination];
+  }
+
+  public int symbolCount() {
+    return symbolNames.length;
+  }
+
+  public String symbolName(int symbol) {
+    return symbolNames[symbol];
+  }
+
+  public long tickets() {
+    return tickets;
+  }
+
+  public long wins() {
+    return wins;
+  }
+
+  public double totalBet() {
+    return totalBet;
+  }
+
+  public double totalReward() {
+    return totalReward;
+  }
+
+  public double mean() {
+    return mean;
+  }
+
+  public double variance() {
+    return tickets > 1 ? m2 / (tickets - 1) : 0;
+  }
+
+  public double maxWin() {
+    return maxWin;
+  }
+
+  public DoubleHistogram rewards() {
+    return rewards;
+  }
+
+  public DoubleHistogram rewardToBet() {
+    return rewardToBet;
+  }
+
+  public long combinationTickets(int combination) {
+    return combinationTickets[combination];
+  }
+
+  public long bonusTickets(int symbol) {
+    return bonusTickets[symbol];
+  }
+
+  public boolean hasCoOccurrences() {
+    return coOccurrences != null;
+  }
+
+  // tickets that won both combinations, or the tickets of the combination for a == b
+  public long coOccurrences(int a, int b) {
+    if (a == b) {
+      return combinationTickets[a];
+    }
+    if (coOccurrences == null) {
+      throw new IllegalStateException("Co-occurrence is not tracked for this game.");
+    }
+    return coOccurrences[pair(Math.min(a, b), Math.max(a, b))];
+  }
+
+  public RunLengths runs() {
+    return runs;
+  }
+
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeUTF(fingerprint);
+    writeNames(out, combinationNames);
+    writeNames(out, symbolNames);
+    out.writeLong(tickets);
+    out.writeLong(wins);
+    out.writeDouble(totalBet);
+    out.writeDouble(totalReward);
+    out.writeDouble(mean);
+    out.writeDouble(m2);
+    out.writeDouble(maxWin);
+    rewards.writeTo(out);
+    rewardToBet.writeTo(out);
+    for (long count : combinationTickets) {
+      out.writeLong(count);
+    }
+    for (long count : bonusTickets) {
+      out.writeLong(count);
+    }
+    if (coOccurrences != null) {
+      for (long count : coOccurrences) {
+        out.writeLong(count);
+      }
+    }
+    runs.writeTo(out);
+  }
+
+  private static void writeNames(DataOutput out, String[] names) throws IOException {
+    out.writeInt(names.length);
+    for (String name : names) {
+      out.writeUTF(name);
+    }
+  }
+
+  public static RewardStats readFrom(DataInput in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a reward stats stream.");
+    }
+    if (in.readInt() != VERSION) {
+      throw new IOException("Unsupported reward stats version.");
+    }
+    RewardStats stats = new RewardStats(in.readUTF(), readNames(in), readNames(in));
+    stats.tickets = in.readLong();
+    stats.wins = in.readLong();
+    stats.totalBet = in.readDouble();
+    stats.totalReward = in.readDouble();
+    stats.mean = in.readDouble();
+    stats.m2 = in.readDouble();
+    stats.maxWin = in.readDouble();
+    stats.rewards.merge(DoubleHistogram.readFrom(in));
+    stats.rewardToBet.merge(DoubleHistogram.readFrom(in));
+    for (int i = 0; i < stats.combinationTickets.length; i++) {
+      stats.combinationTickets[i] = in.readLong();
+    }
+    for (int i = 0; i < stats.bonusTickets.length; i++) {
+      stats.bonusTickets[i] = in.readLong();
+    }
+    if (stats.coOccurrences != null) {
+      for (int i = 0; i < stats.coOccurrences.length; i++) {
+        stats.coOccurrences[i] = in.readLong();
+      }
+    }
+    stats.runs.merge(RunLengths.readFrom(in));
+    return stats;
+  }
+
+  private static String[] readNames(DataInput in) throws IOException {
+    String[] names = new String[in.readInt()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = in.readUTF();
+    }
+    return names;
+  }
+}
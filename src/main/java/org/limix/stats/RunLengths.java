@@ -0,0 +1,182 @@
+package org.limix.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Lengths of the runs of consecutive winning and losing plays. Runs are counted per power of two
+ * of their length, with the longest run of each kind kept exactly. The first and the last run of
+ * a stream stay open, so the stats of consecutive parts of one stream, merged left to right, join
+ * the run crossing every border and are the stats of the whole stream.
+ */
+public final class RunLengths {
+
+  static final int LENGTH_BUCKETS = 64;
+
+  // closed runs inside the stream by floor(log2(length)), [0] losses and [1] wins
+  private final long[][] runs = new long[2][LENGTH_BUCKETS];
+  private final long[] longest = new long[2];
+  private long plays;
+  // the first and last run, the same run while the stream is one run
+  private boolean firstWin;
+  private long firstLength;
+  private boolean lastWin;
+  private long lastLength;
+
+  public void record(boolean win) {
+    if (plays++ == 0) {
+      firstWin = win;
+      firstLength = 1;
+      lastWin = win;
+      lastLength = 1;
+      return;
+    }
+    if (win == lastWin) {
+      if (firstLength == lastLength && firstLength == plays - 1) {
+        firstLength++;
+      }
+      lastLength++;
+      return;
+    }
+    if (firstLength != plays - 1) {
+      // the last run is closed on both sides now
+      close(lastWin, lastLength);
+    }
+    lastWin = win;
+    lastLength = 1;
+  }
+
+  private boolean isSingleRun() {
+    return plays > 0 && firstLength == plays;
+  }
+
+  private void close(boolean win, long length) {
+    int kind = win ? 1 : 0;
+    runs[kind][63 - Long.numberOfLeadingZeros(length)]++;
+    longest[kind] = Math.max(longest[kind], length);
+  }
+
+  // appends the stats of the plays that followed the plays of this instance
+  public RunLengths merge(RunLengths next) {
+    if (next.plays == 0) {
+      return this;
+    }
+    if (plays == 0) {
+      copy(next);
+      return this;
+    }
+    for (int kind = 0; kind < 2; kind++) {
+      for (int i = 0; i < LENGTH_BUCKETS; i++) {
+        runs[kind][i] += next.runs[kind][i];
+      }
+      longest[kind] = Math.max(longest[kind], next.longest[kind]);
+    }
+    boolean single = isSingleRun();
+    boolean nextSingle = next.isSingleRun();
+    long total = plays + next.plays;
+    if (lastWin == next.firstWin) {
+      // the runs at the border are one run
+      long joined = lastLength + next.firstLength;
+      if (single) {
+        firstLength = joined;
+      } else if (!nextSingle) {
+        close(lastWin, joined);
+      }
+      lastLength = nextSingle ? joined : next.lastLength;
+    } else {
+      if (!single) {
+        close(lastWin, lastLength);
+      }
+      if (!nextSingle) {
+        close(next.firstWin, next.firstLength);
+      }
+      lastLength = next.lastLength;
+    }
+    lastWin = next.lastWin;
+    plays = total;
+    return this;
+  }
+
+  private void copy(RunLengths other) {
+    for (int kind = 0; kind < 2; kind++) {
+      System.arraycopy(other.runs[kind], 0, runs[kind], 0, LENGTH_BUCKETS);
+      longest[kind] = other.longest[kind];
+    }
+    plays = other.plays;
+    firstWin = other.firstWin;
+    firstLength = other.firstLength;
+    lastWin = other.lastWin;
+    lastLength = other.lastLength;
+  }
+
+  public long plays() {
+    return plays;
+  }
+
+  // runs of the given kind, including the open first and last run
+  public long runs(boolean win) {
+    long count = 0;
+    for (long bucketCount : runs[win ? 1 : 0]) {
+      count += bucketCount;
+    }
+    if (plays > 0) {
+      count += firstWin == win ? 1 : 0;
+      count += !isSingleRun() && lastWin == win ? 1 : 0;
+    }
+    return count;
+  }
+
+  // runs of the given kind of 2^bucket to 2^(bucket + 1) - 1 plays
+  public long runs(boolean win, int bucket) {
+    long count = runs[win ? 1 : 0][bucket];
+    if (plays > 0) {
+      count += firstWin == win && bucket(firstLength) == bucket ? 1 : 0;
+      count += !isSingleRun() && lastWin == win && bucket(lastLength) == bucket ? 1 : 0;
+    }
+    return count;
+  }
+
+  private static int bucket(long length) {
+    return 63 - Long.numberOfLeadingZeros(length);
+  }
+
+  public long longest(boolean win) {
+    long length = longest[win ? 1 : 0];
+    if (plays > 0) {
+      length = Math.max(length, firstWin == win ? firstLength : 0);
+      length = Math.max(length, lastWin == win ? lastLength : 0);
+    }
+    return length;
+  }
+
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeLong(plays);
+    out.writeBoolean(firstWin);
+    out.writeLong(firstLength);
+    out.writeBoolean(lastWin);
+    out.writeLong(lastLength);
+    for (int kind = 0; kind < 2; kind++) {
+      out.writeLong(longest[kind]);
+      for (long count : runs[kind]) {
+        out.writeLong(count);
+      }
+    }
+  }
+
+  public static RunLengths readFrom(DataInput in) throws IOException {
+    RunLengths lengths = new RunLengths();
+    lengths.plays = in.readLong();
+    lengths.firstWin = in.readBoolean();
+    lengths.firstLength = in.readLong();
+    lengths.lastWin = in.readBoolean();
+    lengths.lastLength = in.readLong();
+    for (int kind = 0; kind < 2; kind++) {
+      lengths.longest[kind] = in.readLong();
+      for (int i = 0; i < LENGTH_BUCKETS; i++) {
+        lengths.runs[kind][i] = in.readLong();
+      }
+    }
+    return lengths;
+  }
+}
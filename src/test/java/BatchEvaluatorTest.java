@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.RoundingMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.BatchEvaluator;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayBatch;
+import org.limix.engine.RewardTable;
+import org.limix.engine.Ticket;
+import org.limix.random.RandomSource;
+
+class BatchEvaluatorTest {
+
+  // a batch of count generated matrices and the same tickets played one at a time
+  private static PlayBatch[] generate(CompiledGame game, RewardTable rewards, int count) {
+    RandomSource random = RandomSource.defaultSource();
+    PlayBatch generated = new PlayBatch(game, count);
+    PlayBatch played = new PlayBatch(game, count);
+    Ticket ticket = new Ticket(game);
+    for (int i = 0; i < count; i++) {
+      long seed = RandomSource.seedAt(99, i);
+      ticket.generate(random, seed);
+      generated.set(i, ticket, 0);
+      ticket.evaluate();
+      played.set(i, ticket, rewards == null
+          ? ticket.reward(100)
+          : rewards.amount(ticket.reward(rewards.minorUnits(100), rewards)));
+    }
+    for (PlayBatch batch : new PlayBatch[] {generated, played}) {
+      batch.setBet(100);
+      batch.setSize(count);
+    }
+    return new PlayBatch[] {generated, played};
+  }
+
+  private static void assertEvaluatesLikeTickets(BatchEvaluator evaluator, RewardTable rewards,
+      int count) {
+    PlayBatch[] batches = generate(evaluator.game(), rewards, count);
+    evaluator.evaluate(batches[0]);
+    assertArrayEquals(batches[1].combinations(), batches[0].combinations(), evaluator::kind);
+    assertArrayEquals(batches[1].rewards(), batches[0].rewards(), evaluator::kind);
+  }
+
+  @Test
+  @DisplayName("Should find the wins and rewards of one-at-a-time evaluation")
+  void shouldMatchTicketEvaluation() {
+    for (int size = 3; size <= 8; size++) {
+      CompiledGame game = CompiledGame.compile(TestConfigs.standard(size, size));
+      // a count that leaves a partial block
+      assertEvaluatesLikeTickets(BatchEvaluator.scalar(game, null), null, 1_000);
+      assertEvaluatesLikeTickets(BatchEvaluator.of(game, null), null, 1_000);
+    }
+  }
+
+  @Test
+  @DisplayName("Should match the scalar evaluator with the Vector API when it is available")
+  void shouldMatchScalarEvaluator() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard(4, 4));
+    BatchEvaluator vector = BatchEvaluator.vector(game, null);
+    if (vector == null) {
+      assertEquals("scalar", BatchEvaluator.of(game, null).kind());
+      return;
+    }
+    assertEquals("vector", vector.kind());
+    assertTrue(vector.blockSize() <= Long.SIZE);
+    PlayBatch[] vectorBatches = generate(game, null, 5_000);
+    PlayBatch[] scalarBatches = generate(game, null, 5_000);
+    vector.evaluate(vectorBatches[0]);
+    BatchEvaluator.scalar(game, null).evaluate(scalarBatches[0]);
+    assertArrayEquals(scalarBatches[0].combinations(), vectorBatches[0].combinations());
+    assertArrayEquals(scalarBatches[0].rewards(), vectorBatches[0].rewards());
+  }
+
+  @Test
+  @DisplayName("Should compute exact fixed-point rewards in batches")
+  void shouldComputeFixedPointRewards() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    RewardTable rewards = new RewardTable(game, 2, RoundingMode.HALF_EVEN);
+
+    assertEvaluatesLikeTickets(BatchEvaluator.of(game, rewards), rewards, 777);
+    assertThrows(IllegalArgumentException.class, () -> BatchEvaluator.scalar(
+        CompiledGame.compile(TestConfigs.standard()), rewards));
+  }
+
+  @Test
+  @DisplayName("Should play the same batches as single plays")
+  void shouldPlayBatchesLikeSinglePlays() {
+    GameEngine engine = new GameEngine(CompiledGame.compile(TestConfigs.standard()));
+    PlayBatch batch = engine.playBatch(new PlayBatch(engine.game(), 300), 300, 100, 5, 10);
+
+    for (int i = 0; i < batch.size(); i++) {
+      Ticket ticket = engine.playInPlace(RandomSource.seedAt(5, 10 + i));
+      assertEquals(engine.reward(ticket, 100), batch.reward(i));
+      for (int combination = 0; combination < engine.game().combinationCount(); combination++) {
+        boolean won = false;
+        for (int hit = 0; hit < ticket.hitCount(); hit++) {
+          won |= ticket.hitCombination(hit) == combination;
+        }
+        assertEquals(won, batch.hasCombination(i, combination));
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.BonusImpact;
+import org.limix.engine.CompiledGame;
+import org.limix.entities.GameConfig;
+import org.limix.entities.WinCombinations;
+import org.limix.symboltypes.StandardSymbols;
+
+class CompiledGameTest {
+
+  @Test
+  @DisplayName("Should assign symbol ids and flags in configuration order")
+  void shouldCompileSymbols() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+
+    assertEquals(11, game.symbolCount());
+    assertEquals("A", game.symbolName(0));
+    assertEquals(0, game.symbolId("A"));
+    assertEquals(CompiledGame.EMPTY, game.symbolId("unknown"));
+    assertTrue(game.isStandard(game.symbolId("F")));
+    assertFalse(game.isStandard(game.symbolId("10x")));
+    assertTrue(game.isBonus(game.symbolId("10x")));
+    assertEquals(BonusImpact.MULTIPLY_REWARD, game.impact(game.symbolId("10x")));
+    assertEquals(BonusImpact.EXTRA_BONUS, game.impact(game.symbolId("+500")));
+    assertEquals(BonusImpact.NONE, game.impact(game.symbolId("MISS")));
+  }
+
+  @Test
+  @DisplayName("Should pre-parse covered areas into cell indices")
+  void shouldCompileCoveredAreas() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+
+    // 3 horizontal, 3 vertical and 2 diagonal areas
+    assertEquals(8, game.areaCount());
+    int[] secondRow = new int[game.areaSize(1)];
+    for (int i = 0; i < secondRow.length; i++) {
+      secondRow[i] = game.areaCell(1, i);
+    }
+    assertArrayEquals(new int[]{3, 4, 5}, secondRow);
+    assertEquals("same_symbols_horizontally", game.combinationName(game.areaCombination(1)));
+  }
+
+  @Test
+  @DisplayName("Should pick the same_symbols combination with the highest reachable count")
+  void shouldCompileSameSymbolsByCount() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+
+    assertEquals(CompiledGame.EMPTY, game.sameSymbolsCombination(2));
+    assertEquals("same_symbol_3_times", game.combinationName(game.sameSymbolsCombination(3)));
+    assertEquals("same_symbol_9_times", game.combinationName(game.sameSymbolsCombination(9)));
+  }
+
+  @Test
+  @DisplayName("Should fall back to the 0:0 weights for cells without probabilities")
+  void shouldFallBackToFirstCell() {
+    GameConfig config = TestConfigs.standard();
+    config.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("A", 1))));
+    CompiledGame game = CompiledGame.compile(config);
+
+    for (int cell = 0; cell < game.cellCount(); cell++) {
+      assertEquals(1, game.cellWeightCount(cell));
+      assertEquals(game.symbolId("A"), game.cellSymbol(cell, 0));
+    }
+  }
+
+  @Test
+  @DisplayName("Should reject invalid configurations at compile time")
+  void shouldRejectInvalidConfig() {
+    GameConfig unknownSymbol = TestConfigs.standard();
+    unknownSymbol.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("Z", 1))));
+    assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(unknownSymbol));
+
+    GameConfig outOfBounds = TestConfigs.standard();
+    outOfBounds.setWinCombinations(Map.of("bad", new WinCombinations(
+        2, "linear_symbols", 0, "horizontally_linear_symbols", List.of(List.of("0:0", "3:0")))));
+    assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(outOfBounds));
+
+    GameConfig negativeWeight = TestConfigs.standard();
+    negativeWeight.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("A", 2, "B", -1))));
+    assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(negativeWeight));
+
+    // a zero weight is allowed, a table that can never draw anything is not
+    GameConfig zeroWeight = TestConfigs.standard();
+    zeroWeight.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("A", 1, "B", 0))));
+    CompiledGame.compile(zeroWeight);
+    GameConfig zeroCell = TestConfigs.standard();
+    zeroCell.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("A", 0, "B", 0))));
+    assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(zeroCell));
+    GameConfig zeroBonus = TestConfigs.standard();
+    zeroBonus.getProbabilities().getBonusSymbols().getSymbols().replaceAll((name, weight) -> 0);
+    assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(zeroBonus));
+  }
+}
@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.config.ConfigSnapshot;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.entities.GameConfig;
+
+class ConfigSnapshotTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("Should read back the configuration it was written from")
+  void shouldRoundTrip() throws Exception {
+    GameConfig config = TestConfigs.standard(4, 4);
+    Path snapshot = directory.resolve("game.snapshot");
+    ConfigSnapshot.write(config, snapshot);
+
+    assertTrue(ConfigSnapshot.isSnapshot(snapshot));
+    GameConfig read = ConfigSnapshot.read(snapshot);
+    assertEquals(config, read);
+    assertEquals(new ArrayList<>(config.getWinCombinations().keySet()),
+        new ArrayList<>(read.getWinCombinations().keySet()));
+
+    GameEngine expected = new GameEngine(config);
+    GameEngine actual = new GameEngine(read);
+    for (long seed = 0; seed < 1000; seed++) {
+      PlayResult want = expected.play(100, seed);
+      PlayResult got = actual.play(100, seed);
+      assertArrayEquals(want.cells(), got.cells());
+      assertArrayEquals(want.hits(), got.hits());
+      assertEquals(want.reward(), got.reward());
+    }
+  }
+
+  @Test
+  @DisplayName("Should tell snapshots from JSON configurations")
+  void shouldRecognizeSnapshots() throws Exception {
+    Path json = directory.resolve("game.json");
+    new ObjectMapper().writeValue(json.toFile(), TestConfigs.standard());
+    assertFalse(ConfigSnapshot.isSnapshot(json));
+    assertThrows(IOException.class, () -> ConfigSnapshot.read(json));
+
+    Path empty = Files.createFile(directory.resolve("empty"));
+    assertFalse(ConfigSnapshot.isSnapshot(empty));
+  }
+
+  @Test
+  @DisplayName("Should not write a snapshot of an invalid configuration")
+  void shouldRejectInvalidConfigs() {
+    GameConfig config = TestConfigs.standard();
+    config.setRows(0);
+    Path snapshot = directory.resolve("invalid.snapshot");
+    assertThrows(IllegalArgumentException.class, () -> ConfigSnapshot.write(config, snapshot));
+    assertFalse(Files.exists(snapshot));
+  }
+}
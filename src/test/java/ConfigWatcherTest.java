@@ -0,0 +1,142 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.config.ConfigSnapshot;
+import org.limix.config.ConfigWatcher;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.engine.RewardTable;
+import org.limix.entities.GameConfig;
+import org.limix.random.RandomSource;
+
+class ConfigWatcherTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @TempDir
+  Path directory;
+
+  private Path configPath;
+  private ConfigWatcher watcher;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    configPath = directory.resolve("config.json");
+    mapper.writeValue(configPath.toFile(), TestConfigs.standard());
+    watcher = new ConfigWatcher(configPath, RandomSource.defaultSource());
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    watcher.close();
+  }
+
+  @Test
+  @DisplayName("Should publish a new version when the file changes")
+  void shouldReloadChangedFile() throws Exception {
+    watcher.start();
+    GameEngine before = watcher.get();
+    assertEquals(1, watcher.version());
+
+    GameConfig changed = TestConfigs.standard();
+    changed.getSymbols().get("A").setRewardMultiplier(500);
+    mapper.writeValue(configPath.toFile(), changed);
+
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (watcher.version() == 1 && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertEquals(2, watcher.version());
+    assertEquals(500, watcher.get().game().symbolMultiplier(watcher.get().game().symbolId("A")));
+
+    // a play that already holds the old engine still finishes on the old configuration
+    PlayResult inFlight = before.play(100, new SplittableRandom(1));
+    assertEquals(1, inFlight.configVersion());
+    assertEquals(2, watcher.get().play(100, new SplittableRandom(1)).configVersion());
+  }
+
+  @Test
+  @DisplayName("Should keep the current version when the new file is invalid")
+  void shouldKeepVersionOnInvalidFile() throws Exception {
+    List<Exception> rejections = new ArrayList<>();
+    watcher.close();
+    watcher = new ConfigWatcher(configPath, RandomSource.defaultSource(), null, rejections::add);
+    GameEngine before = watcher.get();
+
+    Files.writeString(configPath, "{\"rows\": 0, \"columns\": 3}");
+    assertFalse(watcher.reload());
+    assertSame(before, watcher.get());
+    assertNotNull(watcher.lastError());
+
+    Files.writeString(configPath, "{ not json");
+    assertFalse(watcher.reload());
+    assertSame(before, watcher.get());
+    assertEquals(2, rejections.size());
+    assertSame(watcher.lastError(), rejections.get(1));
+  }
+
+  @Test
+  @DisplayName("Should not publish a new version for unchanged content")
+  void shouldIgnoreUnchangedContent() throws Exception {
+    GameEngine before = watcher.get();
+    assertFalse(watcher.reload());
+    assertSame(before, watcher.get());
+
+    GameConfig changed = TestConfigs.standard();
+    changed.setColumns(4);
+    changed.setRows(4);
+    mapper.writeValue(configPath.toFile(), changed);
+    assertTrue(watcher.reload());
+    assertNotSame(before, watcher.get());
+    assertEquals(16, watcher.get().game().cellCount());
+  }
+
+  @Test
+  @DisplayName("Should pay every reloaded version in the configured money")
+  void shouldKeepRewardTables() throws Exception {
+    watcher.close();
+    watcher = new ConfigWatcher(configPath, RandomSource.defaultSource(), null,
+        game -> new RewardTable(game, 2, RoundingMode.DOWN), error -> { });
+    assertEquals(2, watcher.get().rewards().fractionDigits());
+
+    GameConfig changed = TestConfigs.standard();
+    changed.getSymbols().get("A").setRewardMultiplier(500);
+    mapper.writeValue(configPath.toFile(), changed);
+    assertTrue(watcher.reload());
+    RewardTable rewards = watcher.get().rewards();
+    assertSame(watcher.get().game(), rewards.game());
+    assertEquals(2, rewards.fractionDigits());
+    assertEquals(RoundingMode.DOWN, rewards.rounding());
+  }
+
+  @Test
+  @DisplayName("Should watch a configuration snapshot")
+  void shouldReloadSnapshot() throws Exception {
+    watcher.close();
+    Path snapshotPath = directory.resolve("config.snapshot");
+    ConfigSnapshot.write(TestConfigs.standard(), snapshotPath);
+    watcher = new ConfigWatcher(snapshotPath, RandomSource.defaultSource());
+    assertEquals(9, watcher.get().game().cellCount());
+
+    ConfigSnapshot.write(TestConfigs.standard(4, 4), snapshotPath);
+    assertTrue(watcher.reload());
+    assertEquals(2, watcher.version());
+    assertEquals(16, watcher.get().game().cellCount());
+  }
+}
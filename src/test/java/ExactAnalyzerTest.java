@@ -0,0 +1,140 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.analysis.AnalysisReport;
+import org.limix.analysis.ExactAnalyzer;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.symboltypes.StandardSymbols;
+
+class ExactAnalyzerTest {
+
+  @Test
+  @DisplayName("Should match the distribution of every enumerated matrix")
+  void shouldMatchEnumeration() {
+    // three symbols and a few distinct cell weights keep the enumeration small
+    GameConfig config = TestConfigs.standard();
+    config.getProbabilities().setStandardSymbols(List.of(
+        new StandardSymbols(0, 0, weights(1, 2, 3)),
+        new StandardSymbols(1, 0, weights(3, 1, 1)),
+        new StandardSymbols(2, 2, weights(1, 0, 4))));
+    CompiledGame game = CompiledGame.compile(config);
+
+    AnalysisReport report = new ExactAnalyzer(game).analyze(100);
+    Map<Double, Double> expected = enumerate(game, 100);
+
+    assertDistributionEquals(expected, report.rewardDistribution());
+    double mean = expected.entrySet().stream()
+        .mapToDouble(entry -> entry.getKey() * entry.getValue()).sum();
+    assertEquals(mean / 100, report.rtp(), 1e-9);
+    assertEquals(1 - expected.getOrDefault(0.0, 0.0), report.hitFrequency(), 1e-9);
+  }
+
+  @Test
+  @DisplayName("Should ignore the bonus position when no bonus symbols are configured")
+  void shouldAnalyzeWithoutBonusSymbols() {
+    GameConfig config = TestConfigs.standard();
+    config.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, weights(1, 1, 2))));
+    config.getProbabilities().getBonusSymbols().setSymbols(Map.of());
+    CompiledGame game = CompiledGame.compile(config);
+
+    AnalysisReport report = new ExactAnalyzer(game).analyze(10, 1);
+
+    assertDistributionEquals(enumerate(game, 10), report.rewardDistribution());
+  }
+
+  @Test
+  @DisplayName("Should reject games whose state space is too large")
+  void shouldRejectLargeStateSpace() {
+    ExactAnalyzer analyzer = new ExactAnalyzer(CompiledGame.compile(TestConfigs.standard()), 100);
+
+    assertThrows(IllegalStateException.class, () -> analyzer.analyze(100));
+  }
+
+  private static Map<String, Integer> weights(int a, int b, int c) {
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    weights.put("A", a);
+    weights.put("B", b);
+    weights.put("C", c);
+    return weights;
+  }
+
+  // plays every matrix and bonus draw with its probability
+  private static Map<Double, Double> enumerate(CompiledGame game, double bet) {
+    Map<Double, Double> distribution = new TreeMap<>();
+    Ticket ticket = new Ticket(game);
+    int cells = game.cellCount();
+    int[] matrix = new int[cells];
+    int[] choice = new int[cells];
+    int bonusPositions = game.hasBonusSymbols() ? cells : 1;
+    for (int bonusCell = 0; bonusCell < bonusPositions; bonusCell++) {
+      boolean done = false;
+      while (!done) {
+        double probability = 1.0 / bonusPositions;
+        for (int cell = 0; cell < cells; cell++) {
+          if (game.hasBonusSymbols() && cell == bonusCell) {
+            continue;
+          }
+          matrix[cell] = game.cellSymbol(cell, choice[cell]);
+          probability *= (double) game.cellWeight(cell, choice[cell]) / game.cellTotalWeight(cell);
+        }
+        if (game.hasBonusSymbols()) {
+          for (int i = 0; i < game.bonusWeightCount(); i++) {
+            matrix[bonusCell] = game.bonusSymbol(i);
+            ticket.load(matrix);
+            ticket.evaluate();
+            distribution.merge(ticket.reward(bet),
+                probability * game.bonusWeight(i) / game.bonusTotalWeight(), Double::sum);
+          }
+        } else {
+          ticket.load(matrix);
+          ticket.evaluate();
+          distribution.merge(ticket.reward(bet), probability, Double::sum);
+        }
+
+        // next combination of the other cells' outcomes
+        done = true;
+        for (int cell = 0; cell < cells && done; cell++) {
+          if (game.hasBonusSymbols() && cell == bonusCell) {
+            continue;
+          }
+          if (++choice[cell] < game.cellWeightCount(cell)) {
+            done = false;
+          } else {
+            choice[cell] = 0;
+          }
+        }
+      }
+    }
+    return distribution;
+  }
+
+  // rewards can differ in the last bits with the multiplication order, so rewards are bucketed
+  // and probabilities compared within a tolerance
+  private static void assertDistributionEquals(Map<Double, Double> expected,
+      Map<Double, Double> actual) {
+    Map<Long, Double> expectedBuckets = bucket(expected);
+    Map<Long, Double> actualBuckets = bucket(actual);
+    assertEquals(expectedBuckets.keySet(), actualBuckets.keySet());
+    expectedBuckets.forEach((reward, probability) ->
+        assertEquals(probability, actualBuckets.get(reward), 1e-12, "reward " + reward));
+  }
+
+  private static Map<Long, Double> bucket(Map<Double, Double> distribution) {
+    Map<Long, Double> buckets = new TreeMap<>();
+    distribution.forEach((reward, probability) -> {
+      if (probability > 0) {
+        buckets.merge(Math.round(reward * 1e6), probability, Double::sum);
+      }
+    });
+    return buckets;
+  }
+}
@@ -0,0 +1,145 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayBatch;
+import org.limix.engine.PlayResult;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.random.RandomSource;
+import org.limix.symboltypes.StandardSymbols;
+
+class GameEngineTest {
+
+  @Test
+  @DisplayName("Should not carry wins over from one play to the next")
+  void shouldNotKeepStaleWins() {
+    GameConfig config = TestConfigs.standard();
+    config.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("F", 1))));
+    config.getProbabilities().getBonusSymbols().setSymbols(Map.of("MISS", 1));
+    GameEngine engine = new GameEngine(config);
+    SplittableRandom rng = new SplittableRandom(5);
+
+    for (int i = 0; i < 10; i++) {
+      PlayResult next = engine.play(100, rng);
+      assertTrue(next.isWin());
+      assertEquals(countHits(next.cells(), engine.game()), next.hitCount());
+    }
+  }
+
+  @Test
+  @DisplayName("Should take the bet per play")
+  void shouldTakeBetPerPlay() {
+    GameConfig config = TestConfigs.standard();
+    config.getProbabilities().getBonusSymbols().setSymbols(Map.of("MISS", 1));
+    GameEngine engine = new GameEngine(config);
+
+    for (long seed = 0; seed < 100; seed++) {
+      PlayResult small = engine.play(1, new SplittableRandom(seed));
+      PlayResult large = engine.play(100, new SplittableRandom(seed));
+      assertEquals(small.reward() * 100, large.reward(), 1e-6);
+    }
+    PlayResult small = engine.play(1, new SplittableRandom(1));
+    PlayResult large = engine.play(100, new SplittableRandom(1));
+    assertEquals(1, small.bet());
+    assertEquals(100, large.bet());
+  }
+
+  @Test
+  @DisplayName("Should return immutable results")
+  void shouldReturnImmutableResults() {
+    PlayResult result = new GameEngine(TestConfigs.standard()).play(10, new SplittableRandom(3));
+
+    int[] cells = result.cells();
+    cells[0] = -42;
+    assertNotSame(cells, result.cells());
+    assertTrue(result.cell(0) >= 0);
+    assertEquals(3, result.symbolMatrix().length);
+  }
+
+  @Test
+  @DisplayName("Should be shareable between threads")
+  void shouldPlayConcurrently() throws Exception {
+    GameEngine engine = new GameEngine(TestConfigs.standard());
+    List<Future<List<PlayResult>>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int t = 0; t < 8; t++) {
+        long seed = t;
+        futures.add(executor.submit(() -> {
+          SplittableRandom rng = new SplittableRandom(seed);
+          List<PlayResult> results = new ArrayList<>();
+          for (int i = 0; i < 5_000; i++) {
+            results.add(engine.play(100, rng));
+          }
+          return results;
+        }));
+      }
+    }
+
+    // re-evaluating every matrix on its own must give the same outcome
+    Ticket ticket = new Ticket(engine.game());
+    for (Future<List<PlayResult>> future : futures) {
+      for (PlayResult result : future.get()) {
+        ticket.load(result.cells());
+        ticket.evaluate();
+        assertEquals(result, PlayResult.of(ticket, result.bet()));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should fill a reused batch with the plays of the same seeds")
+  void shouldPlayBatches() {
+    GameEngine engine = new GameEngine(TestConfigs.standard());
+    PlayBatch batch = new PlayBatch(engine.game(), 256);
+
+    for (long first = 0; first < 1_000; first += 256) {
+      int count = (int) Math.min(256, 1_000 - first);
+      engine.playBatch(batch, count, 100, 77, first);
+      assertEquals(count, batch.size());
+      for (int i = 0; i < count; i++) {
+        PlayResult expected = engine.play(100, RandomSource.seedAt(77, first + i));
+        for (int cell = 0; cell < engine.game().cellCount(); cell++) {
+          assertEquals(expected.cell(cell), batch.cell(i, cell));
+        }
+        for (int hit = 0; hit < expected.hitCount(); hit++) {
+          assertTrue(batch.hasCombination(i, expected.hitCombination(hit)));
+        }
+        assertEquals(expected.isWin(), batch.isWin(i));
+        assertEquals(expected.bonusSymbol(), batch.bonusSymbol(i));
+        assertEquals(expected.reward(), batch.reward(i));
+        assertEquals(expected.seed(), batch.seed(i));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should play an empty batch and reject a negative count")
+  void shouldPlayEmptyBatch() {
+    GameEngine engine = new GameEngine(TestConfigs.standard());
+
+    assertEquals(0, engine.playBatch(0, 100).size());
+    assertEquals(5, engine.playBatch(5, 100).size());
+    assertThrows(IllegalArgumentException.class, () -> engine.playBatch(-1, 100));
+  }
+
+  private static int countHits(int[] cells, CompiledGame game) {
+    Ticket ticket = new Ticket(game);
+    ticket.load(cells);
+    ticket.evaluate();
+    return ticket.hitCount();
+  }
+}
@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.RoundingMode;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.config.GameRegistry;
+import org.limix.config.RegisteredGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.RewardTable;
+import org.limix.entities.GameConfig;
+import org.limix.random.RandomSource;
+
+class GameRegistryTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @TempDir
+  Path directory;
+
+  private void write(String gameId, GameConfig config) throws Exception {
+    mapper.writeValue(directory.resolve(gameId + ".json").toFile(), config);
+  }
+
+  private GameRegistry registry(int maxEntries, long maxBytes) {
+    return new GameRegistry(directory, RandomSource.defaultSource(), maxEntries, maxBytes);
+  }
+
+  @Test
+  @DisplayName("Should share one compiled game between ids with the same configuration")
+  void shouldShareDuplicateConfigs() throws Exception {
+    write("classic", TestConfigs.standard());
+    write("classic-copy", TestConfigs.standard());
+    write("large", TestConfigs.standard(5, 5));
+    GameRegistry registry = registry(16, Long.MAX_VALUE);
+
+    RegisteredGame classic = registry.get("classic");
+    assertSame(classic, registry.get("classic-copy"));
+    assertSame(classic, registry.get("classic"));
+    assertNotSame(classic, registry.get("large"));
+    assertEquals(5, registry.get("large").engine().game().rows());
+
+    assertEquals(2, registry.getLoads());
+    assertEquals(2, registry.getMisses());
+    assertEquals(3, registry.getHits());
+    assertEquals(3, registry.getKnownGames());
+    assertEquals(2, registry.getCachedGames());
+  }
+
+  @Test
+  @DisplayName("Should evict the least recently used games beyond the bounds")
+  void shouldEvictLeastRecentlyUsed() throws Exception {
+    for (int size = 3; size <= 5; size++) {
+      write("game" + size, TestConfigs.standard(size, size));
+    }
+    GameRegistry registry = registry(2, Long.MAX_VALUE);
+
+    registry.get("game3");
+    registry.get("game4");
+    registry.get("game3");
+    registry.get("game5");
+    assertEquals(1, registry.getEvictions());
+    assertEquals(2, registry.getCachedGames());
+
+    // game4 was the least recently used
+    registry.get("game3");
+    assertEquals(3, registry.getLoads());
+    registry.get("game4");
+    assertEquals(4, registry.getLoads());
+
+    GameRegistry small = registry(16, 1);
+    small.get("game3");
+    small.get("game4");
+    assertEquals(1, small.getCachedGames());
+    assertEquals(small.get("game4").footprint(), small.getCachedBytes());
+  }
+
+  @Test
+  @DisplayName("Should load a configuration once under concurrent first access")
+  void shouldLoadOnceConcurrently() throws Exception {
+    write("classic", TestConfigs.standard());
+    GameRegistry registry = registry(16, Long.MAX_VALUE);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<RegisteredGame>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+      for (int i = 0; i < 16; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return registry.get("classic");
+        }));
+      }
+      start.countDown();
+    }
+
+    RegisteredGame game = futures.get(0).get();
+    for (Future<RegisteredGame> future : futures) {
+      assertSame(game, future.get());
+    }
+    assertEquals(1, registry.getLoads());
+  }
+
+  @Test
+  @DisplayName("Should reject unknown and invalid game ids")
+  void shouldRejectUnknownGames() {
+    GameRegistry registry = registry(16, Long.MAX_VALUE);
+
+    assertThrows(NoSuchFileException.class, () -> registry.get("missing"));
+    assertThrows(IllegalArgumentException.class, () -> registry.get("../classic"));
+    assertEquals(0, registry.getKnownGames());
+  }
+
+  @Test
+  @DisplayName("Should pay every loaded game in the configured money")
+  void shouldAttachRewardTables() throws Exception {
+    write("classic", TestConfigs.standard());
+    GameRegistry registry = new GameRegistry(directory, RandomSource.defaultSource(), null,
+        game -> new RewardTable(game, 2, RoundingMode.HALF_UP), 16, Long.MAX_VALUE);
+
+    GameEngine engine = registry.get("classic").engine();
+    assertSame(engine.game(), engine.rewards().game());
+    assertEquals(2, engine.rewards().fractionDigits());
+    assertEquals(RoundingMode.HALF_UP, engine.rewards().rounding());
+  }
+}
@@ -0,0 +1,324 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.config.ConfigWatcher;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.engine.PlayView;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.journal.Journal;
+import org.limix.journal.JournalReport;
+import org.limix.journal.JournalVerifier;
+import org.limix.random.RandomSource;
+
+class JournalTest {
+
+  @TempDir
+  Path directory;
+
+  private final CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+  private final GameEngine engine = new GameEngine(game);
+
+  private Journal open(long segmentRecords) throws IOException {
+    return Journal.open(directory, game, RandomSource.defaultSource(), segmentRecords, 1 << 16,
+        Duration.ofMillis(5));
+  }
+
+  private void append(Journal journal, int plays, long seed) {
+    append(journal, engine, plays, seed);
+  }
+
+  private void append(Journal journal, GameEngine engine, int plays, long seed) {
+    for (int i = 0; i < plays; i++) {
+      PlayResult result = engine.play(100, RandomSource.seedAt(seed, i));
+      journal.append(result, 100, result.reward());
+    }
+  }
+
+  private JournalReport verify() throws IOException {
+    return new JournalVerifier(version -> engine).verify(directory, 2);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.sorted().toList();
+    }
+  }
+
+  // rewrites the bytes of a record from the given offset, resealed with a valid checksum if asked
+  private void tamper(Path segment, int record, int offset, byte[] bytes, boolean reseal,
+      int recordSize) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer dataOffset = ByteBuffer.allocate(Integer.BYTES);
+      channel.read(dataOffset, Integer.BYTES);
+      long base = dataOffset.getInt(0) + (long) record * recordSize;
+      channel.write(ByteBuffer.wrap(bytes), base + offset);
+      if (reseal) {
+        ByteBuffer rest = ByteBuffer.allocate(recordSize - Integer.BYTES);
+        channel.read(rest, base + Integer.BYTES);
+        CRC32C crc = new CRC32C();
+        crc.update(rest.flip());
+        channel.write(ByteBuffer.allocate(Integer.BYTES)
+            .putInt(0, (int) crc.getValue() | Integer.MIN_VALUE), base);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should replay every record appended by concurrent writers")
+  void shouldVerifyConcurrentAppends() throws Exception {
+    try (Journal journal = open(1_000);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int writer = 0; writer < 8; writer++) {
+        long seed = writer;
+        executor.submit(() -> append(journal, 1_000, seed));
+      }
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+      assertEquals(8_000, journal.nextIndex());
+      assertTrue(journal.awaitDurable(7_999, Duration.ofSeconds(10)));
+    }
+
+    JournalReport report = verify();
+    assertEquals(8, report.segments());
+    assertEquals(8_000, report.records());
+    assertEquals(8_000, report.verified());
+    assertTrue(report.isClean());
+  }
+
+  @Test
+  @DisplayName("Should continue after the last record when reopened")
+  void shouldResumeNumbering() throws IOException {
+    try (Journal journal = open(1_000)) {
+      append(journal, 150, 1);
+    }
+    try (Journal journal = open(1_000)) {
+      assertEquals(150, journal.nextIndex());
+      append(journal, 50, 2);
+      // recorded with a reward the play did not win
+      assertEquals(200, journal.append(engine.play(100, 3L), 100, -1));
+    }
+
+    JournalReport report = verify();
+    assertEquals(2, report.segments());
+    assertEquals(201, report.records());
+    assertEquals(1, report.mismatches());
+    assertEquals(List.of(200L), report.firstFlagged());
+  }
+
+  @Test
+  @DisplayName("Should flag altered, corrupt and torn records")
+  void shouldFlagTamperedRecords() throws IOException {
+    long recordSize;
+    try (Journal journal = open(1_000)) {
+      recordSize = journal.recordSize();
+      append(journal, 100, 4);
+    }
+    Path segment = segments().get(0);
+    int size = (int) recordSize;
+    byte[] reward = ByteBuffer.allocate(Double.BYTES).putDouble(0, 1e9).array();
+    tamper(segment, 10, 32, reward, true, size);
+    tamper(segment, 20, 32, reward, false, size);
+    tamper(segment, 30, 0, new byte[Integer.BYTES], false, size);
+
+    JournalReport report = verify();
+    assertEquals(100, report.records());
+    assertEquals(97, report.verified());
+    assertEquals(1, report.mismatches());
+    assertEquals(1, report.corrupt());
+    assertEquals(1, report.torn());
+    assertEquals(List.of(10L, 20L), report.firstFlagged());
+    assertFalse(report.isClean());
+  }
+
+  @Test
+  @DisplayName("Should not replay records of unknown configuration versions")
+  void shouldSkipUnknownVersions() throws IOException {
+    try (Journal journal = open(1_000)) {
+      append(journal, 10, 5);
+      Ticket unseeded = new Ticket(game);
+      unseeded.play(new SplittableRandom(5));
+      assertThrows(IllegalArgumentException.class, () -> journal.append(unseeded, 100, 0));
+    }
+
+    JournalReport report = new JournalVerifier(version -> null).verify(directory, 1);
+    assertEquals(10, report.records());
+    assertEquals(10, report.unknownVersions());
+    assertEquals(0, report.verified());
+  }
+
+  @Test
+  @DisplayName("Should keep syncing past appends that failed after claiming their number")
+  void shouldSkipAbandonedRecords() throws Exception {
+    List<Exception> syncErrors = new CopyOnWriteArrayList<>();
+    Path blocking = directory.resolve(String.format("journal-%020d.bin", 10));
+    try (Journal journal = Journal.open(directory, game, RandomSource.defaultSource(), 10,
+        1 << 16, Duration.ofMillis(5), syncErrors::add)) {
+      // a file in the way of the second segment, which can then not be created
+      Files.createFile(blocking);
+      append(journal, 9, 6);
+      PlayResult play = engine.play(100, 6L);
+      // fails while the record is written
+      PlayView failing = new PlayView() {
+        public CompiledGame game() {
+          return play.game();
+        }
+
+        public int cell(int index) {
+          throw new IllegalStateException("failing play");
+        }
+
+        public int bonusSymbol() {
+          return play.bonusSymbol();
+        }
+
+        public int hitCount() {
+          return play.hitCount();
+        }
+
+        public int hitSymbol(int index) {
+          return play.hitSymbol(index);
+        }
+
+        public int hitCombination(int index) {
+          return play.hitCombination(index);
+        }
+
+        public boolean hasSeed() {
+          return true;
+        }
+
+        public long seed() {
+          return play.seed();
+        }
+      };
+      assertThrows(IllegalStateException.class, () -> journal.append(failing, 100, 0));
+      assertThrows(UncheckedIOException.class, () -> journal.append(play, 100, 0));
+      assertTrue(journal.awaitDurable(9, Duration.ofSeconds(10)));
+      // reported by the background thread once it released the sync lock
+      long deadline = System.nanoTime() + 10_000_000_000L;
+      while (syncErrors.isEmpty() && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+      assertFalse(syncErrors.isEmpty());
+
+      Files.delete(blocking);
+      append(journal, 5, 7);
+      assertEquals(16, journal.nextIndex());
+      assertTrue(journal.awaitDurable(15, Duration.ofSeconds(10)));
+    }
+
+    JournalReport report = verify();
+    assertEquals(2, report.segments());
+    // the number 10 was abandoned before its segment existed, it stays zero
+    assertEquals(16, report.records());
+    assertEquals(14, report.verified());
+    assertEquals(2, report.torn());
+  }
+
+  @Test
+  @DisplayName("Should open the next segment ahead without moving writers to it")
+  void shouldOpenSegmentsAhead() throws Exception {
+    try (Journal journal = open(100)) {
+      append(journal, 60, 8);
+      assertTrue(journal.awaitDurable(59, Duration.ofSeconds(10)));
+      // the flusher opened the second segment once the first was half full
+      long deadline = System.nanoTime() + 10_000_000_000L;
+      while (segments().size() < 2 && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+      assertEquals(2, segments().size());
+      append(journal, 40, 9);
+      assertTrue(journal.awaitDurable(99, Duration.ofSeconds(10)));
+      append(journal, 1, 10);
+      assertTrue(journal.awaitDurable(100, Duration.ofSeconds(10)));
+    }
+
+    JournalReport report = verify();
+    assertEquals(2, report.segments());
+    assertEquals(101, report.records());
+    assertEquals(101, report.verified());
+  }
+
+  @Test
+  @DisplayName("Should list the configuration versions of the journal")
+  void shouldListVersions() throws IOException {
+    GameEngine reloaded = new GameEngine(CompiledGame.compile(TestConfigs.standard(), 2));
+    try (Journal journal = open(1_000)) {
+      append(journal, 5, 11);
+      PlayResult result = reloaded.play(100, 12L);
+      journal.append(result, 100, result.reward());
+    }
+
+    assertEquals(new TreeSet<>(List.of(0L, 2L)), JournalVerifier.versions(directory));
+    JournalReport report = new JournalVerifier(
+        version -> version == 0 ? engine : version == 2 ? reloaded : null).verify(directory, 1);
+    assertEquals(6, report.verified());
+    assertTrue(report.isClean());
+  }
+
+  @Test
+  @DisplayName("Should continue in new segments when a reload changes the names or their number")
+  void shouldRollOnReload(@TempDir Path configs) throws IOException {
+    Path configPath = configs.resolve("config.json");
+    ObjectMapper mapper = new ObjectMapper();
+    GameConfig config = TestConfigs.standard();
+    mapper.writeValue(configPath.toFile(), config);
+    Map<Long, GameEngine> engines = new HashMap<>();
+    try (ConfigWatcher watcher = new ConfigWatcher(configPath, RandomSource.defaultSource());
+        Journal journal = Journal.open(directory, watcher.get().game(),
+            RandomSource.defaultSource(), 1_000, 1 << 16, Duration.ofMillis(5))) {
+      engines.put(1L, watcher.get());
+      append(journal, watcher.get(), 5, 21);
+
+      // a renamed combination, then one combination less
+      config.getWinCombinations().put("same_symbols_in_a_row",
+          config.getWinCombinations().remove("same_symbols_horizontally"));
+      mapper.writeValue(configPath.toFile(), config);
+      assertTrue(watcher.reload());
+      engines.put(2L, watcher.get());
+      append(journal, watcher.get(), 4, 22);
+      // a play of the previous version still in flight
+      append(journal, engines.get(1L), 1, 23);
+      config.getWinCombinations().remove("same_symbols_vertically");
+      mapper.writeValue(configPath.toFile(), config);
+      assertTrue(watcher.reload());
+      engines.put(3L, watcher.get());
+      append(journal, watcher.get(), 3, 24);
+      assertEquals(13, journal.nextIndex());
+    }
+
+    assertEquals(4, segments().size());
+    assertEquals(new TreeSet<>(List.of(1L, 2L, 3L)), JournalVerifier.versions(directory));
+    JournalReport report = new JournalVerifier(engines::get).verify(directory, 2);
+    assertEquals(13, report.verified());
+    assertTrue(report.isClean());
+  }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.OutcomeCache;
+import org.limix.engine.PlayResult;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.random.RandomSource;
+import org.limix.simulation.SimulationReport;
+import org.limix.simulation.Simulator;
+import org.limix.symboltypes.StandardSymbols;
+
+class OutcomeCacheTest {
+
+  // a 3x3 game of three standard symbols, 19683 matrices in all
+  private static CompiledGame fewSymbols() {
+    GameConfig config = TestConfigs.standard();
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    weights.put("A", 1);
+    weights.put("E", 3);
+    weights.put("F", 6);
+    config.getProbabilities().setStandardSymbols(List.of(new StandardSymbols(0, 0, weights)));
+    return CompiledGame.compile(config);
+  }
+
+  private static void assertSameOutcomes(CompiledGame game, OutcomeCache cache, int plays) {
+    Ticket cached = new Ticket(game);
+    Ticket plain = new Ticket(game);
+    SplittableRandom rng = new SplittableRandom(19);
+    for (int i = 0; i < plays; i++) {
+      long seed = rng.nextLong();
+      double bet = i % 7 == 0 ? 2.5 : 100;
+      cached.generate(new SplittableRandom(seed));
+      plain.play(new SplittableRandom(seed));
+      assertEquals(plain.reward(bet), cache.evaluate(cached, bet), "play " + i);
+      PlayResult expected = PlayResult.of(plain, bet);
+      PlayResult actual = PlayResult.of(cached, bet);
+      assertArrayEquals(expected.hits(), actual.hits());
+    }
+  }
+
+  @Test
+  @DisplayName("Should return the same wins and rewards as a plain evaluation")
+  void shouldMatchPlainEvaluation() {
+    CompiledGame game = fewSymbols();
+    OutcomeCache cache = new OutcomeCache(game, 1 << 15, 0.3);
+    assertSameOutcomes(game, cache, 200_000);
+
+    OutcomeCache.Stats stats = cache.stats();
+    assertEquals(200_000, stats.hits() + stats.misses());
+    assertTrue(stats.hitRate() > 0.8, "hit rate " + stats.hitRate());
+    assertFalse(cache.isBypassing());
+  }
+
+  @Test
+  @DisplayName("Should stay correct while evicting from a small table")
+  void shouldEvict() {
+    CompiledGame game = fewSymbols();
+    OutcomeCache cache = new OutcomeCache(game, 64, 0);
+    assertSameOutcomes(game, cache, 20_000);
+    assertTrue(cache.stats().evictions() > 0);
+  }
+
+  @Test
+  @DisplayName("Should bypass the cache while the hit rate is too low")
+  void shouldBypassLowHitRates() {
+    // six symbols on 4x4 make almost every matrix new
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard(4, 4));
+    assertTrue(OutcomeCache.supports(game));
+    OutcomeCache cache = new OutcomeCache(game, 1 << 10, 0.3);
+    assertSameOutcomes(game, cache, 100_000);
+
+    assertTrue(cache.isBypassing());
+    assertTrue(cache.stats().bypassed() > 0);
+    assertTrue(cache.stats().hitRate() < 0.3);
+    assertFalse(OutcomeCache.supports(CompiledGame.compile(TestConfigs.standard(5, 5))));
+  }
+
+  @Test
+  @DisplayName("Should simulate the same report with per-thread caches")
+  void shouldSimulateWithCaches() {
+    CompiledGame game = fewSymbols();
+    SimulationReport plain = new Simulator(game).run(300_000, 100, 5, 2);
+    SimulationReport cached = new Simulator(game, RandomSource.defaultSource(), 1 << 14)
+        .run(300_000, 100, 5, 2);
+
+    assertNull(plain.outcomeCache());
+    assertEquals(plain.totalReward(), cached.totalReward());
+    assertEquals(plain.rewardVariance(), cached.rewardVariance());
+    assertEquals(plain.combinationTriggerRates(), cached.combinationTriggerRates());
+    assertEquals(300_000, cached.outcomeCache().hits() + cached.outcomeCache().misses());
+  }
+}
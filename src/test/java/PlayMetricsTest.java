@@ -0,0 +1,109 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.metrics.LatencyHistogram;
+import org.limix.metrics.PlayMetrics;
+import org.limix.metrics.PlayPhase;
+import org.limix.random.RandomSource;
+
+class PlayMetricsTest {
+
+  @Test
+  @DisplayName("Should report histogram percentiles within the bucket precision")
+  void testHistogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 100_000; value++) {
+      histogram.record(value);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(100_000, snapshot.count());
+    assertEquals(100_000, snapshot.max());
+    assertEquals(50_000.5, snapshot.mean(), 1e-9);
+    assertEquals(50_000, snapshot.percentile(0.5), 50_000 * 0.0625);
+    assertEquals(99_000, snapshot.percentile(0.99), 99_000 * 0.0625);
+    assertTrue(snapshot.percentile(0.5) >= 50_000);
+  }
+
+  @Test
+  @DisplayName("Should count every play, win, combination and bonus symbol")
+  void testCountersMatchPlays() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    PlayMetrics metrics = new PlayMetrics(true);
+    GameEngine engine = new GameEngine(game, RandomSource.defaultSource(), metrics);
+
+    SplittableRandom rng = new SplittableRandom(13);
+    long wins = 0;
+    Map<String, Long> combinations = new HashMap<>();
+    Map<String, Long> bonusSymbols = new HashMap<>();
+    for (int i = 0; i < 5_000; i++) {
+      PlayResult result = engine.play(100, rng);
+      wins += result.isWin() ? 1 : 0;
+      for (int hit = 0; hit < result.hitCount(); hit++) {
+        combinations.merge(game.combinationName(result.hitCombination(hit)), 1L, Long::sum);
+      }
+      if (result.bonusSymbol() != CompiledGame.EMPTY) {
+        bonusSymbols.merge(game.symbolName(result.bonusSymbol()), 1L, Long::sum);
+      }
+    }
+
+    assertEquals(5_000, metrics.getPlays());
+    assertEquals(wins, metrics.getWins());
+    combinations.forEach((name, hits) -> assertEquals(hits, metrics.getCombinationHits().get(name)));
+    bonusSymbols.forEach((name, hits) -> assertEquals(hits, metrics.getBonusSymbolHits().get(name)));
+    assertEquals(5_000, metrics.getRewardBuckets().values().stream().mapToLong(n -> n).sum());
+    assertEquals(5_000 - wins, metrics.getRewardBuckets().get("0"));
+    for (PlayPhase phase : new PlayPhase[] {PlayPhase.GENERATE_MATRIX, PlayPhase.STANDARD_SYMBOLS,
+        PlayPhase.LINEAR_SYMBOLS, PlayPhase.CALCULATE_REWARD}) {
+      assertEquals(5_000, metrics.phase(phase).count());
+    }
+  }
+
+  @Test
+  @DisplayName("Should record nothing while disabled")
+  void testRuntimeSwitch() {
+    PlayMetrics metrics = new PlayMetrics(false);
+    GameEngine engine = new GameEngine(CompiledGame.compile(TestConfigs.standard()),
+        RandomSource.defaultSource(), metrics);
+    SplittableRandom rng = new SplittableRandom(1);
+
+    engine.play(100, rng);
+    assertEquals(0, metrics.getPlays());
+    assertEquals(0, metrics.phase(PlayPhase.GENERATE_MATRIX).count());
+
+    metrics.setEnabled(true);
+    engine.play(100, rng);
+    engine.playInPlace(rng);
+    assertEquals(2, metrics.getPlays());
+
+    metrics.reset();
+    assertEquals(0, metrics.getPlays());
+    assertEquals(0, metrics.phase(PlayPhase.GENERATE_MATRIX).count());
+  }
+
+  @Test
+  @DisplayName("Should expose the metrics over JMX")
+  void testMBean() throws Exception {
+    PlayMetrics metrics = new PlayMetrics(true).register();
+    new GameEngine(CompiledGame.compile(TestConfigs.standard()), RandomSource.defaultSource(),
+        metrics).play(100, 7L);
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(PlayMetrics.OBJECT_NAME);
+    assertEquals(1L, server.getAttribute(name, "Plays"));
+    assertEquals(true, server.getAttribute(name, "Enabled"));
+    assertTrue(((String) server.invoke(name, "dump", null, null)).contains("generate_matrix"));
+    server.unregisterMBean(name);
+  }
+}
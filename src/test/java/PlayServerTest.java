@@ -0,0 +1,153 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.config.GameRegistry;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.RewardTable;
+import org.limix.metrics.PlayMetrics;
+import org.limix.random.RandomSource;
+import org.limix.server.PlayServer;
+
+class PlayServerTest {
+
+  private final GameEngine engine = new GameEngine(TestConfigs.standard());
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final ObjectMapper mapper = new ObjectMapper();
+  private PlayServer server;
+
+  private PlayServer start(int maxInFlight) throws Exception {
+    server = new PlayServer(new InetSocketAddress("127.0.0.1", 0), () -> engine, maxInFlight, 100)
+        .start();
+    return server;
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (server != null) {
+      server.stop(Duration.ZERO);
+    }
+  }
+
+  private HttpResponse<String> get(String path) throws Exception {
+    return client.send(HttpRequest.newBuilder(
+        URI.create("http://127.0.0.1:" + server.port() + path)).build(), BodyHandlers.ofString());
+  }
+
+  @Test
+  @DisplayName("Should play one ticket with the extractOutput fields")
+  void shouldPlay() throws Exception {
+    start(64);
+    HttpResponse<String> response = get("/play?bet=100");
+
+    assertEquals(200, response.statusCode());
+    JsonNode node = mapper.readTree(response.body());
+    assertEquals(3, node.get("matrix").size());
+    assertTrue(node.has("applied_winning_combinations"));
+    assertTrue(node.has("applied_bonus_symbol"));
+    assertTrue(node.get("reward").asDouble() >= 0);
+  }
+
+  @Test
+  @DisplayName("Should stream a batch of tickets as NDJSON")
+  void shouldPlayBatch() throws Exception {
+    start(64);
+    HttpResponse<String> response = get("/batch?bet=10&count=25");
+
+    assertEquals(200, response.statusCode());
+    String[] lines = response.body().split("\n");
+    assertEquals(25, lines.length);
+    for (String line : lines) {
+      assertTrue(mapper.readTree(line).has("reward"));
+    }
+  }
+
+  @Test
+  @DisplayName("Should reject invalid requests")
+  void shouldRejectInvalidRequests() throws Exception {
+    start(64);
+    assertEquals(400, get("/play").statusCode());
+    assertEquals(400, get("/play?bet=-5").statusCode());
+    assertEquals(400, get("/play?bet=abc").statusCode());
+    assertEquals(400, get("/batch?bet=1&count=1000").statusCode());
+    // a single game server has no other game to play
+    assertEquals(400, get("/play?bet=1&game=other").statusCode());
+    HttpResponse<String> delete = client.send(HttpRequest.newBuilder(
+            URI.create("http://127.0.0.1:" + server.port() + "/play?bet=1")).DELETE().build(),
+        BodyHandlers.ofString());
+    assertEquals(405, delete.statusCode());
+  }
+
+  @Test
+  @DisplayName("Should answer 400 to a batch whose bet the engine refuses")
+  void shouldRejectBatchBeforeStreaming() throws Exception {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    GameEngine cents = new GameEngine(game, RandomSource.defaultSource(), null,
+        new RewardTable(game, 2, RoundingMode.HALF_EVEN));
+    server = new PlayServer(new InetSocketAddress("127.0.0.1", 0), () -> cents, 64, 100).start();
+
+    HttpResponse<String> refused = get("/batch?bet=0.001&count=5");
+    assertEquals(400, refused.statusCode());
+    assertTrue(refused.body().contains("minor units"));
+    HttpResponse<String> played = get("/batch?bet=0.25&count=5");
+    assertEquals(200, played.statusCode());
+    assertEquals(5, played.body().lines().count());
+  }
+
+  @Test
+  @DisplayName("Should answer 503 when no request can be admitted")
+  void shouldRejectWhenFull() throws Exception {
+    start(0);
+    assertEquals(503, get("/play?bet=100").statusCode());
+  }
+
+  @Test
+  @DisplayName("Should serve concurrent clients")
+  void shouldServeConcurrently() throws Exception {
+    start(1_000);
+    List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      responses.add(client.sendAsync(HttpRequest.newBuilder(
+          URI.create("http://127.0.0.1:" + server.port() + "/play?bet=1")).build(),
+          BodyHandlers.ofString()));
+    }
+    for (CompletableFuture<HttpResponse<String>> response : responses) {
+      assertEquals(200, response.get().statusCode());
+    }
+  }
+
+  @Test
+  @DisplayName("Should play the game named by the game parameter")
+  void shouldPlayRegisteredGames(@TempDir Path directory) throws Exception {
+    mapper.writeValue(directory.resolve("large.json").toFile(), TestConfigs.standard(5, 5));
+    PlayMetrics metrics = new PlayMetrics(true);
+    GameRegistry games =
+        new GameRegistry(directory, RandomSource.defaultSource(), metrics, 4, 1 << 20);
+    server = new PlayServer(new InetSocketAddress("127.0.0.1", 0), null, games, 64, 100).start();
+
+    HttpResponse<String> response = get("/play?bet=100&game=large");
+    assertEquals(200, response.statusCode());
+    assertEquals(5, mapper.readTree(response.body()).get("matrix").size());
+    assertEquals(404, get("/play?bet=100&game=missing").statusCode());
+    assertEquals(400, get("/play?bet=100").statusCode());
+    assertEquals(1, metrics.getPlays());
+  }
+}
@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.printrun.PrintRun;
+import org.limix.printrun.PrintRunTicket;
+import org.limix.printrun.PrintRunWriter;
+import org.limix.random.RandomSource;
+
+class PrintRunTest {
+
+  private final CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+
+  @TempDir
+  Path directory;
+
+  @Test
+  @DisplayName("Should write the same file for any parallelism")
+  void shouldWriteDeterministically() throws Exception {
+    Path single = directory.resolve("single.bin");
+    Path parallel = directory.resolve("parallel.bin");
+    new PrintRunWriter(game).write(single, 200_000, 100, 42, 1);
+    new PrintRunWriter(game).write(parallel, 200_000, 100, 42, 4);
+
+    assertArrayEquals(Files.readAllBytes(single), Files.readAllBytes(parallel));
+  }
+
+  @Test
+  @DisplayName("Should read every ticket back as the play of its seed")
+  void shouldReadTicketsByNumber() throws Exception {
+    Path path = directory.resolve("run.bin");
+    RandomSource random = RandomSource.of("L64X128MixRandom");
+    new PrintRunWriter(game, random).write(path, 100_000, 100, 7);
+    GameEngine engine = new GameEngine(game, random);
+
+    try (PrintRun run = PrintRun.open(path)) {
+      assertEquals(100_000, run.ticketCount());
+      assertEquals(15, run.recordSize());
+      assertEquals("L64X128MixRandom", run.randomAlgorithm());
+      assertEquals(game.symbolName(0), run.symbolNames().get(0));
+
+      PrintRunTicket ticket = run.ticket(0);
+      for (long number = 0; number < run.ticketCount(); number += 37) {
+        ticket.moveTo(number);
+        PlayResult expected = engine.play(run.bet(), RandomSource.seedAt(7, number));
+        assertEquals(expected.seed(), ticket.seed());
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+          assertEquals(expected.cell(cell), ticket.cell(cell));
+        }
+        assertEquals(expected.bonusSymbol(), ticket.bonusSymbol());
+        assertEquals(expected.reward(), ticket.reward());
+        assertEquals(expected.isWin(), ticket.isWin());
+        for (int i = 0; i < expected.hitCount(); i++) {
+          assertTrue(ticket.hasCombination(expected.hitCombination(i)));
+        }
+      }
+      assertThrows(IndexOutOfBoundsException.class, () -> run.ticket(100_000));
+    }
+  }
+
+  @Test
+  @DisplayName("Should deal every ticket exactly once across threads")
+  void shouldDealEveryTicketOnce() throws Exception {
+    Path path = directory.resolve("deal.bin");
+    new PrintRunWriter(game).write(path, 50_000, 10, 3);
+
+    try (PrintRun run = PrintRun.open(path)) {
+      AtomicLongArray dealt = new AtomicLongArray((int) run.ticketCount());
+      List<Future<Double>> futures = new ArrayList<>();
+      try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+        for (int t = 0; t < 8; t++) {
+          futures.add(executor.submit(() -> {
+            PrintRunTicket ticket = run.ticket(0);
+            double total = 0;
+            for (long number = run.deal(); number >= 0; number = run.deal()) {
+              dealt.incrementAndGet((int) number);
+              total += ticket.moveTo(number).reward();
+            }
+            return total;
+          }));
+        }
+      }
+
+      for (int i = 0; i < dealt.length(); i++) {
+        assertEquals(1, dealt.get(i));
+      }
+      assertEquals(run.ticketCount(), run.dealtCount());
+      assertEquals(-1, run.deal());
+    }
+  }
+}
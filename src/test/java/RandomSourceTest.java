@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.random.RandomSource;
+import org.limix.simulation.SimulationReport;
+import org.limix.simulation.Simulator;
+
+class RandomSourceTest {
+
+  private final CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+
+  @Test
+  @DisplayName("Should replay any play from its recorded seed")
+  void shouldReplayFromSeed() {
+    for (String algorithm : new String[]{"SplittableRandom", "L64X128MixRandom"}) {
+      GameEngine engine = new GameEngine(game, RandomSource.of(algorithm));
+      SplittableRandom rng = new SplittableRandom(17);
+      for (int i = 0; i < 1_000; i++) {
+        PlayResult played = engine.play(100, rng);
+        PlayResult replayed = new GameEngine(game, RandomSource.of(algorithm))
+            .play(100, played.seed());
+
+        assertTrue(played.hasSeed());
+        assertEquals(played, replayed);
+        assertEquals(played.seed(), replayed.seed());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should draw from a reseeded generator what a new SplittableRandom draws")
+  void shouldReseedLikeSplittableRandom() {
+    RandomSource source = RandomSource.of(RandomSource.DEFAULT_ALGORITHM);
+    SplittableRandom seeds = new SplittableRandom(9);
+    RandomGenerator reused = null;
+    for (int i = 0; i < 1_000; i++) {
+      long seed = seeds.nextLong();
+      RandomGenerator expected = new SplittableRandom(seed);
+      RandomGenerator reseeded = source.reseed(reused, seed);
+      if (reused != null) {
+        assertSame(reused, reseeded);
+      }
+      reused = reseeded;
+      for (int bound : new int[] {2, 7, 64, 1_000_003}) {
+        assertEquals(expected.nextInt(bound), reseeded.nextInt(bound), "seed " + seed);
+      }
+      assertEquals(expected.nextLong(), reseeded.nextLong(), "seed " + seed);
+      assertEquals(expected.nextDouble(), reseeded.nextDouble(), "seed " + seed);
+    }
+  }
+
+  @Test
+  @DisplayName("Should derive distinct sub-seeds from a master seed")
+  void shouldDeriveSubSeeds() {
+    assertEquals(RandomSource.seedAt(5, 3), RandomSource.seedAt(5, 3));
+    assertNotEquals(RandomSource.seedAt(5, 3), RandomSource.seedAt(5, 4));
+    assertNotEquals(RandomSource.seedAt(5, 3), RandomSource.seedAt(6, 3));
+  }
+
+  @Test
+  @DisplayName("Should give the same simulation for a seed regardless of parallelism")
+  void shouldSimulateDeterministically() {
+    Simulator simulator = new Simulator(game, RandomSource.of("L64X128MixRandom"));
+
+    SimulationReport single = simulator.run(100_000, 100, 42, 1);
+    SimulationReport parallel = simulator.run(100_000, 100, 42, 4);
+
+    assertEquals(single.totalReward(), parallel.totalReward());
+    assertEquals("L64X128MixRandom", single.randomAlgorithm());
+  }
+
+  @Test
+  @DisplayName("Should reject unknown and non-reproducible algorithms")
+  void shouldRejectUnusableAlgorithms() {
+    assertThrows(IllegalArgumentException.class, () -> RandomSource.of("NoSuchRandom"));
+    assertThrows(IllegalArgumentException.class, () -> RandomSource.of("SecureRandom"));
+  }
+}
@@ -0,0 +1,189 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.RevealSession;
+import org.limix.engine.Ticket;
+
+class RevealSessionTest {
+
+  // the wins of the revealed cells alone, in the order of Ticket.evaluate()
+  private static int[] expectedLocked(CompiledGame game, RevealSession session) {
+    List<Integer> hits = new ArrayList<>();
+    for (int i = 0; i < game.standardSymbolCount(); i++) {
+      int symbol = game.standardSymbol(i);
+      int count = 0;
+      for (int cell = 0; cell < game.cellCount(); cell++) {
+        count += session.symbol(cell) == symbol ? 1 : 0;
+      }
+      if (game.sameSymbolsCombination(count) != CompiledGame.EMPTY) {
+        hits.add(symbol << 16 | game.sameSymbolsCombination(count));
+      }
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      int symbol = session.symbol(game.areaCell(area, 0));
+      boolean won = symbol != CompiledGame.EMPTY && game.isStandard(symbol);
+      for (int i = 1; won && i < game.areaSize(area); i++) {
+        won = session.symbol(game.areaCell(area, i)) == symbol;
+      }
+      if (won) {
+        hits.add(symbol << 16 | game.areaCombination(area));
+      }
+    }
+    return hits.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  // the cells of a game in a random order
+  private static int[] shuffledCells(CompiledGame game, SplittableRandom rng) {
+    int[] cells = new int[game.cellCount()];
+    for (int i = 0; i < cells.length; i++) {
+      int j = rng.nextInt(i + 1);
+      cells[i] = cells[j];
+      cells[j] = i;
+    }
+    return cells;
+  }
+
+  @Test
+  @DisplayName("Should lock in the wins of the revealed cells and end with the play's wins")
+  void shouldLockInRevealedWins() {
+    SplittableRandom rng = new SplittableRandom(3);
+    for (int size = 3; size <= 6; size++) {
+      GameEngine engine = new GameEngine(CompiledGame.compile(TestConfigs.standard(size, size)));
+      CompiledGame game = engine.game();
+      for (int play = 0; play < 300; play++) {
+        long seed = rng.nextLong();
+        RevealSession session = engine.reveal(seed);
+        assertTrue(session.hasSeed());
+        assertEquals(seed, session.seed());
+        assertFalse(session.isWinLocked());
+
+        for (int cell : shuffledCells(game, rng)) {
+          assertEquals(CompiledGame.EMPTY, session.symbol(cell));
+          session.reveal(cell);
+          int[] expected = expectedLocked(game, session);
+          assertArrayEquals(expected, session.lockedHits(), "seed " + seed);
+          assertEquals(expected.length > 0, session.isWinLocked());
+        }
+        assertTrue(session.isComplete());
+        assertArrayEquals(engine.play(100, seed).hits(), session.lockedHits(), "seed " + seed);
+        assertEquals(engine.play(100, seed).bonusSymbol(), session.bonusSymbol());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should kill an area on the first mismatched cell")
+  void shouldKillMismatchedAreas() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    int a = game.symbolId("A");
+    int b = game.symbolId("B");
+    int bonus = game.symbolId("10x");
+    Ticket ticket = new Ticket(game);
+    ticket.load(new int[] {a, a, a, b, a, b, bonus, b, a});
+    RevealSession session = RevealSession.of(ticket);
+    assertFalse(session.hasSeed());
+
+    int top = areaOf(game, new int[] {0, 1, 2});
+    int middle = areaOf(game, new int[] {3, 4, 5});
+    int diagonal = areaOf(game, new int[] {0, 4, 8});
+    assertEquals(a, session.reveal(4));
+    assertEquals(b, session.reveal(3));
+    assertEquals(RevealSession.DEAD, session.areaRemaining(middle));
+    assertEquals(2, session.areaRemaining(diagonal));
+    assertEquals(3, session.areaRemaining(top));
+
+    session.reveal(0);
+    session.reveal(8);
+    assertEquals(0, session.areaRemaining(diagonal));
+    assertTrue(session.isWinLocked());
+    assertEquals(3, session.revealedCount(a));
+    // three A's also lock the smallest same_symbols combination
+    assertEquals(2, session.lockedCount());
+
+    assertEquals(CompiledGame.EMPTY, session.bonusSymbol());
+    assertEquals(bonus, session.reveal(6));
+    assertEquals(bonus, session.bonusSymbol());
+    // revealing again changes nothing
+    session.reveal(6);
+    assertEquals(5, session.revealedCount());
+    assertThrows(IllegalArgumentException.class, () -> session.reveal(9));
+  }
+
+  private static int areaOf(CompiledGame game, int[] cells) {
+    for (int area = 0; area < game.areaCount(); area++) {
+      boolean same = game.areaSize(area) == cells.length;
+      for (int i = 0; same && i < cells.length; i++) {
+        same = game.areaCell(area, i) == cells[i];
+      }
+      if (same) {
+        return area;
+      }
+    }
+    throw new AssertionError("No area " + Arrays.toString(cells));
+  }
+
+  @Test
+  @DisplayName("Should continue a restored session where it was left")
+  void shouldRestoreState() {
+    GameEngine engine = new GameEngine(CompiledGame.compile(TestConfigs.standard(4, 4)));
+    CompiledGame game = engine.game();
+    SplittableRandom rng = new SplittableRandom(8);
+    RevealSession session = engine.reveal(77);
+    int[] order = shuffledCells(game, rng);
+    for (int i = 0; i < 7; i++) {
+      session.reveal(order[i]);
+    }
+    byte[] state = session.state();
+    // 16 cells, 6 symbol counts and 2 units per area, then a 2 byte bitset, after the header
+    assertEquals(25 + 16 + 6 + 2 * game.areaCount() + 2, state.length);
+
+    RevealSession restored = RevealSession.restore(game, state);
+    assertEquals(77, restored.seed());
+    assertEquals(7, restored.revealedCount());
+    for (int i = 7; i < order.length; i++) {
+      assertEquals(session.reveal(order[i]), restored.reveal(order[i]));
+      assertArrayEquals(session.lockedHits(), restored.lockedHits());
+    }
+    assertArrayEquals(session.state(), restored.state());
+
+    assertThrows(IllegalArgumentException.class, () -> RevealSession.restore(
+        CompiledGame.compile(TestConfigs.standard()), state));
+    assertThrows(IllegalArgumentException.class, () -> RevealSession.restore(
+        CompiledGame.compile(TestConfigs.standard(4, 4), 2), state));
+  }
+
+  @Test
+  @DisplayName("Should refuse corrupt states on restore")
+  void shouldRefuseCorruptState() {
+    GameEngine engine = new GameEngine(CompiledGame.compile(TestConfigs.standard(4, 4)));
+    CompiledGame game = engine.game();
+    RevealSession session = engine.reveal(5);
+    session.reveal(0);
+    byte[] state = session.state();
+    // the units follow a 25 byte header: 16 cells, 6 counts, then the areas
+    int[] corruptions = {25, 25 + 16, 25 + 16 + 6, 25 + 16 + 6 + game.areaCount(), 20};
+    for (int offset : corruptions) {
+      byte[] corrupt = state.clone();
+      corrupt[offset] = 100;
+      assertThrows(IllegalArgumentException.class, () -> RevealSession.restore(game, corrupt),
+          "offset " + offset);
+    }
+    byte[] locked = state.clone();
+    locked[19] = 3;
+    assertThrows(IllegalArgumentException.class, () -> RevealSession.restore(game, locked));
+    byte[] negative = state.clone();
+    negative[25 + 16] = -5;
+    assertThrows(IllegalArgumentException.class, () -> RevealSession.restore(game, negative));
+  }
+}
@@ -0,0 +1,210 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.random.RandomSource;
+import org.limix.simulation.SimulationReport;
+import org.limix.simulation.Simulator;
+import org.limix.simulation.StatsFile;
+import org.limix.stats.DoubleHistogram;
+import org.limix.stats.RewardStats;
+import org.limix.stats.RunLengths;
+
+class RewardStatsTest {
+
+  private static RewardStats play(CompiledGame game, SplittableRandom rng, int plays) {
+    RewardStats stats = new RewardStats(game);
+    Ticket ticket = new Ticket(game);
+    for (int i = 0; i < plays; i++) {
+      ticket.play(rng);
+      stats.add(ticket, ticket.reward(100), 100);
+    }
+    return stats;
+  }
+
+  private static byte[] bytes(RewardStats stats) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    stats.writeTo(new DataOutputStream(bytes));
+    return bytes.toByteArray();
+  }
+
+  @Test
+  @DisplayName("Should report quantiles within 1% of the exact ones")
+  void shouldEstimateQuantiles() {
+    SplittableRandom rng = new SplittableRandom(3);
+    DoubleHistogram histogram = new DoubleHistogram();
+    double[] values = new double[100_000];
+    for (int i = 0; i < values.length; i++) {
+      // mostly zero, with a heavy tail
+      values[i] = rng.nextInt(4) == 0 ? 100 / Math.pow(rng.nextDouble(), 1.5) : 0;
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    for (double fraction : new double[] {0.5, 0.8, 0.9, 0.99, 0.999}) {
+      double exact = values[(int) Math.ceil(fraction * values.length) - 1];
+      assertEquals(exact, histogram.quantile(fraction), exact * 0.01);
+    }
+    assertEquals(values[values.length - 1], histogram.quantile(1));
+    assertEquals(values[values.length - 1], histogram.max());
+  }
+
+  @Test
+  @DisplayName("Should count runs as a brute force count does, however the plays are split")
+  void shouldMergeRunLengths() {
+    SplittableRandom rng = new SplittableRandom(11);
+    for (int round = 0; round < 200; round++) {
+      boolean[] plays = new boolean[1 + rng.nextInt(60)];
+      for (int i = 0; i < plays.length; i++) {
+        plays[i] = rng.nextInt(3) == 0;
+      }
+      long[] runs = new long[2];
+      long[] longest = new long[2];
+      for (int i = 0, length = 0; i < plays.length; i++) {
+        length++;
+        if (i == plays.length - 1 || plays[i + 1] != plays[i]) {
+          int kind = plays[i] ? 1 : 0;
+          runs[kind]++;
+          longest[kind] = Math.max(longest[kind], length);
+          length = 0;
+        }
+      }
+
+      RunLengths merged = new RunLengths();
+      RunLengths part = new RunLengths();
+      for (boolean win : plays) {
+        part.record(win);
+        if (rng.nextInt(4) == 0) {
+          merged.merge(part);
+          part = new RunLengths();
+        }
+      }
+      merged.merge(part);
+
+      assertEquals(plays.length, merged.plays());
+      assertEquals(runs[0], merged.runs(false));
+      assertEquals(runs[1], merged.runs(true));
+      assertEquals(longest[0], merged.longest(false));
+      assertEquals(longest[1], merged.longest(true));
+    }
+  }
+
+  @Test
+  @DisplayName("Should merge consecutive parts into the stats of the whole stream")
+  void shouldMergeParts() throws IOException {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    RewardStats whole = play(game, new SplittableRandom(5), 30_000);
+
+    SplittableRandom rng = new SplittableRandom(5);
+    RewardStats merged = play(game, rng, 10_000)
+        .merge(play(game, rng, 7_000))
+        .merge(play(game, rng, 13_000));
+
+    assertEquals(whole.tickets(), merged.tickets());
+    assertEquals(whole.wins(), merged.wins());
+    assertEquals(whole.totalReward(), merged.totalReward(), 1e-6);
+    assertEquals(whole.mean(), merged.mean(), 1e-9);
+    assertEquals(whole.variance(), merged.variance(), whole.variance() * 1e-9);
+    assertEquals(whole.maxWin(), merged.maxWin());
+    for (int a = 0; a < game.combinationCount(); a++) {
+      assertEquals(whole.combinationTickets(a), merged.combinationTickets(a));
+      for (int b = 0; b < game.combinationCount(); b++) {
+        assertEquals(whole.coOccurrences(a, b), merged.coOccurrences(a, b));
+      }
+    }
+    assertEquals(whole.runs().longest(true), merged.runs().longest(true));
+    assertEquals(whole.runs().runs(false), merged.runs().runs(false));
+    for (double fraction : new double[] {0.5, 0.9, 0.99}) {
+      assertEquals(whole.rewards().quantile(fraction), merged.rewards().quantile(fraction));
+    }
+  }
+
+  @Test
+  @DisplayName("Should read back the stats it writes")
+  void shouldRoundTrip() throws IOException {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    RewardStats stats = new Simulator(game).stats(20_000, 100, 9, 2, new ArrayList<>());
+
+    byte[] written = bytes(stats);
+    RewardStats read = RewardStats.readFrom(
+        new DataInputStream(new ByteArrayInputStream(written)));
+
+    assertEquals(Arrays.toString(written), Arrays.toString(bytes(read)));
+    SimulationReport direct = SimulationReport.of(game, stats, 9, null, 0, null);
+    SimulationReport restored = SimulationReport.of(game, read, 9, null, 0, null);
+    assertEquals(direct, restored);
+  }
+
+  @Test
+  @DisplayName("Should not merge the stats of different games")
+  void shouldRejectDifferentGames() {
+    GameConfig config = TestConfigs.standard();
+    config.getWinCombinations().values()
+        .removeIf(winCombination -> "linear_symbols".equals(winCombination.getWhen()));
+    CompiledGame other = CompiledGame.compile(config);
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+
+    assertThrows(IllegalArgumentException.class,
+        () -> new RewardStats(game).merge(new RewardStats(other)));
+    assertThrows(IllegalArgumentException.class,
+        () -> SimulationReport.of(other, new RewardStats(game), 0, null, 0, null));
+
+    // the same names with another multiplier
+    GameConfig richer = TestConfigs.standard();
+    richer.getWinCombinations().get("same_symbols_horizontally").setRewardMultiplier(3);
+    CompiledGame repriced = CompiledGame.compile(richer);
+    assertThrows(IllegalArgumentException.class,
+        () -> new RewardStats(game).merge(new RewardStats(repriced)));
+    assertThrows(IllegalArgumentException.class,
+        () -> SimulationReport.of(repriced, new RewardStats(game), 0, null, 0, null));
+  }
+
+  @Test
+  @DisplayName("Should merge stats files of one game and algorithm with different seeds")
+  void shouldMergeStatsFiles(@TempDir Path directory) throws IOException {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    Simulator simulator = new Simulator(game);
+    RewardStats first = simulator.stats(10_000, 100, 1, 1, new ArrayList<>());
+    RewardStats second = simulator.stats(10_000, 100, 2, 1, new ArrayList<>());
+    Path one = directory.resolve("one.stats");
+    Path two = directory.resolve("two.stats");
+    StatsFile.write(one, first, 1, RandomSource.DEFAULT_ALGORITHM, 5);
+    StatsFile.write(two, second, 2, RandomSource.DEFAULT_ALGORITHM, 7);
+
+    SimulationReport merged = StatsFile.merge(game, List.of(one, two));
+    RewardStats expected = simulator.stats(10_000, 100, 1, 1, new ArrayList<>())
+        .merge(simulator.stats(10_000, 100, 2, 1, new ArrayList<>()));
+    assertEquals(SimulationReport.of(game, expected, 1, RandomSource.DEFAULT_ALGORITHM, 12, null),
+        merged);
+
+    GameConfig config = TestConfigs.standard();
+    config.getWinCombinations().values()
+        .removeIf(winCombination -> "linear_symbols".equals(winCombination.getWhen()));
+    assertThrows(IOException.class,
+        () -> StatsFile.merge(CompiledGame.compile(config), List.of(one, two)));
+    // the same names with one other weight
+    GameConfig reweighted = TestConfigs.standard();
+    reweighted.getProbabilities().getBonusSymbols().getSymbols().put("MISS", 6);
+    assertThrows(IOException.class,
+        () -> StatsFile.merge(CompiledGame.compile(reweighted), List.of(one, two)));
+    assertThrows(IOException.class, () -> StatsFile.merge(game, List.of(one, one)));
+    Path other = directory.resolve("other.stats");
+    StatsFile.write(other, second, 3, "L64X128MixRandom", 7);
+    assertThrows(IOException.class, () -> StatsFile.merge(game, List.of(one, other)));
+  }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayResult;
+import org.limix.engine.RewardTable;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.entities.Symbols;
+import org.limix.random.RandomSource;
+
+class RewardTableTest {
+
+  @Test
+  @DisplayName("Should agree with the double rewards within the double rounding error")
+  void shouldMatchDoubleRewards() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard(4, 4));
+    RewardTable rewards = new RewardTable(game, 2, RoundingMode.HALF_EVEN);
+    Ticket ticket = new Ticket(game);
+    SplittableRandom rng = new SplittableRandom(18);
+    int wins = 0;
+    for (int i = 0; i < 50_000; i++) {
+      ticket.play(rng);
+      double bet = 1 + rng.nextInt(10_000) / 100.0;
+      long fixed = ticket.reward(rewards.minorUnits(bet), rewards);
+      double reward = ticket.reward(bet);
+      assertEquals(reward * 100, fixed, 0.5 + Math.ulp(reward * 100) * 4, "play " + i);
+      assertEquals(rewards.reward(ticket, rewards.minorUnits(bet)), fixed);
+      wins += fixed > 0 ? 1 : 0;
+    }
+    assertTrue(wins > 1_000);
+  }
+
+  @Test
+  @DisplayName("Should round the exact reward once with the configured rounding")
+  void shouldRoundExactly() {
+    // 0.1 and 0.3 are not exact doubles, their products drift when multiplied as doubles
+    GameConfig config = TestConfigs.standard();
+    config.getSymbols().put("F", new Symbols(0.1, "standard", 0, null));
+    config.getWinCombinations().get("same_symbol_3_times").setRewardMultiplier(0.3);
+    config.getSymbols().put("+1000", new Symbols(0, "bonus", 0.005, "extra_bonus"));
+    CompiledGame game = CompiledGame.compile(config);
+    int f = game.symbolId("F");
+    // three F off every line, so only same_symbol_3_times applies
+    int[] matrix = {f, game.symbolId("A"), game.symbolId("B"), game.symbolId("C"),
+        game.symbolId("D"), f, game.symbolId("E"), f, game.symbolId("+1000")};
+    Ticket ticket = new Ticket(game);
+    ticket.load(matrix);
+    ticket.evaluate();
+
+    // 0.05 * 0.1 * 0.3 + 0.005 = 0.0065 units: 0.65 cents, 65 at four and 6.5 at three digits
+    RewardTable halfEven = new RewardTable(game, 2, RoundingMode.HALF_EVEN);
+    assertEquals(new BigDecimal("0.65"), halfEven.exactReward(ticket, 5).stripTrailingZeros());
+    assertEquals(1, ticket.reward(5, halfEven));
+    assertEquals(0, ticket.reward(5, new RewardTable(game, 2, RoundingMode.DOWN)));
+    RewardTable fourDigits = new RewardTable(game, 4, RoundingMode.HALF_EVEN);
+    assertEquals(65, ticket.reward(500, fourDigits));
+    assertEquals(6, ticket.reward(50, new RewardTable(game, 3, RoundingMode.HALF_EVEN)));
+    assertEquals(7, ticket.reward(50, new RewardTable(game, 3, RoundingMode.HALF_UP)));
+    assertThrows(ArithmeticException.class,
+        () -> ticket.reward(5, new RewardTable(game, 2, RoundingMode.UNNECESSARY)));
+  }
+
+  @Test
+  @DisplayName("Should fall back to BigDecimal when the exact products outgrow a long")
+  void shouldFallBackOnOverflow() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    RewardTable rewards = new RewardTable(game, 2, RoundingMode.HALF_UP);
+    int a = game.symbolId("A");
+    int[] matrix = {a, a, a, a, a, a, a, a, game.symbolId("10x")};
+    Ticket ticket = new Ticket(game);
+    ticket.load(matrix);
+    ticket.evaluate();
+
+    long bet = Long.MAX_VALUE / 1_000_000;
+    BigDecimal exact = rewards.exactReward(ticket, bet);
+    assertTrue(exact.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) < 0);
+    assertEquals(exact.setScale(0, RoundingMode.HALF_UP).longValueExact(),
+        ticket.reward(bet, rewards));
+  }
+
+  @Test
+  @DisplayName("Should play fixed-point rewards through the engine")
+  void shouldPlayThroughEngine() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    RewardTable rewards = new RewardTable(game, 2, RoundingMode.HALF_EVEN);
+    GameEngine fixed = new GameEngine(game, RandomSource.defaultSource(), null, rewards);
+    GameEngine doubles = new GameEngine(game);
+    for (long seed = 0; seed < 2_000; seed++) {
+      PlayResult expected = doubles.play(2.5, seed);
+      PlayResult actual = fixed.play(2.5, seed);
+      assertEquals(expected.reward(), actual.reward(), 0.005 + 1e-9);
+    }
+    assertThrows(IllegalArgumentException.class, () -> fixed.play(2.505, 1));
+  }
+}
@@ -103,6 +103,36 @@ class ScratchGameTest {
     );
   }
 
+  @Test
+  @DisplayName("Should keep the same combinations when the matrix is evaluated again")
+  void shouldNotRepeatCombinationsOnReevaluation() throws JsonProcessingException {
+    // A fills the last row and the first cell: same_symbol_4 and one horizontal line
+    List<StandardSymbols> standardSymbols = List.of(
+        new StandardSymbols(0, 0, Map.of("A", 1)),
+        new StandardSymbols(0, 1, Map.of("B", 1)),
+        new StandardSymbols(0, 2, Map.of("C", 1)),
+        new StandardSymbols(1, 0, Map.of("D", 1)),
+        new StandardSymbols(1, 1, Map.of("E", 1)),
+        new StandardSymbols(1, 2, Map.of("F", 1)),
+        new StandardSymbols(2, 0, Map.of("A", 1)),
+        new StandardSymbols(2, 1, Map.of("A", 1)),
+        new StandardSymbols(2, 2, Map.of("A", 1))
+    );
+    config.getProbabilities().setStandardSymbols(standardSymbols);
+    config.getProbabilities().getBonusSymbols().setSymbols(new HashMap<>());
+    scratchGame = new ScratchGame(config, bettingAmount);
+
+    scratchGame.generateMatrix();
+    scratchGame.applyWinningCombinations();
+    String once = scratchGame.extractOutput();
+    scratchGame.applyWinningCombinations();
+    scratchGame.applyWinningLinearSymbols();
+
+    assertEquals(once, scratchGame.extractOutput());
+    // reward = 100 * 5 (A) * 1.5 (same_symbol_4) * 2 (same_symbols_horizontally)
+    assertEquals(1500, scratchGame.calculateReward());
+  }
+
   @Test
   @DisplayName("Should calculate correct reward for standard symbols (same_symbol_3)")
   void shouldCalculateStandardReward_same_symbol_3() {
@@ -123,6 +153,7 @@ class ScratchGameTest {
 
     // no bonus symbols
     config.getProbabilities().getBonusSymbols().setSymbols(new HashMap<>());
+    scratchGame = new ScratchGame(config, bettingAmount);
 
     scratchGame.generateMatrix();
     scratchGame.applyWinningCombinations();
@@ -153,6 +184,7 @@ class ScratchGameTest {
 
     // no bonus symbols
     config.getProbabilities().getBonusSymbols().setSymbols(new HashMap<>());
+    scratchGame = new ScratchGame(config, bettingAmount);
 
     scratchGame.generateMatrix();
     scratchGame.applyWinningCombinations();
@@ -183,6 +215,7 @@ class ScratchGameTest {
 
     // no bonus symbols
     config.getProbabilities().getBonusSymbols().setSymbols(new HashMap<>());
+    scratchGame = new ScratchGame(config, bettingAmount);
 
     scratchGame.generateMatrix();
     scratchGame.applyWinningCombinations();
@@ -213,6 +246,7 @@ class ScratchGameTest {
 
     // no bonus symbols
     config.getProbabilities().getBonusSymbols().setSymbols(new HashMap<>());
+    scratchGame = new ScratchGame(config, bettingAmount);
 
     scratchGame.generateMatrix();
     scratchGame.applyWinningCombinations();
@@ -228,6 +262,7 @@ class ScratchGameTest {
   @DisplayName("Should handle bonus symbols if it appears")
   void shouldHandleBonusSymbols() {
     config.getProbabilities().getBonusSymbols().setSymbols(Map.of("10x", 1));
+    scratchGame = new ScratchGame(config, bettingAmount);
 
     scratchGame.generateMatrix();
     scratchGame.applyWinningCombinations();
@@ -247,6 +282,7 @@ class ScratchGameTest {
         new StandardSymbols(2, 2, Map.of("C", 1))
     );
     config.getProbabilities().setStandardSymbols(standardSymbols);
+    scratchGame = new ScratchGame(config, bettingAmount);
 
     scratchGame.generateMatrix();
     scratchGame.applyWinningCombinations();
@@ -0,0 +1,215 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.limix.ScratchGame;
+import org.limix.engine.CompiledGame;
+import org.limix.entities.GameConfig;
+import org.limix.random.RandomSource;
+import org.limix.simulation.ShardPlan;
+import org.limix.simulation.SimulationReport;
+import org.limix.simulation.SimulationShard;
+import org.limix.simulation.Simulator;
+
+class SimulationShardTest {
+
+  private static final long TICKETS = 300_000;
+
+  @TempDir
+  Path directory;
+
+  private final CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+  private final Simulator simulator = new Simulator(game);
+
+  // the report without its timing
+  private static JsonNode withoutTiming(SimulationReport report) {
+    ObjectNode json = new ObjectMapper().valueToTree(report);
+    json.remove("elapsed_millis");
+    return json;
+  }
+
+  private SimulationShard shard(ShardPlan plan, int shard) {
+    return new SimulationShard(simulator, plan, shard, 100, 42,
+        SimulationShard.file(directory, shard, plan.shards()));
+  }
+
+  private List<Path> files(ShardPlan plan) {
+    List<Path> files = new ArrayList<>();
+    for (int shard = plan.shards() - 1; shard >= 0; shard--) {
+      files.add(SimulationShard.file(directory, shard, plan.shards()));
+    }
+    return files;
+  }
+
+  private SimulationReport merge(ShardPlan plan) throws IOException {
+    return SimulationShard.merge(simulator, 100, 42, TICKETS, files(plan));
+  }
+
+  // runs the command line in a JVM of its own, with the output and errors in files
+  private Process scratchGame(String... args) throws IOException {
+    List<String> command = new ArrayList<>(List.of(
+        ProcessHandle.current().info().command().orElse("java"),
+        "-cp", System.getProperty("java.class.path"), ScratchGame.class.getName()));
+    command.addAll(List.of(args));
+    return new ProcessBuilder(command)
+        .redirectOutput(directory.resolve("out.txt").toFile())
+        .redirectError(directory.resolve("err.txt").toFile())
+        .start();
+  }
+
+  @Test
+  @DisplayName("Should split the tickets into contiguous shards")
+  void shouldPlanShards() {
+    ShardPlan plan = ShardPlan.of(TICKETS, 5);
+
+    assertEquals(5, plan.shards());
+    assertEquals(0, plan.from(0));
+    for (int shard = 1; shard < plan.shards(); shard++) {
+      assertEquals(plan.to(shard - 1), plan.from(shard));
+    }
+    assertEquals(TICKETS, plan.to(4));
+    assertThrows(IllegalArgumentException.class, () -> ShardPlan.of(1000, 2));
+  }
+
+  @Test
+  @DisplayName("Should merge the shards into the report of a single-process run")
+  void shouldMatchSingleProcessRun() throws IOException {
+    ShardPlan plan = ShardPlan.of(TICKETS, 5);
+    for (int shard = 0; shard < plan.shards(); shard++) {
+      assertTrue(shard(plan, shard).run(Duration.ZERO, Long.MAX_VALUE));
+    }
+
+    SimulationReport merged = merge(plan);
+    SimulationReport single = simulator.run(TICKETS, 100, 42, 2);
+
+    assertEquals(withoutTiming(single), withoutTiming(merged));
+  }
+
+  @Test
+  @DisplayName("Should resume a stopped shard from its checkpoint")
+  void shouldResumeFromCheckpoint() throws IOException {
+    ShardPlan plan = ShardPlan.of(TICKETS, 2);
+    assertTrue(shard(plan, 0).run(Duration.ofHours(1), Long.MAX_VALUE));
+    assertFalse(shard(plan, 1).run(Duration.ofHours(1), 3));
+    assertThrows(IOException.class, () -> merge(plan));
+
+    assertFalse(shard(plan, 1).run(Duration.ZERO, 2));
+    assertTrue(shard(plan, 1).run(Duration.ZERO, Long.MAX_VALUE));
+    assertTrue(shard(plan, 1).run(Duration.ZERO, 0));
+
+    assertEquals(withoutTiming(simulator.run(TICKETS, 100, 42, 1)),
+        withoutTiming(merge(plan)));
+  }
+
+  @Test
+  @DisplayName("Should not merge shards of another run")
+  void shouldRejectOtherRuns() throws IOException {
+    ShardPlan plan = ShardPlan.of(TICKETS, 2);
+    for (int shard = 0; shard < plan.shards(); shard++) {
+      assertTrue(shard(plan, shard).run(Duration.ZERO, Long.MAX_VALUE));
+    }
+
+    assertThrows(IOException.class,
+        () -> SimulationShard.merge(simulator, 100, 43, TICKETS, files(plan)));
+    assertThrows(IOException.class,
+        () -> SimulationShard.merge(simulator, 10, 42, TICKETS, files(plan)));
+    assertThrows(IOException.class,
+        () -> SimulationShard.merge(simulator, 100, 42, 2 * TICKETS, files(plan)));
+    assertThrows(IOException.class, () -> SimulationShard.merge(
+        new Simulator(game, RandomSource.of("L64X128MixRandom")), 100, 42, TICKETS, files(plan)));
+
+    // the same names with one other weight, neither merged nor resumed
+    GameConfig config = TestConfigs.standard();
+    config.getProbabilities().getBonusSymbols().getSymbols().put("MISS", 6);
+    Simulator reweighted = new Simulator(CompiledGame.compile(config));
+    assertThrows(IOException.class,
+        () -> SimulationShard.merge(reweighted, 100, 42, TICKETS, files(plan)));
+    assertThrows(IOException.class, () -> new SimulationShard(reweighted, plan, 0, 100, 42,
+        SimulationShard.file(directory, 0, 2)).run(Duration.ZERO, Long.MAX_VALUE));
+  }
+
+  @Test
+  @DisplayName("Should play every shard in a process of its own and fail with any shard")
+  void shouldRunShardProcesses() throws Exception {
+    Path config = directory.resolve("config.json");
+    new ObjectMapper().writeValue(config.toFile(), TestConfigs.standard());
+    Path shards = directory.resolve("shards");
+    String[] args = {"--config", config.toString(), "--simulate", String.valueOf(TICKETS),
+        "--seed", "42", "--shards", "3", "--shard-dir", shards.toString()};
+
+    Process run = scratchGame(args);
+    assertEquals(0, run.waitFor(), Files.readString(directory.resolve("err.txt")));
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode report = (ObjectNode) mapper.readTree(directory.resolve("out.txt").toFile());
+    report.remove("elapsed_millis");
+    JsonNode single = withoutTiming(simulator.run(TICKETS, 100, 42, 2));
+    assertEquals(mapper.readTree(mapper.writeValueAsString(single)), report);
+
+    // a checkpoint of another seed makes its shard fail, and the run with it
+    Files.delete(SimulationShard.file(shards, 1, 3));
+    ShardPlan plan = ShardPlan.of(TICKETS, 3);
+    assertFalse(new SimulationShard(simulator, plan, 1, 100, 7,
+        SimulationShard.file(shards, 1, 3)).run(Duration.ofHours(1), 1));
+    Process failing = scratchGame(args);
+    assertEquals(1, failing.waitFor());
+    assertTrue(Files.readString(directory.resolve("err.txt")).contains("Shards [1] failed"));
+
+    // a sharded run needs the seed its shards play
+    Process unseeded = scratchGame("--config", config.toString(), "--simulate", "1000",
+        "--shards", "2", "--shard-dir", shards.toString());
+    assertEquals(1, unseeded.waitFor());
+  }
+
+  @Test
+  @DisplayName("Should merge shard files played elsewhere from the command line")
+  void shouldMergeShardFiles() throws Exception {
+    Path config = directory.resolve("config.json");
+    new ObjectMapper().writeValue(config.toFile(), TestConfigs.standard());
+    ShardPlan plan = ShardPlan.of(TICKETS, 2);
+    for (int shard = 0; shard < plan.shards(); shard++) {
+      assertTrue(shard(plan, shard).run(Duration.ZERO, Long.MAX_VALUE));
+    }
+    String files = SimulationShard.file(directory, 0, 2) + ","
+        + SimulationShard.file(directory, 1, 2);
+
+    Process merge = scratchGame("--config", config.toString(), "--merge-shards", files,
+        "--seed", "42", "--simulate", String.valueOf(TICKETS));
+    assertEquals(0, merge.waitFor(), Files.readString(directory.resolve("err.txt")));
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode report = (ObjectNode) mapper.readTree(directory.resolve("out.txt").toFile());
+    report.remove("elapsed_millis");
+    JsonNode single = withoutTiming(simulator.run(TICKETS, 100, 42, 2));
+    assertEquals(mapper.readTree(mapper.writeValueAsString(single)), report);
+
+    // the files are read, not replaced by a simulation of their own
+    Process missing = scratchGame("--config", config.toString(), "--merge-shards",
+        directory.resolve("missing.bin").toString(), "--seed", "42", "--simulate", "1000");
+    assertEquals(1, missing.waitFor());
+  }
+
+  @Test
+  @DisplayName("Should not merge an incomplete set of shards")
+  void shouldRejectMissingShards() throws IOException {
+    ShardPlan plan = ShardPlan.of(TICKETS, 3);
+    assertTrue(shard(plan, 0).run(Duration.ZERO, Long.MAX_VALUE));
+    assertTrue(shard(plan, 2).run(Duration.ZERO, Long.MAX_VALUE));
+
+    assertThrows(IOException.class, () -> SimulationShard.merge(simulator, 100, 42, TICKETS,
+        List.of(SimulationShard.file(directory, 0, 3), SimulationShard.file(directory, 2, 3))));
+    assertThrows(IOException.class, () -> new SimulationShard(simulator, plan, 0, 100, 7,
+        SimulationShard.file(directory, 0, 3)).run(Duration.ZERO, Long.MAX_VALUE));
+  }
+}
@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.simulation.SimulationReport;
+import org.limix.simulation.Simulator;
+import org.limix.symboltypes.StandardSymbols;
+
+class SimulatorTest {
+
+  @Test
+  @DisplayName("Should produce the same report for a seed regardless of parallelism")
+  void shouldBeDeterministicAcrossParallelism() {
+    Simulator simulator = new Simulator(CompiledGame.compile(TestConfigs.standard()));
+
+    SimulationReport single = simulator.run(200_000, 100, 42, 1);
+    SimulationReport parallel = simulator.run(200_000, 100, 42, 4);
+
+    assertEquals(single.totalReward(), parallel.totalReward());
+    assertEquals(single.rewardVariance(), parallel.rewardVariance());
+    assertEquals(single.maxWin(), parallel.maxWin());
+    assertEquals(single.combinationTriggerRates(), parallel.combinationTriggerRates());
+    assertEquals(single.bonusSymbolTriggerRates(), parallel.bonusSymbolTriggerRates());
+  }
+
+  @Test
+  @DisplayName("Should match the reward of a fixed matrix for every ticket")
+  void shouldReportFixedMatrix() {
+    GameConfig config = TestConfigs.standard();
+    config.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("F", 1))));
+    config.getProbabilities().getBonusSymbols().setSymbols(Map.of("+500", 1));
+    // only same_symbols, so the bonus position does not change the reward
+    config.getWinCombinations().values()
+        .removeIf(winCombination -> "linear_symbols".equals(winCombination.getWhen()));
+    CompiledGame game = CompiledGame.compile(config);
+
+    Ticket ticket = new Ticket(game);
+    ticket.play(new SplittableRandom(1));
+    double expected = ticket.reward(100);
+    assertEquals(100 * 1.5 * 10 + 500, expected);
+
+    SimulationReport report = new Simulator(game).run(50_000, 100, 7, 2);
+    assertEquals(50_000, report.tickets());
+    assertEquals(1.0, report.hitFrequency());
+    assertEquals(expected, report.maxWin());
+    assertEquals(expected / 100, report.rtp(), 1e-9);
+    assertEquals(0, report.rewardVariance(), 1e-6);
+    assertEquals(1.0, report.bonusSymbolTriggerRates().get("+500"));
+    assertEquals(1.0, report.combinationTriggerRates().get("same_symbol_8_times"));
+  }
+
+  @Test
+  @DisplayName("Should report rates within their bounds")
+  void shouldReportRates() {
+    SimulationReport report = new Simulator(CompiledGame.compile(TestConfigs.standard()))
+        .run(100_000, 1, 3);
+
+    assertTrue(report.rtp() > 0);
+    assertTrue(report.hitFrequency() > 0 && report.hitFrequency() < 1);
+    double bonusRate = report.bonusSymbolTriggerRates().values().stream()
+        .mapToDouble(Double::doubleValue).sum();
+    assertEquals(1.0, bonusRate, 1e-12);
+    assertThrows(IllegalArgumentException.class,
+        () -> new Simulator(CompiledGame.compile(TestConfigs.standard())).run(0, 1, 3));
+  }
+}
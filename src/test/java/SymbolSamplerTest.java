@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.sampling.AliasSampler;
+import org.limix.sampling.CumulativeSampler;
+import org.limix.sampling.SymbolSampler;
+
+class SymbolSamplerTest {
+
+  private static final int DRAWS = 1_000_000;
+
+  @Test
+  @DisplayName("Should pick the cumulative sampler for tiny tables and alias tables otherwise")
+  void shouldPickSamplerBySize() {
+    assertInstanceOf(CumulativeSampler.class,
+        SymbolSampler.of(new int[]{0, 1, 2}, new int[]{1, 2, 3}));
+    assertInstanceOf(AliasSampler.class,
+        SymbolSampler.of(IntStream.range(0, 20).toArray(), IntStream.range(1, 21).toArray()));
+  }
+
+  @Test
+  @DisplayName("Cumulative sampler frequencies should match the configured weights")
+  void shouldMatchWeightsCumulative() {
+    int[] weights = {1, 2, 3, 4, 5, 6};
+    // chi-square critical value for 5 degrees of freedom at p = 0.001
+    assertChiSquare(new CumulativeSampler(values(weights.length), weights), weights, 20.52);
+  }
+
+  @Test
+  @DisplayName("Alias sampler frequencies should match the configured weights")
+  void shouldMatchWeightsAlias() {
+    int[] weights = {1, 200, 3, 40, 5, 60, 7, 80, 9, 100, 11, 1, 13, 140, 15, 160, 17, 180, 19, 2};
+    // chi-square critical value for 19 degrees of freedom at p = 0.001
+    assertChiSquare(new AliasSampler(values(weights.length), weights), weights, 43.82);
+  }
+
+  @Test
+  @DisplayName("Should never draw values with zero weight")
+  void shouldSkipZeroWeights() {
+    int[] weights = {0, 5, 0, 0, 5, 0, 0, 0, 0, 1};
+    SymbolSampler sampler = new AliasSampler(values(weights.length), weights);
+    SplittableRandom rng = new SplittableRandom(7);
+    for (int i = 0; i < 100_000; i++) {
+      int value = sampler.sample(rng);
+      assertTrue(weights[value] > 0, "drew zero-weight value " + value);
+    }
+  }
+
+  @Test
+  @DisplayName("Should reject tables without positive weight")
+  void shouldRejectInvalidWeights() {
+    assertThrows(IllegalArgumentException.class,
+        () -> SymbolSampler.of(new int[]{0, 1}, new int[]{0, 0}));
+    assertThrows(IllegalArgumentException.class,
+        () -> SymbolSampler.of(new int[]{0, 1}, new int[]{3, -1}));
+  }
+
+  private static int[] values(int size) {
+    return IntStream.range(0, size).toArray();
+  }
+
+  private static void assertChiSquare(SymbolSampler sampler, int[] weights, double critical) {
+    SplittableRandom rng = new SplittableRandom(42);
+    long[] observed = new long[weights.length];
+    for (int i = 0; i < DRAWS; i++) {
+      observed[sampler.sample(rng)]++;
+    }
+
+    double total = IntStream.of(weights).sum();
+    double chiSquare = 0;
+    for (int i = 0; i < weights.length; i++) {
+      double expected = DRAWS * weights[i] / total;
+      chiSquare += (observed[i] - expected) * (observed[i] - expected) / expected;
+    }
+    assertEquals(DRAWS, LongStream.of(observed).sum());
+    assertTrue(chiSquare < critical, "chi-square " + chiSquare + " exceeds " + critical);
+  }
+}
@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.limix.entities.GameConfig;
+import org.limix.entities.Probabilities;
+import org.limix.entities.Symbols;
+import org.limix.entities.WinCombinations;
+import org.limix.symboltypes.BonusSymbols;
+import org.limix.symboltypes.StandardSymbols;
+
+// shared game configurations for the engine tests
+final class TestConfigs {
+
+  private TestConfigs() {
+  }
+
+  // the 3x3 reference game: six standard symbols, five bonus symbols and the usual
+  // same_symbols, horizontal, vertical and diagonal combinations
+  static GameConfig standard() {
+    return standard(3, 3);
+  }
+
+  static GameConfig standard(int rows, int columns) {
+    GameConfig config = new GameConfig();
+    config.setRows(rows);
+    config.setColumns(columns);
+
+    Map<String, Symbols> symbols = new LinkedHashMap<>();
+    symbols.put("A", new Symbols(50, "standard", 0, null));
+    symbols.put("B", new Symbols(25, "standard", 0, null));
+    symbols.put("C", new Symbols(10, "standard", 0, null));
+    symbols.put("D", new Symbols(5, "standard", 0, null));
+    symbols.put("E", new Symbols(3, "standard", 0, null));
+    symbols.put("F", new Symbols(1.5, "standard", 0, null));
+    symbols.put("10x", new Symbols(10, "bonus", 0, "multiply_reward"));
+    symbols.put("5x", new Symbols(5, "bonus", 0, "multiply_reward"));
+    symbols.put("+1000", new Symbols(0, "bonus", 1000, "extra_bonus"));
+    symbols.put("+500", new Symbols(0, "bonus", 500, "extra_bonus"));
+    symbols.put("MISS", new Symbols(0, "bonus", 0, "miss"));
+    config.setSymbols(symbols);
+
+    List<StandardSymbols> standardSymbols = new ArrayList<>();
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < columns; c++) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        weights.put("A", 1);
+        weights.put("B", 2);
+        weights.put("C", 3);
+        weights.put("D", 4);
+        weights.put("E", 5);
+        weights.put("F", 6);
+        standardSymbols.add(new StandardSymbols(r, c, weights));
+      }
+    }
+    Map<String, Integer> bonusWeights = new LinkedHashMap<>();
+    bonusWeights.put("10x", 1);
+    bonusWeights.put("5x", 2);
+    bonusWeights.put("+1000", 3);
+    bonusWeights.put("+500", 4);
+    bonusWeights.put("MISS", 5);
+    config.setProbabilities(new Probabilities(standardSymbols, new BonusSymbols(bonusWeights)));
+
+    Map<String, WinCombinations> winCombinations = new LinkedHashMap<>();
+    double[] sameMultipliers = {1, 1.5, 2, 3, 5, 10, 20};
+    for (int count = 3; count - 3 < sameMultipliers.length && count <= rows * columns; count++) {
+      winCombinations.put("same_symbol_" + count + "_times", new WinCombinations(
+          sameMultipliers[count - 3], "same_symbols", count, "same_symbols", null));
+    }
+    List<List<String>> horizontal = new ArrayList<>();
+    for (int r = 0; r < rows; r++) {
+      List<String> area = new ArrayList<>();
+      for (int c = 0; c < columns; c++) {
+        area.add(r + ":" + c);
+      }
+      horizontal.add(area);
+    }
+    List<List<String>> vertical = new ArrayList<>();
+    for (int c = 0; c < columns; c++) {
+      List<String> area = new ArrayList<>();
+      for (int r = 0; r < rows; r++) {
+        area.add(r + ":" + c);
+      }
+      vertical.add(area);
+    }
+    winCombinations.put("same_symbols_horizontally", new WinCombinations(
+        2, "linear_symbols", 0, "horizontally_linear_symbols", horizontal));
+    winCombinations.put("same_symbols_vertically", new WinCombinations(
+        2, "linear_symbols", 0, "vertically_linear_symbols", vertical));
+    if (rows == columns) {
+      List<String> leftToRight = new ArrayList<>();
+      List<String> rightToLeft = new ArrayList<>();
+      for (int i = 0; i < rows; i++) {
+        leftToRight.add(i + ":" + i);
+        rightToLeft.add(i + ":" + (columns - 1 - i));
+      }
+      winCombinations.put("same_symbols_diagonally_left_to_right", new WinCombinations(
+          5, "linear_symbols", 0, "ltr_diagonally_linear_symbols", List.of(leftToRight)));
+      winCombinations.put("same_symbols_diagonally_right_to_left", new WinCombinations(
+          5, "linear_symbols", 0, "rtl_diagonally_linear_symbols", List.of(rightToLeft)));
+    }
+    config.setWinCombinations(winCombinations);
+    return config;
+  }
+}
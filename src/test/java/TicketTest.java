@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.entities.WinCombinations;
+import org.limix.symboltypes.StandardSymbols;
+
+class TicketTest {
+
+  @Test
+  @DisplayName("Should match the cell-by-cell evaluation on grids within one mask word")
+  void shouldMatchReferenceOnSmallGrid() {
+    assertMatchesReference(CompiledGame.compile(TestConfigs.standard()), 20_000);
+  }
+
+  @Test
+  @DisplayName("Should match the cell-by-cell evaluation on grids spanning several mask words")
+  void shouldMatchReferenceOnLargeGrid() {
+    // two symbols only so that rows and columns of the 9x9 grid still line up
+    GameConfig config = TestConfigs.standard(9, 9);
+    config.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("A", 1, "B", 20))));
+    CompiledGame game = CompiledGame.compile(config);
+
+    assertEquals(2, game.maskWords());
+    assertMatchesReference(game, 20_000);
+  }
+
+  @Test
+  @DisplayName("Should match the cell-by-cell evaluation with many overlapping areas")
+  void shouldMatchReferenceWithManyAreas() {
+    GameConfig config = TestConfigs.standard(12, 12);
+    config.getProbabilities().setStandardSymbols(
+        List.of(new StandardSymbols(0, 0, Map.of("A", 1, "B", 2))));
+    // random areas in any cell order, sharing prefixes and sometimes repeated
+    SplittableRandom rng = new SplittableRandom(3);
+    List<List<String>> areas = new ArrayList<>();
+    for (int i = 0; i < 2_000; i++) {
+      List<String> area = new ArrayList<>();
+      for (int cell = 0, size = 1 + rng.nextInt(4); cell < size; cell++) {
+        area.add(rng.nextInt(3) + ":" + rng.nextInt(12));
+      }
+      areas.add(area);
+    }
+    config.getWinCombinations().put("random_areas",
+        new WinCombinations(3, "linear_symbols", 0, "random_areas", areas));
+
+    assertMatchesReference(CompiledGame.compile(config), 5_000);
+  }
+
+  @Test
+  @DisplayName("Should rebuild the masks when a matrix is loaded")
+  void shouldRebuildMasksOnLoad() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    Ticket ticket = new Ticket(game);
+    int a = game.symbolId("A");
+    int b = game.symbolId("B");
+
+    ticket.load(new int[]{a, a, a, b, b, b, a, b, a});
+    ticket.evaluate();
+    assertEquals(reference(game, ticket), hits(ticket));
+
+    ticket.load(new int[]{b, b, b, b, b, b, b, b, b});
+    ticket.evaluate();
+    assertEquals(reference(game, ticket), hits(ticket));
+    assertTrue(hits(ticket).stream().noneMatch(hit -> hit.startsWith("A/")));
+  }
+
+  private static void assertMatchesReference(CompiledGame game, int plays) {
+    Ticket ticket = new Ticket(game);
+    SplittableRandom rng = new SplittableRandom(11);
+    int wins = 0;
+    for (int i = 0; i < plays; i++) {
+      ticket.play(rng);
+      List<String> expected = reference(game, ticket);
+      assertEquals(expected, hits(ticket));
+      wins += expected.isEmpty() ? 0 : 1;
+    }
+    assertTrue(wins > 0);
+  }
+
+  private static List<String> hits(Ticket ticket) {
+    CompiledGame game = ticket.game();
+    List<String> hits = new ArrayList<>();
+    for (int i = 0; i < ticket.hitCount(); i++) {
+      hits.add(game.symbolName(ticket.hitSymbol(i)) + "/"
+          + game.combinationName(ticket.hitCombination(i)));
+    }
+    return hits;
+  }
+
+  // straightforward evaluation over the cells, in the same hit order as the ticket
+  private static List<String> reference(CompiledGame game, Ticket ticket) {
+    List<String> hits = new ArrayList<>();
+    for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+      if (!game.isStandard(symbol)) {
+        continue;
+      }
+      int count = 0;
+      for (int cell = 0; cell < game.cellCount(); cell++) {
+        count += ticket.cell(cell) == symbol ? 1 : 0;
+      }
+      int combination = count > 0 ? game.sameSymbolsCombination(count) : CompiledGame.EMPTY;
+      if (combination != CompiledGame.EMPTY) {
+        hits.add(game.symbolName(symbol) + "/" + game.combinationName(combination));
+      }
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      int symbol = ticket.cell(game.areaCell(area, 0));
+      boolean matched = symbol != CompiledGame.EMPTY && game.isStandard(symbol);
+      for (int i = 1; i < game.areaSize(area) && matched; i++) {
+        matched = ticket.cell(game.areaCell(area, i)) == symbol;
+      }
+      if (matched) {
+        hits.add(game.symbolName(symbol) + "/" + game.combinationName(game.areaCombination(area)));
+      }
+    }
+    return hits;
+  }
+}
@@ -0,0 +1,261 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.engine.CompiledGame;
+import org.limix.engine.GameEngine;
+import org.limix.engine.PlayBatch;
+import org.limix.engine.PlayResult;
+import org.limix.engine.Ticket;
+import org.limix.entities.GameConfig;
+import org.limix.entities.WinCombinations;
+import org.limix.output.BinaryTicketReader;
+import org.limix.output.BinaryTicketWriter;
+import org.limix.output.ColumnarTicketReader;
+import org.limix.output.ColumnarTicketWriter;
+import org.limix.output.NdjsonTicketWriter;
+
+class TicketWriterTest {
+
+  private final GameEngine engine = new GameEngine(TestConfigs.standard());
+
+  private List<PlayResult> play(int count) {
+    SplittableRandom rng = new SplittableRandom(9);
+    List<PlayResult> results = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      results.add(engine.play(100, rng));
+    }
+    return results;
+  }
+
+  @Test
+  @DisplayName("Should write one compact JSON object per line with the output fields")
+  void shouldWriteNdjson() throws Exception {
+    List<PlayResult> results = play(500);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (NdjsonTicketWriter writer = new NdjsonTicketWriter(out)) {
+      for (PlayResult result : results) {
+        writer.write(result, result.reward());
+      }
+    }
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(results.size(), lines.length);
+    ObjectMapper mapper = new ObjectMapper();
+    for (int i = 0; i < lines.length; i++) {
+      PlayResult result = results.get(i);
+      JsonNode node = mapper.readTree(lines[i]);
+      assertEquals(mapper.valueToTree(result.symbolMatrix()), node.get("matrix"));
+      assertEquals(mapper.valueToTree(result.appliedWinningCombinations()),
+          node.get("applied_winning_combinations"));
+      assertEquals(result.appliedBonusSymbol(), node.get("applied_bonus_symbol").asText());
+      assertEquals(result.reward(), node.get("reward").asDouble());
+      assertEquals(result.seed(), node.get("seed").asLong());
+    }
+  }
+
+  @Test
+  @DisplayName("Should read back the binary records that were written")
+  void shouldRoundTripBinary() throws Exception {
+    List<PlayResult> results = play(2_000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BinaryTicketWriter writer =
+        new BinaryTicketWriter(Channels.newChannel(out), engine.game())) {
+      for (PlayResult result : results) {
+        writer.write(result, result.reward());
+      }
+    }
+
+    try (BinaryTicketReader reader =
+        new BinaryTicketReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(3, reader.rows());
+      assertEquals("A", reader.symbolNames().get(0));
+      for (PlayResult result : results) {
+        BinaryTicketReader.Record record = reader.next();
+        assertArrayEquals(result.cells(), record.cells());
+        assertEquals(result.bonusSymbol(), record.bonusSymbol());
+        assertEquals(result.hitCount(), record.hitSymbols().length);
+        for (int i = 0; i < result.hitCount(); i++) {
+          assertEquals(result.hitSymbol(i), record.hitSymbols()[i]);
+          assertEquals(result.hitCombination(i), record.hitCombinations()[i]);
+        }
+        assertEquals(result.reward(), record.reward());
+        assertEquals(result.seed(), record.seed());
+      }
+      assertNull(reader.next());
+    }
+  }
+
+  // the reference game with count combinations of long names that never win
+  private static GameConfig withLongNames(int count, int length) {
+    GameConfig config = TestConfigs.standard();
+    for (int i = 0; i < count; i++) {
+      config.getWinCombinations().put("x".repeat(length) + i,
+          new WinCombinations(2, "same_symbols", 100, "same_symbols", null));
+    }
+    return config;
+  }
+
+  @Test
+  @DisplayName("Should write headers of any size and reject games the formats cannot hold")
+  void shouldWriteLargeHeaders() throws Exception {
+    GameEngine named = new GameEngine(withLongNames(300, 1_000));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BinaryTicketWriter writer =
+        new BinaryTicketWriter(Channels.newChannel(out), named.game())) {
+      PlayResult result = named.play(100, 1);
+      writer.write(result, result.reward());
+    }
+    try (BinaryTicketReader reader =
+        new BinaryTicketReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(named.game().combinationCount(), reader.combinationNames().size());
+      assertEquals(named.game().combinationName(named.game().combinationCount() - 1),
+          reader.combinationNames().get(named.game().combinationCount() - 1));
+      assertEquals(named.play(100, 1).reward(), reader.next().reward());
+    }
+
+    out.reset();
+    try (ColumnarTicketWriter writer =
+        new ColumnarTicketWriter(Channels.newChannel(out), named.game())) {
+      writer.write(named.play(100, 1), named.play(100, 1).reward());
+    }
+    try (ColumnarTicketReader reader =
+        new ColumnarTicketReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(named.game().combinationCount(), reader.combinationNames().size());
+      assertTrue(reader.next(new PlayBatch(named.game(), 1)));
+    }
+
+    CompiledGame longName = CompiledGame.compile(withLongNames(1, 70_000));
+    assertThrows(IllegalArgumentException.class, () -> new BinaryTicketWriter(
+        Channels.newChannel(new ByteArrayOutputStream()), longName));
+    assertThrows(IllegalArgumentException.class, () -> new ColumnarTicketWriter(
+        Channels.newChannel(new ByteArrayOutputStream()), longName));
+  }
+
+  @Test
+  @DisplayName("Should store any number of wins and reject counts above the game's bound")
+  void shouldBoundWinCounts() throws Exception {
+    GameConfig manyAreas = TestConfigs.standard();
+    manyAreas.getWinCombinations().put("everywhere", new WinCombinations(2, "linear_symbols", 0,
+        "everywhere", Collections.nCopies(70_000, List.of("0:0"))));
+    GameEngine everywhere = new GameEngine(manyAreas);
+    List<PlayResult> results = new ArrayList<>();
+    for (long seed = 0; seed < 20; seed++) {
+      results.add(everywhere.play(100, seed));
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BinaryTicketWriter writer =
+        new BinaryTicketWriter(Channels.newChannel(out), everywhere.game())) {
+      for (PlayResult result : results) {
+        writer.write(result, result.reward());
+      }
+    }
+    try (BinaryTicketReader reader =
+        new BinaryTicketReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(everywhere.game().maxHits(), reader.maxHits());
+      for (PlayResult result : results) {
+        BinaryTicketReader.Record record = reader.next();
+        assertEquals(result.hitCount(), record.hitSymbols().length);
+        assertEquals(result.reward(), record.reward());
+      }
+      assertNull(reader.next());
+    }
+    assertTrue(results.stream().anyMatch(result -> result.hitCount() > 0xFFFF));
+
+    // a record of the reference game claiming more wins than it can have
+    out.reset();
+    new BinaryTicketWriter(Channels.newChannel(out), engine.game()).close();
+    out.write(new byte[engine.game().cellCount() + 1]);
+    out.write(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F});
+    try (BinaryTicketReader reader =
+        new BinaryTicketReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertThrows(IOException.class, reader::next);
+    }
+  }
+
+  @Test
+  @DisplayName("Should read back the columnar row groups that were written")
+  void shouldRoundTripColumnar() throws Exception {
+    List<PlayResult> results = play(10_000);
+    PlayBatch written = engine.playBatch(new PlayBatch(engine.game(), 3_000), 3_000, 100, 5, 0);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ColumnarTicketWriter writer =
+        new ColumnarTicketWriter(Channels.newChannel(out), engine.game())) {
+      for (PlayResult result : results) {
+        writer.write(result, result.reward());
+      }
+      writer.write(written);
+    }
+
+    try (ColumnarTicketReader reader =
+        new ColumnarTicketReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(3, reader.columns());
+      assertEquals(engine.game().combinationCount(), reader.combinationNames().size());
+      PlayBatch batch = new PlayBatch(engine.game(), 1_000);
+      int read = 0;
+      while (read < results.size() && reader.next(batch)) {
+        for (int i = 0; i < batch.size(); i++) {
+          PlayResult result = results.get(read + i);
+          for (int cell = 0; cell < engine.game().cellCount(); cell++) {
+            assertEquals(result.cell(cell), batch.cell(i, cell));
+          }
+          assertEquals(result.isWin(), batch.isWin(i));
+          assertEquals(result.bet(), batch.bet());
+          assertEquals(result.bonusSymbol(), batch.bonusSymbol(i));
+          assertEquals(result.reward(), batch.reward(i));
+          assertEquals(result.seed(), batch.seed(i));
+        }
+        read += batch.size();
+      }
+      assertEquals(results.size(), read);
+
+      PlayBatch group = new PlayBatch(engine.game(), 3_000);
+      assertTrue(reader.next(group));
+      assertEquals(3_000, group.size());
+      assertArrayEquals(written.cellBytes(), group.cellBytes());
+      assertArrayEquals(written.combinations(), group.combinations());
+      assertArrayEquals(written.rewards(), group.rewards());
+      assertEquals(100, group.bet());
+      assertFalse(reader.next(group));
+    }
+
+    // a play at another bet starts a new row group
+    out.reset();
+    Ticket ticket = engine.playInPlace(7);
+    try (ColumnarTicketWriter writer =
+        new ColumnarTicketWriter(Channels.newChannel(out), engine.game())) {
+      writer.write(ticket, 2.5, engine.reward(ticket, 2.5));
+      writer.write(ticket, 2.5, engine.reward(ticket, 2.5));
+      writer.write(ticket, 10, engine.reward(ticket, 10));
+      assertThrows(IllegalArgumentException.class, () -> writer.write(ticket, 1));
+    }
+    try (ColumnarTicketReader reader =
+        new ColumnarTicketReader(new ByteArrayInputStream(out.toByteArray()))) {
+      PlayBatch group = new PlayBatch(engine.game(), 10);
+      assertTrue(reader.next(group));
+      assertEquals(2, group.size());
+      assertEquals(2.5, group.bet());
+      assertTrue(reader.next(group));
+      assertEquals(1, group.size());
+      assertEquals(10, group.bet());
+      assertEquals(engine.reward(ticket, 10), group.reward(0));
+      assertFalse(reader.next(group));
+    }
+  }
+}
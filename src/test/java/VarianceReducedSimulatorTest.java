@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.limix.analysis.AnalysisReport;
+import org.limix.analysis.ExactAnalyzer;
+import org.limix.engine.CompiledGame;
+import org.limix.entities.GameConfig;
+import org.limix.entities.Symbols;
+import org.limix.random.RandomSource;
+import org.limix.simulation.VarianceReducedReport;
+import org.limix.simulation.VarianceReducedSimulator;
+import org.limix.symboltypes.StandardSymbols;
+
+class VarianceReducedSimulatorTest {
+
+  // a jackpot symbol drawn once in 441 cells, its wins about a third of the RTP
+  private static CompiledGame jackpot() {
+    GameConfig config = TestConfigs.standard();
+    config.getSymbols().put("J", new Symbols(5_000_000, "standard", 0, null));
+    for (StandardSymbols cell : config.getProbabilities().getStandardSymbols()) {
+      Map<String, Integer> weights = cell.getSymbols();
+      weights.replaceAll((symbol, weight) -> weight * 20);
+      weights.put("J", 1);
+    }
+    return CompiledGame.compile(config);
+  }
+
+  private static VarianceReducedReport run(CompiledGame game, boolean importanceSampling,
+      boolean stratified, boolean antithetic, long plays, int parallelism) {
+    return new VarianceReducedSimulator(game, RandomSource.defaultSource(), importanceSampling,
+        stratified, antithetic).run(plays, 100, 17, parallelism);
+  }
+
+  @Test
+  @DisplayName("Should estimate the exact RTP with every technique")
+  void shouldEstimateExactRtp() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+    double exact = new ExactAnalyzer(game).analyze(100).rtp();
+
+    for (int techniques = 0; techniques < 8; techniques++) {
+      VarianceReducedReport report = run(game, (techniques & 1) != 0, (techniques & 2) != 0,
+          (techniques & 4) != 0, 200_000, 2);
+      assertEquals(exact, report.rtp(), 4 * report.standardError(), report.techniques()::toString);
+      assertTrue(report.rtpLow() < report.rtp() && report.rtp() < report.rtpHigh());
+      assertTrue(report.plays() <= 200_000 && report.plays() > 190_000);
+    }
+  }
+
+  @Test
+  @DisplayName("Should need far fewer plays than plain sampling for a rare jackpot")
+  void shouldReduceVarianceOfRareJackpot() {
+    CompiledGame game = jackpot();
+    AnalysisReport exact = new ExactAnalyzer(game).analyze(100);
+    long plays = 200_000;
+
+    VarianceReducedReport report = run(game, true, true, false, plays, 2);
+
+    double plainError = Math.sqrt(exact.rewardVariance() / plays) / 100;
+    assertEquals(exact.rtp(), report.rtp(), 4 * report.standardError());
+    assertTrue(plainError / report.standardError() > 10,
+        () -> plainError + " against " + report.standardError());
+    assertTrue(report.varianceReduction() > 100);
+    assertTrue(report.effectiveSampleSize() < report.plays());
+  }
+
+  @Test
+  @DisplayName("Should produce the same report for a seed regardless of parallelism")
+  void shouldBeDeterministicAcrossParallelism() {
+    CompiledGame game = jackpot();
+
+    VarianceReducedReport single = run(game, true, true, true, 100_000, 1);
+    VarianceReducedReport parallel = run(game, true, true, true, 100_000, 4);
+
+    assertEquals(single.rtp(), parallel.rtp());
+    assertEquals(single.standardError(), parallel.standardError());
+    assertEquals(single.effectiveSampleSize(), parallel.effectiveSampleSize());
+  }
+
+  @Test
+  @DisplayName("Should reject too few plays for its strata")
+  void shouldRejectTooFewPlays() {
+    CompiledGame game = CompiledGame.compile(TestConfigs.standard());
+
+    assertThrows(IllegalArgumentException.class, () -> run(game, true, true, true, 100, 1));
+  }
+}
@@ -0,0 +1,106 @@
+package org.limix.engine;
+
+import java.util.Arrays;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch evaluator on the incubating Vector API, built only by the {@code vector} profile. A block
+ * is one vector of byte lanes with a ticket per lane, so a cell column is compared with a symbol
+ * for the whole block at once: the counts of a standard symbol add up one masked increment per cell
+ * and are compared with the runs of winning counts, and an area is won in the lanes where every one
+ * of its cells equals its first, standard cell. Games with more than 127 symbols or cells do not
+ * fit byte lanes and are left to the scalar evaluator, as are the tickets of a last, partial block.
+ */
+final class VectorBatchEvaluator extends BatchEvaluator {
+
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+  private final byte[] standardSymbols;
+  private final byte[] laneCounts;
+  // the counts winning a same_symbols combination as inclusive runs, lows and highs
+  private final byte[] winningLows;
+  private final byte[] winningHighs;
+
+  VectorBatchEvaluator(CompiledGame game, RewardTable rewards) {
+    super(game, rewards, SPECIES.length());
+    if (SPECIES.length() > MAX_BLOCK) {
+      throw new IllegalArgumentException("More than " + MAX_BLOCK + " lanes.");
+    }
+    if (PlayBatch.isWide(game) || game.cellCount() > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException("Game does not fit byte lanes.");
+    }
+    this.standardSymbols = new byte[game.standardSymbolCount()];
+    for (int i = 0; i < standardSymbols.length; i++) {
+      standardSymbols[i] = (byte) game.standardSymbol(i);
+    }
+    this.laneCounts = new byte[SPECIES.length()];
+    byte[] lows = new byte[game.cellCount() + 1];
+    byte[] highs = new byte[game.cellCount() + 1];
+    int runs = 0;
+    for (int count = 1; count <= game.cellCount(); count++) {
+      if (game.sameSymbolsCombination(count) == CompiledGame.EMPTY) {
+        continue;
+      }
+      if (runs > 0 && highs[runs - 1] == count - 1) {
+        highs[runs - 1] = (byte) count;
+      } else {
+        lows[runs] = (byte) count;
+        highs[runs++] = (byte) count;
+      }
+    }
+    this.winningLows = Arrays.copyOf(lows, runs);
+    this.winningHighs = Arrays.copyOf(highs, runs);
+  }
+
+  @Override
+  public String kind() {
+    return "vector";
+  }
+
+  @Override
+  void countAndMatch(PlayBatch batch, int from, int lanes, int[] counts, long[] sameWins,
+      long[] matches) {
+    int width = SPECIES.length();
+    if (lanes < width) {
+      countAndMatchScalar(batch, from, lanes, counts, sameWins, matches);
+      return;
+    }
+    byte[] cells = batch.cellBytes();
+    int capacity = batch.capacity();
+    for (int i = 0; i < standardSymbols.length; i++) {
+      byte symbol = standardSymbols[i];
+      ByteVector count = ByteVector.zero(SPECIES);
+      for (int cell = 0, column = from; cell < game.cellCount(); cell++, column += capacity) {
+        count = count.add((byte) 1, ByteVector.fromArray(SPECIES, cells, column).eq(symbol));
+      }
+      VectorMask<Byte> wins = SPECIES.maskAll(false);
+      for (int run = 0; run < winningLows.length; run++) {
+        wins = wins.or(count.compare(VectorOperators.GE, winningLows[run])
+            .and(count.compare(VectorOperators.LE, winningHighs[run])));
+      }
+      sameWins[i] = wins.toLong();
+      if (wins.anyTrue()) {
+        count.intoArray(laneCounts, 0);
+        for (int lane = 0, at = i * width; lane < width; lane++, at++) {
+          counts[at] = laneCounts[lane];
+        }
+      }
+    }
+    for (int area = 0; area < game.areaCount(); area++) {
+      ByteVector first = ByteVector.fromArray(SPECIES, cells,
+          game.areaCell(area, 0) * capacity + from);
+      VectorMask<Byte> same = SPECIES.maskAll(false);
+      for (int i = 0; i < standardSymbols.length; i++) {
+        same = same.or(first.eq(standardSymbols[i]));
+      }
+      for (int i = 1; i < game.areaSize(area) && same.anyTrue(); i++) {
+        same = same.and(ByteVector.fromArray(SPECIES, cells,
+            game.areaCell(area, i) * capacity + from).eq(first));
+      }
+      matches[area] = same.toLong();
+    }
+  }
+}